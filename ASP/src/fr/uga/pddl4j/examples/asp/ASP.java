@@ -21,10 +21,12 @@ import fr.uga.pddl4j.parser.RequireKey;
 import fr.uga.pddl4j.plan.Plan;
 import fr.uga.pddl4j.plan.SequentialPlan;
 import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.InvalidConfigurationException;
 import fr.uga.pddl4j.planners.Planner;
 import fr.uga.pddl4j.planners.PlannerConfiguration;
 import fr.uga.pddl4j.planners.ProblemNotSupportedException;
 import fr.uga.pddl4j.planners.SearchStrategy;
+import fr.uga.pddl4j.planners.Statistics;
 import fr.uga.pddl4j.planners.statespace.search.StateSpaceSearch;
 import fr.uga.pddl4j.problem.DefaultProblem;
 import fr.uga.pddl4j.problem.Problem;
@@ -35,11 +37,16 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import picocli.CommandLine;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.Flow;
 
 /**
  * The class is an example. It shows how to create a simple A* search planner able to
@@ -60,6 +67,32 @@ import java.util.Set;
     optionListHeading = "%nOptions:%n")
 public class ASP extends AbstractPlanner {
 
+    /**
+     * The search strategies of the planner.
+     */
+    public enum Search {
+        /**
+         * A* search.
+         */
+        ASTAR,
+        /**
+         * Greedy best-first search with deferred heuristic evaluation.
+         */
+        LAZY_GREEDY,
+        /**
+         * Weighted best-first search with deferred heuristic evaluation.
+         */
+        LAZY_WEIGHTED,
+        /**
+         * Weighted A* search keeping its nodes on disk, with delayed duplicate detection.
+         */
+        EXTERNAL,
+        /**
+         * Bidirectional blind search on sets of states represented by BDDs.
+         */
+        SYMBOLIC
+    }
+
     /**
      * The class logger.
      */
@@ -85,6 +118,117 @@ public class ASP extends AbstractPlanner {
      */
     public static final double DEFAULT_WEIGHT_HEURISTIC = 1.0;
 
+    /**
+     * The LANDMARKS property used for planner configuration.
+     */
+    public static final String LANDMARKS_SETTING = "LANDMARKS";
+
+    /**
+     * The default value of the LANDMARKS property used for planner configuration.
+     */
+    public static final boolean DEFAULT_LANDMARKS = false;
+
+    /**
+     * The SEARCH property used for planner configuration.
+     */
+    public static final String SEARCH_SETTING = "SEARCH";
+
+    /**
+     * The default value of the SEARCH property used for planner configuration.
+     */
+    public static final Search DEFAULT_SEARCH = Search.ASTAR;
+
+    /**
+     * The PREFERRED_OPERATORS property used for planner configuration.
+     */
+    public static final String PREFERRED_OPERATORS_SETTING = "PREFERRED_OPERATORS";
+
+    /**
+     * The default value of the PREFERRED_OPERATORS property used for planner configuration.
+     */
+    public static final boolean DEFAULT_PREFERRED_OPERATORS = false;
+
+    /**
+     * The PARTIAL_ORDER_REDUCTION property used for planner configuration.
+     */
+    public static final String PARTIAL_ORDER_REDUCTION_SETTING = "PARTIAL_ORDER_REDUCTION";
+
+    /**
+     * The default value of the PARTIAL_ORDER_REDUCTION property used for planner configuration.
+     */
+    public static final boolean DEFAULT_PARTIAL_ORDER_REDUCTION = false;
+
+    /**
+     * The SYMMETRY_BREAKING property used for planner configuration.
+     */
+    public static final String SYMMETRY_BREAKING_SETTING = "SYMMETRY_BREAKING";
+
+    /**
+     * The default value of the SYMMETRY_BREAKING property used for planner configuration.
+     */
+    public static final boolean DEFAULT_SYMMETRY_BREAKING = false;
+
+    /**
+     * The WARM_START property used for planner configuration.
+     */
+    public static final String WARM_START_SETTING = "WARM_START";
+
+    /**
+     * The default value of the WARM_START property used for planner configuration: no previous plan.
+     */
+    public static final String DEFAULT_WARM_START = "";
+
+    /**
+     * The LOOKAHEAD property used for planner configuration.
+     */
+    public static final String LOOKAHEAD_SETTING = "LOOKAHEAD";
+
+    /**
+     * The default value of the LOOKAHEAD property used for planner configuration.
+     */
+    public static final boolean DEFAULT_LOOKAHEAD = false;
+
+    /**
+     * The MEMORY_BUDGET property used for planner configuration.
+     */
+    public static final String MEMORY_BUDGET_SETTING = "MEMORY_BUDGET";
+
+    /**
+     * The default value of the MEMORY_BUDGET property used for planner configuration: only the heap is
+     * watched.
+     */
+    public static final int DEFAULT_MEMORY_BUDGET = 0;
+
+    /**
+     * The AUTO_HEURISTIC property used for planner configuration.
+     */
+    public static final String AUTO_HEURISTIC_SETTING = "AUTO_HEURISTIC";
+
+    /**
+     * The default value of the AUTO_HEURISTIC property used for planner configuration.
+     */
+    public static final boolean DEFAULT_AUTO_HEURISTIC = false;
+
+    /**
+     * The GROUNDED property used for planner configuration.
+     */
+    public static final String GROUNDED_SETTING = "GROUNDED";
+
+    /**
+     * The default value of the GROUNDED property used for planner configuration: no grounded problem file.
+     */
+    public static final String DEFAULT_GROUNDED = "";
+
+    /**
+     * The number of expansions given to the preferred successors each time the heuristic improves.
+     */
+    public static int BOOST = 1000;
+
+    /**
+     * The number of successors generated by the external search before the duplicates are detected.
+     */
+    public static int BATCH = 10_000;
+
     /**
      * The weight of the heuristic.
      */
@@ -95,6 +239,77 @@ public class ASP extends AbstractPlanner {
      */
     private StateHeuristic.Name heuristic;
 
+    /**
+     * Whether the search is guided by the landmark-count heuristic instead of the heuristic.
+     */
+    private boolean landmarks;
+
+    /**
+     * The search strategy of the planner.
+     */
+    private Search search;
+
+    /**
+     * Whether the successors reached by the helpful actions of the relaxed plan are expanded first.
+     */
+    private boolean preferredOperators;
+
+    /**
+     * Whether the successors are pruned with strong stubborn sets.
+     */
+    private boolean partialOrderReduction;
+
+    /**
+     * Whether the duplicate detection uses the canonical representatives of the symmetric states.
+     */
+    private boolean symmetryBreaking;
+
+    /**
+     * The path of the plan file of a previous problem replayed to warm-start the search or an empty string.
+     */
+    private String warmStart;
+
+    /**
+     * The names of the actions of a previous plan replayed to warm-start the search, or null.
+     */
+    private List<String> previousPlan;
+
+    /**
+     * The indexes of the actions of the valid prefix of the previous plan, or null without warm start.
+     */
+    private int[] warmPrefix;
+
+    /**
+     * Whether the states reached by applying the relaxed plans of the expanded nodes are added to the open
+     * list.
+     */
+    private boolean lookahead;
+
+    /**
+     * The memory budget in MB of a search or 0 if only the heap is watched.
+     */
+    private int memoryBudget;
+
+    /**
+     * Whether the heuristic is selected by measuring the heuristics on the problem to solve.
+     */
+    private boolean autoHeuristic;
+
+    /**
+     * The path of the grounded problem file or an empty string.
+     */
+    private String grounded;
+
+    /**
+     * The monitor publishing the progress of the searches.
+     */
+    private final ProgressMonitor progress = new ProgressMonitor();
+
+    /**
+     * The token cancelling the search or null.
+     */
+    private volatile CancellationToken cancellation;
+
     /**
      * Creates a new A* search planner with the default configuration.
      */
@@ -139,6 +354,271 @@ public class ASP extends AbstractPlanner {
         this.heuristic = heuristic;
     }
 
+    /**
+     * Sets whether the search is guided by the landmark-count heuristic instead of the heuristic.
+     *
+     * @param landmarks <code>true</code> to use the landmark-count heuristic.
+     */
+    @CommandLine.Option(names = {"--landmarks"}, defaultValue = "false",
+        description = "Use the landmark-count heuristic instead of the heuristic set with -e.")
+    public void setLandmarks(final boolean landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Sets the search strategy of the planner.
+     *
+     * @param search the search strategy.
+     */
+    @CommandLine.Option(names = {"--search"}, defaultValue = "ASTAR",
+        description = "Set the search strategy : ASTAR, LAZY_GREEDY, LAZY_WEIGHTED, EXTERNAL, SYMBOLIC "
+            + "(preset: ASTAR)")
+    public void setSearch(final Search search) {
+        this.search = search;
+    }
+
+    /**
+     * Sets whether the successors reached by the helpful actions of the relaxed plan are expanded first
+     * by the lazy searches.
+     *
+     * @param preferredOperators <code>true</code> to boost the preferred successors.
+     */
+    @CommandLine.Option(names = {"--preferred"}, defaultValue = "false",
+        description = "Boost the successors reached by helpful actions in the lazy searches.")
+    public void setPreferredOperators(final boolean preferredOperators) {
+        this.preferredOperators = preferredOperators;
+    }
+
+    /**
+     * Sets whether the successors are pruned with strong stubborn sets.
+     *
+     * @param partialOrderReduction <code>true</code> to prune the successors.
+     */
+    @CommandLine.Option(names = {"--por"}, defaultValue = "false",
+        description = "Prune the successors with a partial-order reduction based on strong stubborn sets.")
+    public void setPartialOrderReduction(final boolean partialOrderReduction) {
+        this.partialOrderReduction = partialOrderReduction;
+    }
+
+    /**
+     * Sets whether the duplicate detection uses the canonical representatives of the symmetric states.
+     *
+     * @param symmetryBreaking <code>true</code> to prune the symmetric states.
+     */
+    @CommandLine.Option(names = {"--symmetry"}, defaultValue = "false",
+        description = "Prune the states symmetric to a state already explored (interchangeable objects).")
+    public void setSymmetryBreaking(final boolean symmetryBreaking) {
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    /**
+     * Sets the plan file of a previous problem replayed to warm-start the search.
+     *
+     * @param warmStart the path of the plan file or an empty string to start from the initial state.
+     */
+    @CommandLine.Option(names = {"--warm-start"}, defaultValue = "", paramLabel = "<plan>",
+        description = "Replay the valid prefix of the plan of a previous problem and seed the open list with "
+            + "its states (preset: none).")
+    public void setWarmStart(final String warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * Sets whether the states reached by applying the relaxed plans of the expanded nodes are added to the
+     * open list.
+     *
+     * @param lookahead <code>true</code> to look ahead.
+     */
+    @CommandLine.Option(names = {"--lookahead"}, defaultValue = "false",
+        description = "Add to the open list the state reached by applying the relaxed plan of each expanded "
+            + "node in the A* and lazy searches.")
+    public void setLookahead(final boolean lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Sets the memory budget of a search. The A* and lazy searches of the planner are degraded when their
+     * estimated memory grows, see {@link MemoryGovernor}.
+     *
+     * @param memoryBudget the budget in MB or 0 to only watch the heap.
+     */
+    @CommandLine.Option(names = {"--memory-budget"}, defaultValue = "0", paramLabel = "<MB>",
+        description = "Set the memory budget of the search; the search becomes weighted, then greedy, then "
+            + "prunes its open list as its memory grows (preset: 0, only the heap is watched).")
+    public void setMemoryBudget(final int memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets whether the heuristic is selected by measuring the heuristics on the problem to solve, see
+     * {@link HeuristicSelector}. The heuristic selected guides the search of each problem solved, the
+     * heuristic of the planner is left unchanged.
+     *
+     * @param autoHeuristic <code>true</code> to select the heuristic.
+     */
+    @CommandLine.Option(names = {"--auto-heuristic"}, defaultValue = "false",
+        description = "Select the heuristic with the lowest expected time to plan, measured by short probes "
+            + "of each heuristic (preset: false).")
+    public void setAutoHeuristic(final boolean autoHeuristic) {
+        this.autoHeuristic = autoHeuristic;
+    }
+
+    /**
+     * Sets the grounded problem file of the problem, see {@link BinaryProblem}. The problem is loaded from the
+     * file when the file is up to date with the domain and problem files; otherwise the problem is parsed,
+     * instantiated and saved to the file.
+     *
+     * @param grounded the path of the grounded problem file or an empty string to always instantiate.
+     */
+    @CommandLine.Option(names = {"--grounded"}, defaultValue = "", paramLabel = "<file>",
+        description = "Load the instantiated problem from a grounded problem file, or save it to the file when "
+            + "the file is missing or older than the domain and problem files (preset: none).")
+    public void setGrounded(final String grounded) {
+        this.grounded = grounded;
+    }
+
+    /**
+     * Sets the token cancelling the search. The token is checked by the loops of the searches of the
+     * planner; a cancelled search returns null.
+     *
+     * @param cancellation the token or null to disable the cancellation.
+     */
+    public void setCancellationToken(final CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Sets the plan of a previous problem replayed to warm-start the search. The plan takes precedence over
+     * the plan file set with {@link #setWarmStart(String)}.
+     *
+     * @param problem the previous problem.
+     * @param plan    the plan of the previous problem or null to start from the initial state.
+     */
+    public void setPreviousPlan(final Problem problem, final Plan plan) {
+        this.previousPlan = plan == null ? null : PlanRepair.names(problem, plan);
+    }
+
+    /**
+     * Returns the search strategy of the planner.
+     *
+     * @return the search strategy of the planner.
+     */
+    public final Search getSearch() {
+        return this.search;
+    }
+
+    /**
+     * Returns whether the successors reached by the helpful actions are expanded first.
+     *
+     * @return <code>true</code> if the preferred successors are boosted, <code>false</code> otherwise.
+     */
+    public final boolean isPreferredOperators() {
+        return this.preferredOperators;
+    }
+
+    /**
+     * Returns whether the successors are pruned with strong stubborn sets.
+     *
+     * @return <code>true</code> if the partial-order reduction is used, <code>false</code> otherwise.
+     */
+    public final boolean isPartialOrderReduction() {
+        return this.partialOrderReduction;
+    }
+
+    /**
+     * Returns whether the duplicate detection uses the canonical representatives of the symmetric states.
+     *
+     * @return <code>true</code> if the symmetric states are pruned, <code>false</code> otherwise.
+     */
+    public final boolean isSymmetryBreaking() {
+        return this.symmetryBreaking;
+    }
+
+    /**
+     * Returns the plan file of a previous problem replayed to warm-start the search.
+     *
+     * @return the path of the plan file or an empty string if the search starts from the initial state.
+     */
+    public final String getWarmStart() {
+        return this.warmStart;
+    }
+
+    /**
+     * Returns whether the states reached by applying the relaxed plans of the expanded nodes are added to the
+     * open list.
+     *
+     * @return <code>true</code> if the search looks ahead, <code>false</code> otherwise.
+     */
+    public final boolean isLookahead() {
+        return this.lookahead;
+    }
+
+    /**
+     * Returns the memory budget of a search.
+     *
+     * @return the budget in MB or 0 if only the heap is watched.
+     */
+    public final int getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Returns whether the heuristic is selected by measuring the heuristics on the problem to solve.
+     *
+     * @return <code>true</code> if the heuristic is selected, <code>false</code> otherwise.
+     */
+    public final boolean isAutoHeuristic() {
+        return this.autoHeuristic;
+    }
+
+    /**
+     * Returns the grounded problem file of the problem.
+     *
+     * @return the path of the grounded problem file or an empty string if the problem is always instantiated.
+     */
+    public final String getGrounded() {
+        return this.grounded;
+    }
+
+    /**
+     * Returns the token cancelling the search.
+     *
+     * @return the token or null if the search cannot be cancelled.
+     */
+    public final CancellationToken getCancellationToken() {
+        return this.cancellation;
+    }
+
+    /**
+     * Returns the stream of the progress events of the searches: the best heuristic value, the number of
+     * expansions per second and the length of the plan found. The stream is shared by the successive
+     * searches of the planner; the last event of a search is done.
+     *
+     * @return the publisher of the progress events.
+     */
+    public Flow.Publisher<SearchProgress> getProgress() {
+        return this.progress;
+    }
+
+    /**
+     * Returns whether the search is cancelled.
+     *
+     * @return <code>true</code> if the token of the planner is cancelled, <code>false</code> otherwise.
+     */
+    private boolean isCancelled() {
+        final CancellationToken token = this.cancellation;
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * Returns whether the search is guided by the landmark-count heuristic.
+     *
+     * @return <code>true</code> if the landmark-count heuristic is used, <code>false</code> otherwise.
+     */
+    public final boolean isLandmarks() {
+        return this.landmarks;
+    }
+
     /**
      * Returns the name of the heuristic used by the planner to solve a planning problem.
      *
@@ -167,23 +647,132 @@ public class ASP extends AbstractPlanner {
     public Problem instantiate(DefaultParsedProblem problem) {
         final Problem pb = new DefaultProblem(problem);
         pb.instantiate();
+        if (!this.getGrounded().isEmpty()) {
+            try {
+                BinaryProblem.write(pb, new File(this.getGrounded()), this.getDomain(),
+                    this.getProblem());
+                LOGGER.info("* Grounded problem saved to {}\n", this.getGrounded());
+            } catch (IOException e) {
+                LOGGER.error("* Grounded problem not saved: {}\n", e.getMessage());
+            }
+        }
         return pb;
     }
 
+    /**
+     * Solves the problem of the planner. When the grounded problem file was grounded from the domain and
+     * problem files in their current state, the problem is loaded from the file instead of being parsed and
+     * instantiated; otherwise the problem is parsed and instantiated, and saved to the file, see
+     * {@link #instantiate}.
+     *
+     * @return the plan found or null if no plan was found.
+     * @throws InvalidConfigurationException if the configuration of the planner is not valid.
+     */
+    @Override
+    public Plan solve() throws InvalidConfigurationException {
+        final File file = this.getGrounded().isEmpty() ? null : new File(this.getGrounded());
+        if (file == null || BinaryProblem.isStale(file, this.getDomain(), this.getProblem())) {
+            return super.solve();
+        }
+        if (!this.hasValidConfiguration()) {
+            this.throwInvalidConfigurationException();
+        }
+        final long begin = System.currentTimeMillis();
+        final Problem problem;
+        try {
+            problem = BinaryProblem.load(file, this.getDomain(), this.getProblem());
+        } catch (IOException | RuntimeException e) {
+            // A corrupted file, or a file of other or modified sources, is written again by the instantiation
+            LOGGER.error("* Grounded problem not loaded: {}\n", e.getMessage());
+            return super.solve();
+        }
+        this.getStatistics().setTimeToParse(0);
+        this.getStatistics().setTimeToEncode(System.currentTimeMillis() - begin);
+        this.getStatistics().setNumberOfActions(problem.getActions().size());
+        this.getStatistics().setNumberOfRelevantFluents(problem.getFluents().size());
+        LOGGER.info("* Grounded problem loaded from {} in {} ms ({} actions, {} fluents)\n", file,
+            this.getStatistics().getTimeToEncode(), problem.getActions().size(), problem.getFluents().size());
+        final Plan plan;
+        try {
+            plan = this.solve(problem);
+        } catch (ProblemNotSupportedException e) {
+            LOGGER.fatal(e.getMessage());
+            return null;
+        }
+        if (plan != null) {
+            LOGGER.info("\nfound plan as follows:\n\n{}\n", problem.toString(plan));
+            final Statistics statistics = this.getStatistics();
+            LOGGER.info(String.format("time spent:   %8.2f seconds loading%n"
+                    + "              %8.2f seconds searching%n              %8.2f seconds total time%n%n",
+                Statistics.millisecondToSecond(statistics.getTimeToEncode()),
+                Statistics.millisecondToSecond(statistics.getTimeToSearch()),
+                Statistics.millisecondToSecond(statistics.getTimeToEncode() + statistics.getTimeToSearch())));
+        }
+        return plan;
+    }
+
     /**
      * Search a solution plan to a specified domain and problem using A*.
      *
      * @param problem the problem to solve.
      * @return the plan found or null if no plan was found.
+     * @throws ProblemNotSupportedException if the problem to solve is not supported by the planner.
      */
     @Override
-    public Plan solve(final Problem problem) {
+    public Plan solve(final Problem problem) throws ProblemNotSupportedException {
+        // The valid prefix of the previous plan seeds the open list of the searches of the planner
+        this.warmPrefix = null;
+        try {
+            final List<String> previous = this.previousPlan != null ? this.previousPlan
+                : this.getWarmStart().isEmpty() ? null : PlanRepair.read(new File(this.getWarmStart()));
+            if (previous != null) {
+                this.warmPrefix = new PlanRepair(problem).prefix(previous);
+                LOGGER.info("* {} of {} actions of the previous plan replayed\n", this.warmPrefix.length,
+                    previous.size());
+            }
+        } catch (IOException e) {
+            LOGGER.error("* Previous plan not loaded: {}\n", e.getMessage());
+        }
+        // The landmark-count heuristic replaces the heuristic of the planner, which is not selected then
+        // The heuristic selected is only used by this search, the heuristic of the planner is kept
+        final StateHeuristic.Name heuristic = this.isAutoHeuristic() && !this.isLandmarks()
+            ? new HeuristicSelector(problem).select(this.getTimeout(), this.getHeuristic()) : this.getHeuristic();
+        // The heuristics, the strategies, the progress and the cancellation that are not part of pddl4j need
+        // the searches of the planner
+        this.progress.start();
+        if (this.isLandmarks() || this.isPartialOrderReduction() || this.isSymmetryBreaking()
+            || this.warmPrefix != null || this.isLookahead() || this.getSearch() != Search.ASTAR
+            || this.getCancellationToken() != null || this.progress.hasSubscribers()
+            || this.getMemoryBudget() > 0) {
+            LOGGER.info("* Starting {} search \n", this.getSearch());
+            final long begin = System.currentTimeMillis();
+            final Plan plan;
+            if (this.getSearch() == Search.ASTAR) {
+                plan = this.astar(problem, heuristic);
+            } else if (this.getSearch() == Search.EXTERNAL) {
+                plan = this.external(problem, heuristic);
+            } else if (this.getSearch() == Search.SYMBOLIC) {
+                plan = this.symbolic(problem, heuristic);
+            } else {
+                plan = this.lazy(problem, heuristic);
+            }
+            final long end = System.currentTimeMillis();
+            this.progress.finish(plan == null ? -1 : plan.size());
+            if (plan != null) {
+                LOGGER.info("* {} search succeeded\n", this.getSearch());
+                this.getStatistics().setTimeToSearch(end - begin);
+            } else {
+                LOGGER.info("* {} search failed\n", this.getSearch());
+            }
+            return plan;
+        }
         // Creates the A* search strategy
         StateSpaceSearch search = StateSpaceSearch.getInstance(SearchStrategy.Name.ASTAR,
-            this.getHeuristic(), this.getHeuristicWeight(), this.getTimeout());
+            heuristic, this.getHeuristicWeight(), this.getTimeout());
         LOGGER.info("* Starting A* search \n");
         // Search a solution
         Plan plan = search.searchPlan(problem);
+        this.progress.finish(plan == null ? -1 : plan.size());
         // If a plan is found update the statistics of the planner and log search information
         if (plan != null) {
             LOGGER.info("* A* search succeeded\n");
@@ -200,14 +789,45 @@ public class ASP extends AbstractPlanner {
      * Checks the planner configuration and returns if the configuration is valid.
      * A configuration is valid if (1) the domain and the problem files exist and
      * can be read, (2) the timeout is greater than 0, (3) the weight of the
-     * heuristic is greater than 0 and (4) the heuristic is a not null.
+     * heuristic is greater than 0, (4) the heuristic is a not null, (5) the warm
+     * start plan file and (6) the grounded problem file are not null, empty when
+     * unused, (7) the memory budget is greater than or equal to 0 and (8) the search
+     * strategy is not null.
      *
      * @return <code>true</code> if the configuration is valid <code>false</code> otherwise.
      */
     public boolean hasValidConfiguration() {
         return super.hasValidConfiguration()
             && this.getHeuristicWeight() > 0.0
-            && this.getHeuristic() != null;
+            && this.getHeuristic() != null
+            && this.getWarmStart() != null
+            && this.getGrounded() != null
+            && this.getMemoryBudget() >= 0
+            && this.getSearch() != null;
+    }
+
+    /**
+     * Throws the exception describing the first setting that makes the configuration invalid, see
+     * {@link #hasValidConfiguration()}.
+     *
+     * @throws InvalidConfigurationException if the configuration is invalid.
+     */
+    @Override
+    protected void throwInvalidConfigurationException() throws InvalidConfigurationException {
+        super.throwInvalidConfigurationException();
+        if (this.getHeuristicWeight() <= 0.0) {
+            throw new InvalidConfigurationException("Invalid heuristic weight");
+        } else if (this.getHeuristic() == null) {
+            throw new InvalidConfigurationException("Undefined heuristic");
+        } else if (this.getWarmStart() == null) {
+            throw new InvalidConfigurationException("Undefined warm start plan file");
+        } else if (this.getGrounded() == null) {
+            throw new InvalidConfigurationException("Undefined grounded problem file");
+        } else if (this.getMemoryBudget() < 0) {
+            throw new InvalidConfigurationException("Invalid memory budget");
+        } else if (this.getSearch() == null) {
+            throw new InvalidConfigurationException("Undefined search strategy");
+        }
     }
 
     /**
@@ -221,6 +841,17 @@ public class ASP extends AbstractPlanner {
         config.setProperty(ASP.HEURISTIC_SETTING, ASP.DEFAULT_HEURISTIC.toString());
         config.setProperty(ASP.WEIGHT_HEURISTIC_SETTING,
             Double.toString(ASP.DEFAULT_WEIGHT_HEURISTIC));
+        config.setProperty(ASP.LANDMARKS_SETTING, Boolean.toString(ASP.DEFAULT_LANDMARKS));
+        config.setProperty(ASP.SEARCH_SETTING, ASP.DEFAULT_SEARCH.toString());
+        config.setProperty(ASP.PREFERRED_OPERATORS_SETTING, Boolean.toString(ASP.DEFAULT_PREFERRED_OPERATORS));
+        config.setProperty(ASP.PARTIAL_ORDER_REDUCTION_SETTING,
+            Boolean.toString(ASP.DEFAULT_PARTIAL_ORDER_REDUCTION));
+        config.setProperty(ASP.SYMMETRY_BREAKING_SETTING, Boolean.toString(ASP.DEFAULT_SYMMETRY_BREAKING));
+        config.setProperty(ASP.WARM_START_SETTING, ASP.DEFAULT_WARM_START);
+        config.setProperty(ASP.LOOKAHEAD_SETTING, Boolean.toString(ASP.DEFAULT_LOOKAHEAD));
+        config.setProperty(ASP.MEMORY_BUDGET_SETTING, Integer.toString(ASP.DEFAULT_MEMORY_BUDGET));
+        config.setProperty(ASP.AUTO_HEURISTIC_SETTING, Boolean.toString(ASP.DEFAULT_AUTO_HEURISTIC));
+        config.setProperty(ASP.GROUNDED_SETTING, ASP.DEFAULT_GROUNDED);
         return config;
     }
 
@@ -234,6 +865,16 @@ public class ASP extends AbstractPlanner {
         final PlannerConfiguration config = super.getConfiguration();
         config.setProperty(ASP.HEURISTIC_SETTING, this.getHeuristic().toString());
         config.setProperty(ASP.WEIGHT_HEURISTIC_SETTING, Double.toString(this.getHeuristicWeight()));
+        config.setProperty(ASP.LANDMARKS_SETTING, Boolean.toString(this.isLandmarks()));
+        config.setProperty(ASP.SEARCH_SETTING, this.getSearch().toString());
+        config.setProperty(ASP.PREFERRED_OPERATORS_SETTING, Boolean.toString(this.isPreferredOperators()));
+        config.setProperty(ASP.PARTIAL_ORDER_REDUCTION_SETTING, Boolean.toString(this.isPartialOrderReduction()));
+        config.setProperty(ASP.SYMMETRY_BREAKING_SETTING, Boolean.toString(this.isSymmetryBreaking()));
+        config.setProperty(ASP.WARM_START_SETTING, this.getWarmStart());
+        config.setProperty(ASP.LOOKAHEAD_SETTING, Boolean.toString(this.isLookahead()));
+        config.setProperty(ASP.MEMORY_BUDGET_SETTING, Integer.toString(this.getMemoryBudget()));
+        config.setProperty(ASP.AUTO_HEURISTIC_SETTING, Boolean.toString(this.isAutoHeuristic()));
+        config.setProperty(ASP.GROUNDED_SETTING, this.getGrounded());
         return config;
     }
 
@@ -258,6 +899,59 @@ public class ASP extends AbstractPlanner {
             this.setHeuristic(StateHeuristic.Name.valueOf(configuration.getProperty(
                 ASP.HEURISTIC_SETTING)));
         }
+        if (configuration.getProperty(ASP.LANDMARKS_SETTING) == null) {
+            this.setLandmarks(ASP.DEFAULT_LANDMARKS);
+        } else {
+            this.setLandmarks(Boolean.parseBoolean(configuration.getProperty(ASP.LANDMARKS_SETTING)));
+        }
+        if (configuration.getProperty(ASP.SEARCH_SETTING) == null) {
+            this.setSearch(ASP.DEFAULT_SEARCH);
+        } else {
+            this.setSearch(Search.valueOf(configuration.getProperty(ASP.SEARCH_SETTING)));
+        }
+        if (configuration.getProperty(ASP.PREFERRED_OPERATORS_SETTING) == null) {
+            this.setPreferredOperators(ASP.DEFAULT_PREFERRED_OPERATORS);
+        } else {
+            this.setPreferredOperators(Boolean.parseBoolean(configuration.getProperty(
+                ASP.PREFERRED_OPERATORS_SETTING)));
+        }
+        if (configuration.getProperty(ASP.PARTIAL_ORDER_REDUCTION_SETTING) == null) {
+            this.setPartialOrderReduction(ASP.DEFAULT_PARTIAL_ORDER_REDUCTION);
+        } else {
+            this.setPartialOrderReduction(Boolean.parseBoolean(configuration.getProperty(
+                ASP.PARTIAL_ORDER_REDUCTION_SETTING)));
+        }
+        if (configuration.getProperty(ASP.SYMMETRY_BREAKING_SETTING) == null) {
+            this.setSymmetryBreaking(ASP.DEFAULT_SYMMETRY_BREAKING);
+        } else {
+            this.setSymmetryBreaking(Boolean.parseBoolean(configuration.getProperty(
+                ASP.SYMMETRY_BREAKING_SETTING)));
+        }
+        if (configuration.getProperty(ASP.WARM_START_SETTING) == null) {
+            this.setWarmStart(ASP.DEFAULT_WARM_START);
+        } else {
+            this.setWarmStart(configuration.getProperty(ASP.WARM_START_SETTING));
+        }
+        if (configuration.getProperty(ASP.LOOKAHEAD_SETTING) == null) {
+            this.setLookahead(ASP.DEFAULT_LOOKAHEAD);
+        } else {
+            this.setLookahead(Boolean.parseBoolean(configuration.getProperty(ASP.LOOKAHEAD_SETTING)));
+        }
+        if (configuration.getProperty(ASP.MEMORY_BUDGET_SETTING) == null) {
+            this.setMemoryBudget(ASP.DEFAULT_MEMORY_BUDGET);
+        } else {
+            this.setMemoryBudget(Integer.parseInt(configuration.getProperty(ASP.MEMORY_BUDGET_SETTING)));
+        }
+        if (configuration.getProperty(ASP.AUTO_HEURISTIC_SETTING) == null) {
+            this.setAutoHeuristic(ASP.DEFAULT_AUTO_HEURISTIC);
+        } else {
+            this.setAutoHeuristic(Boolean.parseBoolean(configuration.getProperty(ASP.AUTO_HEURISTIC_SETTING)));
+        }
+        if (configuration.getProperty(ASP.GROUNDED_SETTING) == null) {
+            this.setGrounded(ASP.DEFAULT_GROUNDED);
+        } else {
+            this.setGrounded(configuration.getProperty(ASP.GROUNDED_SETTING));
+        }
     }
 
     /**
@@ -283,23 +977,53 @@ public class ASP extends AbstractPlanner {
      * @throws ProblemNotSupportedException if the problem to solve is not supported by the planner.
      */
     public Plan astar(Problem problem) throws ProblemNotSupportedException {
+        return this.astar(problem, this.getHeuristic());
+    }
+
+    /**
+     * Search a solution plan for a planning problem using an A* search strategy guided by a heuristic.
+     *
+     * @param problem       the problem to solve.
+     * @param heuristicName the heuristic guiding the search.
+     * @return a plan solution for the problem or null if there is no solution
+     * @throws ProblemNotSupportedException if the problem to solve is not supported by the planner.
+     */
+    public Plan astar(Problem problem, StateHeuristic.Name heuristicName) throws ProblemNotSupportedException {
         // Check if the problem is supported by the planner
         if (!this.isSupported(problem)) {
             throw new ProblemNotSupportedException("Problem not supported");
         }
 
         // First we create an instance of the heuristic to use to guide the search
-        final StateHeuristic heuristic = StateHeuristic.getInstance(this.getHeuristic(), problem);
+        final StateHeuristic heuristic = this.isLandmarks() ? new LandmarkCount(problem)
+            : StateHeuristic.getInstance(heuristicName, problem);
+
+        // We create the partial-order reduction used to prune the successors if required
+        final StubbornSets stubborn = this.isPartialOrderReduction() ? new StubbornSets(problem) : null;
+
+        // We detect the symmetries used to identify the symmetric states if required
+        final Symmetries symmetries = this.createSymmetries(problem);
+
+        // We encode the states into words to copy, hash and compare them cheaply
+        final CompactEncoding encoding = new CompactEncoding(problem);
+
+        // We create the extractor of the relaxed plans applied to look ahead if required
+        final RelaxedPlan relaxed = this.isLookahead() ? new RelaxedPlan(problem) : null;
+
+        // We create the governor degrading the search when its memory grows
+        final MemoryGovernor governor = new MemoryGovernor(problem, this.getMemoryBudget());
+        MemoryGovernor.Level stage = MemoryGovernor.Level.NORMAL;
+        long expansions = 0;
 
         // We get the initial state from the planning problem
         final State init = new State(problem.getInitialState());
 
-        // We initialize the closed list of nodes (store the nodes explored)
-        final Set<Node> close = new HashSet<>();
+        // We initialize the closed list of nodes (store the compact canonical states explored)
+        final Set<CompactState> close = new HashSet<>();
 
         // We initialize the opened list to store the pending node according to function f
         final double weight = this.getHeuristicWeight();
-        final PriorityQueue<Node> open = new PriorityQueue<>(100, new Comparator<Node>() {
+        PriorityQueue<Node> open = new PriorityQueue<>(100, new Comparator<Node>() {
             public int compare(Node n1, Node n2) {
                 double f1 = weight * n1.getHeuristic() + n1.getCost();
                 double f2 = weight * n2.getHeuristic() + n2.getCost();
@@ -308,55 +1032,514 @@ public class ASP extends AbstractPlanner {
         });
 
         // We create the root node of the tree search
-        final Node root = new Node(init, null, -1, 0, heuristic.estimate(init, problem.getGoal()));
+        final Node root = new Node(init, null, -1, 0, 0);
+        if (heuristic instanceof LandmarkCount) {
+            root.setLandmarks(((LandmarkCount) heuristic).accepted(init));
+        }
+        root.setHeuristic(heuristic.estimate(root, problem.getGoal()));
 
-        // We add the root to the list of pending nodes
+        // We add the root and the states of the valid prefix of the previous plan to the list of pending nodes
         open.add(root);
+        open.addAll(this.warmStart(problem, root, heuristic));
         Plan plan = null;
 
-        // We set the timeout in ms allocated to the search
-        final int timeout = this.getTimeout() * 1000;
-        long time = 0;
+        // We set the time in ms at which the search gives up
+        final long deadline = System.currentTimeMillis() + this.getTimeout() * 1000L;
 
         // We start the search
-        while (!open.isEmpty() && plan == null && time < timeout) {
+        while (!open.isEmpty() && plan == null && System.currentTimeMillis() < deadline && !this.isCancelled()) {
 
             // We pop the first node in the pending list open
             final Node current = open.poll();
-            close.add(current);
+            this.progress.add(1);
+            this.progress.heuristic(current.getHeuristic());
+            this.progress.report();
+            final CompactState compact = encoding.encode(current);
+            close.add(ASP.key(compact, encoding, symmetries));
+
+            // We degrade the search when its memory grows too large
+            if (++expansions % MemoryGovernor.PERIOD == 0) {
+                final MemoryGovernor.Level level = governor.level(open.size(), close.size());
+                if (level == MemoryGovernor.Level.ABORT) {
+                    LOGGER.error("* Memory exhausted after {} expansions\n", expansions);
+                    break;
+                }
+                final MemoryGovernor.Level order = ASP.order(level);
+                if (order.compareTo(stage) > 0) {
+                    stage = order;
+                    open = ASP.reorder(open, ASP.comparator(stage, weight));
+                    LOGGER.info("* Search degraded to {} after {} expansions\n", stage, expansions);
+                }
+                if (level == MemoryGovernor.Level.PRUNE) {
+                    open = ASP.prune(open, governor.capacity(open.size(), close.size()));
+                }
+            }
 
             // If the goal is satisfied in the current node then extract the search and return it
-            if (current.satisfy(problem.getGoal())) {
-                return this.extractPlan(current, problem);
+            if (encoding.isGoal(compact)) {
+                plan = this.extractPlan(current, problem);
             } else { // Else we try to apply the actions of the problem to the current node
+                final BitSet pruned = stubborn == null ? null : stubborn.applicable(current);
                 for (int i = 0; i < problem.getActions().size(); i++) {
                     // We get the actions of the problem
                     Action a = problem.getActions().get(i);
-                    // If the action is applicable in the current node
-                    if (a.isApplicable(current)) {
-                        Node next = new Node(current);
-                        // We apply the effect of the action
-                        final List<ConditionalEffect> effects = a.getConditionalEffects();
-                        for (ConditionalEffect ce : effects) {
-                            if (current.satisfy(ce.getCondition())) {
-                                next.apply(ce.getEffect());
-                            }
-                        }
-                        // We set the new child node information
+                    // If the action is applicable in the current node and not pruned
+                    if (encoding.isApplicable(compact, i) && (pruned == null || pruned.get(i))) {
+                        // We apply the effect of the action to the compact state
+                        final CompactState successor = encoding.apply(compact, i);
+                        // We only create the child node if its state was not explored
                         final double g = current.getCost() + 1;
-                        if (!close.contains(next)) {
-                            next.setCost(g);
-                            next.setParent(current);
-                            next.setAction(i);
+                        if (!close.contains(ASP.key(successor, encoding, symmetries))) {
+                            final Node next = new Node(encoding.decode(successor), current, i, g, 0);
+                            if (heuristic instanceof LandmarkCount) {
+                                next.setLandmarks(((LandmarkCount) heuristic).accepted(current, a));
+                            }
                             next.setHeuristic(heuristic.estimate(next, problem.getGoal()));
                             open.add(next);
                         }
                     }
                 }
+                // We add the state reached by applying the relaxed plan of the current node
+                if (relaxed != null) {
+                    final Node deep = this.lookahead(problem, current, relaxed.extract(current), heuristic,
+                        relaxed);
+                    if (deep != null && !close.contains(ASP.key(encoding.encode(deep), encoding, symmetries))) {
+                        open.add(deep);
+                    }
+                }
             }
         }
 
         // Finally, we return the search computed or null if no search was found
+        this.getStatistics().setMemoryUsedToSearch(governor.record(open.size(), close.size()));
+        return plan;
+    }
+
+    /**
+     * Search a solution plan for a planning problem using a best-first search with deferred heuristic
+     * evaluation. The successors of a node are queued with the heuristic value of the node and are only
+     * evaluated when they are popped. The greedy search orders the nodes by heuristic value; the weighted
+     * search by <code>g + weight * h</code>.
+     * <p>
+     * With preferred operators, the successors reached by the helpful actions of the relaxed plan of their
+     * parent are also queued in a second open list. The two lists are used in turn, and the preferred list is
+     * used alone during <code>BOOST</code> expansions each time the best heuristic value improves.
+     * </p>
+     *
+     * @param problem       the problem to solve.
+     * @param heuristicName the heuristic guiding the search.
+     * @return a plan solution for the problem or null if there is no solution
+     * @throws ProblemNotSupportedException if the problem to solve is not supported by the planner.
+     */
+    public Plan lazy(Problem problem, StateHeuristic.Name heuristicName) throws ProblemNotSupportedException {
+        if (!this.isSupported(problem)) {
+            throw new ProblemNotSupportedException("Problem not supported");
+        }
+        final StateHeuristic heuristic = this.isLandmarks() ? new LandmarkCount(problem)
+            : StateHeuristic.getInstance(heuristicName, problem);
+        final RelaxedPlan relaxed = this.isPreferredOperators() || this.isLookahead() ? new RelaxedPlan(problem)
+            : null;
+        final StubbornSets stubborn = this.isPartialOrderReduction() ? new StubbornSets(problem) : null;
+        final Symmetries symmetries = this.createSymmetries(problem);
+        final double weight = this.getSearch() == Search.LAZY_GREEDY ? 0.0 : this.getHeuristicWeight();
+        final Comparator<Node> comparator = this.getSearch() == Search.LAZY_GREEDY
+            ? Comparator.comparingDouble(Node::getHeuristic).thenComparingDouble(Node::getCost)
+            : Comparator.comparingDouble((Node n) -> n.getValueF(weight)).thenComparingDouble(Node::getHeuristic);
+        PriorityQueue<Node> open = new PriorityQueue<>(100, comparator);
+        PriorityQueue<Node> preferred = new PriorityQueue<>(100, comparator);
+        final MemoryGovernor governor = new MemoryGovernor(problem, this.getMemoryBudget());
+        MemoryGovernor.Level stage = this.getSearch() == Search.LAZY_GREEDY ? MemoryGovernor.Level.GREEDY
+            : MemoryGovernor.Level.NORMAL;
+        final CompactEncoding encoding = new CompactEncoding(problem);
+        final Set<CompactState> close = new HashSet<>();
+        final State init = new State(problem.getInitialState());
+        final Node root = new Node(init, null, -1, 0, 0);
+        if (heuristic instanceof LandmarkCount) {
+            root.setLandmarks(((LandmarkCount) heuristic).accepted(init));
+        }
+        open.add(root);
+        open.addAll(this.warmStart(problem, root, heuristic));
+        double best = Double.MAX_VALUE;
+        int boost = 0;
+        long turn = 0;
+        long evaluations = 0;
+        final long deadline = System.currentTimeMillis() + this.getTimeout() * 1000L;
+        while ((!open.isEmpty() || !preferred.isEmpty()) && System.currentTimeMillis() < deadline
+            && !this.isCancelled()) {
+            final boolean fromPreferred = !preferred.isEmpty() && (boost > 0 || turn++ % 2 == 0 || open.isEmpty());
+            final Node current = fromPreferred ? preferred.poll() : open.poll();
+            if (fromPreferred && boost > 0) {
+                boost--;
+            }
+            final CompactState compact = encoding.encode(current);
+            if (!close.add(ASP.key(compact, encoding, symmetries))) {
+                continue;
+            }
+            if (encoding.isGoal(compact)) {
+                LOGGER.info("* {} heuristic evaluations\n", evaluations);
+                this.getStatistics().setMemoryUsedToSearch(governor.record(open.size() + preferred.size(),
+                    close.size()));
+                return this.extractPlan(current, problem);
+            }
+            // The search is degraded when its memory grows too large
+            if (close.size() % MemoryGovernor.PERIOD == 0) {
+                final int pending = open.size() + preferred.size();
+                final MemoryGovernor.Level level = governor.level(pending, close.size());
+                if (level == MemoryGovernor.Level.ABORT) {
+                    LOGGER.error("* Memory exhausted after {} expansions\n", close.size());
+                    break;
+                }
+                final MemoryGovernor.Level order = ASP.order(level);
+                if (order.compareTo(stage) > 0) {
+                    stage = order;
+                    open = ASP.reorder(open, ASP.comparator(stage, weight));
+                    preferred = ASP.reorder(preferred, ASP.comparator(stage, weight));
+                    LOGGER.info("* Search degraded to {} after {} expansions\n", stage, close.size());
+                }
+                if (level == MemoryGovernor.Level.PRUNE) {
+                    final int keep = governor.capacity(pending, close.size());
+                    final int keepOpen = (int) ((long) keep * open.size() / Math.max(1, pending));
+                    open = ASP.prune(open, keepOpen);
+                    preferred = ASP.prune(preferred, keep - keepOpen);
+                }
+            }
+            // The heuristic of the node is only computed now that the node is expanded
+            final double h = heuristic.estimate(current, problem.getGoal());
+            evaluations++;
+            this.progress.add(1);
+            this.progress.heuristic(h);
+            this.progress.report();
+            if (h == Integer.MAX_VALUE) {
+                continue;
+            }
+            if (h < best) {
+                best = h;
+                if (this.isPreferredOperators()) {
+                    boost += BOOST;
+                }
+            }
+            final int[] relaxedPlan = relaxed == null ? null : relaxed.extract(current);
+            final Set<Integer> helpful = new HashSet<>();
+            if (this.isPreferredOperators() && relaxedPlan != null) {
+                for (int a : relaxedPlan) {
+                    helpful.add(a);
+                }
+            }
+            final BitSet pruned = stubborn == null ? null : stubborn.applicable(current);
+            for (int i = 0; i < problem.getActions().size(); i++) {
+                final Action a = problem.getActions().get(i);
+                if (encoding.isApplicable(compact, i) && (pruned == null || pruned.get(i))) {
+                    final CompactState successor = encoding.apply(compact, i);
+                    if (!close.contains(ASP.key(successor, encoding, symmetries))) {
+                        final Node next = new Node(encoding.decode(successor), current, i, current.getCost() + 1, h);
+                        if (heuristic instanceof LandmarkCount) {
+                            next.setLandmarks(((LandmarkCount) heuristic).accepted(current, a));
+                        }
+                        open.add(next);
+                        if (helpful.contains(i)) {
+                            preferred.add(next);
+                        }
+                    }
+                }
+            }
+            // The state reached by applying the relaxed plan is evaluated and queued with the preferred nodes
+            if (this.isLookahead()) {
+                final Node deep = this.lookahead(problem, current, relaxedPlan, heuristic, relaxed);
+                if (deep != null && !close.contains(ASP.key(encoding.encode(deep), encoding, symmetries))) {
+                    open.add(deep);
+                    if (this.isPreferredOperators()) {
+                        preferred.add(deep);
+                    }
+                }
+            }
+        }
+        this.getStatistics().setMemoryUsedToSearch(governor.record(open.size() + preferred.size(), close.size()));
+        return null;
+    }
+
+    /**
+     * Search a solution plan for a planning problem using a bidirectional blind search on sets of states
+     * represented by BDDs, see {@link SymbolicSearch}. The plan found has a minimal number of actions. The
+     * problems with conditional effects are solved with the A* search instead.
+     *
+     * @param problem       the problem to solve.
+     * @param heuristicName the heuristic guiding the search.
+     * @return a plan solution for the problem or null if there is no solution
+     * @throws ProblemNotSupportedException if the problem to solve is not supported by the planner.
+     */
+    public Plan symbolic(Problem problem, StateHeuristic.Name heuristicName) throws ProblemNotSupportedException {
+        if (!this.isSupported(problem)) {
+            throw new ProblemNotSupportedException("Problem not supported");
+        }
+        if (!SymbolicSearch.isSupported(problem)) {
+            LOGGER.info("* Conditional effects not supported by the symbolic search, A* search used\n");
+            return this.astar(problem, heuristicName);
+        }
+        final SymbolicSearch search = new SymbolicSearch(problem);
+        LOGGER.info("* {} partitions of the transition relation\n", search.getPartitions());
+        final Plan plan = search.search(System.currentTimeMillis() + this.getTimeout() * 1000L, this.cancellation);
+        LOGGER.info("* {} forward and {} backward layers, {} BDD nodes at most\n", search.getForwardLayers(),
+            search.getBackwardLayers(), search.getPeakNodes());
+        return plan;
+    }
+
+    /**
+     * Search a solution plan for a planning problem using a weighted A* search whose nodes are stored on disk
+     * by an {@link ExternalStateStore}. Only the entries of the open list and the recently seen states are
+     * kept in memory, and both are spilled to memory-mapped files when they grow too large.
+     * <p>
+     * The duplicates are detected with a delay: the successors are written to disk as they are generated and
+     * are checked against the seen states in sorted batches of <code>BATCH</code> states. Only the new states
+     * are evaluated and added to the open list.
+     * </p>
+     *
+     * @param problem       the problem to solve.
+     * @param heuristicName the heuristic guiding the search.
+     * @return a plan solution for the problem or null if there is no solution
+     * @throws ProblemNotSupportedException if the problem to solve is not supported by the planner.
+     */
+    public Plan external(Problem problem, StateHeuristic.Name heuristicName) throws ProblemNotSupportedException {
+        if (!this.isSupported(problem)) {
+            throw new ProblemNotSupportedException("Problem not supported");
+        }
+        final StateHeuristic heuristic = this.isLandmarks() ? new LandmarkCount(problem)
+            : StateHeuristic.getInstance(heuristicName, problem);
+        final StubbornSets stubborn = this.isPartialOrderReduction() ? new StubbornSets(problem) : null;
+        final Symmetries symmetries = this.createSymmetries(problem);
+        final double weight = this.getHeuristicWeight();
+        final long deadline = System.currentTimeMillis() + this.getTimeout() * 1000L;
+        try (ExternalStateStore store = new ExternalStateStore(problem.getFluents().size());
+             ExternalOpenList open = new ExternalOpenList()) {
+            final State init = new State(problem.getInitialState());
+            final long[] packed = store.pack(init);
+            final long root = store.append(packed, -1, -1, 0);
+            store.markSeen(symmetries == null ? packed : store.pack(symmetries.canonical(init)));
+            final double h0 = heuristic.estimate(init, problem.getGoal());
+            open.add(weight * h0, h0, root);
+            final List<Object[]> batch = new ArrayList<>();
+            long expansions = 0;
+            while ((!open.isEmpty() || !batch.isEmpty()) && System.currentTimeMillis() < deadline
+                && !this.isCancelled()) {
+                if (!open.isEmpty()) {
+                    final ExternalOpenList.Entry entry = open.poll();
+                    final long id = entry.getId();
+                    this.progress.add(1);
+                    this.progress.heuristic(entry.getHeuristic());
+                    this.progress.report();
+                    final State current = ExternalStateStore.unpack(store.state(id));
+                    if (current.satisfy(problem.getGoal())) {
+                        LOGGER.info("* {} expansions, {} records, {} open list spills\n", expansions,
+                            store.size(), open.spills());
+                        return this.extractPlan(id, store, problem);
+                    }
+                    expansions++;
+                    final int g = store.cost(id) + 1;
+                    final BitSet pruned = stubborn == null ? null : stubborn.applicable(current);
+                    for (int i = 0; i < problem.getActions().size(); i++) {
+                        final Action a = problem.getActions().get(i);
+                        if (a.isApplicable(current) && (pruned == null || pruned.get(i))) {
+                            final State next = new State(current);
+                            for (ConditionalEffect ce : a.getConditionalEffects()) {
+                                if (current.satisfy(ce.getCondition())) {
+                                    next.apply(ce.getEffect());
+                                }
+                            }
+                            // The duplicates are detected on the canonical states, the records keep the states
+                            final long child = store.append(store.pack(next), id, i, g);
+                            final State key = symmetries == null ? next : symmetries.canonical(next);
+                            batch.add(new Object[] {store.pack(key), child});
+                        }
+                    }
+                }
+                // The duplicates are only detected once the batch is full or nothing else can be expanded
+                if (batch.size() >= BATCH || open.isEmpty()) {
+                    for (long child : store.filter(batch)) {
+                        final State next = ExternalStateStore.unpack(store.state(child));
+                        final double h = heuristic.estimate(next, problem.getGoal());
+                        if (h != Integer.MAX_VALUE) {
+                            open.add(store.cost(child) + weight * h, h, child);
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("External search failed: {}\n", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key of a state in a closed list: the compact state itself or, with symmetries, its compact
+     * canonical representative.
+     *
+     * @param state      the compact state.
+     * @param encoding   the encoding of the states.
+     * @param symmetries the symmetries of the problem or null.
+     * @return the key of the state.
+     */
+    private static CompactState key(final CompactState state, final CompactEncoding encoding,
+                                    final Symmetries symmetries) {
+        return symmetries == null ? state : encoding.encode(symmetries.canonical(encoding.decode(state)));
+    }
+
+    /**
+     * Detects the symmetries of a problem if the symmetric states are pruned.
+     *
+     * @param problem the problem.
+     * @return the symmetries of the problem or null if the symmetric states are not pruned.
+     */
+    private Symmetries createSymmetries(final Problem problem) {
+        if (!this.isSymmetryBreaking()) {
+            return null;
+        }
+        final Symmetries symmetries = new Symmetries(problem);
+        LOGGER.info("* {} symmetry generators detected\n", symmetries.size());
+        return symmetries;
+    }
+
+    /**
+     * Returns the nodes of the valid prefix of the previous plan, used to seed the open list. The cost of a
+     * node is its depth in the prefix and its heuristic is evaluated, so that the search expands first the
+     * furthest useful state of the prefix and still falls back on the other states.
+     *
+     * @param problem   the problem.
+     * @param root      the root node.
+     * @param heuristic the heuristic.
+     * @return the nodes of the prefix, without the root, or an empty list without warm start.
+     */
+    private List<Node> warmStart(final Problem problem, final Node root, final StateHeuristic heuristic) {
+        final List<Node> nodes = new ArrayList<>();
+        if (this.warmPrefix == null) {
+            return nodes;
+        }
+        Node parent = root;
+        for (int i : this.warmPrefix) {
+            final Action a = problem.getActions().get(i);
+            final State state = new State(parent);
+            state.apply(a.getConditionalEffects());
+            final Node node = new Node(state, parent, i, parent.getCost() + 1, 0);
+            if (heuristic instanceof LandmarkCount) {
+                node.setLandmarks(((LandmarkCount) heuristic).accepted(parent, a));
+            }
+            node.setHeuristic(heuristic.estimate(node, problem.getGoal()));
+            nodes.add(node);
+            parent = node;
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the order of the open list of a degradation level: the levels pruning or abandoning the search
+     * keep the greedy order.
+     *
+     * @param level the degradation level.
+     * @return the degradation level of the order of the open list.
+     */
+    private static MemoryGovernor.Level order(final MemoryGovernor.Level level) {
+        return level.compareTo(MemoryGovernor.Level.GREEDY) > 0 ? MemoryGovernor.Level.GREEDY : level;
+    }
+
+    /**
+     * Returns the order of the open list of a degraded search.
+     *
+     * @param stage  the degradation level of the order, weighted or greedy.
+     * @param weight the weight of the heuristic of the search.
+     * @return the comparator of the nodes.
+     */
+    private static Comparator<Node> comparator(final MemoryGovernor.Level stage, final double weight) {
+        if (stage == MemoryGovernor.Level.GREEDY) {
+            return Comparator.comparingDouble(Node::getHeuristic).thenComparingDouble(Node::getCost);
+        }
+        final double w = Math.max(weight, MemoryGovernor.DEGRADED_WEIGHT);
+        return Comparator.comparingDouble((Node n) -> n.getValueF(w)).thenComparingDouble(Node::getHeuristic);
+    }
+
+    /**
+     * Reorders an open list.
+     *
+     * @param queue      the open list.
+     * @param comparator the new order.
+     * @return the open list in the new order.
+     */
+    private static PriorityQueue<Node> reorder(final PriorityQueue<Node> queue, final Comparator<Node> comparator) {
+        final PriorityQueue<Node> reordered = new PriorityQueue<>(Math.max(1, queue.size()), comparator);
+        reordered.addAll(queue);
+        return reordered;
+    }
+
+    /**
+     * Prunes an open list to its best nodes.
+     *
+     * @param queue the open list.
+     * @param keep  the number of nodes kept.
+     * @return the open list of the best nodes.
+     */
+    private static PriorityQueue<Node> prune(final PriorityQueue<Node> queue, final int keep) {
+        if (queue.size() <= keep) {
+            return queue;
+        }
+        final PriorityQueue<Node> pruned = new PriorityQueue<>(Math.max(1, keep), queue.comparator());
+        while (pruned.size() < keep) {
+            pruned.add(queue.poll());
+        }
+        LOGGER.info("* Open list pruned from {} to {} nodes\n", pruned.size() + queue.size(), keep);
+        return pruned;
+    }
+
+    /**
+     * Applies greedily the relaxed plan of a node, see {@link RelaxedPlan#lookahead(State, int[])}, and returns
+     * the node reached, whose heuristic is evaluated. A lookahead of a single action is ignored, since its
+     * node is a successor of the node.
+     *
+     * @param problem   the problem.
+     * @param node      the node.
+     * @param plan      the relaxed plan of the node or null if the goal is not reachable from the node.
+     * @param heuristic the heuristic.
+     * @param relaxed   the extractor of the relaxed plans.
+     * @return the node reached or null if less than two actions of the relaxed plan are applied.
+     */
+    private Node lookahead(final Problem problem, final Node node, final int[] plan,
+                           final StateHeuristic heuristic, final RelaxedPlan relaxed) {
+        if (plan == null) {
+            return null;
+        }
+        final int[] steps = relaxed.lookahead(node, plan);
+        if (steps.length < 2) {
+            return null;
+        }
+        Node parent = node;
+        for (int i : steps) {
+            final Action a = problem.getActions().get(i);
+            final State state = new State(parent);
+            state.apply(a.getConditionalEffects());
+            final Node next = new Node(state, parent, i, parent.getCost() + 1, 0);
+            if (heuristic instanceof LandmarkCount) {
+                next.setLandmarks(((LandmarkCount) heuristic).accepted(parent, a));
+            }
+            parent = next;
+        }
+        parent.setHeuristic(heuristic.estimate(parent, problem.getGoal()));
+        return parent;
+    }
+
+    /**
+     * Extracts a search from a record of an external search.
+     *
+     * @param id      the identifier of the record.
+     * @param store   the store of the records.
+     * @param problem the problem.
+     * @return the search extracted from the specified record.
+     * @throws IOException if a record cannot be read.
+     */
+    private Plan extractPlan(final long id, final ExternalStateStore store, final Problem problem)
+        throws IOException {
+        long n = id;
+        final Plan plan = new SequentialPlan();
+        while (store.action(n) != -1) {
+            plan.add(0, problem.getActions().get(store.action(n)));
+            n = store.parent(n);
+        }
         return plan;
     }
 
@@ -0,0 +1,540 @@
+package fr.uga.pddl4j.examples.asp;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class implements reduced ordered binary decision diagrams (BDDs) in pure Java. A BDD is identified by
+ * the index of its root node: <code>0</code> is the constant false, <code>1</code> the constant true. The
+ * variables are ordered by index, the smallest at the top.
+ * <p>
+ * The nodes are stored in three parallel arrays and shared through a unique table, so that two equal
+ * functions have the same index. The results of the operations are memoized in a lossy computed table,
+ * overwritten on collision. The nodes are never freed implicitly: {@link #gc(int...)} frees the nodes that
+ * are not reachable from the roots given by the caller, who must pass every BDD still in use.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class BddFactory {
+
+    /**
+     * The constant false.
+     */
+    public static final int FALSE = 0;
+
+    /**
+     * The constant true.
+     */
+    public static final int TRUE = 1;
+
+    /**
+     * The operation codes of the computed table.
+     */
+    private static final int AND = 0, OR = 1, NOT = 2, EXISTS = 3, AND_EXISTS = 4;
+
+    /**
+     * The initial number of nodes.
+     */
+    private static final int INITIAL_SIZE = 1 << 16;
+
+    /**
+     * The number of entries of the computed table.
+     */
+    private static final int CACHE_SIZE = 1 << 18;
+
+    /**
+     * The number of variables.
+     */
+    private final int vars;
+
+    /**
+     * The variable of each node, <code>vars</code> for the constants and -1 for the free nodes.
+     */
+    private int[] var;
+
+    /**
+     * The low child of each node, or the next free node for the free nodes.
+     */
+    private int[] low;
+
+    /**
+     * The high child of each node.
+     */
+    private int[] high;
+
+    /**
+     * The next node of each node in its bucket of the unique table.
+     */
+    private int[] next;
+
+    /**
+     * The first node of each bucket of the unique table.
+     */
+    private int[] buckets;
+
+    /**
+     * The first free node.
+     */
+    private int free;
+
+    /**
+     * The number of nodes in use.
+     */
+    private int used;
+
+    /**
+     * The computed table: the operation, the operands and the result of each entry.
+     */
+    private final int[] cacheOp, cacheA, cacheB, cacheC, cacheResult;
+
+    /**
+     * Creates a BDD factory.
+     *
+     * @param vars the number of variables.
+     */
+    public BddFactory(final int vars) {
+        this.vars = vars;
+        this.var = new int[0];
+        this.low = new int[0];
+        this.high = new int[0];
+        this.next = new int[0];
+        this.resize(BddFactory.INITIAL_SIZE);
+        this.var[FALSE] = vars;
+        this.var[TRUE] = vars;
+        this.free = 2;
+        this.used = 2;
+        this.cacheOp = new int[CACHE_SIZE];
+        this.cacheA = new int[CACHE_SIZE];
+        this.cacheB = new int[CACHE_SIZE];
+        this.cacheC = new int[CACHE_SIZE];
+        this.cacheResult = new int[CACHE_SIZE];
+        Arrays.fill(this.cacheOp, -1);
+    }
+
+    /**
+     * Returns the number of variables.
+     *
+     * @return the number of variables.
+     */
+    public int getVariables() {
+        return this.vars;
+    }
+
+    /**
+     * Returns the number of nodes in use, including the constants.
+     *
+     * @return the number of nodes in use.
+     */
+    public int getNodes() {
+        return this.used;
+    }
+
+    /**
+     * Resizes the node arrays and rebuilds the free list and the unique table.
+     *
+     * @param size the new number of nodes.
+     */
+    private void resize(final int size) {
+        final int old = this.var.length;
+        this.var = Arrays.copyOf(this.var, size);
+        this.low = Arrays.copyOf(this.low, size);
+        this.high = Arrays.copyOf(this.high, size);
+        this.next = Arrays.copyOf(this.next, size);
+        for (int n = Math.max(old, 2); n < size; n++) {
+            this.var[n] = -1;
+            this.low[n] = n + 1 < size ? n + 1 : -1;
+        }
+        if (old > 2) {
+            // The new nodes are chained after the current free nodes
+            int last = -1;
+            for (int n = this.free; n != -1; n = this.low[n]) {
+                last = n;
+            }
+            if (last == -1) {
+                this.free = old;
+            } else {
+                this.low[last] = old;
+            }
+        }
+        this.rehash();
+    }
+
+    /**
+     * Rebuilds the unique table from the nodes in use.
+     */
+    private void rehash() {
+        this.buckets = new int[this.var.length];
+        Arrays.fill(this.buckets, -1);
+        for (int n = 2; n < this.var.length; n++) {
+            if (this.var[n] >= 0) {
+                final int b = this.hash(this.var[n], this.low[n], this.high[n]) % this.buckets.length;
+                this.next[n] = this.buckets[b];
+                this.buckets[b] = n;
+            }
+        }
+    }
+
+    /**
+     * Returns the hash code of a node.
+     *
+     * @param v the variable.
+     * @param l the low child.
+     * @param h the high child.
+     * @return the hash code, positive.
+     */
+    private int hash(final int v, final int l, final int h) {
+        int x = v * 0x9E3779B1 + l * 0x85EBCA6B + h * 0xC2B2AE35;
+        x ^= x >>> 15;
+        return x & 0x7FFFFFFF;
+    }
+
+    /**
+     * Returns the node of a variable and two children, creating it if required.
+     *
+     * @param v the variable.
+     * @param l the low child.
+     * @param h the high child.
+     * @return the node.
+     */
+    private int mk(final int v, final int l, final int h) {
+        if (l == h) {
+            return l;
+        }
+        int b = this.hash(v, l, h) % this.buckets.length;
+        for (int n = this.buckets[b]; n != -1; n = this.next[n]) {
+            if (this.var[n] == v && this.low[n] == l && this.high[n] == h) {
+                return n;
+            }
+        }
+        if (this.free == -1) {
+            this.resize(this.var.length * 2);
+            b = this.hash(v, l, h) % this.buckets.length;
+        }
+        final int n = this.free;
+        this.free = this.low[n];
+        this.var[n] = v;
+        this.low[n] = l;
+        this.high[n] = h;
+        this.next[n] = this.buckets[b];
+        this.buckets[b] = n;
+        this.used++;
+        return n;
+    }
+
+    /**
+     * Returns the BDD of a variable.
+     *
+     * @param v the variable.
+     * @return the BDD true if and only if the variable is true.
+     */
+    public int ithVar(final int v) {
+        return this.mk(v, FALSE, TRUE);
+    }
+
+    /**
+     * Returns the conjunction of literals.
+     *
+     * @param positive the variables that are true.
+     * @param negative the variables that are false.
+     * @return the BDD of the conjunction.
+     */
+    public int cube(final BitSet positive, final BitSet negative) {
+        int r = TRUE;
+        final BitSet all = new BitSet();
+        all.or(positive);
+        all.or(negative);
+        for (int v = all.length() - 1; v >= 0; v = all.previousSetBit(v - 1)) {
+            r = positive.get(v) ? this.mk(v, FALSE, r) : this.mk(v, r, FALSE);
+        }
+        return r;
+    }
+
+    /**
+     * Looks up the computed table.
+     *
+     * @param slot the slot of the entry.
+     * @param op   the operation.
+     * @param a    the first operand.
+     * @param b    the second operand.
+     * @param c    the third operand.
+     * @return the result or -1 if the entry is missing.
+     */
+    private int lookup(final int slot, final int op, final int a, final int b, final int c) {
+        return this.cacheOp[slot] == op && this.cacheA[slot] == a && this.cacheB[slot] == b
+            && this.cacheC[slot] == c ? this.cacheResult[slot] : -1;
+    }
+
+    /**
+     * Stores an entry in the computed table.
+     *
+     * @param slot   the slot of the entry.
+     * @param op     the operation.
+     * @param a      the first operand.
+     * @param b      the second operand.
+     * @param c      the third operand.
+     * @param result the result.
+     * @return the result.
+     */
+    private int store(final int slot, final int op, final int a, final int b, final int c, final int result) {
+        this.cacheOp[slot] = op;
+        this.cacheA[slot] = a;
+        this.cacheB[slot] = b;
+        this.cacheC[slot] = c;
+        this.cacheResult[slot] = result;
+        return result;
+    }
+
+    /**
+     * Returns the slot of an entry in the computed table.
+     *
+     * @param op the operation.
+     * @param a  the first operand.
+     * @param b  the second operand.
+     * @param c  the third operand.
+     * @return the slot.
+     */
+    private int slot(final int op, final int a, final int b, final int c) {
+        return (this.hash(a + op, b, c) ^ op) & (CACHE_SIZE - 1);
+    }
+
+    /**
+     * Returns the conjunction of two BDDs.
+     *
+     * @param a the first BDD.
+     * @param b the second BDD.
+     * @return the conjunction.
+     */
+    public int and(final int a, final int b) {
+        if (a == FALSE || b == FALSE) {
+            return FALSE;
+        }
+        if (a == TRUE || a == b) {
+            return b;
+        }
+        if (b == TRUE) {
+            return a;
+        }
+        final int x = Math.min(a, b);
+        final int y = Math.max(a, b);
+        final int slot = this.slot(AND, x, y, 0);
+        final int cached = this.lookup(slot, AND, x, y, 0);
+        if (cached >= 0) {
+            return cached;
+        }
+        final int v = Math.min(this.var[x], this.var[y]);
+        final int l = this.and(this.var[x] == v ? this.low[x] : x, this.var[y] == v ? this.low[y] : y);
+        final int h = this.and(this.var[x] == v ? this.high[x] : x, this.var[y] == v ? this.high[y] : y);
+        return this.store(slot, AND, x, y, 0, this.mk(v, l, h));
+    }
+
+    /**
+     * Returns the disjunction of two BDDs.
+     *
+     * @param a the first BDD.
+     * @param b the second BDD.
+     * @return the disjunction.
+     */
+    public int or(final int a, final int b) {
+        if (a == TRUE || b == TRUE) {
+            return TRUE;
+        }
+        if (a == FALSE || a == b) {
+            return b;
+        }
+        if (b == FALSE) {
+            return a;
+        }
+        final int x = Math.min(a, b);
+        final int y = Math.max(a, b);
+        final int slot = this.slot(OR, x, y, 0);
+        final int cached = this.lookup(slot, OR, x, y, 0);
+        if (cached >= 0) {
+            return cached;
+        }
+        final int v = Math.min(this.var[x], this.var[y]);
+        final int l = this.or(this.var[x] == v ? this.low[x] : x, this.var[y] == v ? this.low[y] : y);
+        final int h = this.or(this.var[x] == v ? this.high[x] : x, this.var[y] == v ? this.high[y] : y);
+        return this.store(slot, OR, x, y, 0, this.mk(v, l, h));
+    }
+
+    /**
+     * Returns the negation of a BDD.
+     *
+     * @param a the BDD.
+     * @return the negation.
+     */
+    public int not(final int a) {
+        if (a <= TRUE) {
+            return TRUE - a;
+        }
+        final int slot = this.slot(NOT, a, 0, 0);
+        final int cached = this.lookup(slot, NOT, a, 0, 0);
+        if (cached >= 0) {
+            return cached;
+        }
+        return this.store(slot, NOT, a, 0, 0, this.mk(this.var[a], this.not(this.low[a]), this.not(this.high[a])));
+    }
+
+    /**
+     * Returns the difference of two BDDs.
+     *
+     * @param a the first BDD.
+     * @param b the second BDD.
+     * @return the conjunction of the first BDD and of the negation of the second one.
+     */
+    public int diff(final int a, final int b) {
+        return this.and(a, this.not(b));
+    }
+
+    /**
+     * Quantifies existentially the variables of a cube.
+     *
+     * @param a    the BDD.
+     * @param cube the conjunction of the positive variables to quantify.
+     * @return the quantified BDD.
+     */
+    public int exists(final int a, final int cube) {
+        return this.andExists(a, TRUE, cube);
+    }
+
+    /**
+     * Returns the relational product of two BDDs: the conjunction of the BDDs quantified existentially on
+     * the variables of a cube, computed without building the conjunction.
+     *
+     * @param a    the first BDD.
+     * @param b    the second BDD.
+     * @param cube the conjunction of the positive variables to quantify.
+     * @return the relational product.
+     */
+    public int andExists(final int a, final int b, final int cube) {
+        if (a == FALSE || b == FALSE) {
+            return FALSE;
+        }
+        if (cube == TRUE) {
+            return this.and(a, b);
+        }
+        if (a == TRUE && b == TRUE) {
+            return TRUE;
+        }
+        final int x = Math.min(a, b);
+        final int y = Math.max(a, b);
+        final int v = Math.min(this.var[x], this.var[y]);
+        int c = cube;
+        while (c > TRUE && this.var[c] < v) {
+            c = this.high[c];
+        }
+        if (c == TRUE) {
+            return this.and(x, y);
+        }
+        final int slot = this.slot(AND_EXISTS, x, y, c);
+        final int cached = this.lookup(slot, AND_EXISTS, x, y, c);
+        if (cached >= 0) {
+            return cached;
+        }
+        final int xl = this.var[x] == v ? this.low[x] : x;
+        final int xh = this.var[x] == v ? this.high[x] : x;
+        final int yl = this.var[y] == v ? this.low[y] : y;
+        final int yh = this.var[y] == v ? this.high[y] : y;
+        final int r;
+        if (this.var[c] == v) {
+            final int l = this.andExists(xl, yl, this.high[c]);
+            r = l == TRUE ? TRUE : this.or(l, this.andExists(xh, yh, this.high[c]));
+        } else {
+            r = this.mk(v, this.andExists(xl, yl, c), this.andExists(xh, yh, c));
+        }
+        return this.store(slot, AND_EXISTS, x, y, c, r);
+    }
+
+    /**
+     * Returns whether an assignment of the variables satisfies a BDD.
+     *
+     * @param a     the BDD.
+     * @param state the variables that are true.
+     * @return <code>true</code> if the assignment satisfies the BDD.
+     */
+    public boolean evaluate(final int a, final BitSet state) {
+        int n = a;
+        while (n > TRUE) {
+            n = state.get(this.var[n]) ? this.high[n] : this.low[n];
+        }
+        return n == TRUE;
+    }
+
+    /**
+     * Returns an assignment satisfying a BDD. The variables that do not matter are false.
+     *
+     * @param a the BDD, not false.
+     * @return the variables that are true.
+     */
+    public BitSet satOne(final int a) {
+        final BitSet state = new BitSet(this.vars);
+        int n = a;
+        while (n > TRUE) {
+            if (this.low[n] != FALSE) {
+                n = this.low[n];
+            } else {
+                state.set(this.var[n]);
+                n = this.high[n];
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Returns the number of nodes of a BDD, including the constants.
+     *
+     * @param a the BDD.
+     * @return the number of nodes.
+     */
+    public int size(final int a) {
+        final BitSet seen = new BitSet();
+        this.mark(a, seen);
+        return seen.cardinality();
+    }
+
+    /**
+     * Marks the nodes reachable from a node.
+     *
+     * @param a    the node.
+     * @param seen the nodes marked.
+     */
+    private void mark(final int a, final BitSet seen) {
+        if (seen.get(a)) {
+            return;
+        }
+        seen.set(a);
+        if (a > TRUE) {
+            this.mark(this.low[a], seen);
+            this.mark(this.high[a], seen);
+        }
+    }
+
+    /**
+     * Frees the nodes that are not reachable from the roots and clears the computed table. The indexes of
+     * the nodes reachable from the roots do not change.
+     *
+     * @param roots the BDDs still in use.
+     */
+    public void gc(final int... roots) {
+        final BitSet seen = new BitSet(this.var.length);
+        seen.set(FALSE);
+        seen.set(TRUE);
+        for (int r : roots) {
+            this.mark(r, seen);
+        }
+        this.free = -1;
+        this.used = 2;
+        for (int n = this.var.length - 1; n >= 2; n--) {
+            if (seen.get(n)) {
+                this.used++;
+            } else {
+                this.var[n] = -1;
+                this.low[n] = this.free;
+                this.free = n;
+            }
+        }
+        this.rehash();
+        Arrays.fill(this.cacheOp, -1);
+    }
+}
@@ -0,0 +1,871 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.Expression;
+import fr.uga.pddl4j.parser.RequireKey;
+import fr.uga.pddl4j.parser.Symbol;
+import fr.uga.pddl4j.plan.Hierarchy;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.problem.Fluent;
+import fr.uga.pddl4j.problem.InitialState;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.Task;
+import fr.uga.pddl4j.problem.operator.AbstractFluentDescription;
+import fr.uga.pddl4j.problem.operator.AbstractInstantiatedOperator;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.problem.operator.DurativeAction;
+import fr.uga.pddl4j.problem.operator.DurativeMethod;
+import fr.uga.pddl4j.problem.operator.Effect;
+import fr.uga.pddl4j.problem.operator.Method;
+import fr.uga.pddl4j.problem.operator.TaskNetwork;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.zip.CRC32C;
+
+/**
+ * This class implements an instantiated problem stored in a compact binary file, so that a problem is
+ * grounded once and then loaded by any number of searches, processes or machines without being parsed nor
+ * instantiated again. The file holds, as big-endian integers and UTF-8 strings:
+ * <ul>
+ * <li>a header: a magic number, the version of the format and the source files, i.e., the canonical path, the
+ * size and a checksum of the content of the domain and problem files grounded,</li>
+ * <li>the requirements and the symbol tables: types, constants and predicates,</li>
+ * <li>the fact table: the predicate and the arguments of each fluent,</li>
+ * <li>the actions: the name, the parameters, the precondition and the conditional effects of each action,
+ * each condition and effect as arrays of positive and negative fluent indexes,</li>
+ * <li>the goal and the initial state.</li>
+ * </ul>
+ * The loader checks the source files of the header against the domain and problem files to solve, so that
+ * a file grounded from other or modified files is never loaded, then memory-maps the file and builds the
+ * actions, the goal and the initial state directly from the arrays of the file. A loaded problem has no
+ * parsed problem: the searches relying on the parsed problem, such as the detection of symmetries, are
+ * disabled on it.
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class BinaryProblem implements Problem {
+
+    /**
+     * The serial id of the class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The magic number of the grounded problem files: "PDGP".
+     */
+    private static final int MAGIC = 0x50444750;
+
+    /**
+     * The version of the format of the grounded problem files.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The requirements of the problem.
+     */
+    private final Set<RequireKey> requirements;
+
+    /**
+     * The types of the problem.
+     */
+    private final List<String> types;
+
+    /**
+     * The constants of the problem.
+     */
+    private final List<String> constants;
+
+    /**
+     * The predicates of the problem.
+     */
+    private final List<String> predicates;
+
+    /**
+     * The fluents of the problem.
+     */
+    private final List<Fluent> fluents;
+
+    /**
+     * The actions of the problem.
+     */
+    private final List<Action> actions;
+
+    /**
+     * The goal of the problem.
+     */
+    private final Condition goal;
+
+    /**
+     * The initial state of the problem.
+     */
+    private final InitialState initialState;
+
+    /**
+     * Creates a grounded problem.
+     *
+     * @param requirements the requirements.
+     * @param types        the types.
+     * @param constants    the constants.
+     * @param predicates   the predicates.
+     * @param fluents      the fluents.
+     * @param actions      the actions.
+     * @param goal         the goal.
+     * @param initialState the initial state.
+     */
+    private BinaryProblem(final Set<RequireKey> requirements, final List<String> types,
+                          final List<String> constants, final List<String> predicates, final List<Fluent> fluents,
+                          final List<Action> actions, final Condition goal, final InitialState initialState) {
+        this.requirements = requirements;
+        this.types = types;
+        this.constants = constants;
+        this.predicates = predicates;
+        this.fluents = fluents;
+        this.actions = actions;
+        this.goal = goal;
+        this.initialState = initialState;
+    }
+
+    /**
+     * Returns whether a grounded problem file must be written again: the file does not exist or is older than
+     * one of the source files.
+     *
+     * @param file    the grounded problem file.
+     * @param sources the paths of the domain and problem files, null paths being ignored.
+     * @return <code>true</code> if the file is missing or out of date, <code>false</code> otherwise.
+     */
+    public static boolean isStale(final File file, final String... sources) {
+        if (!file.isFile()) {
+            return true;
+        }
+        for (String source : sources) {
+            if (source != null && new File(source).lastModified() > file.lastModified()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the description of the source files recorded in the header of a grounded problem file: the
+     * canonical path, the size and the CRC32C checksum of the content of each file.
+     *
+     * @param sources the paths of the domain and problem files, null paths being ignored.
+     * @return the description of each source file, one string per file.
+     * @throws IOException if a source file cannot be read.
+     */
+    private static List<String> describe(final String... sources) throws IOException {
+        final List<String> descriptions = new ArrayList<>();
+        for (String source : sources) {
+            if (source != null) {
+                final File file = new File(source);
+                final byte[] content = Files.readAllBytes(file.toPath());
+                final CRC32C checksum = new CRC32C();
+                checksum.update(content);
+                descriptions.add(file.getCanonicalPath() + " " + content.length + " "
+                    + Long.toHexString(checksum.getValue()));
+            }
+        }
+        return descriptions;
+    }
+
+    /**
+     * Writes an instantiated problem to a grounded problem file. The problem is written to a temporary file
+     * moved over the file, so that the processes loading the file never see a partial file.
+     *
+     * @param problem the instantiated problem.
+     * @param file    the grounded problem file.
+     * @param sources the paths of the domain and problem files of the problem, null paths being ignored.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(final Problem problem, final File file, final String... sources) throws IOException {
+        final List<String> descriptions = BinaryProblem.describe(sources);
+        final Path target = file.toPath().toAbsolutePath();
+        final Path temporary = target.resolveSibling(file.getName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            BinaryProblem.writeStrings(out, descriptions);
+            final List<String> keys = new ArrayList<>();
+            for (RequireKey key : problem.getRequirements()) {
+                keys.add(key.name());
+            }
+            BinaryProblem.writeStrings(out, keys);
+            BinaryProblem.writeStrings(out, problem.getTypes());
+            BinaryProblem.writeStrings(out, problem.getConstantSymbols());
+            BinaryProblem.writeStrings(out, problem.getPredicateSymbols());
+            out.writeInt(problem.getFluents().size());
+            for (Fluent f : problem.getFluents()) {
+                out.writeInt(f.getSymbol());
+                BinaryProblem.writeInts(out, f.getArguments());
+            }
+            out.writeInt(problem.getActions().size());
+            for (Action a : problem.getActions()) {
+                BinaryProblem.writeString(out, a.getName());
+                BinaryProblem.writeInts(out, a.getParameters());
+                BinaryProblem.writeInts(out, a.getInstantiations());
+                BinaryProblem.writeDescription(out, a.getPrecondition());
+                out.writeInt(a.getConditionalEffects().size());
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    BinaryProblem.writeDescription(out, ce.getCondition());
+                    BinaryProblem.writeDescription(out, ce.getEffect());
+                }
+            }
+            BinaryProblem.writeDescription(out, problem.getGoal());
+            BinaryProblem.writeDescription(out, problem.getInitialState());
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a grounded problem file. The file is memory-mapped and the problem is built from its arrays.
+     *
+     * @param file    the grounded problem file.
+     * @param sources the paths of the domain and problem files to solve, null paths being ignored; the file
+     *                is only loaded if it was grounded from these files with their current content.
+     * @return the grounded problem.
+     * @throws IOException if the file cannot be read, is not a grounded problem file of this version or was
+     *                     grounded from other source files.
+     */
+    public static BinaryProblem load(final File file, final String... sources) throws IOException {
+        final ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < 8 || in.getInt() != MAGIC) {
+            throw new IOException(file + " is not a grounded problem file");
+        }
+        final int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException(file + " has version " + version + ", expected " + VERSION);
+        }
+        if (!BinaryProblem.readStrings(in).equals(BinaryProblem.describe(sources))) {
+            throw new IOException(file + " was grounded from other or modified source files");
+        }
+        final Set<RequireKey> requirements = EnumSet.noneOf(RequireKey.class);
+        for (String key : BinaryProblem.readStrings(in)) {
+            requirements.add(RequireKey.valueOf(key));
+        }
+        final List<String> types = BinaryProblem.readStrings(in);
+        final List<String> constants = BinaryProblem.readStrings(in);
+        final List<String> predicates = BinaryProblem.readStrings(in);
+        final int nbFluents = in.getInt();
+        final List<Fluent> fluents = new ArrayList<>(nbFluents);
+        for (int i = 0; i < nbFluents; i++) {
+            final int symbol = in.getInt();
+            fluents.add(new Fluent(symbol, BinaryProblem.readInts(in)));
+        }
+        final int nbActions = in.getInt();
+        final List<Action> actions = new ArrayList<>(nbActions);
+        // The names are shared by the actions of a same operator
+        final Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < nbActions; i++) {
+            final String name = names.computeIfAbsent(BinaryProblem.readString(in), n -> n);
+            final int[] parameters = BinaryProblem.readInts(in);
+            final int[] instantiations = BinaryProblem.readInts(in);
+            final Action a = new Action(name, parameters.length);
+            for (int p = 0; p < parameters.length; p++) {
+                a.setTypeOfParameter(p, parameters[p]);
+                a.setValueOfParameter(p, instantiations[p]);
+            }
+            a.setPrecondition(new Condition(BinaryProblem.readBits(in), BinaryProblem.readBits(in)));
+            final int nbEffects = in.getInt();
+            for (int e = 0; e < nbEffects; e++) {
+                final Condition condition = new Condition(BinaryProblem.readBits(in), BinaryProblem.readBits(in));
+                final Effect effect = new Effect(BinaryProblem.readBits(in), BinaryProblem.readBits(in));
+                a.addConditionalEffect(new ConditionalEffect(condition, effect));
+            }
+            actions.add(a);
+        }
+        final Condition goal = new Condition(BinaryProblem.readBits(in), BinaryProblem.readBits(in));
+        final InitialState init = new InitialState();
+        init.getPositiveFluents().or(BinaryProblem.readBits(in));
+        init.getNegativeFluents().or(BinaryProblem.readBits(in));
+        return new BinaryProblem(requirements, types, constants, predicates, fluents, actions, goal, init);
+    }
+
+    /**
+     * Writes a string as its length followed by its UTF-8 bytes.
+     *
+     * @param out    the output stream.
+     * @param string the string.
+     * @throws IOException if the string cannot be written.
+     */
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes a list of strings as its size followed by its strings.
+     *
+     * @param out     the output stream.
+     * @param strings the strings.
+     * @throws IOException if the strings cannot be written.
+     */
+    private static void writeStrings(final DataOutputStream out, final List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            BinaryProblem.writeString(out, s);
+        }
+    }
+
+    /**
+     * Writes an array of integers as its length followed by its integers.
+     *
+     * @param out    the output stream.
+     * @param values the integers.
+     * @throws IOException if the integers cannot be written.
+     */
+    private static void writeInts(final DataOutputStream out, final int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int v : values) {
+            out.writeInt(v);
+        }
+    }
+
+    /**
+     * Writes the positive then the negative fluents of a condition, an effect or an initial state as arrays
+     * of fluent indexes.
+     *
+     * @param out         the output stream.
+     * @param description the condition, the effect or the initial state.
+     * @throws IOException if the fluents cannot be written.
+     */
+    private static void writeDescription(final DataOutputStream out, final AbstractFluentDescription description)
+        throws IOException {
+        BinaryProblem.writeInts(out, description.getPositiveFluents().stream().toArray());
+        BinaryProblem.writeInts(out, description.getNegativeFluents().stream().toArray());
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in the mapped file.
+     * @return the string.
+     */
+    private static String readString(final ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a list of strings written by {@link #writeStrings(DataOutputStream, List)}.
+     *
+     * @param in the mapped file.
+     * @return the strings.
+     */
+    private static List<String> readStrings(final ByteBuffer in) {
+        final int size = in.getInt();
+        final List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(BinaryProblem.readString(in));
+        }
+        return strings;
+    }
+
+    /**
+     * Reads an array of integers written by {@link #writeInts(DataOutputStream, int[])}.
+     *
+     * @param in the mapped file.
+     * @return the integers.
+     */
+    private static int[] readInts(final ByteBuffer in) {
+        final int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + 4 * values.length);
+        return values;
+    }
+
+    /**
+     * Reads an array of fluent indexes written by {@link #writeInts(DataOutputStream, int[])} as a bit vector.
+     *
+     * @param in the mapped file.
+     * @return the bit vector of the fluents.
+     */
+    private static BitVector readBits(final ByteBuffer in) {
+        final int size = in.getInt();
+        final BitVector bits = new BitVector();
+        for (int i = 0; i < size; i++) {
+            bits.set(in.getInt());
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the parsed problem, which a grounded problem does not have.
+     *
+     * @return null.
+     */
+    @Override
+    public DefaultParsedProblem getParsedProblem() {
+        return null;
+    }
+
+    /**
+     * Returns the requirements of the problem.
+     *
+     * @return the requirements.
+     */
+    @Override
+    public Set<RequireKey> getRequirements() {
+        return this.requirements;
+    }
+
+    /**
+     * Returns the requirements accepted by the problem, i.e., its requirements.
+     *
+     * @return the requirements.
+     */
+    @Override
+    public Set<RequireKey> getAcceptedRequirements() {
+        return this.requirements;
+    }
+
+    /**
+     * Returns the types of the problem.
+     *
+     * @return the types.
+     */
+    @Override
+    public List<String> getTypes() {
+        return this.types;
+    }
+
+    /**
+     * Returns the domains of the types, which a grounded problem does not keep.
+     *
+     * @return an empty map.
+     */
+    @Override
+    public Map<Integer, Set<Symbol<Integer>>> getDomains() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the constants of the problem.
+     *
+     * @return the constants.
+     */
+    @Override
+    public List<String> getConstantSymbols() {
+        return this.constants;
+    }
+
+    /**
+     * Returns the predicates of the problem.
+     *
+     * @return the predicates.
+     */
+    @Override
+    public List<String> getPredicateSymbols() {
+        return this.predicates;
+    }
+
+    /**
+     * Returns the signatures of the predicates, which a grounded problem does not keep.
+     *
+     * @return an empty list.
+     */
+    @Override
+    public List<List<Symbol<Integer>>> getPredicateSignatures() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the fluents of the problem.
+     *
+     * @return the fluents.
+     */
+    @Override
+    public List<Fluent> getFluents() {
+        return this.fluents;
+    }
+
+    /**
+     * Returns the actions of the problem.
+     *
+     * @return the actions.
+     */
+    @Override
+    public List<Action> getActions() {
+        return this.actions;
+    }
+
+    /**
+     * Returns the durative actions of the problem.
+     *
+     * @return an empty list.
+     */
+    @Override
+    public List<DurativeAction> getDurativeActions() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the methods of the problem.
+     *
+     * @return an empty list.
+     */
+    @Override
+    public List<Method> getMethods() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the durative methods of the problem.
+     *
+     * @return an empty list.
+     */
+    @Override
+    public List<DurativeMethod> getDurativeMethods() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the tasks of the problem.
+     *
+     * @return an empty list.
+     */
+    @Override
+    public List<Task> getTasks() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the resolvers of the tasks of the problem.
+     *
+     * @return an empty list.
+     */
+    @Override
+    public List<List<Integer>> getTaskResolvers() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the goal of the problem.
+     *
+     * @return the goal.
+     */
+    @Override
+    public Condition getGoal() {
+        return this.goal;
+    }
+
+    /**
+     * Returns the initial state of the problem.
+     *
+     * @return the initial state.
+     */
+    @Override
+    public InitialState getInitialState() {
+        return this.initialState;
+    }
+
+    /**
+     * Returns the initial task network of the problem.
+     *
+     * @return null.
+     */
+    @Override
+    public TaskNetwork getInitialTaskNetwork() {
+        return null;
+    }
+
+    /**
+     * Returns whether the goal of the problem was not simplified to false.
+     *
+     * @return <code>true</code> if the problem has a goal.
+     */
+    @Override
+    public boolean isSolvable() {
+        return this.goal != null;
+    }
+
+    /**
+     * Does nothing: a grounded problem is already instantiated.
+     */
+    @Override
+    public void instantiate() {
+    }
+
+    /**
+     * Returns a string representation of an action.
+     *
+     * @param action the action.
+     * @return a string representation of the action.
+     */
+    @Override
+    public String toString(final Action action) {
+        final StringBuilder str = new StringBuilder();
+        str.append("Action ").append(this.toShortString(action)).append("\n")
+            .append("Preconditions:\n").append(this.toString(action.getPrecondition())).append("\n")
+            .append("Effects:\n");
+        for (ConditionalEffect ce : action.getConditionalEffects()) {
+            str.append(this.toString(ce)).append("\n");
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns a plain description of a durative action: its name and its arguments. A grounded problem has
+     * no durative action.
+     *
+     * @param action the durative action.
+     * @return a string representation of the durative action.
+     */
+    @Override
+    public String toString(final DurativeAction action) {
+        return "Durative action " + this.toShortString(action);
+    }
+
+    /**
+     * Returns a plain description of a method: its name and its arguments. A grounded problem has no method.
+     *
+     * @param method the method.
+     * @return a string representation of the method.
+     */
+    @Override
+    public String toString(final Method method) {
+        return "Method " + this.toShortString(method);
+    }
+
+    /**
+     * Returns a plain description of a durative method: its name and its arguments. A grounded problem has no
+     * durative method.
+     *
+     * @param method the durative method.
+     * @return a string representation of the durative method.
+     */
+    @Override
+    public String toString(final DurativeMethod method) {
+        return "Durative method " + this.toShortString(method);
+    }
+
+    /**
+     * Returns a plain description of a task: the index of its symbol, the task symbols not being stored, and
+     * its arguments. A grounded problem has no task.
+     *
+     * @param task the task.
+     * @return a string representation of the task.
+     */
+    @Override
+    public String toString(final Task task) {
+        final StringJoiner str = new StringJoiner(" ", "(", ")");
+        str.add("task" + task.getSymbol());
+        for (int arg : task.getArguments()) {
+            str.add(this.constants.get(arg));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns a plain description of a task network: the indexes of its tasks. A grounded problem has no task
+     * network.
+     *
+     * @param network the task network.
+     * @return a string representation of the task network.
+     */
+    @Override
+    public String toString(final TaskNetwork network) {
+        return "Task network " + network.getTasks();
+    }
+
+    /**
+     * Returns a plain description of a hierarchy: the indexes of its root tasks. A grounded problem has no
+     * hierarchy.
+     *
+     * @param hierarchy the hierarchy.
+     * @return a string representation of the hierarchy.
+     */
+    @Override
+    public String toString(final Hierarchy hierarchy) {
+        return "Hierarchy " + hierarchy.getRootTasks();
+    }
+
+    /**
+     * Returns a string representation of a condition.
+     *
+     * @param condition the condition.
+     * @return a string representation of the condition.
+     */
+    @Override
+    public String toString(final Condition condition) {
+        return this.describe(condition);
+    }
+
+    /**
+     * Returns a string representation of an effect.
+     *
+     * @param effect the effect.
+     * @return a string representation of the effect.
+     */
+    @Override
+    public String toString(final Effect effect) {
+        return this.describe(effect);
+    }
+
+    /**
+     * Returns a string representation of a state: its fluents, one per line.
+     *
+     * @param state the state.
+     * @return a string representation of the state.
+     */
+    @Override
+    public String toString(final State state) {
+        final StringJoiner str = new StringJoiner("\n");
+        for (int f = state.nextSetBit(0); f >= 0; f = state.nextSetBit(f + 1)) {
+            str.add(this.toString(this.fluents.get(f)));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns a string representation of the initial state.
+     *
+     * @param state the initial state.
+     * @return a string representation of the initial state.
+     */
+    @Override
+    public String toString(final InitialState state) {
+        return this.describe(state);
+    }
+
+    /**
+     * Returns a string representation of a fluent.
+     *
+     * @param fluent the fluent.
+     * @return a string representation of the fluent.
+     */
+    @Override
+    public String toString(final Fluent fluent) {
+        final StringJoiner str = new StringJoiner(" ", "(", ")");
+        str.add(this.predicates.get(fluent.getSymbol()));
+        for (int arg : fluent.getArguments()) {
+            str.add(this.constants.get(arg));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns a string representation of a plan in the format of the pddl4j problems: one action per line,
+     * prefixed by its time step and followed by its duration.
+     *
+     * @param plan the plan.
+     * @return a string representation of the plan.
+     */
+    @Override
+    public String toString(final Plan plan) {
+        final List<String> steps = new ArrayList<>();
+        int width = 0;
+        for (Action a : plan.actions()) {
+            final String step = this.toShortString(a);
+            steps.add(step);
+            width = Math.max(width, step.length());
+        }
+        final int digits = Integer.toString(Math.max(0, steps.size() - 1)).length();
+        final StringBuilder str = new StringBuilder();
+        for (int i = 0; i < steps.size(); i++) {
+            str.append(String.format("%0" + digits + "d: (%" + width + "s) [0]%n", i, steps.get(i)));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns a string representation of a conditional effect.
+     *
+     * @param effect the conditional effect.
+     * @return a string representation of the conditional effect.
+     */
+    @Override
+    public String toString(final ConditionalEffect effect) {
+        return effect.getCondition().isEmpty() ? this.describe(effect.getEffect())
+            : "(when " + this.describe(effect.getCondition()) + "\n" + this.describe(effect.getEffect()) + ")";
+    }
+
+    /**
+     * Returns a string representation of an operator: its name and its arguments.
+     *
+     * @param operator the operator.
+     * @return a string representation of the operator.
+     */
+    @Override
+    public String toShortString(final AbstractInstantiatedOperator operator) {
+        final StringJoiner str = new StringJoiner(" ");
+        str.add(operator.getName());
+        for (int c : operator.getInstantiations()) {
+            str.add(this.constants.get(c));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns a string representation of the positive and negative fluents of a condition, an effect or an
+     * initial state as a conjunction.
+     *
+     * @param description the condition, the effect or the initial state.
+     * @return a string representation of the fluents.
+     */
+    private String describe(final AbstractFluentDescription description) {
+        final Set<String> literals = new LinkedHashSet<>();
+        final BitVector positive = description.getPositiveFluents();
+        for (int f = positive.nextSetBit(0); f >= 0; f = positive.nextSetBit(f + 1)) {
+            literals.add(this.toString(this.fluents.get(f)));
+        }
+        final BitVector negative = description.getNegativeFluents();
+        for (int f = negative.nextSetBit(0); f >= 0; f = negative.nextSetBit(f + 1)) {
+            literals.add("(not " + this.toString(this.fluents.get(f)) + ")");
+        }
+        return literals.isEmpty() ? "()" : "(and " + String.join("\n  ", literals) + ")";
+    }
+
+    /**
+     * Does not simplify anything: the expressions of a grounded problem are already simplified.
+     *
+     * @param expression the expression.
+     * @return <code>false</code>.
+     */
+    @Override
+    public boolean simplify(final Expression<Integer> expression) {
+        return false;
+    }
+
+    /**
+     * Returns whether the task networks of the problem are totally ordered.
+     *
+     * @return <code>false</code>.
+     */
+    @Override
+    public boolean isTotallyOrdered() {
+        return false;
+    }
+}
@@ -0,0 +1,161 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class encodes the states and the actions of a problem into 64-bit words. The number of words is
+ * chosen after instantiation from the number of fluents of the problem, so that the problems with at most
+ * 64 fluents, e.g., most of the blocks and gripper problems, use single-word states.
+ * <p>
+ * The preconditions, the conditions and the effects of the actions are compiled into masks of words, so that
+ * the applicability of an action and its successor state are computed on the compact states directly.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class CompactEncoding {
+
+    /**
+     * The number of words of a state.
+     */
+    private final int words;
+
+    /**
+     * The words of the positive and negative preconditions of each action.
+     */
+    private final long[][][] preconditions;
+
+    /**
+     * The words of the positive and negative fluents of the condition of each effect of each action.
+     */
+    private final long[][][][] conditions;
+
+    /**
+     * The words of the positive and negative fluents of each effect of each action.
+     */
+    private final long[][][][] effects;
+
+    /**
+     * The words of the positive and negative goals.
+     */
+    private final long[][] goal;
+
+    /**
+     * Compiles the actions and the goal of a problem.
+     *
+     * @param problem the instantiated problem.
+     */
+    public CompactEncoding(final Problem problem) {
+        this.words = Math.max(1, (problem.getFluents().size() + 63) / 64);
+        final List<Action> actions = problem.getActions();
+        this.preconditions = new long[actions.size()][][];
+        this.conditions = new long[actions.size()][][][];
+        this.effects = new long[actions.size()][][][];
+        for (int a = 0; a < actions.size(); a++) {
+            final Action action = actions.get(a);
+            this.preconditions[a] = new long[][] {
+                this.pack(action.getPrecondition().getPositiveFluents()),
+                this.pack(action.getPrecondition().getNegativeFluents())};
+            final List<ConditionalEffect> ces = action.getConditionalEffects();
+            this.conditions[a] = new long[ces.size()][][];
+            this.effects[a] = new long[ces.size()][][];
+            for (int e = 0; e < ces.size(); e++) {
+                this.conditions[a][e] = new long[][] {
+                    this.pack(ces.get(e).getCondition().getPositiveFluents()),
+                    this.pack(ces.get(e).getCondition().getNegativeFluents())};
+                this.effects[a][e] = new long[][] {
+                    this.pack(ces.get(e).getEffect().getPositiveFluents()),
+                    this.pack(ces.get(e).getEffect().getNegativeFluents())};
+            }
+        }
+        this.goal = new long[][] {
+            this.pack(problem.getGoal().getPositiveFluents()),
+            this.pack(problem.getGoal().getNegativeFluents())};
+    }
+
+    /**
+     * Returns the number of words of a state.
+     *
+     * @return the number of words of a state.
+     */
+    public int words() {
+        return this.words;
+    }
+
+    /**
+     * Packs a set of fluents into words.
+     *
+     * @param fluents the fluents.
+     * @return the words of the fluents.
+     */
+    public long[] pack(final BitVector fluents) {
+        return Arrays.copyOf(fluents.toLongArray(), this.words);
+    }
+
+    /**
+     * Encodes a state.
+     *
+     * @param state the state.
+     * @return the compact state.
+     */
+    public CompactState encode(final BitVector state) {
+        return CompactState.of(this.pack(state));
+    }
+
+    /**
+     * Decodes a compact state.
+     *
+     * @param state the compact state.
+     * @return the state.
+     */
+    public State decode(final CompactState state) {
+        final State decoded = new State();
+        for (int w = 0; w < state.size(); w++) {
+            long word = state.word(w);
+            while (word != 0) {
+                decoded.set(w * 64 + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns whether an action is applicable in a compact state.
+     *
+     * @param state  the compact state.
+     * @param action the index of the action.
+     * @return <code>true</code> if the action is applicable, <code>false</code> otherwise.
+     */
+    public boolean isApplicable(final CompactState state, final int action) {
+        return state.satisfy(this.preconditions[action][0], this.preconditions[action][1]);
+    }
+
+    /**
+     * Applies an action to a compact state.
+     *
+     * @param state  the compact state.
+     * @param action the index of the action.
+     * @return the successor state.
+     */
+    public CompactState apply(final CompactState state, final int action) {
+        return state.apply(this.conditions[action], this.effects[action]);
+    }
+
+    /**
+     * Returns whether a compact state satisfies the goal.
+     *
+     * @param state the compact state.
+     * @return <code>true</code> if the state satisfies the goal, <code>false</code> otherwise.
+     */
+    public boolean isGoal(final CompactState state) {
+        return state.satisfy(this.goal[0], this.goal[1]);
+    }
+}
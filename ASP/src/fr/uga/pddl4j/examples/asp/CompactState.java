@@ -0,0 +1,195 @@
+package fr.uga.pddl4j.examples.asp;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an immutable compact representation of a state for the problems with few fluents.
+ * The fluents are packed into 64-bit words: a single <code>long</code> when the problem has at most 64
+ * fluents, a fixed-size array of words otherwise. Copying, hashing and comparing a compact state only
+ * touches its words, without the overhead of the growable bit sets of pddl4j, so the compact states are
+ * used as keys of the closed lists and of the memoised results.
+ * <p>
+ * The compact states of a problem are created by a {@link CompactEncoding}, which also applies the actions
+ * to them.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public abstract class CompactState {
+
+    /**
+     * Creates a compact state from its words.
+     *
+     * @param words the words of the state, which are not copied.
+     * @return a single-word state if there is one word, a multi-word state otherwise.
+     */
+    static CompactState of(final long[] words) {
+        return words.length == 1 ? new Single(words[0]) : new Words(words);
+    }
+
+    /**
+     * Returns the number of words of the state.
+     *
+     * @return the number of words of the state.
+     */
+    public abstract int size();
+
+    /**
+     * Returns a word of the state.
+     *
+     * @param i the index of the word.
+     * @return the word.
+     */
+    public abstract long word(int i);
+
+    /**
+     * Returns whether a fluent is true in the state.
+     *
+     * @param fluent the index of the fluent.
+     * @return <code>true</code> if the fluent is true, <code>false</code> otherwise.
+     */
+    public boolean get(final int fluent) {
+        return (this.word(fluent >>> 6) & (1L << fluent)) != 0;
+    }
+
+    /**
+     * Returns whether the state satisfies a condition, i.e., whether all the positive fluents of the
+     * condition are true and all its negative fluents are false.
+     *
+     * @param positive the words of the positive fluents of the condition.
+     * @param negative the words of the negative fluents of the condition.
+     * @return <code>true</code> if the state satisfies the condition, <code>false</code> otherwise.
+     */
+    public abstract boolean satisfy(long[] positive, long[] negative);
+
+    /**
+     * Returns the state obtained by applying sequentially effects to the state. An effect is applied only
+     * if its condition is satisfied in this state.
+     *
+     * @param conditions the words of the positive and negative fluents of the condition of each effect.
+     * @param effects    the words of the positive and negative fluents of each effect.
+     * @return the new state.
+     */
+    public abstract CompactState apply(long[][][] conditions, long[][][] effects);
+
+    /**
+     * A state of at most 64 fluents stored in a single word.
+     */
+    static final class Single extends CompactState {
+
+        /**
+         * The fluents of the state.
+         */
+        private final long bits;
+
+        /**
+         * Creates a single-word state.
+         *
+         * @param bits the fluents of the state.
+         */
+        Single(final long bits) {
+            this.bits = bits;
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public long word(final int i) {
+            return this.bits;
+        }
+
+        @Override
+        public boolean satisfy(final long[] positive, final long[] negative) {
+            return (this.bits & positive[0]) == positive[0] && (this.bits & negative[0]) == 0;
+        }
+
+        @Override
+        public CompactState apply(final long[][][] conditions, final long[][][] effects) {
+            long next = this.bits;
+            for (int e = 0; e < effects.length; e++) {
+                if (this.satisfy(conditions[e][0], conditions[e][1])) {
+                    next = (next & ~effects[e][1][0]) | effects[e][0][0];
+                }
+            }
+            return new Single(next);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Single && ((Single) o).bits == this.bits;
+        }
+
+        @Override
+        public int hashCode() {
+            // The bits are mixed so that states differing only in a few fluents spread over the hash table
+            final long h = this.bits * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * A state stored in a fixed number of words.
+     */
+    static final class Words extends CompactState {
+
+        /**
+         * The fluents of the state.
+         */
+        private final long[] words;
+
+        /**
+         * Creates a multi-word state.
+         *
+         * @param words the fluents of the state.
+         */
+        Words(final long[] words) {
+            this.words = words;
+        }
+
+        @Override
+        public int size() {
+            return this.words.length;
+        }
+
+        @Override
+        public long word(final int i) {
+            return this.words[i];
+        }
+
+        @Override
+        public boolean satisfy(final long[] positive, final long[] negative) {
+            for (int i = 0; i < this.words.length; i++) {
+                if ((this.words[i] & positive[i]) != positive[i] || (this.words[i] & negative[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public CompactState apply(final long[][][] conditions, final long[][][] effects) {
+            final long[] next = this.words.clone();
+            for (int e = 0; e < effects.length; e++) {
+                if (this.satisfy(conditions[e][0], conditions[e][1])) {
+                    for (int i = 0; i < next.length; i++) {
+                        next[i] = (next[i] & ~effects[e][1][i]) | effects[e][0][i];
+                    }
+                }
+            }
+            return new Words(next);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Words && Arrays.equals(((Words) o).words, this.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.words);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package fr.uga.pddl4j.examples.asp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class implements the open list of an external-memory search. The entries of the list are the
+ * priorities of the nodes and the identifiers of their records in an {@link ExternalStateStore}.
+ * <p>
+ * When the list holds more than <code>HOT_ENTRIES</code> entries, its worst half is sorted and spilled to a
+ * memory-mapped file. A spilled file is loaded back when its best entry is better than the best entry kept
+ * in memory.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class ExternalOpenList implements Closeable {
+
+    /**
+     * The maximum number of entries kept in memory.
+     */
+    public static int HOT_ENTRIES = 1_000_000;
+
+    /**
+     * The size in bytes of a spilled entry.
+     */
+    private static final int ENTRY_SIZE = 24;
+
+    /**
+     * An entry of the open list.
+     */
+    static final class Entry {
+
+        /**
+         * The priority of the node, lower is better.
+         */
+        private final double f;
+
+        /**
+         * The heuristic value of the node, used to break ties.
+         */
+        private final double h;
+
+        /**
+         * The identifier of the record of the node.
+         */
+        private final long id;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param f  the priority of the node.
+         * @param h  the heuristic value of the node.
+         * @param id the identifier of the record of the node.
+         */
+        Entry(final double f, final double h, final long id) {
+            this.f = f;
+            this.h = h;
+            this.id = id;
+        }
+
+        /**
+         * Returns the identifier of the record of the node.
+         *
+         * @return the identifier of the record of the node.
+         */
+        long getId() {
+            return this.id;
+        }
+
+        /**
+         * Returns the heuristic value of the node.
+         *
+         * @return the heuristic value of the node.
+         */
+        double getHeuristic() {
+            return this.h;
+        }
+    }
+
+    /**
+     * A sorted file of spilled entries.
+     */
+    private static final class Spill {
+
+        /**
+         * The file of the entries.
+         */
+        private final File file;
+
+        /**
+         * The number of entries of the file.
+         */
+        private final int size;
+
+        /**
+         * The priority of the best entry of the file.
+         */
+        private final double best;
+
+        /**
+         * Creates a new spilled file.
+         *
+         * @param file the file of the entries.
+         * @param size the number of entries of the file.
+         * @param best the priority of the best entry of the file.
+         */
+        Spill(final File file, final int size, final double best) {
+            this.file = file;
+            this.size = size;
+            this.best = best;
+        }
+    }
+
+    /**
+     * The order of the entries.
+     */
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble((Entry e) -> e.f)
+        .thenComparingDouble(e -> e.h);
+
+    /**
+     * The entries kept in memory.
+     */
+    private final PriorityQueue<Entry> hot;
+
+    /**
+     * The files of spilled entries.
+     */
+    private final List<Spill> spills;
+
+    /**
+     * The directory of the spilled files.
+     */
+    private final File directory;
+
+    /**
+     * The number of spilled files created.
+     */
+    private int files;
+
+    /**
+     * The total number of entries.
+     */
+    private long size;
+
+    /**
+     * Creates a new empty open list.
+     *
+     * @throws IOException if the directory of the spilled files cannot be created.
+     */
+    public ExternalOpenList() throws IOException {
+        this.hot = new PriorityQueue<>(100, ORDER);
+        this.spills = new ArrayList<>();
+        this.directory = Files.createTempDirectory("asp-open").toFile();
+    }
+
+    /**
+     * Returns whether the list is empty.
+     *
+     * @return <code>true</code> if the list is empty, <code>false</code> otherwise.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the number of spilled files.
+     *
+     * @return the number of spilled files.
+     */
+    public int spills() {
+        return this.spills.size();
+    }
+
+    /**
+     * Adds a node to the list.
+     *
+     * @param f  the priority of the node.
+     * @param h  the heuristic value of the node.
+     * @param id the identifier of the record of the node.
+     * @throws IOException if the worst entries cannot be spilled.
+     */
+    public void add(final double f, final double h, final long id) throws IOException {
+        this.hot.add(new Entry(f, h, id));
+        this.size++;
+        if (this.hot.size() > HOT_ENTRIES) {
+            this.spill();
+        }
+    }
+
+    /**
+     * Removes and returns the best entry of the list.
+     *
+     * @return the best entry or null if the list is empty.
+     * @throws IOException if a spilled file cannot be loaded.
+     */
+    public Entry poll() throws IOException {
+        if (this.size == 0) {
+            return null;
+        }
+        Spill best = null;
+        for (Spill s : this.spills) {
+            if (best == null || s.best < best.best) {
+                best = s;
+            }
+        }
+        if (best != null && (this.hot.isEmpty() || best.best < this.hot.peek().f)) {
+            this.load(best);
+        }
+        this.size--;
+        return this.hot.poll();
+    }
+
+    /**
+     * Spills the worst half of the entries kept in memory.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void spill() throws IOException {
+        final Entry[] entries = this.hot.toArray(new Entry[0]);
+        Arrays.sort(entries, ORDER);
+        final int keep = entries.length / 2;
+        this.hot.clear();
+        this.hot.addAll(Arrays.asList(entries).subList(0, keep));
+        final int n = entries.length - keep;
+        final File file = new File(this.directory, "open" + this.files++);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                (long) n * ENTRY_SIZE);
+            for (int i = keep; i < entries.length; i++) {
+                buffer.putDouble(entries[i].f);
+                buffer.putDouble(entries[i].h);
+                buffer.putLong(entries[i].id);
+            }
+        }
+        this.spills.add(new Spill(file, n, entries[keep].f));
+    }
+
+    /**
+     * Loads a spilled file back in memory and deletes it.
+     *
+     * @param spill the spilled file.
+     * @throws IOException if the file cannot be read.
+     */
+    private void load(final Spill spill) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(spill.file, "r")) {
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+                (long) spill.size * ENTRY_SIZE);
+            for (int i = 0; i < spill.size; i++) {
+                this.hot.add(new Entry(buffer.getDouble(), buffer.getDouble(), buffer.getLong()));
+            }
+        }
+        this.spills.remove(spill);
+        spill.file.delete();
+    }
+
+    /**
+     * Closes the list and deletes its files.
+     */
+    @Override
+    public void close() {
+        this.hot.clear();
+        for (Spill s : this.spills) {
+            s.file.delete();
+        }
+        this.spills.clear();
+        this.directory.delete();
+    }
+}
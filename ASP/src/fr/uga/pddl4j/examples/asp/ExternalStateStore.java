@@ -0,0 +1,596 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.State;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * This class stores the states of an external-memory search on disk. The states are packed into fixed-size
+ * records (the words of the state, the record of the parent, the action applied and the cost) appended to a
+ * memory-mapped file, so that a node only costs its record identifier in memory.
+ * <p>
+ * The set of the states already seen is split in a hot part kept in memory and cold parts spilled to disk.
+ * When the hot part exceeds <code>HOT_STATES</code> states, it is sorted and written as a run in a
+ * memory-mapped file where the states are looked up by binary search. The runs are merged when there are
+ * more than <code>MAX_RUNS</code> of them: the sorted runs are read in step and written to a new run, so that
+ * the merge never holds more than one state per run in memory. A run is mapped in segments of
+ * <code>SEGMENT</code> bytes, so that no mapping exceeds the 2 GB limit of a buffer whatever the size of the
+ * run.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class ExternalStateStore implements Closeable {
+
+    /**
+     * The maximum number of seen states kept in memory.
+     */
+    public static int HOT_STATES = 1_000_000;
+
+    /**
+     * The maximum number of sorted runs of seen states on disk.
+     */
+    public static int MAX_RUNS = 8;
+
+    /**
+     * The size in bytes of a mapped segment of the record file and of the run files.
+     */
+    private static final int SEGMENT = 1 << 26;
+
+    /**
+     * The number of 64-bit words of a packed state.
+     */
+    private final int words;
+
+    /**
+     * The size in bytes of a record.
+     */
+    private final int recordSize;
+
+    /**
+     * The number of records of a mapped segment.
+     */
+    private final int recordsPerSegment;
+
+    /**
+     * The number of states of a mapped segment of a run.
+     */
+    private final int statesPerSegment;
+
+    /**
+     * The directory of the files of the store.
+     */
+    private final File directory;
+
+    /**
+     * The file of the records.
+     */
+    private final RandomAccessFile records;
+
+    /**
+     * The mapped segments of the record file.
+     */
+    private final List<MappedByteBuffer> segments;
+
+    /**
+     * The number of records.
+     */
+    private long size;
+
+    /**
+     * The seen states kept in memory.
+     */
+    private Set<Packed> hot;
+
+    /**
+     * The sorted runs of seen states spilled to disk.
+     */
+    private final List<Run> runs;
+
+    /**
+     * The number of run files created.
+     */
+    private int runFiles;
+
+    /**
+     * A packed state used as key of the hot set of seen states.
+     */
+    static final class Packed {
+
+        /**
+         * The words of the state.
+         */
+        private final long[] words;
+
+        /**
+         * Creates a packed state.
+         *
+         * @param words the words of the state.
+         */
+        Packed(final long[] words) {
+            this.words = words;
+        }
+
+        /**
+         * Returns the words of the state.
+         *
+         * @return the words of the state.
+         */
+        long[] getWords() {
+            return this.words;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Packed && Arrays.equals(this.words, ((Packed) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.words);
+        }
+    }
+
+    /**
+     * A sorted run of seen states in a file mapped in segments.
+     */
+    private final class Run {
+
+        /**
+         * The file of the run.
+         */
+        private final File file;
+
+        /**
+         * The mapped segments of the run.
+         */
+        private final List<LongBuffer> segments;
+
+        /**
+         * The number of states of the run.
+         */
+        private final long size;
+
+        /**
+         * Creates a run of a specified number of states and maps its segments.
+         *
+         * @param file the file of the run.
+         * @param size the number of states of the run.
+         * @throws IOException if the file cannot be mapped.
+         */
+        Run(final File file, final long size) throws IOException {
+            this.file = file;
+            this.size = size;
+            this.segments = new ArrayList<>();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                final long bytes = 8L * ExternalStateStore.this.words * size;
+                final long segment = 8L * ExternalStateStore.this.words * ExternalStateStore.this.statesPerSegment;
+                for (long position = 0; position < bytes; position += segment) {
+                    this.segments.add(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, position,
+                        Math.min(segment, bytes - position)).asLongBuffer());
+                }
+            }
+        }
+
+        /**
+         * Returns a word of a state of the run.
+         *
+         * @param index the index of the state in the run.
+         * @param w     the index of the word in the state.
+         * @return the word of the state.
+         */
+        long get(final long index, final int w) {
+            final int words = ExternalStateStore.this.words;
+            final int per = ExternalStateStore.this.statesPerSegment;
+            return this.segments.get((int) (index / per)).get((int) (index % per) * words + w);
+        }
+
+        /**
+         * Sets a word of a state of the run.
+         *
+         * @param index the index of the state in the run.
+         * @param w     the index of the word in the state.
+         * @param word  the word of the state.
+         */
+        void put(final long index, final int w, final long word) {
+            final int words = ExternalStateStore.this.words;
+            final int per = ExternalStateStore.this.statesPerSegment;
+            this.segments.get((int) (index / per)).put((int) (index % per) * words + w, word);
+        }
+    }
+
+    /**
+     * A cursor on the next state of a run during a merge.
+     */
+    private static final class Cursor {
+
+        /**
+         * The run.
+         */
+        private final Run run;
+
+        /**
+         * The index of the next state of the run.
+         */
+        private long next;
+
+        /**
+         * The current state of the run.
+         */
+        private final long[] state;
+
+        /**
+         * Creates a cursor on the first state of a run.
+         *
+         * @param run   the run.
+         * @param words the number of words of a state.
+         */
+        Cursor(final Run run, final int words) {
+            this.run = run;
+            this.state = new long[words];
+        }
+
+        /**
+         * Reads the next state of the run.
+         *
+         * @return <code>true</code> if a state was read, <code>false</code> if the run is exhausted.
+         */
+        boolean advance() {
+            if (this.next >= this.run.size) {
+                return false;
+            }
+            for (int w = 0; w < this.state.length; w++) {
+                this.state[w] = this.run.get(this.next, w);
+            }
+            this.next++;
+            return true;
+        }
+    }
+
+    /**
+     * Creates a new store for states of a specified number of fluents.
+     *
+     * @param fluents the number of fluents of the problem.
+     * @throws IOException if the files of the store cannot be created.
+     */
+    public ExternalStateStore(final int fluents) throws IOException {
+        this.words = Math.max(1, (fluents + 63) / 64);
+        this.recordSize = 8 * this.words + 16;
+        this.recordsPerSegment = SEGMENT / this.recordSize;
+        this.statesPerSegment = SEGMENT / (8 * this.words);
+        this.directory = Files.createTempDirectory("asp-external").toFile();
+        this.records = new RandomAccessFile(new File(this.directory, "records"), "rw");
+        this.segments = new ArrayList<>();
+        this.hot = new HashSet<>();
+        this.runs = new ArrayList<>();
+    }
+
+    /**
+     * Returns the number of words of a packed state.
+     *
+     * @return the number of words of a packed state.
+     */
+    public int words() {
+        return this.words;
+    }
+
+    /**
+     * Returns the number of records of the store.
+     *
+     * @return the number of records of the store.
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Packs a state.
+     *
+     * @param state the state.
+     * @return the words of the state.
+     */
+    public long[] pack(final State state) {
+        return Arrays.copyOf(state.toLongArray(), this.words);
+    }
+
+    /**
+     * Unpacks a state.
+     *
+     * @param words the words of the state.
+     * @return the state.
+     */
+    public static State unpack(final long[] words) {
+        final State state = new State();
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                state.set(w * 64 + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Appends a record to the store.
+     *
+     * @param state  the packed state.
+     * @param parent the record of the parent or -1 for the root.
+     * @param action the action applied to the parent or -1 for the root.
+     * @param cost   the cost to reach the state.
+     * @return the identifier of the record.
+     * @throws IOException if the record file cannot be extended.
+     */
+    public long append(final long[] state, final long parent, final int action, final int cost)
+        throws IOException {
+        final long id = this.size++;
+        final MappedByteBuffer segment = this.segment(id);
+        int offset = (int) (id % this.recordsPerSegment) * this.recordSize;
+        for (long w : state) {
+            segment.putLong(offset, w);
+            offset += 8;
+        }
+        segment.putLong(offset, parent);
+        segment.putInt(offset + 8, action);
+        segment.putInt(offset + 12, cost);
+        return id;
+    }
+
+    /**
+     * Returns the packed state of a record.
+     *
+     * @param id the identifier of the record.
+     * @return the packed state.
+     * @throws IOException if the record cannot be read.
+     */
+    public long[] state(final long id) throws IOException {
+        final MappedByteBuffer segment = this.segment(id);
+        final int offset = (int) (id % this.recordsPerSegment) * this.recordSize;
+        final long[] state = new long[this.words];
+        for (int w = 0; w < this.words; w++) {
+            state[w] = segment.getLong(offset + 8 * w);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the parent of a record.
+     *
+     * @param id the identifier of the record.
+     * @return the identifier of the record of the parent or -1 for the root.
+     * @throws IOException if the record cannot be read.
+     */
+    public long parent(final long id) throws IOException {
+        return this.segment(id).getLong((int) (id % this.recordsPerSegment) * this.recordSize + 8 * this.words);
+    }
+
+    /**
+     * Returns the action of a record.
+     *
+     * @param id the identifier of the record.
+     * @return the action applied to the parent or -1 for the root.
+     * @throws IOException if the record cannot be read.
+     */
+    public int action(final long id) throws IOException {
+        return this.segment(id).getInt((int) (id % this.recordsPerSegment) * this.recordSize + 8 * this.words + 8);
+    }
+
+    /**
+     * Returns the cost of a record.
+     *
+     * @param id the identifier of the record.
+     * @return the cost to reach the state of the record.
+     * @throws IOException if the record cannot be read.
+     */
+    public int cost(final long id) throws IOException {
+        return this.segment(id).getInt((int) (id % this.recordsPerSegment) * this.recordSize + 8 * this.words + 12);
+    }
+
+    /**
+     * Returns the mapped segment containing a record, mapping new segments if needed.
+     *
+     * @param id the identifier of the record.
+     * @return the segment containing the record.
+     * @throws IOException if the segment cannot be mapped.
+     */
+    private MappedByteBuffer segment(final long id) throws IOException {
+        final int index = (int) (id / this.recordsPerSegment);
+        while (this.segments.size() <= index) {
+            this.segments.add(this.records.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                (long) this.segments.size() * SEGMENT, SEGMENT));
+        }
+        return this.segments.get(index);
+    }
+
+    /**
+     * Keeps the states of a batch that were never seen and marks them as seen. The batch is sorted, so that
+     * the duplicates within the batch are adjacent, and the cold runs are probed in state order.
+     *
+     * @param batch the packed states of the batch, with the identifiers of their records.
+     * @return the identifiers of the records of the new states.
+     * @throws IOException if the seen states cannot be spilled.
+     */
+    public List<Long> filter(final List<Object[]> batch) throws IOException {
+        batch.sort(Comparator.comparing(e -> (long[]) e[0], ExternalStateStore::compare));
+        final List<Long> fresh = new ArrayList<>();
+        long[] previous = null;
+        for (Object[] e : batch) {
+            final long[] state = (long[]) e[0];
+            if (previous != null && ExternalStateStore.compare(previous, state) == 0) {
+                continue;
+            }
+            previous = state;
+            if (!this.hot.contains(new Packed(state)) && !this.isCold(state)) {
+                this.hot.add(new Packed(state));
+                fresh.add((Long) e[1]);
+            }
+        }
+        if (this.hot.size() > HOT_STATES) {
+            this.spill();
+        }
+        return fresh;
+    }
+
+    /**
+     * Marks a state as seen.
+     *
+     * @param state the packed state.
+     */
+    public void markSeen(final long[] state) {
+        this.hot.add(new Packed(state));
+    }
+
+    /**
+     * Returns whether a state is in one of the cold runs.
+     *
+     * @param state the packed state.
+     * @return <code>true</code> if the state is in a cold run, <code>false</code> otherwise.
+     */
+    private boolean isCold(final long[] state) {
+        for (Run run : this.runs) {
+            long low = 0;
+            long high = run.size - 1;
+            while (low <= high) {
+                final long mid = (low + high) >>> 1;
+                final int c = this.compare(run, mid, state);
+                if (c < 0) {
+                    low = mid + 1;
+                } else if (c > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Spills the hot seen states to a new sorted run and merges the runs if there are too many.
+     *
+     * @throws IOException if the run cannot be written.
+     */
+    private void spill() throws IOException {
+        final List<long[]> states = new ArrayList<>(this.hot.size());
+        for (Packed p : this.hot) {
+            states.add(p.getWords());
+        }
+        this.hot = new HashSet<>();
+        states.sort(ExternalStateStore::compare);
+        final Run run = new Run(new File(this.directory, "run" + this.runFiles++), states.size());
+        for (int i = 0; i < states.size(); i++) {
+            for (int w = 0; w < this.words; w++) {
+                run.put(i, w, states.get(i)[w]);
+            }
+        }
+        this.runs.add(run);
+        if (this.runs.size() > MAX_RUNS) {
+            this.merge();
+        }
+    }
+
+    /**
+     * Merges the sorted runs into a single sorted run. The runs are disjoint, since a state is only marked as
+     * seen if it is in no run, so the merged run has as many states as the runs together. The runs are read
+     * in step through a heap of cursors holding one state per run.
+     *
+     * @throws IOException if the merged run cannot be written.
+     */
+    private void merge() throws IOException {
+        long size = 0;
+        final PriorityQueue<Cursor> heads = new PriorityQueue<>((c1, c2) ->
+            ExternalStateStore.compare(c1.state, c2.state));
+        for (Run run : this.runs) {
+            size += run.size;
+            final Cursor cursor = new Cursor(run, this.words);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        final Run merged = new Run(new File(this.directory, "run" + this.runFiles++), size);
+        long index = 0;
+        while (!heads.isEmpty()) {
+            final Cursor cursor = heads.poll();
+            for (int w = 0; w < this.words; w++) {
+                merged.put(index, w, cursor.state[w]);
+            }
+            index++;
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        for (Run run : this.runs) {
+            run.file.delete();
+        }
+        this.runs.clear();
+        this.runs.add(merged);
+    }
+
+    /**
+     * Compares a state of a run with a packed state.
+     *
+     * @param run   the run.
+     * @param index the index of the state in the run.
+     * @param state the packed state.
+     * @return the comparison of the state of the run with the packed state.
+     */
+    private int compare(final Run run, final long index, final long[] state) {
+        for (int w = 0; w < this.words; w++) {
+            final int c = Long.compareUnsigned(run.get(index, w), state[w]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares two packed states.
+     *
+     * @param s1 the first state.
+     * @param s2 the second state.
+     * @return the comparison of the two states.
+     */
+    static int compare(final long[] s1, final long[] s2) {
+        for (int w = 0; w < s1.length; w++) {
+            final int c = Long.compareUnsigned(s1[w], s2[w]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Closes the store and deletes its files.
+     *
+     * @throws IOException if the files cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.segments.clear();
+        this.runs.clear();
+        this.records.close();
+        final File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        this.directory.delete();
+    }
+}
@@ -0,0 +1,158 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * This class selects the heuristic of a search by measuring the heuristics on the problem to solve. Each
+ * heuristic drives a short greedy best-first probe from the initial state, bounded by <code>EXPANSIONS</code>
+ * expansions and by its share of the time of the selection. The probe measures two things: the time in ns of
+ * a call to <code>estimate</code> and the progress rate of the heuristic, i.e., the fraction of the heuristic
+ * value of the initial state removed per expansion.
+ * <p>
+ * The expected time to plan of a heuristic is the time to build the heuristic plus the number of expansions
+ * needed to bring its value down to 0 at its progress rate, times the number of successors of an expansion
+ * and the time of a call. A heuristic that reaches the goal during its probe needs no extrapolation; a
+ * heuristic that makes no progress, or that finds the initial state to be a dead end, is never selected.
+ * The heuristic with the lowest expected time to plan is selected and the measures are logged.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class HeuristicSelector {
+
+    /**
+     * The logger of the class.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(HeuristicSelector.class.getName());
+
+    /**
+     * The maximum number of expansions of a probe.
+     */
+    public static int EXPANSIONS = 200;
+
+    /**
+     * The fraction of the timeout of the search spent to select the heuristic.
+     */
+    public static double SHARE = 0.05;
+
+    /**
+     * The problem to solve.
+     */
+    private final Problem problem;
+
+    /**
+     * Creates a selector of the heuristic of a problem.
+     *
+     * @param problem the problem.
+     */
+    public HeuristicSelector(final Problem problem) {
+        this.problem = problem;
+    }
+
+    /**
+     * Selects the heuristic with the lowest expected time to plan.
+     *
+     * @param timeout  the timeout of the search in s; the selection takes at most <code>SHARE</code> of it.
+     * @param fallback the heuristic returned if no heuristic makes progress.
+     * @return the heuristic selected.
+     */
+    public StateHeuristic.Name select(final int timeout, final StateHeuristic.Name fallback) {
+        final StateHeuristic.Name[] names = StateHeuristic.Name.values();
+        final long share = (long) (timeout * 1e9 * SHARE) / names.length;
+        StateHeuristic.Name selected = fallback;
+        double best = Double.POSITIVE_INFINITY;
+        for (StateHeuristic.Name name : names) {
+            final double expected = this.probe(name, share);
+            if (expected < best) {
+                best = expected;
+                selected = name;
+            }
+        }
+        if (best == Double.POSITIVE_INFINITY) {
+            LOGGER.info("* No heuristic makes progress, {} kept\n", fallback);
+        } else {
+            LOGGER.info("* Heuristic {} selected, expected time to plan {} ms\n", selected,
+                String.format("%.1f", best / 1_000_000.0));
+        }
+        return selected;
+    }
+
+    /**
+     * Probes a heuristic and returns its expected time to plan.
+     *
+     * @param name   the heuristic.
+     * @param budget the time of the probe in ns.
+     * @return the expected time to plan in ns or <code>Double.POSITIVE_INFINITY</code> if the heuristic makes
+     *     no progress.
+     */
+    private double probe(final StateHeuristic.Name name, final long budget) {
+        final long begin = System.nanoTime();
+        final StateHeuristic heuristic = StateHeuristic.getInstance(name, this.problem);
+        final long setup = System.nanoTime() - begin;
+        final State init = new State(this.problem.getInitialState());
+        long calls = 1;
+        long t = System.nanoTime();
+        final int h0 = heuristic.estimate(init, this.problem.getGoal());
+        long time = System.nanoTime() - t;
+        if (h0 == Integer.MAX_VALUE) {
+            LOGGER.info("* {}: dead end at the initial state\n", name);
+            return Double.POSITIVE_INFINITY;
+        }
+        // Greedy best-first probe, the ties broken by the order of generation
+        final PriorityQueue<long[]> open = new PriorityQueue<>((a, b) -> a[0] != b[0]
+            ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        final List<State> states = new ArrayList<>();
+        final Set<State> closed = new HashSet<>();
+        states.add(init);
+        open.add(new long[] {h0, 0});
+        closed.add(init);
+        int hMin = h0;
+        int expansions = 0;
+        boolean reached = h0 == 0 && init.satisfy(this.problem.getGoal());
+        while (!reached && !open.isEmpty() && expansions < EXPANSIONS && System.nanoTime() - begin < budget) {
+            final State current = states.get((int) open.poll()[1]);
+            expansions++;
+            for (Action a : this.problem.getActions()) {
+                if (a.isApplicable(current)) {
+                    final State next = new State(current);
+                    next.apply(a.getConditionalEffects());
+                    if (closed.add(next)) {
+                        t = System.nanoTime();
+                        final int h = heuristic.estimate(next, this.problem.getGoal());
+                        time += System.nanoTime() - t;
+                        calls++;
+                        if (h != Integer.MAX_VALUE) {
+                            hMin = Math.min(hMin, h);
+                            if (next.satisfy(this.problem.getGoal())) {
+                                reached = true;
+                                break;
+                            }
+                            open.add(new long[] {h, states.size()});
+                            states.add(next);
+                        }
+                    }
+                }
+            }
+        }
+        final double perCall = (double) time / calls;
+        final double branching = expansions == 0 ? 1.0 : (double) (calls - 1) / expansions;
+        final double rate = h0 == 0 || expansions == 0 ? 0.0 : (double) (h0 - hMin) / h0 / expansions;
+        final double needed = reached ? expansions : rate > 0 ? 1.0 / rate : Double.POSITIVE_INFINITY;
+        final double expected = setup + needed * Math.max(1.0, branching) * perCall;
+        LOGGER.info("* {}: {} ns/call, progress {} per expansion over {} expansions{}, expected {} ms\n",
+            name, String.format("%.0f", perCall), String.format("%.4f", rate), expansions,
+            reached ? " (goal reached)" : "", String.format("%.1f", expected / 1_000_000.0));
+        return expected;
+    }
+}
@@ -0,0 +1,260 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * This class implements the landmark-count heuristic. The fact landmarks of the problem are extracted
+ * once by back-chaining from the goal in the relaxed problem: the preconditions shared by all the
+ * achievers of a landmark that can be applied before the landmark is reached are landmarks too.
+ * <p>
+ * The heuristic value of a node is the number of landmarks not yet accepted on the path to the node
+ * plus the number of accepted goals that are false in the node. The accepted landmarks are stored in the
+ * node and updated from the parent with the add effects of the action, so the cost of an evaluation only
+ * depends on the number of facts changed by the action. States that are not nodes are evaluated from
+ * scratch by considering accepted the landmarks true in the state.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class LandmarkCount implements StateHeuristic {
+
+    /**
+     * The serial id of the class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The fluents that are landmarks.
+     */
+    private final int[] landmarks;
+
+    /**
+     * The index of the landmark of each fluent or -1 if the fluent is not a landmark.
+     */
+    private final int[] index;
+
+    /**
+     * The indexes of the landmarks that are goals.
+     */
+    private final int[] goals;
+
+    /**
+     * Creates a new landmark-count heuristic and extracts the landmarks of a problem.
+     *
+     * @param problem the problem.
+     */
+    public LandmarkCount(final Problem problem) {
+        final int size = problem.getFluents().size();
+        final List<Action> actions = problem.getActions();
+        final BitVector init = new BitVector(problem.getInitialState().getPositiveFluents());
+        // The achievers of each fluent
+        final List<List<Integer>> achievers = new ArrayList<>(size);
+        for (int f = 0; f < size; f++) {
+            achievers.add(new ArrayList<>());
+        }
+        for (int a = 0; a < actions.size(); a++) {
+            for (ConditionalEffect ce : actions.get(a).getConditionalEffects()) {
+                final BitVector add = ce.getEffect().getPositiveFluents();
+                for (int f = add.nextSetBit(0); f >= 0; f = add.nextSetBit(f + 1)) {
+                    achievers.get(f).add(a);
+                }
+            }
+        }
+        final List<Integer> found = new ArrayList<>();
+        final int[] idx = new int[size];
+        Arrays.fill(idx, -1);
+        final Deque<Integer> pending = new ArrayDeque<>();
+        final BitVector goal = problem.getGoal().getPositiveFluents();
+        for (int f = goal.nextSetBit(0); f >= 0; f = goal.nextSetBit(f + 1)) {
+            idx[f] = found.size();
+            found.add(f);
+            pending.add(f);
+        }
+        while (!pending.isEmpty()) {
+            final int l = pending.poll();
+            if (init.get(l)) {
+                continue;
+            }
+            final BitVector reachable = LandmarkCount.reachableWithout(actions, init, l);
+            BitVector shared = null;
+            for (int a : achievers.get(l)) {
+                final BitVector pre = LandmarkCount.precondition(actions.get(a), l);
+                if (reachable.include(pre)) {
+                    if (shared == null) {
+                        shared = new BitVector(pre);
+                    } else {
+                        shared.and(pre);
+                    }
+                }
+            }
+            if (shared != null) {
+                for (int f = shared.nextSetBit(0); f >= 0; f = shared.nextSetBit(f + 1)) {
+                    if (idx[f] == -1) {
+                        idx[f] = found.size();
+                        found.add(f);
+                        pending.add(f);
+                    }
+                }
+            }
+        }
+        this.landmarks = found.stream().mapToInt(Integer::intValue).toArray();
+        this.index = idx;
+        this.goals = goal.stream().map(f -> idx[f]).toArray();
+    }
+
+    /**
+     * Returns the positive preconditions of an action needed to achieve a fluent, i.e., the precondition
+     * of the action and the condition of the conditional effects adding the fluent.
+     *
+     * @param action the action.
+     * @param fluent the fluent.
+     * @return the positive preconditions needed to achieve the fluent.
+     */
+    private static BitVector precondition(final Action action, final int fluent) {
+        final BitVector pre = new BitVector(action.getPrecondition().getPositiveFluents());
+        for (ConditionalEffect ce : action.getConditionalEffects()) {
+            if (ce.getEffect().getPositiveFluents().get(fluent)) {
+                pre.or(ce.getCondition().getPositiveFluents());
+            }
+        }
+        return pre;
+    }
+
+    /**
+     * Computes the fluents reachable in the relaxed problem from the initial state without applying
+     * the actions achieving a specified fluent.
+     *
+     * @param actions the actions of the problem.
+     * @param init    the positive fluents of the initial state.
+     * @param fluent  the fluent that must not be achieved.
+     * @return the fluents reachable without achieving the fluent.
+     */
+    private static BitVector reachableWithout(final List<Action> actions, final BitVector init, final int fluent) {
+        final BitVector reached = new BitVector(init);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Action a : actions) {
+                if (!reached.include(a.getPrecondition().getPositiveFluents())) {
+                    continue;
+                }
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    final BitVector add = ce.getEffect().getPositiveFluents();
+                    if (add.get(fluent) || !reached.include(ce.getCondition().getPositiveFluents())) {
+                        continue;
+                    }
+                    if (!reached.include(add)) {
+                        reached.or(add);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Returns the number of landmarks of the problem.
+     *
+     * @return the number of landmarks of the problem.
+     */
+    public int size() {
+        return this.landmarks.length;
+    }
+
+    /**
+     * Returns the landmarks accepted in a root state, i.e., the landmarks true in the state.
+     *
+     * @param state the state.
+     * @return the landmarks accepted in the state.
+     */
+    public BitSet accepted(final State state) {
+        final BitSet accepted = new BitSet(this.landmarks.length);
+        for (int l = 0; l < this.landmarks.length; l++) {
+            if (state.get(this.landmarks[l])) {
+                accepted.set(l);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Returns the landmarks accepted after applying an action in a node, i.e., the landmarks accepted in
+     * the node and the landmarks added by the action.
+     *
+     * @param parent the node in which the action is applied.
+     * @param action the action.
+     * @return the landmarks accepted after applying the action.
+     */
+    public BitSet accepted(final Node parent, final Action action) {
+        final BitSet accepted = parent.getLandmarks() == null
+            ? this.accepted((State) parent) : (BitSet) parent.getLandmarks().clone();
+        for (ConditionalEffect ce : action.getConditionalEffects()) {
+            if (parent.satisfy(ce.getCondition())) {
+                final BitVector add = ce.getEffect().getPositiveFluents();
+                for (int f = add.nextSetBit(0); f >= 0; f = add.nextSetBit(f + 1)) {
+                    if (this.index[f] != -1) {
+                        accepted.set(this.index[f]);
+                    }
+                }
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Returns the landmark count of a state. The goal parameter is ignored: the landmarks are extracted
+     * for the goal of the problem.
+     *
+     * @param state the state.
+     * @param goal  the goal.
+     * @return the number of landmarks still to be achieved.
+     */
+    @Override
+    public int estimate(final State state, final Condition goal) {
+        final BitSet accepted = state instanceof Node && ((Node) state).getLandmarks() != null
+            ? ((Node) state).getLandmarks() : this.accepted(state);
+        int value = this.landmarks.length - accepted.cardinality();
+        for (int l : this.goals) {
+            if (accepted.get(l) && !state.get(this.landmarks[l])) {
+                value++;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the landmark count of a node of the pddl4j search strategies.
+     *
+     * @param node the node.
+     * @param goal the goal.
+     * @return the number of landmarks still to be achieved.
+     */
+    @Override
+    public double estimate(final fr.uga.pddl4j.planners.statespace.search.Node node, final Condition goal) {
+        return this.estimate((State) node, goal);
+    }
+
+    /**
+     * Returns if the heuristic is admissible. The landmark count is not admissible.
+     *
+     * @return <code>false</code>.
+     */
+    @Override
+    public boolean isAdmissible() {
+        return false;
+    }
+}
@@ -21,6 +21,8 @@ package fr.uga.pddl4j.examples.asp;
 
 import fr.uga.pddl4j.problem.State;
 
+import java.util.BitSet;
+
 /**
  * This class implements a node of the tree search.
  *
@@ -54,6 +56,11 @@ public final class Node extends State {
      */
     private int depth;
 
+    /**
+     * The landmarks accepted on the path to the node or null if landmarks are not used.
+     */
+    private BitSet landmarks;
+
     /**
      * Creates a new node from a specified state.
      *
@@ -192,6 +199,24 @@ public final class Node extends State {
         this.depth = depth;
     }
 
+    /**
+     * Returns the landmarks accepted on the path to this node.
+     *
+     * @return the landmarks accepted on the path to this node or null if landmarks are not used.
+     */
+    public final BitSet getLandmarks() {
+        return this.landmarks;
+    }
+
+    /**
+     * Sets the landmarks accepted on the path to this node.
+     *
+     * @param landmarks the landmarks accepted on the path to this node.
+     */
+    public final void setLandmarks(final BitSet landmarks) {
+        this.landmarks = landmarks;
+    }
+
     /**
      * Returns the value of the heuristic function, i.e.,
      * <code>this.node.getCost() + this.node.getHeuristic()</code>.
@@ -0,0 +1,335 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This class extracts FF relaxed plans. Unlike the pddl4j FAST_FORWARD heuristic, which only returns the
+ * size of the relaxed plan, it returns the actions of the relaxed plan, so that the search can use them,
+ * e.g., as helpful actions (the actions of the relaxed plan applicable in the state) or to look ahead.
+ * <p>
+ * Every conditional effect of an action is a relaxed operator whose precondition is the precondition of
+ * the action and the condition of the effect. Negative preconditions and delete effects are ignored.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class RelaxedPlan {
+
+    /**
+     * The actions of the problem.
+     */
+    private final List<Action> actions;
+
+    /**
+     * The goal of the problem.
+     */
+    private final Condition goalCondition;
+
+    /**
+     * The positive preconditions of each relaxed operator.
+     */
+    private final int[][] pre;
+
+    /**
+     * The add effects of each relaxed operator.
+     */
+    private final int[][] add;
+
+    /**
+     * The action of each relaxed operator.
+     */
+    private final int[] action;
+
+    /**
+     * The relaxed operators having each fluent as precondition.
+     */
+    private final int[][] consumers;
+
+    /**
+     * The relaxed operators adding each fluent.
+     */
+    private final int[][] achievers;
+
+    /**
+     * The relaxed operators without precondition.
+     */
+    private final int[] free;
+
+    /**
+     * The positive goals of the problem.
+     */
+    private final int[] goal;
+
+    /**
+     * The level of each fluent in the last relaxed planning graph.
+     */
+    private final int[] factLevel;
+
+    /**
+     * The level of each relaxed operator in the last relaxed planning graph.
+     */
+    private final int[] opLevel;
+
+    /**
+     * The number of unsatisfied preconditions of each relaxed operator.
+     */
+    private final int[] counter;
+
+    /**
+     * Creates a relaxed plan extractor for a problem.
+     *
+     * @param problem the problem.
+     */
+    public RelaxedPlan(final Problem problem) {
+        final List<Action> actions = problem.getActions();
+        final List<int[]> pres = new ArrayList<>();
+        final List<int[]> adds = new ArrayList<>();
+        final List<Integer> owners = new ArrayList<>();
+        for (int a = 0; a < actions.size(); a++) {
+            final BitVector precondition = actions.get(a).getPrecondition().getPositiveFluents();
+            for (ConditionalEffect ce : actions.get(a).getConditionalEffects()) {
+                final BitVector p = new BitVector(precondition);
+                p.or(ce.getCondition().getPositiveFluents());
+                pres.add(p.stream().toArray());
+                adds.add(ce.getEffect().getPositiveFluents().stream().toArray());
+                owners.add(a);
+            }
+        }
+        final int fluents = problem.getFluents().size();
+        this.pre = pres.toArray(new int[0][]);
+        this.add = adds.toArray(new int[0][]);
+        this.action = owners.stream().mapToInt(Integer::intValue).toArray();
+        this.consumers = RelaxedPlan.invert(this.pre, fluents);
+        this.achievers = RelaxedPlan.invert(this.add, fluents);
+        this.free = IntStream.range(0, this.pre.length).filter(o -> this.pre[o].length == 0)
+            .toArray();
+        this.goal = problem.getGoal().getPositiveFluents().stream().toArray();
+        this.actions = actions;
+        this.goalCondition = problem.getGoal();
+        this.factLevel = new int[fluents];
+        this.opLevel = new int[this.pre.length];
+        this.counter = new int[this.pre.length];
+    }
+
+    /**
+     * Inverts a relation from relaxed operators to fluents.
+     *
+     * @param relation the relation.
+     * @param fluents  the number of fluents.
+     * @return for each fluent, the relaxed operators related to it.
+     */
+    private static int[][] invert(final int[][] relation, final int fluents) {
+        final int[] sizes = new int[fluents];
+        for (int[] facts : relation) {
+            for (int f : facts) {
+                sizes[f]++;
+            }
+        }
+        final int[][] inverse = new int[fluents][];
+        for (int f = 0; f < fluents; f++) {
+            inverse[f] = new int[sizes[f]];
+            sizes[f] = 0;
+        }
+        for (int o = 0; o < relation.length; o++) {
+            for (int f : relation[o]) {
+                inverse[f][sizes[f]++] = o;
+            }
+        }
+        return inverse;
+    }
+
+    /**
+     * Extracts a relaxed plan from a state. This method is not thread safe: each thread must use its own
+     * extractor.
+     *
+     * @param state the state.
+     * @return the indexes of the actions of the relaxed plan, ordered by level, or null if the goal is not
+     *     reachable in the relaxed problem.
+     */
+    public int[] extract(final BitVector state) {
+        Arrays.fill(this.factLevel, Integer.MAX_VALUE);
+        Arrays.fill(this.opLevel, Integer.MAX_VALUE);
+        for (int o = 0; o < this.pre.length; o++) {
+            this.counter[o] = this.pre[o].length;
+        }
+        int[] layer = state.stream().toArray();
+        for (int f : layer) {
+            this.factLevel[f] = 0;
+        }
+        int remaining = 0;
+        for (int g : this.goal) {
+            if (this.factLevel[g] != 0) {
+                remaining++;
+            }
+        }
+        int level = 0;
+        final List<Integer> enabled = new ArrayList<>();
+        for (int o : this.free) {
+            this.opLevel[o] = 0;
+            enabled.add(o);
+        }
+        // Forward expansion of the relaxed planning graph
+        while (remaining > 0) {
+            for (int f : layer) {
+                for (int o : this.consumers[f]) {
+                    if (--this.counter[o] == 0) {
+                        this.opLevel[o] = level;
+                        enabled.add(o);
+                    }
+                }
+            }
+            if (enabled.isEmpty()) {
+                return null;
+            }
+            final List<Integer> next = new ArrayList<>();
+            for (int o : enabled) {
+                for (int f : this.add[o]) {
+                    if (this.factLevel[f] == Integer.MAX_VALUE) {
+                        this.factLevel[f] = level + 1;
+                        next.add(f);
+                    }
+                }
+            }
+            enabled.clear();
+            level++;
+            layer = next.stream().mapToInt(Integer::intValue).toArray();
+            remaining = 0;
+            for (int g : this.goal) {
+                if (this.factLevel[g] == Integer.MAX_VALUE) {
+                    remaining++;
+                }
+            }
+            if (layer.length == 0 && remaining > 0) {
+                return null;
+            }
+        }
+        // Backward extraction of the relaxed plan
+        final List<List<Integer>> goals = new ArrayList<>();
+        for (int l = 0; l <= level; l++) {
+            goals.add(new ArrayList<>());
+        }
+        final BitSet marked = new BitSet();
+        for (int g : this.goal) {
+            if (this.factLevel[g] > 0 && !marked.get(g)) {
+                marked.set(g);
+                goals.get(this.factLevel[g]).add(g);
+            }
+        }
+        final BitSet selected = new BitSet();
+        final BitSet achieved = new BitSet();
+        final List<Integer> plan = new ArrayList<>();
+        for (int l = level; l > 0; l--) {
+            for (int g : goals.get(l)) {
+                if (achieved.get(g)) {
+                    continue;
+                }
+                int best = -1;
+                int difficulty = Integer.MAX_VALUE;
+                for (int o : this.achievers[g]) {
+                    if (this.opLevel[o] == l - 1) {
+                        int d = 0;
+                        for (int p : this.pre[o]) {
+                            d += this.factLevel[p];
+                        }
+                        if (d < difficulty) {
+                            difficulty = d;
+                            best = o;
+                        }
+                    }
+                }
+                if (!selected.get(this.action[best])) {
+                    selected.set(this.action[best]);
+                    plan.add(0, this.action[best]);
+                }
+                for (int f : this.add[best]) {
+                    achieved.set(f);
+                }
+                for (int p : this.pre[best]) {
+                    if (this.factLevel[p] > 0 && !marked.get(p)) {
+                        marked.set(p);
+                        goals.get(this.factLevel[p]).add(p);
+                    }
+                }
+            }
+        }
+        return plan.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Applies greedily the actions of a relaxed plan from a state, as the lookahead of YAHSP: the first
+     * applicable action of the relaxed plan is applied and removed from the plan, until no action is
+     * applicable or the goal is reached. When no action is applicable, the plan is repaired by inserting,
+     * before the first action that can be repaired, an applicable action achieving one of its unsatisfied
+     * preconditions. An action is never inserted twice, so that the lookahead terminates.
+     *
+     * @param state the state.
+     * @param plan  the indexes of the actions of the relaxed plan of the state.
+     * @return the indexes of the actions applied, in order, empty if none is applicable.
+     */
+    public int[] lookahead(final State state, final int[] plan) {
+        final List<Integer> remaining = new ArrayList<>();
+        final BitSet inserted = new BitSet();
+        for (int a : plan) {
+            remaining.add(a);
+            inserted.set(a);
+        }
+        final State current = new State(state);
+        final List<Integer> applied = new ArrayList<>();
+        while (!remaining.isEmpty() && !current.satisfy(this.goalCondition)) {
+            int next = -1;
+            for (int i = 0; i < remaining.size() && next < 0; i++) {
+                if (this.actions.get(remaining.get(i)).isApplicable(current)) {
+                    next = i;
+                }
+            }
+            if (next >= 0) {
+                final int a = remaining.remove(next);
+                current.apply(this.actions.get(a).getConditionalEffects());
+                applied.add(a);
+            } else if (!this.repair(current, remaining, inserted)) {
+                break;
+            }
+        }
+        return applied.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Repairs the rest of a relaxed plan that has no applicable action.
+     *
+     * @param state     the current state.
+     * @param remaining the indexes of the actions of the rest of the relaxed plan.
+     * @param inserted  the indexes of the actions already in the relaxed plan or inserted.
+     * @return <code>true</code> if an action was inserted, <code>false</code> otherwise.
+     */
+    private boolean repair(final State state, final List<Integer> remaining, final BitSet inserted) {
+        for (int i = 0; i < remaining.size(); i++) {
+            final BitVector precondition = this.actions.get(remaining.get(i)).getPrecondition()
+                .getPositiveFluents();
+            for (int p = precondition.nextSetBit(0); p >= 0; p = precondition.nextSetBit(p + 1)) {
+                if (state.get(p)) {
+                    continue;
+                }
+                for (int o : this.achievers[p]) {
+                    final int c = this.action[o];
+                    if (!inserted.get(c) && this.actions.get(c).isApplicable(state)) {
+                        inserted.set(c);
+                        remaining.add(i, c);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,319 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class implements a partial-order reduction based on strong stubborn sets (Alkhazraji et al., 2012).
+ * In a state that is not a goal state, only the applicable actions of a strong stubborn set need to be
+ * expanded: the set starts with the achievers of an unsatisfied goal and is closed by adding, for each
+ * applicable action of the set, the actions interfering with it and, for each inapplicable action of the
+ * set, the achievers of one of its unsatisfied preconditions.
+ * <p>
+ * Two actions interfere if one disables the other (it deletes a positive precondition, adds a negative
+ * precondition or changes a condition of an effect of the other) or if they conflict (one adds a fluent
+ * deleted by the other). The conditional effects are handled conservatively: every conditional effect is
+ * considered as a possible effect of its action. The pruning preserves the completeness and the optimality
+ * of the searches with duplicate detection.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class StubbornSets {
+
+    /**
+     * The actions of the problem.
+     */
+    private final List<Action> actions;
+
+    /**
+     * The positive preconditions of each action.
+     */
+    private final int[][] prePositive;
+
+    /**
+     * The negative preconditions of each action.
+     */
+    private final int[][] preNegative;
+
+    /**
+     * The fluents of the conditions of the effects of each action.
+     */
+    private final int[][] reads;
+
+    /**
+     * The fluents possibly added by each action.
+     */
+    private final int[][] adds;
+
+    /**
+     * The fluents possibly deleted by each action.
+     */
+    private final int[][] dels;
+
+    /**
+     * The actions having each fluent as positive precondition.
+     */
+    private final int[][] requirers;
+
+    /**
+     * The actions having each fluent as negative precondition.
+     */
+    private final int[][] forbidders;
+
+    /**
+     * The actions having each fluent in the condition of an effect.
+     */
+    private final int[][] readers;
+
+    /**
+     * The actions possibly adding each fluent.
+     */
+    private final int[][] adders;
+
+    /**
+     * The actions possibly deleting each fluent.
+     */
+    private final int[][] deleters;
+
+    /**
+     * The positive goals of the problem.
+     */
+    private final int[] goalPositive;
+
+    /**
+     * The negative goals of the problem.
+     */
+    private final int[] goalNegative;
+
+    /**
+     * The actions interfering with each action, computed on demand and published to all the threads.
+     */
+    private final AtomicReferenceArray<int[]> interference;
+
+    /**
+     * Creates the strong stubborn sets of a problem.
+     *
+     * @param problem the problem.
+     */
+    public StubbornSets(final Problem problem) {
+        this.actions = problem.getActions();
+        final int n = this.actions.size();
+        this.prePositive = new int[n][];
+        this.preNegative = new int[n][];
+        this.reads = new int[n][];
+        this.adds = new int[n][];
+        this.dels = new int[n][];
+        for (int a = 0; a < n; a++) {
+            final Action action = this.actions.get(a);
+            this.prePositive[a] = action.getPrecondition().getPositiveFluents().stream().toArray();
+            this.preNegative[a] = action.getPrecondition().getNegativeFluents().stream().toArray();
+            final BitVector read = new BitVector();
+            final BitVector add = new BitVector();
+            final BitVector del = new BitVector();
+            for (ConditionalEffect ce : action.getConditionalEffects()) {
+                read.or(ce.getCondition().getPositiveFluents());
+                read.or(ce.getCondition().getNegativeFluents());
+                add.or(ce.getEffect().getPositiveFluents());
+                del.or(ce.getEffect().getNegativeFluents());
+            }
+            this.reads[a] = read.stream().toArray();
+            this.adds[a] = add.stream().toArray();
+            this.dels[a] = del.stream().toArray();
+        }
+        final int fluents = problem.getFluents().size();
+        this.requirers = StubbornSets.invert(this.prePositive, fluents);
+        this.forbidders = StubbornSets.invert(this.preNegative, fluents);
+        this.readers = StubbornSets.invert(this.reads, fluents);
+        this.adders = StubbornSets.invert(this.adds, fluents);
+        this.deleters = StubbornSets.invert(this.dels, fluents);
+        final Condition goal = problem.getGoal();
+        this.goalPositive = goal.getPositiveFluents().stream().toArray();
+        this.goalNegative = goal.getNegativeFluents().stream().toArray();
+        this.interference = new AtomicReferenceArray<>(n);
+    }
+
+    /**
+     * Inverts a relation from actions to fluents.
+     *
+     * @param relation the relation.
+     * @param fluents  the number of fluents.
+     * @return for each fluent, the actions related to it.
+     */
+    private static int[][] invert(final int[][] relation, final int fluents) {
+        final int[] sizes = new int[fluents];
+        for (int[] facts : relation) {
+            for (int f : facts) {
+                sizes[f]++;
+            }
+        }
+        final int[][] inverse = new int[fluents][];
+        for (int f = 0; f < fluents; f++) {
+            inverse[f] = new int[sizes[f]];
+            sizes[f] = 0;
+        }
+        for (int a = 0; a < relation.length; a++) {
+            for (int f : relation[a]) {
+                inverse[f][sizes[f]++] = a;
+            }
+        }
+        return inverse;
+    }
+
+    /**
+     * Returns the applicable actions of a strong stubborn set of a state. If the state satisfies the goal,
+     * all the applicable actions are returned. This method is thread safe.
+     *
+     * @param state the state.
+     * @return the indexes of the applicable actions to expand in the state.
+     */
+    public BitSet applicable(final State state) {
+        final BitSet stubborn = new BitSet(this.actions.size());
+        final BitSet result = new BitSet(this.actions.size());
+        final Deque<Integer> queue = new ArrayDeque<>();
+        final int[] seed = this.unsatisfiedGoal(state);
+        if (seed == null) {
+            for (int a = 0; a < this.actions.size(); a++) {
+                if (this.actions.get(a).isApplicable(state)) {
+                    result.set(a);
+                }
+            }
+            return result;
+        }
+        StubbornSets.enqueue(seed, stubborn, queue);
+        while (!queue.isEmpty()) {
+            final int a = queue.poll();
+            if (this.actions.get(a).isApplicable(state)) {
+                result.set(a);
+                StubbornSets.enqueue(this.interfering(a), stubborn, queue);
+            } else {
+                StubbornSets.enqueue(this.necessaryEnablingSet(a, state), stubborn, queue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds to the stubborn set and to the queue the actions not already in the set.
+     *
+     * @param actions  the actions.
+     * @param stubborn the stubborn set.
+     * @param queue    the queue of the actions to process.
+     */
+    private static void enqueue(final int[] actions, final BitSet stubborn, final Deque<Integer> queue) {
+        for (int a : actions) {
+            if (!stubborn.get(a)) {
+                stubborn.set(a);
+                queue.add(a);
+            }
+        }
+    }
+
+    /**
+     * Returns the achievers of the unsatisfied goal with the fewest achievers.
+     *
+     * @param state the state.
+     * @return the achievers of an unsatisfied goal or null if the state satisfies the goal.
+     */
+    private int[] unsatisfiedGoal(final BitVector state) {
+        int[] best = null;
+        for (int g : this.goalPositive) {
+            if (!state.get(g) && (best == null || this.adders[g].length < best.length)) {
+                best = this.adders[g];
+            }
+        }
+        for (int g : this.goalNegative) {
+            if (state.get(g) && (best == null || this.deleters[g].length < best.length)) {
+                best = this.deleters[g];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the achievers of the unsatisfied precondition of an action with the fewest achievers.
+     *
+     * @param a     the index of the action.
+     * @param state the state.
+     * @return the achievers of an unsatisfied precondition of the action.
+     */
+    private int[] necessaryEnablingSet(final int a, final BitVector state) {
+        int[] best = null;
+        for (int f : this.prePositive[a]) {
+            if (!state.get(f) && (best == null || this.adders[f].length < best.length)) {
+                best = this.adders[f];
+            }
+        }
+        for (int f : this.preNegative[a]) {
+            if (state.get(f) && (best == null || this.deleters[f].length < best.length)) {
+                best = this.deleters[f];
+            }
+        }
+        return best == null ? new int[0] : best;
+    }
+
+    /**
+     * Returns the actions interfering with an action. The result is computed once and cached in an atomic
+     * array, so that a thread reading the cache sees a fully built array; concurrent calls may compute it twice
+     * but the first result stored is kept.
+     *
+     * @param a the index of the action.
+     * @return the indexes of the actions interfering with the action.
+     */
+    private int[] interfering(final int a) {
+        int[] known = this.interference.get(a);
+        if (known == null) {
+            final BitSet set = new BitSet(this.actions.size());
+            // The actions disabled by a or conflicting with it
+            for (int f : this.dels[a]) {
+                StubbornSets.mark(this.requirers[f], set);
+                StubbornSets.mark(this.adders[f], set);
+                StubbornSets.mark(this.readers[f], set);
+            }
+            for (int f : this.adds[a]) {
+                StubbornSets.mark(this.forbidders[f], set);
+                StubbornSets.mark(this.deleters[f], set);
+                StubbornSets.mark(this.readers[f], set);
+            }
+            // The actions disabling a
+            for (int f : this.prePositive[a]) {
+                StubbornSets.mark(this.deleters[f], set);
+            }
+            for (int f : this.preNegative[a]) {
+                StubbornSets.mark(this.adders[f], set);
+            }
+            for (int f : this.reads[a]) {
+                StubbornSets.mark(this.adders[f], set);
+                StubbornSets.mark(this.deleters[f], set);
+            }
+            set.clear(a);
+            known = set.stream().toArray();
+            if (!this.interference.compareAndSet(a, null, known)) {
+                known = this.interference.get(a);
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Marks actions in a set.
+     *
+     * @param actions the actions.
+     * @param set     the set.
+     */
+    private static void mark(final int[] actions, final BitSet set) {
+        for (int a : actions) {
+            set.set(a);
+        }
+    }
+}
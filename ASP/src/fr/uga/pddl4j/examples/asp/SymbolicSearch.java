@@ -0,0 +1,471 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.plan.SequentialPlan;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements a bidirectional blind search on sets of states represented by BDDs. A variable of
+ * the BDDs is a fluent of the problem. The forward search computes the layers of the states reached from the
+ * initial state in 0, 1, 2... actions, the backward search the layers of the states reaching the goal in
+ * 0, 1, 2... actions, and the search expanding the smaller layer goes on until the two searches meet. The
+ * plan is then rebuilt layer by layer from a state of the intersection.
+ * <p>
+ * The transition relation is partitioned: the actions with the same effects are grouped and the image of a
+ * set of states is the union of the images of the groups. The image of a group is the relational product of
+ * the set and of the disjunction of the preconditions of the group, quantified on the fluents changed by the
+ * effects, then conjoined with the effects. As the frame of an action is implicit, the BDDs only use the
+ * variables of the current state, without copy for the next state.
+ * </p>
+ * <p>
+ * Only the actions whose conditional effects are unconditional are supported, see
+ * {@link #isSupported(Problem)}.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class SymbolicSearch {
+
+    /**
+     * The number of nodes above which the unused nodes are freed between two layers.
+     */
+    public static int GC_THRESHOLD = 1 << 20;
+
+    /**
+     * The problem.
+     */
+    private final Problem problem;
+
+    /**
+     * The BDD factory.
+     */
+    private final BddFactory bdd;
+
+    /**
+     * The fluents added by each action.
+     */
+    private final BitSet[] adds;
+
+    /**
+     * The fluents deleted and not added by each action.
+     */
+    private final BitSet[] dels;
+
+    /**
+     * The precondition of each action.
+     */
+    private final int[] preconditions;
+
+    /**
+     * The effect of each action: the fluents added are true, the fluents deleted and not added are false.
+     */
+    private final int[] effects;
+
+    /**
+     * The conjunction of the fluents changed by the effect of each action.
+     */
+    private final int[] changed;
+
+    /**
+     * The disjunction of the preconditions of each group of actions with the same effects.
+     */
+    private final int[] groupPreconditions;
+
+    /**
+     * The effect of each group of actions.
+     */
+    private final int[] groupEffects;
+
+    /**
+     * The fluents changed by the effect of each group of actions.
+     */
+    private final int[] groupChanged;
+
+    /**
+     * The BDD of the goal.
+     */
+    private final int goal;
+
+    /**
+     * The number of layers of the forward search of the last search.
+     */
+    private int forwardLayers;
+
+    /**
+     * The number of layers of the backward search of the last search.
+     */
+    private int backwardLayers;
+
+    /**
+     * The peak number of nodes of the last search.
+     */
+    private int peakNodes;
+
+    /**
+     * Creates a symbolic search for a problem and builds the BDDs of its actions.
+     *
+     * @param problem the problem, supported by the symbolic search.
+     */
+    public SymbolicSearch(final Problem problem) {
+        this.problem = problem;
+        this.bdd = new BddFactory(problem.getFluents().size());
+        final List<Action> actions = problem.getActions();
+        this.preconditions = new int[actions.size()];
+        this.effects = new int[actions.size()];
+        this.changed = new int[actions.size()];
+        this.adds = new BitSet[actions.size()];
+        this.dels = new BitSet[actions.size()];
+        final Map<List<Integer>, Integer> groups = new LinkedHashMap<>();
+        for (int a = 0; a < actions.size(); a++) {
+            final Action action = actions.get(a);
+            final BitSet add = new BitSet();
+            final BitSet del = new BitSet();
+            for (ConditionalEffect ce : action.getConditionalEffects()) {
+                add.or(SymbolicSearch.toBitSet(ce.getEffect().getPositiveFluents()));
+                del.or(SymbolicSearch.toBitSet(ce.getEffect().getNegativeFluents()));
+            }
+            // As in State.apply, a fluent both added and deleted is added
+            del.andNot(add);
+            this.adds[a] = add;
+            this.dels[a] = del;
+            final BitSet vars = new BitSet();
+            vars.or(add);
+            vars.or(del);
+            this.preconditions[a] = this.bdd.cube(
+                SymbolicSearch.toBitSet(action.getPrecondition().getPositiveFluents()),
+                SymbolicSearch.toBitSet(action.getPrecondition().getNegativeFluents()));
+            this.effects[a] = this.bdd.cube(add, del);
+            this.changed[a] = this.bdd.cube(vars, new BitSet());
+            final List<Integer> key = List.of(this.effects[a], this.changed[a]);
+            final Integer group = groups.get(key);
+            groups.put(key, group == null ? this.preconditions[a] : this.bdd.or(group, this.preconditions[a]));
+        }
+        this.groupPreconditions = new int[groups.size()];
+        this.groupEffects = new int[groups.size()];
+        this.groupChanged = new int[groups.size()];
+        int g = 0;
+        for (Map.Entry<List<Integer>, Integer> e : groups.entrySet()) {
+            this.groupEffects[g] = e.getKey().get(0);
+            this.groupChanged[g] = e.getKey().get(1);
+            this.groupPreconditions[g] = e.getValue();
+            g++;
+        }
+        this.goal = this.bdd.cube(SymbolicSearch.toBitSet(problem.getGoal().getPositiveFluents()),
+            SymbolicSearch.toBitSet(problem.getGoal().getNegativeFluents()));
+    }
+
+    /**
+     * Converts a bit vector of pddl4j into a bit set.
+     *
+     * @param vector the bit vector.
+     * @return the bit set.
+     */
+    private static BitSet toBitSet(final BitVector vector) {
+        final BitSet set = new BitSet();
+        for (int f = vector.nextSetBit(0); f >= 0; f = vector.nextSetBit(f + 1)) {
+            set.set(f);
+        }
+        return set;
+    }
+
+    /**
+     * Returns whether the symbolic search supports a problem, i.e., whether the conditional effects of its
+     * actions are unconditional.
+     *
+     * @param problem the problem.
+     * @return <code>true</code> if the problem is supported.
+     */
+    public static boolean isSupported(final Problem problem) {
+        for (Action a : problem.getActions()) {
+            for (ConditionalEffect ce : a.getConditionalEffects()) {
+                if (!ce.getCondition().isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of groups of actions with the same effects, i.e., the number of partitions of the
+     * transition relation.
+     *
+     * @return the number of groups.
+     */
+    public int getPartitions() {
+        return this.groupEffects.length;
+    }
+
+    /**
+     * Returns the number of layers of the forward search of the last search.
+     *
+     * @return the number of forward layers.
+     */
+    public int getForwardLayers() {
+        return this.forwardLayers;
+    }
+
+    /**
+     * Returns the number of layers of the backward search of the last search.
+     *
+     * @return the number of backward layers.
+     */
+    public int getBackwardLayers() {
+        return this.backwardLayers;
+    }
+
+    /**
+     * Returns the peak number of BDD nodes of the last search.
+     *
+     * @return the peak number of nodes.
+     */
+    public int getPeakNodes() {
+        return this.peakNodes;
+    }
+
+    /**
+     * Returns the union of BDDs, computed pairwise to keep the intermediate BDDs small.
+     *
+     * @param sets the BDDs.
+     * @return the union.
+     */
+    private int union(final List<Integer> sets) {
+        List<Integer> current = sets;
+        while (current.size() > 1) {
+            final List<Integer> merged = new ArrayList<>((current.size() + 1) / 2);
+            for (int i = 0; i + 1 < current.size(); i += 2) {
+                merged.add(this.bdd.or(current.get(i), current.get(i + 1)));
+            }
+            if (current.size() % 2 == 1) {
+                merged.add(current.get(current.size() - 1));
+            }
+            current = merged;
+        }
+        return current.isEmpty() ? BddFactory.FALSE : current.get(0);
+    }
+
+    /**
+     * Returns the states reached from a set of states by one action.
+     *
+     * @param states the set of states.
+     * @return the image of the set.
+     */
+    private int image(final int states) {
+        final List<Integer> images = new ArrayList<>();
+        for (int g = 0; g < this.groupEffects.length; g++) {
+            final int applied = this.bdd.andExists(states, this.groupPreconditions[g], this.groupChanged[g]);
+            if (applied != BddFactory.FALSE) {
+                images.add(this.bdd.and(applied, this.groupEffects[g]));
+            }
+        }
+        return this.union(images);
+    }
+
+    /**
+     * Returns the states reaching a set of states by one action.
+     *
+     * @param states the set of states.
+     * @return the preimage of the set.
+     */
+    private int preimage(final int states) {
+        final List<Integer> images = new ArrayList<>();
+        for (int g = 0; g < this.groupEffects.length; g++) {
+            final int restricted = this.bdd.andExists(states, this.groupEffects[g], this.groupChanged[g]);
+            if (restricted != BddFactory.FALSE) {
+                images.add(this.bdd.and(restricted, this.groupPreconditions[g]));
+            }
+        }
+        return this.union(images);
+    }
+
+    /**
+     * Searches a plan.
+     *
+     * @param deadline the time in ms at which the search stops.
+     * @return a plan of minimal length or null if the goal is not reachable or the deadline is passed.
+     */
+    public Plan search(final long deadline) {
+        return this.search(deadline, null);
+    }
+
+    /**
+     * Searches a plan. The token is checked between two layers of the search.
+     *
+     * @param deadline     the time in ms at which the search stops.
+     * @param cancellation the token cancelling the search or null.
+     * @return a plan of minimal length or null if the goal is not reachable, the deadline is passed or the
+     *     search is cancelled.
+     */
+    public Plan search(final long deadline, final CancellationToken cancellation) {
+        final BitSet init = SymbolicSearch.toBitSet(this.problem.getInitialState().getPositiveFluents());
+        final List<Integer> forward = new ArrayList<>();
+        final List<Integer> backward = new ArrayList<>();
+        forward.add(this.bdd.cube(init, this.complement(init)));
+        backward.add(this.goal);
+        int reachedForward = forward.get(0);
+        int reachedBackward = this.goal;
+        int meet = this.bdd.and(reachedForward, reachedBackward);
+        this.peakNodes = this.bdd.getNodes();
+        while (meet == BddFactory.FALSE) {
+            if (System.currentTimeMillis() >= deadline || cancellation != null && cancellation.isCancelled()) {
+                return null;
+            }
+            final int last;
+            if (this.bdd.size(forward.get(forward.size() - 1)) <= this.bdd.size(backward.get(backward.size() - 1))) {
+                last = this.bdd.diff(this.image(forward.get(forward.size() - 1)), reachedForward);
+                forward.add(last);
+                reachedForward = this.bdd.or(reachedForward, last);
+                meet = this.bdd.and(last, reachedBackward);
+            } else {
+                last = this.bdd.diff(this.preimage(backward.get(backward.size() - 1)), reachedBackward);
+                backward.add(last);
+                reachedBackward = this.bdd.or(reachedBackward, last);
+                meet = this.bdd.and(last, reachedForward);
+            }
+            this.peakNodes = Math.max(this.peakNodes, this.bdd.getNodes());
+            if (last == BddFactory.FALSE) {
+                // One of the searches is exhausted: the goal is not reachable
+                return null;
+            }
+            if (this.bdd.getNodes() > SymbolicSearch.GC_THRESHOLD) {
+                this.gc(forward, backward, reachedForward, reachedBackward, meet);
+            }
+        }
+        this.forwardLayers = forward.size();
+        this.backwardLayers = backward.size();
+        return this.extract(this.bdd.satOne(meet), forward, backward);
+    }
+
+    /**
+     * Frees the nodes that are no longer used.
+     *
+     * @param forward         the layers of the forward search.
+     * @param backward        the layers of the backward search.
+     * @param reachedForward  the states reached by the forward search.
+     * @param reachedBackward the states reached by the backward search.
+     * @param meet            the intersection of the searches.
+     */
+    private void gc(final List<Integer> forward, final List<Integer> backward, final int reachedForward,
+                    final int reachedBackward, final int meet) {
+        final List<Integer> roots = new ArrayList<>();
+        roots.addAll(forward);
+        roots.addAll(backward);
+        roots.add(reachedForward);
+        roots.add(reachedBackward);
+        roots.add(meet);
+        roots.add(this.goal);
+        for (int a = 0; a < this.preconditions.length; a++) {
+            roots.add(this.preconditions[a]);
+            roots.add(this.effects[a]);
+            roots.add(this.changed[a]);
+        }
+        for (int g = 0; g < this.groupPreconditions.length; g++) {
+            roots.add(this.groupPreconditions[g]);
+        }
+        this.bdd.gc(roots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Returns the fluents that are not in a state.
+     *
+     * @param state the state.
+     * @return the fluents false in the state.
+     */
+    private BitSet complement(final BitSet state) {
+        final BitSet negative = new BitSet();
+        negative.set(0, this.bdd.getVariables());
+        negative.andNot(state);
+        return negative;
+    }
+
+    /**
+     * Returns the index of the layer containing a state.
+     *
+     * @param layers the layers.
+     * @param state  the state.
+     * @return the index of the layer.
+     */
+    private int layer(final List<Integer> layers, final BitSet state) {
+        int i = 0;
+        while (!this.bdd.evaluate(layers.get(i), state)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns whether an action is applicable in a state.
+     *
+     * @param a     the index of the action.
+     * @param state the state.
+     * @return <code>true</code> if the action is applicable.
+     */
+    private boolean isApplicable(final int a, final BitSet state) {
+        return this.bdd.evaluate(this.preconditions[a], state);
+    }
+
+    /**
+     * Returns the state reached by an action.
+     *
+     * @param a     the index of the action.
+     * @param state the state.
+     * @return the successor state.
+     */
+    private BitSet apply(final int a, final BitSet state) {
+        final BitSet next = (BitSet) state.clone();
+        next.andNot(this.dels[a]);
+        next.or(this.adds[a]);
+        return next;
+    }
+
+    /**
+     * Rebuilds the plan going through a state of the intersection of the searches: the forward part is
+     * rebuilt backward from the state, looking for a predecessor in each previous forward layer, and the
+     * backward part forward from the state, looking for a successor in each previous backward layer.
+     *
+     * @param middle   the state of the intersection.
+     * @param forward  the layers of the forward search.
+     * @param backward the layers of the backward search.
+     * @return the plan.
+     */
+    private Plan extract(final BitSet middle, final List<Integer> forward, final List<Integer> backward) {
+        final Plan plan = new SequentialPlan();
+        final List<Action> actions = this.problem.getActions();
+        BitSet state = middle;
+        for (int i = this.layer(forward, middle); i > 0; i--) {
+            final int single = this.bdd.cube(state, this.complement(state));
+            for (int a = 0; a < actions.size(); a++) {
+                final int previous = this.bdd.and(this.preconditions[a], this.bdd.and(forward.get(i - 1),
+                    this.bdd.andExists(single, this.effects[a], this.changed[a])));
+                if (previous != BddFactory.FALSE) {
+                    state = this.bdd.satOne(previous);
+                    plan.add(0, actions.get(a));
+                    break;
+                }
+            }
+        }
+        state = middle;
+        for (int j = this.layer(backward, middle); j > 0; j--) {
+            for (int a = 0; a < actions.size(); a++) {
+                if (this.isApplicable(a, state)) {
+                    final BitSet next = this.apply(a, state);
+                    if (this.bdd.evaluate(backward.get(j - 1), next)) {
+                        state = next;
+                        plan.add(plan.size(), actions.get(a));
+                        break;
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+}
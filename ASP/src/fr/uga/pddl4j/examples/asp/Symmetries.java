@@ -0,0 +1,335 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.Connector;
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.Expression;
+import fr.uga.pddl4j.parser.Symbol;
+import fr.uga.pddl4j.parser.TypedSymbol;
+import fr.uga.pddl4j.problem.Fluent;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class detects the object symmetries of a problem and maps the states to canonical representatives.
+ * Two objects of the same type are interchangeable if swapping them leaves the initial state, including the
+ * static facts, and the goal unchanged, e.g., the balls of the gripper problems. Swapping two
+ * interchangeable objects maps every state to a symmetric state, from which the goal is reachable with
+ * the same number of actions.
+ * <p>
+ * The interchangeable objects are grouped in classes and every pair of consecutive objects of a class
+ * gives a generator, i.e., a permutation of the fluents and of the actions. The canonical representative
+ * of a state is computed greedily by applying the generators as long as they make the state smaller,
+ * comparing the states on their first differing fluent. The representative is not always the smallest
+ * symmetric state, so some symmetric states may still be searched twice, but two states with the same
+ * representative are always symmetric.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class Symmetries {
+
+    /**
+     * The pairs of fluents swapped by each generator, sorted by their first fluent.
+     */
+    private final List<int[][]> fluents;
+
+    /**
+     * The permutation of the action indexes of each generator.
+     */
+    private final List<int[]> actions;
+
+    /**
+     * Detects the object symmetries of a problem. No symmetry is detected if the initial state or the goal
+     * uses other constructs than atoms, negations and conjunctions, or if the problem was loaded from a grounded
+     * problem file, which has no parsed problem.
+     *
+     * @param problem the instantiated problem.
+     */
+    public Symmetries(final Problem problem) {
+        this.fluents = new ArrayList<>();
+        this.actions = new ArrayList<>();
+        final DefaultParsedProblem parsed = problem.getParsedProblem();
+        if (parsed == null) {
+            return;
+        }
+        final Set<List<String>> init = new HashSet<>();
+        final Set<List<String>> goal = new HashSet<>();
+        boolean supported = true;
+        for (Expression<String> e : parsed.getInit()) {
+            supported &= Symmetries.literals(e, true, init);
+        }
+        supported &= Symmetries.literals(parsed.getGoal(), true, goal);
+        if (!supported) {
+            return;
+        }
+        // The objects are grouped by type, then in classes of interchangeable objects
+        final Map<String, List<List<String>>> classes = new LinkedHashMap<>();
+        for (TypedSymbol<String> o : parsed.getObjects()) {
+            final List<List<String>> ofType = classes.computeIfAbsent(o.getTypes().toString(),
+                t -> new ArrayList<>());
+            final String name = o.getValue();
+            boolean placed = false;
+            for (List<String> c : ofType) {
+                if (Symmetries.swap(init, c.get(0), name).equals(init)
+                    && Symmetries.swap(goal, c.get(0), name).equals(goal)) {
+                    c.add(name);
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) {
+                final List<String> c = new ArrayList<>();
+                c.add(name);
+                ofType.add(c);
+            }
+        }
+        final List<String> constants = problem.getConstantSymbols();
+        final Map<String, Integer> fluentIndex = new HashMap<>();
+        for (int f = 0; f < problem.getFluents().size(); f++) {
+            final Fluent fluent = problem.getFluents().get(f);
+            fluentIndex.put(fluent.getSymbol() + Arrays.toString(fluent.getArguments()), f);
+        }
+        final Map<String, Integer> actionIndex = new HashMap<>();
+        final Set<String> ambiguous = new HashSet<>();
+        for (int a = 0; a < problem.getActions().size(); a++) {
+            final String key = Symmetries.key(problem.getActions().get(a));
+            if (actionIndex.put(key, a) != null) {
+                ambiguous.add(key);
+            }
+        }
+        for (List<List<String>> ofType : classes.values()) {
+            for (List<String> c : ofType) {
+                for (int i = 0; i + 1 < c.size(); i++) {
+                    final int x = constants.indexOf(c.get(i));
+                    final int y = constants.indexOf(c.get(i + 1));
+                    if (x >= 0 && y >= 0) {
+                        this.addGenerator(problem, x, y, fluentIndex, actionIndex, ambiguous);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the generator swapping two objects if it maps every fluent and every action of the problem to a
+     * fluent and an action of the problem.
+     *
+     * @param problem     the problem.
+     * @param x           the index of the first object.
+     * @param y           the index of the second object.
+     * @param fluentIndex the index of each fluent by key.
+     * @param actionIndex the index of each action by key.
+     * @param ambiguous   the keys shared by several actions.
+     */
+    private void addGenerator(final Problem problem, final int x, final int y,
+                              final Map<String, Integer> fluentIndex, final Map<String, Integer> actionIndex,
+                              final Set<String> ambiguous) {
+        final List<int[]> pairs = new ArrayList<>();
+        for (int f = 0; f < problem.getFluents().size(); f++) {
+            final Fluent fluent = problem.getFluents().get(f);
+            final int[] args = Symmetries.swap(fluent.getArguments(), x, y);
+            final Integer g = fluentIndex.get(fluent.getSymbol() + Arrays.toString(args));
+            if (g == null) {
+                return;
+            }
+            if (f < g) {
+                pairs.add(new int[] {f, g});
+            }
+        }
+        final int[] permutation = new int[problem.getActions().size()];
+        for (int a = 0; a < permutation.length; a++) {
+            final Action action = problem.getActions().get(a);
+            final String key = action.getName()
+                + Arrays.toString(Symmetries.swap(action.getInstantiations(), x, y));
+            final Integer b = actionIndex.get(key);
+            if (b == null || ambiguous.contains(key)) {
+                return;
+            }
+            permutation[a] = b;
+        }
+        if (!pairs.isEmpty()) {
+            this.fluents.add(pairs.toArray(new int[0][]));
+            this.actions.add(permutation);
+        }
+    }
+
+    /**
+     * Returns the number of generators.
+     *
+     * @return the number of generators.
+     */
+    public int size() {
+        return this.fluents.size();
+    }
+
+    /**
+     * Returns the canonical representative of a state.
+     *
+     * @param state the state.
+     * @return the canonical representative of the state, which is the state itself if no generator makes it
+     *     smaller.
+     */
+    public State canonical(final State state) {
+        return this.canonical(state, null);
+    }
+
+    /**
+     * Returns the canonical representative of a state and records the generators applied to reach it.
+     *
+     * @param state   the state.
+     * @param applied the list receiving the indexes of the generators applied, in order, or null.
+     * @return the canonical representative of the state, which is the state itself if no generator makes it
+     *     smaller.
+     */
+    public State canonical(final State state, final List<Integer> applied) {
+        State current = state;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < this.fluents.size(); i++) {
+                final int[][] pairs = this.fluents.get(i);
+                if (Symmetries.improves(current, pairs)) {
+                    if (current == state) {
+                        current = new State(state);
+                    }
+                    for (int[] p : pairs) {
+                        final boolean first = current.get(p[0]);
+                        current.set(p[0], current.get(p[1]));
+                        current.set(p[1], first);
+                    }
+                    if (applied != null) {
+                        applied.add(i);
+                    }
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Maps a sequence of actions through generators. A sequence applicable from a state is mapped to a
+     * sequence applicable from its canonical representative by applying the generators in order, and back by
+     * applying them in reverse order.
+     *
+     * @param sequence   the indexes of the actions of the sequence.
+     * @param generators the indexes of the generators.
+     * @param reverse    whether the generators are applied in reverse order.
+     * @return the mapped sequence.
+     */
+    public int[] map(final int[] sequence, final List<Integer> generators, final boolean reverse) {
+        final int[] mapped = sequence.clone();
+        for (int k = 0; k < generators.size(); k++) {
+            final int[] permutation = this.actions.get(generators.get(reverse ? generators.size() - 1 - k : k));
+            for (int i = 0; i < mapped.length; i++) {
+                mapped[i] = permutation[mapped[i]];
+            }
+        }
+        return mapped;
+    }
+
+    /**
+     * Returns whether a generator makes a state smaller, i.e., whether the first fluent changed by the
+     * generator is false in the state.
+     *
+     * @param state the state.
+     * @param pairs the pairs of fluents swapped by the generator.
+     * @return <code>true</code> if the generator makes the state smaller.
+     */
+    private static boolean improves(final State state, final int[][] pairs) {
+        for (int[] p : pairs) {
+            final boolean first = state.get(p[0]);
+            if (first != state.get(p[1])) {
+                return !first;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the literals of a conjunction of literals.
+     *
+     * @param e        the expression.
+     * @param positive whether the expression is not under a negation.
+     * @param literals the set receiving the literals, as lists of tokens.
+     * @return <code>false</code> if the expression is not a conjunction of literals.
+     */
+    private static boolean literals(final Expression<String> e, final boolean positive,
+                                    final Set<List<String>> literals) {
+        if (e.getConnector() == Connector.ATOM) {
+            final List<String> tokens = new ArrayList<>();
+            tokens.add(positive ? "+" : "-");
+            tokens.add(e.getSymbol().getValue());
+            for (Symbol<String> s : e.getArguments()) {
+                tokens.add(s.getValue());
+            }
+            literals.add(tokens);
+            return true;
+        } else if (e.getConnector() == Connector.NOT) {
+            return Symmetries.literals(e.getChildren().get(0), !positive, literals);
+        } else if (e.getConnector() == Connector.AND && positive) {
+            boolean supported = true;
+            for (Expression<String> child : e.getChildren()) {
+                supported &= Symmetries.literals(child, true, literals);
+            }
+            return supported;
+        }
+        return false;
+    }
+
+    /**
+     * Swaps two objects in a set of literals.
+     *
+     * @param literals the literals.
+     * @param x        the first object.
+     * @param y        the second object.
+     * @return the literals with the two objects swapped.
+     */
+    private static Set<List<String>> swap(final Set<List<String>> literals, final String x, final String y) {
+        final Set<List<String>> swapped = new HashSet<>();
+        for (List<String> l : literals) {
+            final List<String> s = new ArrayList<>(l.size());
+            for (String token : l) {
+                s.add(token.equals(x) ? y : token.equals(y) ? x : token);
+            }
+            swapped.add(s);
+        }
+        return swapped;
+    }
+
+    /**
+     * Swaps two objects in a list of arguments.
+     *
+     * @param args the indexes of the arguments.
+     * @param x    the index of the first object.
+     * @param y    the index of the second object.
+     * @return the arguments with the two objects swapped.
+     */
+    private static int[] swap(final int[] args, final int x, final int y) {
+        final int[] swapped = args.clone();
+        for (int i = 0; i < swapped.length; i++) {
+            swapped[i] = swapped[i] == x ? y : swapped[i] == y ? x : swapped[i];
+        }
+        return swapped;
+    }
+
+    /**
+     * Returns the key of an action: its name and the objects of its parameters.
+     *
+     * @param action the action.
+     * @return the key of the action.
+     */
+    private static String key(final Action action) {
+        return action.getName() + Arrays.toString(action.getInstantiations());
+    }
+}
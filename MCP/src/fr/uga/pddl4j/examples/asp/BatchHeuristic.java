@@ -0,0 +1,255 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class evaluates the heuristic of many states at once, e.g., the endpoints of the random walks of a
+ * jump. The MAX and SUM heuristics, i.e., the maximum and the sum of the levels of the goals in the relaxed
+ * planning graph, are computed bit-parallel on 64 states: the fluents reached by each state are stored in
+ * one bit of a word per fluent, so that a relaxed operator is applied to the 64 states with a few
+ * <code>and</code> and <code>or</code> operations on its precondition and effect words.
+ * <p>
+ * The other heuristics are evaluated state by state with the scalar heuristic of pddl4j. Every conditional
+ * effect of an action is a relaxed operator whose precondition is the precondition of the action and the
+ * condition of the effect, as in the relaxed planning graph of pddl4j, so both paths give the same values;
+ * {@link BatchHeuristicCheck} checks it on sampled states of the shipped problems.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class BatchHeuristic {
+
+    /**
+     * The number of states evaluated together.
+     */
+    private static final int LANES = Long.SIZE;
+
+    /**
+     * Whether the heuristic is the maximum of the levels of the goals, otherwise their sum.
+     */
+    private final boolean max;
+
+    /**
+     * Whether the heuristic is computed bit-parallel.
+     */
+    private final boolean parallel;
+
+    /**
+     * The positive preconditions of each relaxed operator.
+     */
+    private final int[][] pre;
+
+    /**
+     * The add effects of each relaxed operator.
+     */
+    private final int[][] add;
+
+    /**
+     * The relaxed operators having each fluent as precondition.
+     */
+    private final int[][] consumers;
+
+    /**
+     * The positive goals of the problem.
+     */
+    private final int[] goal;
+
+    /**
+     * The problem.
+     */
+    private final Problem problem;
+
+    /**
+     * Creates a batch evaluator of a heuristic.
+     *
+     * @param problem   the problem.
+     * @param heuristic the name of the heuristic.
+     */
+    public BatchHeuristic(final Problem problem, final StateHeuristic.Name heuristic) {
+        this.problem = problem;
+        this.max = heuristic == StateHeuristic.Name.MAX;
+        this.parallel = this.max || heuristic == StateHeuristic.Name.SUM;
+        final List<int[]> pres = new ArrayList<>();
+        final List<int[]> adds = new ArrayList<>();
+        if (this.parallel) {
+            for (Action a : problem.getActions()) {
+                final BitVector precondition = a.getPrecondition().getPositiveFluents();
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    final BitVector p = new BitVector(precondition);
+                    p.or(ce.getCondition().getPositiveFluents());
+                    pres.add(p.stream().toArray());
+                    adds.add(ce.getEffect().getPositiveFluents().stream().toArray());
+                }
+            }
+        }
+        this.pre = pres.toArray(new int[0][]);
+        this.add = adds.toArray(new int[0][]);
+        final int fluents = problem.getFluents().size();
+        final int[] sizes = new int[fluents];
+        for (int[] p : this.pre) {
+            for (int f : p) {
+                sizes[f]++;
+            }
+        }
+        this.consumers = new int[fluents][];
+        for (int f = 0; f < fluents; f++) {
+            this.consumers[f] = new int[sizes[f]];
+            sizes[f] = 0;
+        }
+        for (int o = 0; o < this.pre.length; o++) {
+            for (int f : this.pre[o]) {
+                this.consumers[f][sizes[f]++] = o;
+            }
+        }
+        this.goal = problem.getGoal().getPositiveFluents().stream().toArray();
+    }
+
+    /**
+     * Returns whether the heuristic is computed bit-parallel.
+     *
+     * @return <code>true</code> if the heuristic is computed bit-parallel, <code>false</code> if the states
+     *     are evaluated one by one.
+     */
+    public boolean isParallel() {
+        return this.parallel;
+    }
+
+    /**
+     * Evaluates the heuristic of states. This method is thread safe.
+     *
+     * @param states the states.
+     * @param scalar the heuristic evaluating a single state, used if the heuristic is not computed
+     *               bit-parallel.
+     * @return the heuristic value of each state, <code>Integer.MAX_VALUE</code> if the goal is not reachable.
+     */
+    public double[] estimate(final List<Node> states, final StateHeuristic scalar) {
+        final double[] h = new double[states.size()];
+        if (!this.parallel) {
+            for (int i = 0; i < h.length; i++) {
+                h[i] = scalar.estimate(states.get(i), this.problem.getGoal());
+            }
+            return h;
+        }
+        for (int from = 0; from < h.length; from += BatchHeuristic.LANES) {
+            this.evaluate(states, from, Math.min(BatchHeuristic.LANES, h.length - from), h);
+        }
+        return h;
+    }
+
+    /**
+     * Evaluates the heuristic of up to 64 states bit-parallel. The relaxed planning graph of the states is
+     * expanded level by level until all the goals are reached in every state or no new fluent is reached.
+     *
+     * @param states the states.
+     * @param from   the index of the first state to evaluate.
+     * @param n      the number of states to evaluate.
+     * @param h      the array receiving the heuristic values.
+     */
+    private void evaluate(final List<Node> states, final int from, final int n, final double[] h) {
+        final long all = n == BatchHeuristic.LANES ? -1L : (1L << n) - 1;
+        final long[] reached = new long[this.consumers.length];
+        final long[] added = new long[this.consumers.length];
+        final long[] applied = new long[this.pre.length];
+        final int[] touched = new int[this.consumers.length];
+        final int[] value = new int[n];
+        for (int i = 0; i < n; i++) {
+            final BitVector state = states.get(from + i);
+            for (int f = state.nextSetBit(0); f >= 0 && f < reached.length; f = state.nextSetBit(f + 1)) {
+                reached[f] |= 1L << i;
+            }
+        }
+        long done = all;
+        for (int g : this.goal) {
+            done &= reached[g];
+        }
+        final BitSet candidates = new BitSet(this.pre.length);
+        candidates.set(0, this.pre.length);
+        for (int level = 1; done != all; level++) {
+            final long active = all & ~done;
+            int size = 0;
+            for (int o = candidates.nextSetBit(0); o >= 0; o = candidates.nextSetBit(o + 1)) {
+                long lanes = active & ~applied[o];
+                for (int p : this.pre[o]) {
+                    lanes &= reached[p];
+                    if (lanes == 0) {
+                        break;
+                    }
+                }
+                if (lanes != 0) {
+                    applied[o] |= lanes;
+                    for (int f : this.add[o]) {
+                        final long fresh = lanes & ~reached[f] & ~added[f];
+                        if (fresh != 0) {
+                            if (added[f] == 0) {
+                                touched[size++] = f;
+                            }
+                            added[f] |= fresh;
+                        }
+                    }
+                }
+            }
+            if (size == 0) {
+                break;
+            }
+            // The fluents reached at this level enable their consumers at the next level
+            candidates.clear();
+            for (int t = 0; t < size; t++) {
+                final int f = touched[t];
+                reached[f] |= added[f];
+                for (int o : this.consumers[f]) {
+                    candidates.set(o);
+                }
+            }
+            long complete = active;
+            for (int g : this.goal) {
+                complete &= reached[g];
+                if (!this.max) {
+                    for (long fresh = added[g]; fresh != 0; fresh &= fresh - 1) {
+                        value[Long.numberOfTrailingZeros(fresh)] += level;
+                    }
+                }
+            }
+            if (this.max) {
+                for (long lanes = complete; lanes != 0; lanes &= lanes - 1) {
+                    value[Long.numberOfTrailingZeros(lanes)] = level;
+                }
+            }
+            done |= complete;
+            for (int t = 0; t < size; t++) {
+                added[touched[t]] = 0;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            h[from + i] = (done & (1L << i)) != 0 ? value[i] : Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Checks the values of a batch evaluation against the scalar heuristic. This method is called in the
+     * assertions of the search; {@link BatchHeuristicCheck} runs the full check on the shipped problems,
+     * without assertions, and the {@link Benchmark} runs it before its sweep with <code>--check-batch</code>.
+     *
+     * @param states the states.
+     * @param h      the heuristic values computed for the states.
+     * @param scalar the scalar heuristic.
+     * @return <code>true</code> if the values are the values of the scalar heuristic.
+     * @throws AssertionError if a value differs from the value of the scalar heuristic.
+     */
+    public boolean check(final List<Node> states, final double[] h, final StateHeuristic scalar) {
+        for (int i = 0; i < h.length; i++) {
+            final double expected = scalar.estimate(states.get(i), this.problem.getGoal());
+            if (expected != h[i]) {
+                throw new AssertionError("batch heuristic " + h[i] + " differs from " + expected);
+            }
+        }
+        return true;
+    }
+}
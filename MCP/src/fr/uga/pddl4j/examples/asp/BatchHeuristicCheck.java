@@ -0,0 +1,230 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * Checks the bit-parallel evaluation of the MAX and SUM heuristics of the {@link BatchHeuristic} against the
+ * heuristics of pddl4j on the problems shipped with the planner. The states of a problem are sampled by
+ * random walks from its initial state; a part of them lose a random half of their fluents and the empty
+ * state is always added, so that the goal is unreachable from some states. The states are evaluated in
+ * batches of 1, 7, 63, 64 and 65 states, so that the partial, full and multiple words of lanes are covered.
+ * <p>
+ * One CSV line is printed per problem and heuristic with the number of states, of states with an unreachable
+ * goal and of mismatches. The exit code is 1 when a value differs from the value of pddl4j and 2 on error, so
+ * that the check can gate a build; <code>Benchmark --check-batch</code> runs it before a benchmark.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+@CommandLine.Command(name = "BatchHeuristicCheck",
+    version = "BatchHeuristicCheck 1.0",
+    description = "Checks the batch evaluation of the MAX and SUM heuristics against pddl4j on the shipped "
+        + "problems.",
+    sortOptions = false,
+    mixinStandardHelpOptions = true,
+    headerHeading = "Usage:%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n")
+public final class BatchHeuristicCheck implements Callable<Integer> {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(BatchHeuristicCheck.class.getName());
+
+    /**
+     * The sizes of the successive batches, cycled through.
+     */
+    private static final int[] BATCHES = {1, 7, 63, 64, 65};
+
+    /**
+     * The maximum length of a random walk sampling a state.
+     */
+    private static final int WALK = 50;
+
+    /**
+     * The maximum number of mismatches logged per problem and heuristic.
+     */
+    private static final int LOGGED = 5;
+
+    /**
+     * The directory of the domain files.
+     */
+    @CommandLine.Option(names = {"-p", "--pddl"}, defaultValue = "src/pddl", paramLabel = "<dir>",
+        description = "Set the directory of the domain files <domain>_domain.pddl and of the problem "
+            + "directories <domain> (preset: src/pddl).")
+    private File pddl;
+
+    /**
+     * The domains checked.
+     */
+    @CommandLine.Option(names = {"-d", "--domains"}, split = ",", paramLabel = "<domain>",
+        defaultValue = "blocks,gripper,logistics",
+        description = "Set the domains checked (preset: blocks,gripper,logistics).")
+    private List<String> domains;
+
+    /**
+     * The number of states sampled per problem.
+     */
+    @CommandLine.Option(names = {"-s", "--samples"}, defaultValue = "300", paramLabel = "<samples>",
+        description = "Set the number of states sampled per problem (preset: 300).")
+    private int samples;
+
+    /**
+     * The seed of the sampling.
+     */
+    @CommandLine.Option(names = {"--seed"}, defaultValue = "0", paramLabel = "<seed>",
+        description = "Set the seed of the sampling (preset: 0).")
+    private long seed;
+
+    /**
+     * Creates a check for the command line.
+     */
+    public BatchHeuristicCheck() {
+        super();
+    }
+
+    /**
+     * Samples states of a problem.
+     *
+     * @param problem the problem.
+     * @param samples the number of states sampled.
+     * @param random  the random number generator.
+     * @return the states sampled, the empty state first.
+     */
+    private static List<Node> sample(final Problem problem, final int samples, final Random random) {
+        final List<Node> states = new ArrayList<>(samples);
+        states.add(new Node(new State()));
+        while (states.size() < samples) {
+            final State state = new State(problem.getInitialState());
+            final int length = random.nextInt(BatchHeuristicCheck.WALK + 1);
+            for (int i = 0; i < length; i++) {
+                final List<Action> applicable = new ArrayList<>();
+                for (Action a : problem.getActions()) {
+                    if (a.isApplicable(state)) {
+                        applicable.add(a);
+                    }
+                }
+                if (applicable.isEmpty()) {
+                    break;
+                }
+                state.apply(applicable.get(random.nextInt(applicable.size())).getConditionalEffects());
+            }
+            // A quarter of the states lose half of their fluents, which often makes the goal unreachable
+            if (random.nextInt(4) == 0) {
+                for (int f = state.nextSetBit(0); f >= 0; f = state.nextSetBit(f + 1)) {
+                    if (random.nextBoolean()) {
+                        state.clear(f);
+                    }
+                }
+            }
+            states.add(new Node(state));
+        }
+        return states;
+    }
+
+    /**
+     * Checks a heuristic on the states of a problem and prints the result.
+     *
+     * @param domain  the name of the domain.
+     * @param file    the problem file.
+     * @param problem the problem.
+     * @param states  the states.
+     * @param name    the heuristic.
+     * @return the number of mismatches.
+     */
+    private static int check(final String domain, final File file, final Problem problem, final List<Node> states,
+                             final StateHeuristic.Name name) {
+        final BatchHeuristic batch = new BatchHeuristic(problem, name);
+        final StateHeuristic scalar = StateHeuristic.getInstance(name, problem);
+        int mismatches = 0;
+        int unreachable = 0;
+        int from = 0;
+        for (int b = 0; from < states.size(); b++) {
+            final int to = Math.min(states.size(), from + BatchHeuristicCheck.BATCHES[b % BATCHES.length]);
+            final List<Node> chunk = states.subList(from, to);
+            final double[] h = batch.estimate(chunk, scalar);
+            for (int i = 0; i < h.length; i++) {
+                final double expected = scalar.estimate(chunk.get(i), problem.getGoal());
+                if (expected == Integer.MAX_VALUE) {
+                    unreachable++;
+                }
+                if (expected != h[i]) {
+                    if (mismatches++ < BatchHeuristicCheck.LOGGED) {
+                        LOGGER.error("* {} {} {}: state {} of a batch of {} has {} instead of {}\n", domain,
+                            file.getName(), name, i, h.length, h[i], expected);
+                    }
+                }
+            }
+            from = to;
+        }
+        System.out.println(domain + "," + file.getName() + "," + name + "," + states.size() + ","
+            + unreachable + "," + mismatches);
+        return mismatches;
+    }
+
+    /**
+     * Checks the heuristics on the problems of the domains.
+     *
+     * @return 0 if all the values match, 1 otherwise.
+     * @throws IOException if a domain or problem file cannot be read.
+     */
+    @Override
+    public Integer call() throws IOException {
+        final Random random = new Random(this.seed);
+        int mismatches = 0;
+        System.out.println("domain,problem,heuristic,states,unreachable,mismatches");
+        for (String domain : this.domains) {
+            final File domainFile = new File(this.pddl, domain + "_domain.pddl");
+            final File[] problems = new File(this.pddl, domain).listFiles();
+            if (!domainFile.exists() || problems == null) {
+                throw new IllegalArgumentException("no domain " + domain + " in " + this.pddl);
+            }
+            Arrays.sort(problems);
+            for (File file : problems) {
+                final MCP planner = new MCP();
+                final DefaultParsedProblem parsed = planner.parse(domainFile.getPath(), file.getPath());
+                if (parsed == null || !planner.getParserErrorManager().isEmpty()) {
+                    throw new IllegalArgumentException("cannot parse " + file);
+                }
+                final Problem problem = planner.instantiate(parsed);
+                final List<Node> states = BatchHeuristicCheck.sample(problem, this.samples, random);
+                mismatches += BatchHeuristicCheck.check(domain, file, problem, states, StateHeuristic.Name.MAX);
+                mismatches += BatchHeuristicCheck.check(domain, file, problem, states, StateHeuristic.Name.SUM);
+            }
+        }
+        return mismatches == 0 ? 0 : 1;
+    }
+
+    /**
+     * The main method of the check.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            // The errors exit with 2 so that they are not taken for a mismatch
+            System.exit(new CommandLine(new BatchHeuristicCheck()).setExitCodeExceptionMapper(e -> 2)
+                .execute(args));
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.Planner;
+import fr.uga.pddl4j.problem.Problem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Solves batches of planning jobs. A job is a domain file, a problem file and the options of the planner,
+ * with the same keys as the requests of the {@link PlanningServer}: <code>planner</code> (MCP or HSP),
+ * <code>timeout</code> in seconds and the settings of the planner in lower case, e.g.
+ * <code>strategy=NESTED</code> or <code>memory-budget=512</code>, which are applied to the planner through
+ * its configuration.
+ * <p>
+ * The jobs are dispatched in turn from one queue per domain, so that a domain with many problems does not
+ * delay the other domains. The files of a job are read and parsed on an unbounded pool of I/O threads, then
+ * the problem is instantiated and solved on a bounded pool of solvers. At most twice as many jobs as
+ * solvers are in flight, so the parsing of the next jobs overlaps the solving of the current ones. A job
+ * exceeding its timeout, counted from the start of its solver, is cancelled. The time a job waits for a
+ * solver is reported apart from its solving time. The results are passed to the consumer as soon as they
+ * are known.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+@CommandLine.Command(name = "BatchSolver",
+    version = "BatchSolver 1.0",
+    description = "Solves a batch of planning jobs and prints the results as they complete.",
+    sortOptions = false,
+    mixinStandardHelpOptions = true,
+    headerHeading = "Usage:%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n")
+public final class BatchSolver implements Callable<Integer>, AutoCloseable {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(BatchSolver.class.getName());
+
+    /**
+     * The extra time in seconds given to a planner after its own timeout before the job is cancelled.
+     */
+    private static final int TIMEOUT_GRACE = 1;
+
+    /**
+     * The time in ms between two checks of the start of a queued job.
+     */
+    private static final long QUEUE_POLL = 100;
+
+    /**
+     * The status of a job.
+     */
+    public enum Status {
+        /**
+         * A plan was found.
+         */
+        SOLVED,
+        /**
+         * The planner gave up without plan.
+         */
+        FAILED,
+        /**
+         * The job was cancelled after its timeout.
+         */
+        TIMEOUT,
+        /**
+         * The domain or the problem could not be parsed.
+         */
+        PARSE_ERROR,
+        /**
+         * The planner raised an error.
+         */
+        ERROR
+    }
+
+    /**
+     * A planning job.
+     */
+    public static final class Job {
+
+        /**
+         * The path of the domain file.
+         */
+        private final String domain;
+
+        /**
+         * The path of the problem file.
+         */
+        private final String problem;
+
+        /**
+         * The options of the planner.
+         */
+        private final Map<String, String> config;
+
+        /**
+         * Creates a new job.
+         *
+         * @param domain  the path of the domain file.
+         * @param problem the path of the problem file.
+         * @param config  the options of the planner.
+         */
+        public Job(final String domain, final String problem, final Map<String, String> config) {
+            this.domain = domain;
+            this.problem = problem;
+            this.config = Collections.unmodifiableMap(new HashMap<>(config));
+        }
+
+        /**
+         * Returns the path of the domain file.
+         *
+         * @return the path of the domain file.
+         */
+        public String getDomain() {
+            return this.domain;
+        }
+
+        /**
+         * Returns the path of the problem file.
+         *
+         * @return the path of the problem file.
+         */
+        public String getProblem() {
+            return this.problem;
+        }
+
+        /**
+         * Returns the options of the planner.
+         *
+         * @return the options of the planner.
+         */
+        public Map<String, String> getConfig() {
+            return this.config;
+        }
+
+        /**
+         * Returns the timeout of the job in seconds.
+         *
+         * @return the timeout of the job in seconds.
+         */
+        public int getTimeout() {
+            return Integer.parseInt(this.config.getOrDefault("timeout", Integer.toString(Planner.DEFAULT_TIME_OUT)));
+        }
+    }
+
+    /**
+     * The result of a planning job.
+     */
+    public static final class Result {
+
+        /**
+         * The job.
+         */
+        private final Job job;
+
+        /**
+         * The status of the job.
+         */
+        private final Status status;
+
+        /**
+         * The time in ms spent on the job by its solver, or parsing it if it never reached a solver.
+         */
+        private final long time;
+
+        /**
+         * The time in ms the job waited for a solver.
+         */
+        private final long queue;
+
+        /**
+         * The length of the plan found or 0.
+         */
+        private final int length;
+
+        /**
+         * The plan found or an error message.
+         */
+        private final String text;
+
+        /**
+         * Creates a new result.
+         *
+         * @param job    the job.
+         * @param status the status of the job.
+         * @param time   the time in ms spent on the job by its solver.
+         * @param queue  the time in ms the job waited for a solver.
+         * @param length the length of the plan found or 0.
+         * @param text   the plan found or an error message.
+         */
+        Result(final Job job, final Status status, final long time, final long queue, final int length,
+               final String text) {
+            this.job = job;
+            this.status = status;
+            this.time = time;
+            this.queue = queue;
+            this.length = length;
+            this.text = text;
+        }
+
+        /**
+         * Returns the job.
+         *
+         * @return the job.
+         */
+        public Job getJob() {
+            return this.job;
+        }
+
+        /**
+         * Returns the status of the job.
+         *
+         * @return the status of the job.
+         */
+        public Status getStatus() {
+            return this.status;
+        }
+
+        /**
+         * Returns the time in ms spent on the job by its solver.
+         *
+         * @return the time in ms spent on the job by its solver.
+         */
+        public long getTime() {
+            return this.time;
+        }
+
+        /**
+         * Returns the time in ms the job waited for a solver.
+         *
+         * @return the time in ms the job waited for a solver.
+         */
+        public long getQueue() {
+            return this.queue;
+        }
+
+        /**
+         * Returns the length of the plan found.
+         *
+         * @return the length of the plan found or 0 if no plan was found.
+         */
+        public int getLength() {
+            return this.length;
+        }
+
+        /**
+         * Returns the plan found or an error message.
+         *
+         * @return the plan found, an error message or an empty string.
+         */
+        public String getText() {
+            return this.text;
+        }
+    }
+
+    /**
+     * The number of solvers.
+     */
+    @CommandLine.Option(names = {"-n", "--workers"}, defaultValue = "0",
+        paramLabel = "<workers>", description = "Set the number of solvers (preset: number of cores).")
+    private int workers;
+
+    /**
+     * The file describing the jobs.
+     */
+    @CommandLine.Parameters(index = "0", paramLabel = "<jobs>",
+        description = "The file of the jobs: one job per line, the domain file, the problem file and "
+            + "options key=value separated by spaces.")
+    private File jobs;
+
+    /**
+     * The bounded pool of solvers.
+     */
+    private ExecutorService solvers;
+
+    /**
+     * The pool of threads reading and parsing the files. These threads mostly wait, so the pool is
+     * unbounded.
+     */
+    private ExecutorService io;
+
+    /**
+     * The number of solvers of the pool.
+     */
+    private int size;
+
+    /**
+     * Creates a batch solver for the command line.
+     */
+    public BatchSolver() {
+        super();
+    }
+
+    /**
+     * Creates a batch solver with a specified number of solvers.
+     *
+     * @param workers the number of solvers or 0 to use one solver per core.
+     */
+    public BatchSolver(final int workers) {
+        this.workers = workers;
+        this.start();
+    }
+
+    /**
+     * Creates the pools of the solver.
+     */
+    private void start() {
+        this.size = this.workers > 0 ? this.workers : Runtime.getRuntime().availableProcessors();
+        this.solvers = Executors.newFixedThreadPool(this.size);
+        this.io = Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Solves a batch of jobs and passes each result to a consumer as soon as it is known. The consumer is
+     * never called concurrently. The method returns when all the jobs are done.
+     *
+     * @param batch    the jobs.
+     * @param consumer the consumer of the results.
+     * @throws InterruptedException if the thread is interrupted while waiting for the jobs.
+     */
+    public void solve(final Collection<Job> batch, final Consumer<Result> consumer) throws InterruptedException {
+        // One queue per domain, served in turn
+        final Map<String, Deque<Job>> queues = new LinkedHashMap<>();
+        for (Job job : batch) {
+            queues.computeIfAbsent(job.getDomain(), d -> new ArrayDeque<>()).add(job);
+        }
+        final Semaphore inFlight = new Semaphore(2 * this.size);
+        final CountDownLatch done = new CountDownLatch(batch.size());
+        while (!queues.isEmpty()) {
+            final Iterator<Deque<Job>> it = queues.values().iterator();
+            while (it.hasNext()) {
+                final Deque<Job> queue = it.next();
+                inFlight.acquire();
+                final Job job = queue.poll();
+                if (queue.isEmpty()) {
+                    it.remove();
+                }
+                this.io.execute(() -> {
+                    try {
+                        final Result result = this.run(job);
+                        synchronized (consumer) {
+                            consumer.accept(result);
+                        }
+                    } finally {
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+        }
+        done.await();
+    }
+
+    /**
+     * Runs a job: parses its files on the current thread, then instantiates and solves the problem on a
+     * solver, cancelling it if it exceeds the timeout of the job. The timeout runs from the start of the
+     * solver, so that a job waiting for a free solver is not cancelled before it runs.
+     *
+     * @param job the job.
+     * @return the result of the job.
+     */
+    private Result run(final Job job) {
+        final long begin = System.currentTimeMillis();
+        try {
+            final AbstractPlanner planner = PlanningServer.createPlanner(job.getConfig());
+            planner.setTimeout(job.getTimeout());
+            final DefaultParsedProblem parsed = planner.parse(job.getDomain(), job.getProblem());
+            if (parsed == null || !planner.getParserErrorManager().isEmpty()) {
+                return new Result(job, Status.PARSE_ERROR, System.currentTimeMillis() - begin, 0, 0, "");
+            }
+            final long submitted = System.currentTimeMillis();
+            final AtomicLong started = new AtomicLong();
+            final Future<Result> future = this.solvers.submit(() -> {
+                final long start = System.currentTimeMillis();
+                started.set(start);
+                final Problem problem = planner.instantiate(parsed);
+                final Plan plan = planner.solve(problem);
+                final long time = System.currentTimeMillis() - start;
+                return plan == null ? new Result(job, Status.FAILED, time, start - submitted, 0, "")
+                    : new Result(job, Status.SOLVED, time, start - submitted, plan.size(), problem.toString(plan));
+            });
+            try {
+                while (true) {
+                    final long start = started.get();
+                    final long wait = start == 0 ? QUEUE_POLL
+                        : start + (job.getTimeout() + TIMEOUT_GRACE) * 1000L - System.currentTimeMillis();
+                    try {
+                        return future.get(Math.max(0, wait), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        if (start != 0 && wait <= 0) {
+                            future.cancel(true);
+                            return new Result(job, Status.TIMEOUT, System.currentTimeMillis() - start,
+                                start - submitted, 0, "");
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                final long start = started.get() == 0 ? System.currentTimeMillis() : started.get();
+                return new Result(job, Status.ERROR, System.currentTimeMillis() - start, start - submitted, 0,
+                    "interrupted");
+            }
+        } catch (ExecutionException e) {
+            return new Result(job, Status.ERROR, System.currentTimeMillis() - begin, 0, 0,
+                String.valueOf(e.getCause().getMessage()));
+        } catch (Exception e) {
+            return new Result(job, Status.ERROR, System.currentTimeMillis() - begin, 0, 0,
+                String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Stops the pools of the solver.
+     */
+    @Override
+    public void close() {
+        this.solvers.shutdownNow();
+        this.io.shutdownNow();
+    }
+
+    /**
+     * Reads the jobs of the command line and prints one CSV line per result as soon as it is known.
+     *
+     * @return the exit code.
+     * @throws IOException          if the file of the jobs cannot be read.
+     * @throws InterruptedException if the thread is interrupted while waiting for the jobs.
+     * @throws IllegalArgumentException if a job has an unknown option or a wrong value.
+     */
+    @Override
+    public Integer call() throws IOException, InterruptedException {
+        final List<Job> batch = new ArrayList<>();
+        final List<String> lines = Files.readAllLines(this.jobs.toPath());
+        for (int l = 0; l < lines.size(); l++) {
+            final String[] tokens = lines.get(l).trim().split("\\s+");
+            if (tokens.length < 2 || tokens[0].startsWith("#")) {
+                continue;
+            }
+            final Map<String, String> config = new HashMap<>();
+            for (int i = 2; i < tokens.length; i++) {
+                final int eq = tokens[i].indexOf('=');
+                if (eq > 0) {
+                    config.put(tokens[i].substring(0, eq), tokens[i].substring(eq + 1));
+                }
+            }
+            try {
+                // A wrong option fails the batch before it starts rather than each of its jobs
+                PlanningServer.createPlanner(config);
+                Integer.parseInt(config.getOrDefault("timeout", "0"));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(this.jobs + ":" + (l + 1) + ": " + e.getMessage(), e);
+            }
+            batch.add(new Job(tokens[0], tokens[1], config));
+        }
+        this.start();
+        try {
+            System.out.println("domain,problem,planner,status,time,length,queue");
+            this.solve(batch, r -> {
+                System.out.println(new File(r.getJob().getDomain()).getName() + ","
+                    + new File(r.getJob().getProblem()).getName() + ","
+                    + r.getJob().getConfig().getOrDefault("planner", "MCP") + ","
+                    + r.getStatus() + "," + r.getTime() + "," + r.getLength() + "," + r.getQueue());
+                System.out.flush();
+            });
+        } finally {
+            this.close();
+        }
+        return 0;
+    }
+
+    /**
+     * The main method of the batch solver.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final CommandLine cmd = new CommandLine(new BatchSolver());
+            System.exit(cmd.execute(args));
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+}
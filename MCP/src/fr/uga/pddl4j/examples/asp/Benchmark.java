@@ -0,0 +1,229 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.InvalidConfigurationException;
+import fr.uga.pddl4j.planners.Planner;
+import fr.uga.pddl4j.planners.Statistics;
+import fr.uga.pddl4j.planners.statespace.HSP;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Compares the <code>MCP</code> planner to <code>HSP</code> on the problems shipped with the planner. Both
+ * planners are launched on all the problems of the blocks, gripper and logistics domains and the results
+ * are written in a CSV file, one row per problem flushed as soon as it is solved. The rows already written
+ * by a previous run with the same configuration and seed are skipped, so that an interrupted sweep is
+ * resumed where it stopped. With several seeds, each problem is solved once per seed, from seed 0, so that
+ * the runs can be compared by the {@link RegressionGate}. The status of each run is written, SOLVED or
+ * FAILED, so that the failed runs are not taken for measures, with the number of random walks per second of
+ * <code>MCP</code>, which measures its throughput whatever the luck of the walks.
+ * <p>
+ * The configuration of <code>MCP</code> has the same keys as the jobs of the {@link BatchSolver}, e.g.,
+ * <code>strategy=NESTED,landmarks=true</code>. The script <code>script.py</code> plots the file. With
+ * <code>--check-batch</code>, the {@link BatchHeuristicCheck} is run on the domains before the sweep and
+ * a mismatch of the batch evaluation of the heuristics fails the run.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+@CommandLine.Command(name = "Benchmark",
+    version = "Benchmark 1.0",
+    description = "Compares MCP to HSP on the shipped problems and writes the results in a CSV file.",
+    sortOptions = false,
+    mixinStandardHelpOptions = true,
+    headerHeading = "Usage:%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n")
+public final class Benchmark implements Callable<Integer> {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(Benchmark.class.getName());
+
+    /**
+     * The columns of the CSV file, the first four being the key of a row.
+     */
+    private static final String[] HEADER = {"domain_file", "problem_file", "config", "seed", "domain",
+        "problem_number", "MCP_status", "MCP_time", "MCP_length", "MCP_walks_per_s", "HSP_status", "HSP_time",
+        "HSP_length"};
+
+    /**
+     * The directory of the domain files.
+     */
+    @CommandLine.Option(names = {"-p", "--pddl"}, defaultValue = "src/pddl", paramLabel = "<dir>",
+        description = "Set the directory of the domain files <domain>_domain.pddl and of the problem "
+            + "directories <domain> (preset: src/pddl).")
+    private File pddl;
+
+    /**
+     * The domains of the benchmark.
+     */
+    @CommandLine.Option(names = {"-d", "--domains"}, split = ",", paramLabel = "<domain>",
+        defaultValue = "blocks,gripper,logistics",
+        description = "Set the domains (preset: blocks,gripper,logistics; depot is too costly to solve).")
+    private List<String> domains;
+
+    /**
+     * The configuration of MCP.
+     */
+    @CommandLine.Option(names = {"-c", "--config"}, defaultValue = "", paramLabel = "<key=value,...>",
+        description = "Set the configuration of MCP, e.g., strategy=NESTED,landmarks=true (preset: the "
+            + "default configuration).")
+    private String config;
+
+    /**
+     * The number of seeds.
+     */
+    @CommandLine.Option(names = {"-n", "--seeds"}, defaultValue = "1", paramLabel = "<seeds>",
+        description = "Set the number of seeds, each problem being solved once per seed (preset: 1).")
+    private int seeds;
+
+    /**
+     * The timeout of a problem in seconds.
+     */
+    @CommandLine.Option(names = {"-t", "--timeout"}, defaultValue = "600", paramLabel = "<timeout>",
+        description = "Set the timeout of a problem in seconds (preset: 600).")
+    private int timeout = Planner.DEFAULT_TIME_OUT;
+
+    /**
+     * Whether the batch evaluation of the heuristics is checked before the sweep.
+     */
+    @CommandLine.Option(names = {"--check-batch"}, defaultValue = "false",
+        description = "Check the batch evaluation of the heuristics against pddl4j on the problems of the "
+            + "domains before the sweep and fail the run with exit code 1 on a mismatch.")
+    private boolean checkBatch;
+
+    /**
+     * The CSV file of the results.
+     */
+    @CommandLine.Option(names = {"-o", "--output"}, defaultValue = "src/pddl/data.csv", paramLabel = "<file>",
+        description = "Set the CSV file of the results (preset: src/pddl/data.csv).")
+    private File output;
+
+    /**
+     * Creates a benchmark for the command line.
+     */
+    public Benchmark() {
+        super();
+    }
+
+    /**
+     * Returns the problem files of a directory sorted by name, so that the problem numbers do not depend on
+     * the order of the directory listing.
+     *
+     * @param directory the directory.
+     * @return the problem files of the directory.
+     */
+    private static List<File> problems(final File directory) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return List.of();
+        }
+        Arrays.sort(files);
+        return List.of(files);
+    }
+
+    /**
+     * Launches a planner on a problem.
+     *
+     * @param planner the planner.
+     * @return the status of the run, the time and the length of the plan; the time and the length are empty
+     *     if the configuration is invalid.
+     */
+    private static String[] launch(final AbstractPlanner planner) {
+        try {
+            final Plan p = planner.solve();
+            final Statistics s = planner.getStatistics();
+            final double time = s.getTimeToParse() + s.getTimeToEncode() + s.getTimeToSearch();
+            final BatchSolver.Status status = p == null ? BatchSolver.Status.FAILED : BatchSolver.Status.SOLVED;
+            return new String[] {status.toString(), Double.toString(time), Integer.toString(p == null ? 0 : p.size())};
+        } catch (InvalidConfigurationException e) {
+            return new String[] {BatchSolver.Status.ERROR.toString(), "", ""};
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @return the exit code: 0, or the exit code of the {@link BatchHeuristicCheck} if it fails.
+     * @throws IOException if the CSV file cannot be written.
+     */
+    @Override
+    public Integer call() throws IOException {
+        if (this.checkBatch) {
+            final int check = new CommandLine(new BatchHeuristicCheck()).setExitCodeExceptionMapper(e -> 2)
+                .execute("-p", this.pddl.getPath(), "-d", String.join(",", this.domains));
+            if (check != 0) {
+                LOGGER.fatal("* Batch evaluation check failed, benchmark not run\n");
+                return check;
+            }
+        }
+        final Map<String, String> options = new HashMap<>();
+        for (String option : this.config.split(",")) {
+            final int eq = option.indexOf('=');
+            if (eq > 0) {
+                options.put(option.substring(0, eq).trim(), option.substring(eq + 1).trim());
+            }
+        }
+        options.put("planner", "MCP");
+        final MCP mcpPlanner = (MCP) PlanningServer.createPlanner(options);
+        final HSP hspPlanner = new HSP();
+        mcpPlanner.setTimeout(this.timeout);
+        hspPlanner.setTimeout(this.timeout);
+        final String description = PlanningServer.describe(options) + " HSP " + hspPlanner.getHeuristic();
+        try (ResultSink sink = new ResultSink(this.output, 4, HEADER)) {
+            for (int k = 0; k < this.seeds; k++) {
+                mcpPlanner.setSeed(k);
+                final String seed = Long.toString(mcpPlanner.getSeed());
+                for (String domain : this.domains) {
+                    final File domainFile = new File(this.pddl, domain + "_domain.pddl");
+                    final List<File> problems = Benchmark.problems(new File(this.pddl, domain));
+                    for (int i = 0; i < problems.size(); i++) {
+                        final File problemFile = problems.get(i);
+                        if (sink.isDone(domainFile.getName(), problemFile.getName(), description, seed)) {
+                            continue;
+                        }
+                        mcpPlanner.setDomain(domainFile.getPath());
+                        hspPlanner.setDomain(domainFile.getPath());
+                        mcpPlanner.setProblem(problemFile.getPath());
+                        hspPlanner.setProblem(problemFile.getPath());
+                        final String[] mcp = Benchmark.launch(mcpPlanner);
+                        final String rate = String.format(Locale.ROOT, "%.1f", mcpPlanner.getWalkRate());
+                        final String[] hsp = Benchmark.launch(hspPlanner);
+                        sink.write(domainFile.getName(), problemFile.getName(), description, seed, domain,
+                            Integer.toString(i + 1), mcp[0], mcp[1], mcp[2], rate, hsp[0], hsp[1], hsp[2]);
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The main method of the benchmark.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final CommandLine cmd = new CommandLine(new Benchmark());
+            System.exit(cmd.execute(args));
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package fr.uga.pddl4j.examples.asp;
+
+/**
+ * This class implements a token to cancel a search cooperatively. The caller keeps the token given to the
+ * planner and cancels it from any thread; the search checks the token in its inner loops and returns null
+ * as soon as it sees the cancellation, as if it had reached its timeout. A token cannot be reset: a new
+ * token is needed for each search to cancel separately.
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class CancellationToken {
+
+    /**
+     * Whether the token is cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a token that is not cancelled.
+     */
+    public CancellationToken() {
+        this.cancelled = false;
+    }
+
+    /**
+     * Cancels the searches checking this token.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Returns whether the token is cancelled.
+     *
+     * @return <code>true</code> if the token is cancelled, <code>false</code> otherwise.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+}
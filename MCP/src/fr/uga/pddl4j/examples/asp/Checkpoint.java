@@ -0,0 +1,323 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.Action;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class implements a checkpoint of a Monte-Carlo trajectory: the actions leading from the initial state
+ * to the current node, the best heuristic value since the last restart, the number of jumps without
+ * improvement, the number of restarts and the state of the random number generator. The states are not
+ * stored: the current node is rebuilt by replaying the actions from the initial state, so a checkpoint only
+ * takes a few bytes per action. The random number generator of a trajectory is a {@link Generator}, whose
+ * whole state is a single number written as such, so that reading a checkpoint never deserializes objects.
+ * <p>
+ * The file starts with a magic number, a version and a signature of the problem, so that a checkpoint of
+ * another problem is never resumed. A checkpoint is written to a temporary file, then moved over the
+ * previous one, so that a process killed while writing leaves the previous checkpoint intact.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class Checkpoint {
+
+    /**
+     * The magic number of the checkpoint files.
+     */
+    private static final int MAGIC = 0x4D435043;
+
+    /**
+     * The version of the format of the checkpoint files.
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * A random number generator whose state can be saved and restored. It draws the same numbers as a
+     * <code>java.util.Random</code> created with the same seed, from a state it owns.
+     */
+    public static final class Generator extends Random {
+
+        /**
+         * The serial id of the class.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The multiplier of the linear congruential generator.
+         */
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+
+        /**
+         * The increment of the linear congruential generator.
+         */
+        private static final long INCREMENT = 0xBL;
+
+        /**
+         * The mask of the 48 bits of the state.
+         */
+        private static final long MASK = (1L << 48) - 1;
+
+        /**
+         * The state of the generator.
+         */
+        private long state;
+
+        /**
+         * Creates a new generator with a seed.
+         *
+         * @param seed the seed.
+         */
+        public Generator(final long seed) {
+            super(seed);
+        }
+
+        /**
+         * Sets the seed of the generator, as <code>java.util.Random</code> does.
+         *
+         * @param seed the seed.
+         */
+        @Override
+        public synchronized void setSeed(final long seed) {
+            this.state = (seed ^ Generator.MULTIPLIER) & Generator.MASK;
+            super.setSeed(seed);
+        }
+
+        /**
+         * Returns the state of the generator.
+         *
+         * @return the state of the generator.
+         */
+        public synchronized long getState() {
+            return this.state;
+        }
+
+        /**
+         * Restores a state of the generator.
+         *
+         * @param state the state returned by {@link #getState()}.
+         */
+        public synchronized void setState(final long state) {
+            this.state = state & Generator.MASK;
+        }
+
+        /**
+         * Generates the next random bits.
+         *
+         * @param bits the number of random bits.
+         * @return the random bits.
+         */
+        @Override
+        protected synchronized int next(final int bits) {
+            this.state = (this.state * Generator.MULTIPLIER + Generator.INCREMENT) & Generator.MASK;
+            return (int) (this.state >>> (48 - bits));
+        }
+    }
+
+    /**
+     * The signature of the problem.
+     */
+    private final long signature;
+
+    /**
+     * The indexes of the actions leading from the initial state to the current node.
+     */
+    private final int[] actions;
+
+    /**
+     * The best heuristic value since the last restart.
+     */
+    private final double hMin;
+
+    /**
+     * The number of jumps without improvement.
+     */
+    private final int counter;
+
+    /**
+     * The number of restarts.
+     */
+    private final int restarts;
+
+    /**
+     * The random number generator of the trajectory.
+     */
+    private final Generator random;
+
+    /**
+     * Creates a new checkpoint.
+     *
+     * @param signature the signature of the problem.
+     * @param actions   the indexes of the actions leading from the initial state to the current node.
+     * @param hMin      the best heuristic value since the last restart.
+     * @param counter   the number of jumps without improvement.
+     * @param restarts  the number of restarts.
+     * @param random    the random number generator of the trajectory.
+     */
+    public Checkpoint(final long signature, final int[] actions, final double hMin, final int counter,
+                      final int restarts, final Generator random) {
+        this.signature = signature;
+        this.actions = actions;
+        this.hMin = hMin;
+        this.counter = counter;
+        this.restarts = restarts;
+        this.random = random;
+    }
+
+    /**
+     * Returns the signature of the problem.
+     *
+     * @return the signature of the problem.
+     */
+    public long getSignature() {
+        return this.signature;
+    }
+
+    /**
+     * Returns the indexes of the actions leading from the initial state to the current node.
+     *
+     * @return the indexes of the actions.
+     */
+    public int[] getActions() {
+        return this.actions;
+    }
+
+    /**
+     * Returns the best heuristic value since the last restart.
+     *
+     * @return the best heuristic value since the last restart.
+     */
+    public double getHMin() {
+        return this.hMin;
+    }
+
+    /**
+     * Returns the number of jumps without improvement.
+     *
+     * @return the number of jumps without improvement.
+     */
+    public int getCounter() {
+        return this.counter;
+    }
+
+    /**
+     * Returns the number of restarts.
+     *
+     * @return the number of restarts.
+     */
+    public int getRestarts() {
+        return this.restarts;
+    }
+
+    /**
+     * Returns the random number generator of the trajectory.
+     *
+     * @return the random number generator of the trajectory.
+     */
+    public Generator getRandom() {
+        return this.random;
+    }
+
+    /**
+     * Returns the signature of a problem, computed from its fluents, its actions, its initial state and its
+     * goal. Two problems of the same domain with the same objects but different initial states or goals have
+     * different signatures.
+     *
+     * @param problem the problem.
+     * @return the signature of the problem.
+     */
+    public static long signature(final Problem problem) {
+        long h = problem.getFluents().size();
+        for (Action a : problem.getActions()) {
+            h = h * 31 + a.getName().hashCode();
+            h = h * 31 + Arrays.hashCode(a.getInstantiations());
+        }
+        h = h * 31 + Arrays.hashCode(problem.getInitialState().getPositiveFluents().toLongArray());
+        h = h * 31 + Arrays.hashCode(problem.getInitialState().getNegativeFluents().toLongArray());
+        h = h * 31 + Arrays.hashCode(problem.getGoal().getPositiveFluents().toLongArray());
+        h = h * 31 + Arrays.hashCode(problem.getGoal().getNegativeFluents().toLongArray());
+        return h;
+    }
+
+    /**
+     * Returns the indexes of the actions leading from the root to a node.
+     *
+     * @param node the node.
+     * @return the indexes of the actions.
+     */
+    public static int[] trajectory(final Node node) {
+        int length = 0;
+        for (Node n = node; n.getParent() != null; n = n.getParent()) {
+            length++;
+        }
+        final int[] actions = new int[length];
+        Node n = node;
+        for (int i = length - 1; i >= 0; i--) {
+            actions[i] = n.getAction();
+            n = n.getParent();
+        }
+        return actions;
+    }
+
+    /**
+     * Writes the checkpoint to a file.
+     *
+     * @param file the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(final File file) throws IOException {
+        final File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(Checkpoint.MAGIC);
+            out.writeInt(Checkpoint.VERSION);
+            out.writeLong(this.signature);
+            out.writeDouble(this.hMin);
+            out.writeInt(this.counter);
+            out.writeInt(this.restarts);
+            out.writeLong(this.random.getState());
+            out.writeInt(this.actions.length);
+            for (int a : this.actions) {
+                out.writeInt(a);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint from a file.
+     *
+     * @param file the file.
+     * @return the checkpoint.
+     * @throws IOException if the file cannot be read or is not a checkpoint.
+     */
+    public static Checkpoint read(final File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != Checkpoint.MAGIC || in.readInt() != Checkpoint.VERSION) {
+                throw new IOException(file + " is not a checkpoint");
+            }
+            final long signature = in.readLong();
+            final double hMin = in.readDouble();
+            final int counter = in.readInt();
+            final int restarts = in.readInt();
+            final Generator random = new Generator(0);
+            random.setState(in.readLong());
+            final int[] actions = new int[in.readInt()];
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = in.readInt();
+            }
+            return new Checkpoint(signature, actions, hMin, counter, restarts, random);
+        }
+    }
+}
@@ -12,7 +12,6 @@ import fr.uga.pddl4j.planners.ProblemNotSupportedException;
 import fr.uga.pddl4j.planners.SearchStrategy;
 import fr.uga.pddl4j.planners.statespace.search.StateSpaceSearch;
 import fr.uga.pddl4j.planners.Statistics;
-import fr.uga.pddl4j.planners.statespace.HSP;
 import fr.uga.pddl4j.problem.*;
 import fr.uga.pddl4j.planners.InvalidConfigurationException;
 import fr.uga.pddl4j.problem.operator.Action;
@@ -23,6 +22,15 @@ import picocli.CommandLine;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 
 /**
@@ -41,6 +49,25 @@ descriptionHeading = "%nDescription:%n%n",
 parameterListHeading = "%nParameters:%n",
 optionListHeading = "%nOptions:%n")
 public class MCP extends AbstractPlanner {
+
+    /**
+     * The search strategies of the planner.
+     */
+    public enum Strategy {
+        /**
+         * Jumps to the best endpoint of pure random walks.
+         */
+        PURE_RANDOM_WALK,
+        /**
+         * Nested Monte-Carlo search.
+         */
+        NESTED,
+        /**
+         * Enforced hill-climbing with helpful actions and breadth-first plateau escape.
+         */
+        ENFORCED_HILL_CLIMBING
+    }
+
 	/**
 	 * The class logger.
 	 */
@@ -65,11 +92,353 @@ public class MCP extends AbstractPlanner {
      * The default value of the WEIGHT_HEURISTIC property used for planner configuration.
      */
     public static final double DEFAULT_WEIGHT_HEURISTIC = 1.0;
+
+    /**
+     * The SEED property used for planner configuration.
+     */
+    public static final String SEED_SETTING = "SEED";
+
+    /**
+     * The default value of the SEED property used for planner configuration.
+     */
+    public static final long DEFAULT_SEED = 0;
+
+    /**
+     * The TRAJECTORIES property used for planner configuration.
+     */
+    public static final String TRAJECTORIES_SETTING = "TRAJECTORIES";
+
+    /**
+     * The default value of the TRAJECTORIES property used for planner configuration.
+     */
+    public static final int DEFAULT_TRAJECTORIES = 1;
+
+    /**
+     * The RESTART_SCHEDULE property used for planner configuration.
+     */
+    public static final String RESTART_SCHEDULE_SETTING = "RESTART_SCHEDULE";
+
+    /**
+     * The default value of the RESTART_SCHEDULE property used for planner configuration.
+     */
+    public static final RestartSchedule.Name DEFAULT_RESTART_SCHEDULE = RestartSchedule.Name.FIXED;
+
+    /**
+     * The ANYTIME property used for planner configuration.
+     */
+    public static final String ANYTIME_SETTING = "ANYTIME";
+
+    /**
+     * The default value of the ANYTIME property used for planner configuration.
+     */
+    public static final boolean DEFAULT_ANYTIME = false;
+
+    /**
+     * The LANDMARKS property used for planner configuration.
+     */
+    public static final String LANDMARKS_SETTING = "LANDMARKS";
+
+    /**
+     * The default value of the LANDMARKS property used for planner configuration.
+     */
+    public static final boolean DEFAULT_LANDMARKS = false;
+
+    /**
+     * The STRATEGY property used for planner configuration.
+     */
+    public static final String STRATEGY_SETTING = "STRATEGY";
+
+    /**
+     * The default value of the STRATEGY property used for planner configuration.
+     */
+    public static final Strategy DEFAULT_STRATEGY = Strategy.PURE_RANDOM_WALK;
+
+    /**
+     * The NESTING_LEVEL property used for planner configuration.
+     */
+    public static final String NESTING_LEVEL_SETTING = "NESTING_LEVEL";
+
+    /**
+     * The default value of the NESTING_LEVEL property used for planner configuration.
+     */
+    public static final int DEFAULT_NESTING_LEVEL = 2;
+
+    /**
+     * The PARALLEL_PLAYOUTS property used for planner configuration.
+     */
+    public static final String PARALLEL_PLAYOUTS_SETTING = "PARALLEL_PLAYOUTS";
+
+    /**
+     * The default value of the PARALLEL_PLAYOUTS property used for planner configuration.
+     */
+    public static final boolean DEFAULT_PARALLEL_PLAYOUTS = false;
+
+    /**
+     * The PARTIAL_ORDER_REDUCTION property used for planner configuration.
+     */
+    public static final String PARTIAL_ORDER_REDUCTION_SETTING = "PARTIAL_ORDER_REDUCTION";
+
+    /**
+     * The default value of the PARTIAL_ORDER_REDUCTION property used for planner configuration.
+     */
+    public static final boolean DEFAULT_PARTIAL_ORDER_REDUCTION = false;
+
+    /**
+     * The SYMMETRY_BREAKING property used for planner configuration.
+     */
+    public static final String SYMMETRY_BREAKING_SETTING = "SYMMETRY_BREAKING";
+
+    /**
+     * The default value of the SYMMETRY_BREAKING property used for planner configuration.
+     */
+    public static final boolean DEFAULT_SYMMETRY_BREAKING = false;
+
+    /**
+     * The CHECKPOINT property used for planner configuration.
+     */
+    public static final String CHECKPOINT_SETTING = "CHECKPOINT";
+
+    /**
+     * The default value of the CHECKPOINT property used for planner configuration: no checkpoint.
+     */
+    public static final String DEFAULT_CHECKPOINT = "";
+
+    /**
+     * The CHECKPOINT_INTERVAL property used for planner configuration.
+     */
+    public static final String CHECKPOINT_INTERVAL_SETTING = "CHECKPOINT_INTERVAL";
+
+    /**
+     * The default value of the CHECKPOINT_INTERVAL property used for planner configuration, in seconds.
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 30;
+
+    /**
+     * The BATCH_EVALUATION property used for planner configuration.
+     */
+    public static final String BATCH_EVALUATION_SETTING = "BATCH_EVALUATION";
+
+    /**
+     * The default value of the BATCH_EVALUATION property used for planner configuration.
+     */
+    public static final boolean DEFAULT_BATCH_EVALUATION = false;
+
+    /**
+     * The MACROS property used for planner configuration.
+     */
+    public static final String MACROS_SETTING = "MACROS";
+
+    /**
+     * The default value of the MACROS property used for planner configuration: no macro-action.
+     */
+    public static final String DEFAULT_MACROS = "";
+
+    /**
+     * The OPTIMIZATION_TIME property used for planner configuration.
+     */
+    public static final String OPTIMIZATION_TIME_SETTING = "OPTIMIZATION_TIME";
+
+    /**
+     * The default value of the OPTIMIZATION_TIME property used for planner configuration: no optimization.
+     */
+    public static final int DEFAULT_OPTIMIZATION_TIME = 0;
+
+    /**
+     * The WARM_START property used for planner configuration.
+     */
+    public static final String WARM_START_SETTING = "WARM_START";
+
+    /**
+     * The default value of the WARM_START property used for planner configuration: no previous plan.
+     */
+    public static final String DEFAULT_WARM_START = "";
+
+    /**
+     * The LOOKAHEAD property used for planner configuration.
+     */
+    public static final String LOOKAHEAD_SETTING = "LOOKAHEAD";
+
+    /**
+     * The default value of the LOOKAHEAD property used for planner configuration.
+     */
+    public static final boolean DEFAULT_LOOKAHEAD = false;
+
+    /**
+     * The MEMORY_BUDGET property used for planner configuration.
+     */
+    public static final String MEMORY_BUDGET_SETTING = "MEMORY_BUDGET";
+
+    /**
+     * The default value of the MEMORY_BUDGET property used for planner configuration: only the heap is
+     * watched.
+     */
+    public static final int DEFAULT_MEMORY_BUDGET = 0;
+
+    /**
+     * The AUTO_HEURISTIC property used for planner configuration.
+     */
+    public static final String AUTO_HEURISTIC_SETTING = "AUTO_HEURISTIC";
+
+    /**
+     * The default value of the AUTO_HEURISTIC property used for planner configuration.
+     */
+    public static final boolean DEFAULT_AUTO_HEURISTIC = false;
+
+    /**
+     * The GROUNDED property used for planner configuration.
+     */
+    public static final String GROUNDED_SETTING = "GROUNDED";
+
+    /**
+     * The default value of the GROUNDED property used for planner configuration: no grounded problem file.
+     */
+    public static final String DEFAULT_GROUNDED = "";
+
 	/**
 	 * The weight of the heuristic.
 	 */
 	private double heuristicWeight = 1;
 
+	/**
+	 * The seed of the random number generators of the trajectories.
+	 */
+	private long seed;
+
+	/**
+	 * The number of independent trajectories run concurrently.
+	 */
+	private int trajectories;
+
+	/**
+	 * The restart schedule of the trajectories.
+	 */
+	private RestartSchedule.Name restartSchedule;
+
+	/**
+	 * Whether the search keeps looking for shorter plans until the timeout.
+	 */
+	private boolean anytime;
+
+	/**
+	 * Whether the walks are guided by the landmark-count heuristic instead of the heuristic.
+	 */
+	private boolean landmarks;
+
+	/**
+	 * The search strategy of the planner.
+	 */
+	private Strategy strategy;
+
+	/**
+	 * The nesting level of the nested Monte-Carlo search.
+	 */
+	private int nestingLevel;
+
+	/**
+	 * Whether the playouts of level 1 of the nested Monte-Carlo search are run in parallel.
+	 */
+	private boolean parallelPlayouts;
+
+	/**
+	 * Whether the applicable actions are pruned with strong stubborn sets.
+	 */
+	private boolean partialOrderReduction;
+
+	/**
+	 * Whether the nested search memoises the canonical representatives of the symmetric states.
+	 */
+	private boolean symmetryBreaking;
+
+	/**
+	 * The path of the checkpoint file of the trajectories or an empty string.
+	 */
+	private String checkpoint;
+
+	/**
+	 * The time in seconds between two checkpoints.
+	 */
+	private int checkpointInterval;
+
+	/**
+	 * Whether the endpoints of the random walks of a jump are evaluated together.
+	 */
+	private boolean batchEvaluation;
+
+	/**
+	 * The batch evaluator of the endpoints of the random walks, or null without batch evaluation.
+	 */
+	private BatchHeuristic batchHeuristic;
+
+	/**
+	 * The path of the file of the macro-actions of the domain or an empty string.
+	 */
+	private String macros;
+
+	/**
+	 * The learner of the macro-actions of the domain, or null without macro-actions.
+	 */
+	private MacroLearner macroLearner;
+
+	/**
+	 * The time in ms given to each stage of the optimization of the plan found.
+	 */
+	private int optimizationTime;
+
+	/**
+	 * The path of the plan file of a previous problem replayed to warm-start the search or an empty string.
+	 */
+	private String warmStart;
+
+	/**
+	 * The names of the actions of a previous plan replayed to warm-start the search, or null.
+	 */
+	private List<String> previousPlan;
+
+	/**
+	 * The indexes of the actions of the valid prefix of the previous plan, or null without warm start.
+	 */
+	private int[] warmPrefix;
+
+	/**
+	 * Whether the trajectories jump to the state reached by applying the relaxed plan of each jump point.
+	 */
+	private boolean lookahead;
+
+	/**
+	 * The memory budget in MB of a search or 0 if only the heap is watched.
+	 */
+	private int memoryBudget;
+
+	/**
+	 * Whether the heuristic is selected by measuring the heuristics on the problem to solve.
+	 */
+	private boolean autoHeuristic;
+
+	/**
+	 * The path of the grounded problem file or an empty string.
+	 */
+	private String grounded;
+
+	/**
+	 * The governor of the memory of the search being run.
+	 */
+	private MemoryGovernor governor;
+
+	/**
+	 * The monitor publishing the progress of the searches.
+	 */
+	private final ProgressMonitor progress = new ProgressMonitor();
+
+	/**
+	 * The token cancelling the search or null.
+	 */
+	private volatile CancellationToken cancellation;
+
+	/**
+	 * The strong stubborn sets of the problem being solved, or null without partial-order reduction.
+	 */
+	private StubbornSets stubbornSets;
+
 	/**
 	 * The name of the heuristic used by the planner.
 	 */
@@ -90,6 +459,16 @@ public class MCP extends AbstractPlanner {
 	 */
 	public static long MAX_STEPS = 7;
 
+	/**
+	 * The maximum length of a sequence of the nested Monte-Carlo search.
+	 */
+	public static int MAX_DEPTH = 250;
+
+	/**
+	 * The number of nodes of a breadth-first plateau escape of the enforced hill-climbing.
+	 */
+	public static int EHC_BUDGET = 10000;
+
     /**
      * Creates a new Monte-Carlo search planner with the default configuration.
      */
@@ -134,6 +513,496 @@ public class MCP extends AbstractPlanner {
         this.heuristic = heuristic;
     }
 
+    /**
+     * Sets the seed of the random number generators. Each trajectory derives its own stream from it.
+     *
+     * @param seed the seed.
+     */
+    @CommandLine.Option(names = {"-s", "--seed"}, defaultValue = "0",
+        paramLabel = "<seed>", description = "Set the seed of the random walks (preset 0).")
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of independent trajectories run concurrently.
+     *
+     * @param trajectories the number of trajectories. The number must be greater than 0.
+     * @throws IllegalArgumentException if the number of trajectories is less than 1.
+     */
+    @CommandLine.Option(names = {"-k", "--trajectories"}, defaultValue = "1",
+        paramLabel = "<k>", description = "Set the number of parallel trajectories (preset 1).")
+    public void setTrajectories(final int trajectories) {
+        if (trajectories < 1) {
+            throw new IllegalArgumentException("Trajectories < 1");
+        }
+        this.trajectories = trajectories;
+    }
+
+    /**
+     * Sets the restart schedule of the trajectories.
+     *
+     * @param restartSchedule the name of the restart schedule.
+     */
+    @CommandLine.Option(names = {"-r", "--restart"}, defaultValue = "FIXED",
+        description = "Set the restart schedule : FIXED, LUBY (preset: FIXED)")
+    public void setRestartSchedule(final RestartSchedule.Name restartSchedule) {
+        this.restartSchedule = restartSchedule;
+    }
+
+    /**
+     * Sets whether the search keeps looking for shorter plans until the timeout.
+     *
+     * @param anytime <code>true</code> to return the shortest plan found before the timeout,
+     *                <code>false</code> to return the first plan found.
+     */
+    @CommandLine.Option(names = {"-a", "--anytime"}, defaultValue = "false",
+        description = "Return the shortest plan found before the timeout instead of the first one.")
+    public void setAnytime(final boolean anytime) {
+        this.anytime = anytime;
+    }
+
+    /**
+     * Sets whether the walks are guided by the landmark-count heuristic instead of the heuristic.
+     *
+     * @param landmarks <code>true</code> to use the landmark-count heuristic.
+     */
+    @CommandLine.Option(names = {"--landmarks"}, defaultValue = "false",
+        description = "Use the landmark-count heuristic instead of the heuristic set with -e.")
+    public void setLandmarks(final boolean landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Sets the search strategy of the planner.
+     *
+     * @param strategy the search strategy.
+     */
+    @CommandLine.Option(names = {"--strategy"}, defaultValue = "PURE_RANDOM_WALK",
+        description = "Set the search strategy : PURE_RANDOM_WALK, NESTED, ENFORCED_HILL_CLIMBING "
+            + "(preset: PURE_RANDOM_WALK)")
+    public void setStrategy(final Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Sets the nesting level of the nested Monte-Carlo search.
+     *
+     * @param level the nesting level. The level must be greater than 0.
+     * @throws IllegalArgumentException if the level is less than 1.
+     */
+    @CommandLine.Option(names = {"--level"}, defaultValue = "2",
+        paramLabel = "<level>", description = "Set the level of the nested search (preset 2).")
+    public void setNestingLevel(final int level) {
+        if (level < 1) {
+            throw new IllegalArgumentException("Level < 1");
+        }
+        this.nestingLevel = level;
+    }
+
+    /**
+     * Sets whether the playouts of level 1 of the nested Monte-Carlo search are run in parallel.
+     *
+     * @param parallel <code>true</code> to run the playouts in parallel.
+     */
+    @CommandLine.Option(names = {"--parallel-playouts"}, defaultValue = "false",
+        description = "Run the playouts of level 1 of the nested search on all the cores.")
+    public void setParallelPlayouts(final boolean parallel) {
+        this.parallelPlayouts = parallel;
+    }
+
+    /**
+     * Sets whether the applicable actions are pruned with strong stubborn sets.
+     *
+     * @param partialOrderReduction <code>true</code> to prune the applicable actions.
+     */
+    @CommandLine.Option(names = {"--por"}, defaultValue = "false",
+        description = "Prune the applicable actions with a partial-order reduction based on strong stubborn sets.")
+    public void setPartialOrderReduction(final boolean partialOrderReduction) {
+        this.partialOrderReduction = partialOrderReduction;
+    }
+
+    /**
+     * Sets whether the nested search memoises the canonical representatives of the symmetric states. Only
+     * the nested search memoises states, so the configuration is invalid with another strategy.
+     *
+     * @param symmetryBreaking <code>true</code> to share the memoised results of the symmetric states.
+     */
+    @CommandLine.Option(names = {"--symmetry"}, defaultValue = "false",
+        description = "Share the memoised results of the nested search between symmetric states; requires "
+            + "the NESTED strategy.")
+    public void setSymmetryBreaking(final boolean symmetryBreaking) {
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    /**
+     * Sets the checkpoint file of the trajectories. If the file exists when the search starts and was
+     * written for the same problem, the search resumes from it.
+     *
+     * @param checkpoint the path of the checkpoint file or an empty string for no checkpoint.
+     */
+    @CommandLine.Option(names = {"--checkpoint"}, defaultValue = "", paramLabel = "<file>",
+        description = "Checkpoint the Monte-Carlo trajectories in a file and resume from it (preset: none).")
+    public void setCheckpoint(final String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Sets the time between two checkpoints.
+     *
+     * @param checkpointInterval the time in seconds between two checkpoints.
+     */
+    @CommandLine.Option(names = {"--checkpoint-interval"}, defaultValue = "30", paramLabel = "<seconds>",
+        description = "Set the time in seconds between two checkpoints (preset: 30).")
+    public void setCheckpointInterval(final int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Sets whether the endpoints of the random walks of a jump are evaluated together.
+     *
+     * @param batchEvaluation <code>true</code> to evaluate the endpoints together.
+     */
+    @CommandLine.Option(names = {"--batch-evaluation"}, defaultValue = "false",
+        description = "Evaluate only the endpoints of the random walks, together, bit-parallel with the MAX "
+            + "and SUM heuristics.")
+    public void setBatchEvaluation(final boolean batchEvaluation) {
+        this.batchEvaluation = batchEvaluation;
+    }
+
+    /**
+     * Sets the file of the macro-actions of the domain. The macro-actions of the file are sampled by the
+     * random walks, and the file is updated with the plans found.
+     *
+     * @param macros the path of the file of the macro-actions or an empty string for no macro-action.
+     */
+    @CommandLine.Option(names = {"--macros"}, defaultValue = "", paramLabel = "<file>",
+        description = "Learn macro-actions from the plans found and use them in the random walks (preset: none).")
+    public void setMacros(final String macros) {
+        this.macros = macros;
+    }
+
+    /**
+     * Sets the time given to each stage of the optimization of the plan found.
+     *
+     * @param optimizationTime the time in ms given to each stage or 0 to return the plan found.
+     */
+    @CommandLine.Option(names = {"--optimize"}, defaultValue = "0", paramLabel = "<ms>",
+        description = "Shorten the plan found, giving this time in ms to each stage (preset: 0, no optimization).")
+    public void setOptimizationTime(final int optimizationTime) {
+        this.optimizationTime = optimizationTime;
+    }
+
+    /**
+     * Sets the plan file of a previous problem replayed to warm-start the search.
+     *
+     * @param warmStart the path of the plan file or an empty string to start from the initial state.
+     */
+    @CommandLine.Option(names = {"--warm-start"}, defaultValue = "", paramLabel = "<plan>",
+        description = "Replay the valid prefix of the plan of a previous problem and start the walks from its "
+            + "best state (preset: none).")
+    public void setWarmStart(final String warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * Sets whether the trajectories jump to the state reached by applying the relaxed plan of each jump
+     * point.
+     *
+     * @param lookahead <code>true</code> to look ahead.
+     */
+    @CommandLine.Option(names = {"--lookahead"}, defaultValue = "false",
+        description = "Jump ahead to the state reached by applying the relaxed plan of each jump point when "
+            + "its heuristic is not worse (preset: false).")
+    public void setLookahead(final boolean lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Sets the memory budget of a search. The chains of the Monte-Carlo trajectories, the memo of the nested
+     * search and the plateau escapes of the enforced hill-climbing are bounded by the budget, see
+     * {@link MemoryGovernor}.
+     *
+     * @param memoryBudget the budget in MB or 0 to only watch the heap.
+     */
+    @CommandLine.Option(names = {"--memory-budget"}, defaultValue = "0", paramLabel = "<MB>",
+        description = "Set the memory budget of the search; the trajectories restart, the nested search "
+            + "clears its memo and the plateau escapes give up beyond it (preset: 0, only the heap is watched).")
+    public void setMemoryBudget(final int memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets whether the heuristic is selected by measuring the heuristics on the problem to solve, see
+     * {@link HeuristicSelector}. The heuristic selected guides the search of each problem solved, the
+     * heuristic of the planner is left unchanged.
+     *
+     * @param autoHeuristic <code>true</code> to select the heuristic.
+     */
+    @CommandLine.Option(names = {"--auto-heuristic"}, defaultValue = "false",
+        description = "Select the heuristic with the lowest expected time to plan, measured by short probes "
+            + "of each heuristic (preset: false).")
+    public void setAutoHeuristic(final boolean autoHeuristic) {
+        this.autoHeuristic = autoHeuristic;
+    }
+
+    /**
+     * Sets the grounded problem file of the problem, see {@link BinaryProblem}. The problem is loaded from the
+     * file when the file is up to date with the domain and problem files; otherwise the problem is parsed,
+     * instantiated and saved to the file.
+     *
+     * @param grounded the path of the grounded problem file or an empty string to always instantiate.
+     */
+    @CommandLine.Option(names = {"--grounded"}, defaultValue = "", paramLabel = "<file>",
+        description = "Load the instantiated problem from a grounded problem file, or save it to the file when "
+            + "the file is missing or older than the domain and problem files (preset: none).")
+    public void setGrounded(final String grounded) {
+        this.grounded = grounded;
+    }
+
+    /**
+     * Sets the token cancelling the search. The token is checked by the random walks and by the loops of the
+     * search strategies; a cancelled search returns null.
+     *
+     * @param cancellation the token or null to disable the cancellation.
+     */
+    public void setCancellationToken(final CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Sets the plan of a previous problem replayed to warm-start the search. The plan takes precedence over
+     * the plan file set with {@link #setWarmStart(String)}.
+     *
+     * @param problem the previous problem.
+     * @param plan    the plan of the previous problem or null to start from the initial state.
+     */
+    public void setPreviousPlan(final Problem problem, final Plan plan) {
+        this.previousPlan = plan == null ? null : PlanRepair.names(problem, plan);
+    }
+
+	/**
+	 * Returns the search strategy of the planner.
+	 *
+	 * @return the search strategy of the planner.
+	 */
+	public final Strategy getStrategy() {
+		return this.strategy;
+	}
+
+	/**
+	 * Returns the nesting level of the nested Monte-Carlo search.
+	 *
+	 * @return the nesting level of the nested Monte-Carlo search.
+	 */
+	public final int getNestingLevel() {
+		return this.nestingLevel;
+	}
+
+	/**
+	 * Returns whether the playouts of level 1 of the nested Monte-Carlo search are run in parallel.
+	 *
+	 * @return <code>true</code> if the playouts are run in parallel, <code>false</code> otherwise.
+	 */
+	public final boolean isParallelPlayouts() {
+		return this.parallelPlayouts;
+	}
+
+	/**
+	 * Returns whether the applicable actions are pruned with strong stubborn sets.
+	 *
+	 * @return <code>true</code> if the partial-order reduction is used, <code>false</code> otherwise.
+	 */
+	public final boolean isPartialOrderReduction() {
+		return this.partialOrderReduction;
+	}
+
+	/**
+	 * Returns whether the nested search memoises the canonical representatives of the symmetric states.
+	 *
+	 * @return <code>true</code> if the symmetric states share their results, <code>false</code> otherwise.
+	 */
+	public final boolean isSymmetryBreaking() {
+		return this.symmetryBreaking;
+	}
+
+	/**
+	 * Returns the checkpoint file of the trajectories.
+	 *
+	 * @return the path of the checkpoint file or an empty string if the trajectories are not checkpointed.
+	 */
+	public final String getCheckpoint() {
+		return this.checkpoint;
+	}
+
+	/**
+	 * Returns the time between two checkpoints.
+	 *
+	 * @return the time in seconds between two checkpoints.
+	 */
+	public final int getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+
+	/**
+	 * Returns whether the endpoints of the random walks of a jump are evaluated together.
+	 *
+	 * @return <code>true</code> if the endpoints are evaluated together, <code>false</code> otherwise.
+	 */
+	public final boolean isBatchEvaluation() {
+		return this.batchEvaluation;
+	}
+
+	/**
+	 * Returns the file of the macro-actions of the domain.
+	 *
+	 * @return the path of the file of the macro-actions or an empty string if no macro-action is used.
+	 */
+	public final String getMacros() {
+		return this.macros;
+	}
+
+	/**
+	 * Returns the time given to each stage of the optimization of the plan found.
+	 *
+	 * @return the time in ms given to each stage or 0 if the plan found is not optimized.
+	 */
+	public final int getOptimizationTime() {
+		return this.optimizationTime;
+	}
+
+	/**
+	 * Returns the plan file of a previous problem replayed to warm-start the search.
+	 *
+	 * @return the path of the plan file or an empty string if the search starts from the initial state.
+	 */
+	public final String getWarmStart() {
+		return this.warmStart;
+	}
+
+	/**
+	 * Returns whether the trajectories jump to the state reached by applying the relaxed plan of each jump
+	 * point.
+	 *
+	 * @return <code>true</code> if the trajectories look ahead, <code>false</code> otherwise.
+	 */
+	public final boolean isLookahead() {
+		return this.lookahead;
+	}
+
+	/**
+	 * Returns the memory budget of a search.
+	 *
+	 * @return the budget in MB or 0 if only the heap is watched.
+	 */
+	public final int getMemoryBudget() {
+		return this.memoryBudget;
+	}
+
+	/**
+	 * Returns whether the heuristic is selected by measuring the heuristics on the problem to solve.
+	 *
+	 * @return <code>true</code> if the heuristic is selected, <code>false</code> otherwise.
+	 */
+	public final boolean isAutoHeuristic() {
+		return this.autoHeuristic;
+	}
+
+	/**
+	 * Returns the grounded problem file of the problem.
+	 *
+	 * @return the path of the grounded problem file or an empty string if the problem is always instantiated.
+	 */
+	public final String getGrounded() {
+		return this.grounded;
+	}
+
+	/**
+	 * Returns the token cancelling the search.
+	 *
+	 * @return the token or null if the search cannot be cancelled.
+	 */
+	public final CancellationToken getCancellationToken() {
+		return this.cancellation;
+	}
+
+	/**
+	 * Returns the stream of the progress events of the searches: the best heuristic value, the number of
+	 * random walks per second, the number of restarts and the length of the best plan found so far. The
+	 * stream is shared by the successive searches of the planner; the last event of a search is done.
+	 *
+	 * @return the publisher of the progress events.
+	 */
+	public Flow.Publisher<SearchProgress> getProgress() {
+		return this.progress;
+	}
+
+	/**
+	 * Returns the number of random walks per second of the last search, 0 for the nested search and the
+	 * enforced hill-climbing which do not run random walks. Since the walks are seeded, the rate measures
+	 * the throughput of the search whatever the luck of the walks.
+	 *
+	 * @return the number of random walks per second.
+	 */
+	public double getWalkRate() {
+		return this.progress.getRate();
+	}
+
+	/**
+	 * Returns whether the search is cancelled.
+	 *
+	 * @return <code>true</code> if the token of the planner is cancelled, <code>false</code> otherwise.
+	 */
+	private boolean isCancelled() {
+		final CancellationToken token = this.cancellation;
+		return token != null && token.isCancelled();
+	}
+
+	/**
+	 * Returns whether the walks are guided by the landmark-count heuristic.
+	 *
+	 * @return <code>true</code> if the landmark-count heuristic is used, <code>false</code> otherwise.
+	 */
+	public final boolean isLandmarks() {
+		return this.landmarks;
+	}
+
+	/**
+	 * Returns the seed of the random number generators.
+	 *
+	 * @return the seed of the random number generators.
+	 */
+	public final long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Returns the number of independent trajectories run concurrently.
+	 *
+	 * @return the number of independent trajectories run concurrently.
+	 */
+	public final int getTrajectories() {
+		return this.trajectories;
+	}
+
+	/**
+	 * Returns the restart schedule of the trajectories.
+	 *
+	 * @return the restart schedule of the trajectories.
+	 */
+	public final RestartSchedule.Name getRestartSchedule() {
+		return this.restartSchedule;
+	}
+
+	/**
+	 * Returns whether the search keeps looking for shorter plans until the timeout.
+	 *
+	 * @return <code>true</code> if the search is anytime, <code>false</code> otherwise.
+	 */
+	public final boolean isAnytime() {
+		return this.anytime;
+	}
+
 	/**
 	 * Returns the name of the heuristic used by the planner to solve a planning problem.
 	 *
@@ -162,9 +1031,64 @@ public class MCP extends AbstractPlanner {
 	public Problem instantiate(DefaultParsedProblem problem) {
 		final Problem pb = new DefaultProblem(problem);
 		pb.instantiate();
+		if (!this.getGrounded().isEmpty()) {
+			try {
+				BinaryProblem.write(pb, new File(this.getGrounded()), this.getDomain(),
+						this.getProblem());
+				LOGGER.info("* Grounded problem saved to {}\n", this.getGrounded());
+			} catch (IOException e) {
+				LOGGER.error("* Grounded problem not saved: {}\n", e.getMessage());
+			}
+		}
 		return pb;
 	}
 
+	/**
+	 * Solves the problem of the planner. When the grounded problem file was grounded from the domain and
+	 * problem files in their current state, the problem is loaded from the file instead of being parsed and
+	 * instantiated; otherwise the problem is parsed and instantiated, and saved to the file, see
+	 * {@link #instantiate}.
+	 *
+	 * @return the plan found or null if no plan was found.
+	 * @throws InvalidConfigurationException if the configuration of the planner is not valid.
+	 */
+	@Override
+	public Plan solve() throws InvalidConfigurationException {
+		final File file = this.getGrounded().isEmpty() ? null : new File(this.getGrounded());
+		if (file == null || BinaryProblem.isStale(file, this.getDomain(), this.getProblem())) {
+			return super.solve();
+		}
+		if (!this.hasValidConfiguration()) {
+			this.throwInvalidConfigurationException();
+		}
+		final long begin = System.currentTimeMillis();
+		final Problem problem;
+		try {
+			problem = BinaryProblem.load(file, this.getDomain(), this.getProblem());
+		} catch (IOException | RuntimeException e) {
+			// A corrupted file, or a file of other or modified sources, is written again by the instantiation
+			LOGGER.error("* Grounded problem not loaded: {}\n", e.getMessage());
+			return super.solve();
+		}
+		this.getStatistics().setTimeToParse(0);
+		this.getStatistics().setTimeToEncode(System.currentTimeMillis() - begin);
+		this.getStatistics().setNumberOfActions(problem.getActions().size());
+		this.getStatistics().setNumberOfRelevantFluents(problem.getFluents().size());
+		LOGGER.info("* Grounded problem loaded from {} in {} ms ({} actions, {} fluents)\n", file,
+			this.getStatistics().getTimeToEncode(), problem.getActions().size(), problem.getFluents().size());
+		final Plan plan = this.solve(problem);
+		if (plan != null) {
+			LOGGER.info("\nfound plan as follows:\n\n{}\n", problem.toString(plan));
+			final Statistics statistics = this.getStatistics();
+			LOGGER.info(String.format("time spent:   %8.2f seconds loading%n"
+						+ "              %8.2f seconds searching%n              %8.2f seconds total time%n%n",
+					Statistics.millisecondToSecond(statistics.getTimeToEncode()),
+					Statistics.millisecondToSecond(statistics.getTimeToSearch()),
+					Statistics.millisecondToSecond(statistics.getTimeToEncode() + statistics.getTimeToSearch())));
+		}
+		return plan;
+	}
+
 	/**
 	 * Search a solution plan to a specified domain and problem using MCP.
 	 *
@@ -189,14 +1113,70 @@ public class MCP extends AbstractPlanner {
      * Checks the planner configuration and returns if the configuration is valid.
      * A configuration is valid if (1) the domain and the problem files exist and
      * can be read, (2) the timeout is greater than 0, (3) the weight of the
-     * heuristic is greater than 0 and (4) the heuristic is a not null.
+     * heuristic is greater than 0, (4) the heuristic is a not null, (5) the number
+     * of trajectories is greater than 0, (6) the restart schedule is not null,
+     * (7) the search strategy is not null, (8) symmetry breaking is only enabled
+     * with the NESTED strategy, (9) the checkpoint file, (10) the macro-actions
+     * file, (11) the warm start plan file and (12) the grounded problem file are
+     * not null, empty when unused, (13) the optimization time and (14) the memory
+     * budget are greater than or equal to 0 and (15) the checkpoint interval is
+     * greater than 0.
      *
      * @return <code>true</code> if the configuration is valid <code>false</code> otherwise.
      */
     public boolean hasValidConfiguration() {
         return super.hasValidConfiguration()
             && this.getHeuristicWeight() > 0.0
-            && this.getHeuristic() != null;
+            && this.getHeuristic() != null
+            && this.getTrajectories() > 0
+            && this.getRestartSchedule() != null
+            && this.getStrategy() != null
+            && (!this.isSymmetryBreaking() || this.getStrategy() == Strategy.NESTED)
+            && this.getCheckpoint() != null
+            && this.getMacros() != null
+            && this.getOptimizationTime() >= 0
+            && this.getWarmStart() != null
+            && this.getGrounded() != null
+            && this.getMemoryBudget() >= 0
+            && this.getCheckpointInterval() > 0;
+    }
+
+    /**
+     * Throws the exception describing the first setting that makes the configuration invalid, see
+     * {@link #hasValidConfiguration()}.
+     *
+     * @throws InvalidConfigurationException if the configuration is invalid.
+     */
+    @Override
+    protected void throwInvalidConfigurationException() throws InvalidConfigurationException {
+        super.throwInvalidConfigurationException();
+        if (this.getHeuristicWeight() <= 0.0) {
+            throw new InvalidConfigurationException("Invalid heuristic weight");
+        } else if (this.getHeuristic() == null) {
+            throw new InvalidConfigurationException("Undefined heuristic");
+        } else if (this.getTrajectories() <= 0) {
+            throw new InvalidConfigurationException("Invalid number of trajectories");
+        } else if (this.getRestartSchedule() == null) {
+            throw new InvalidConfigurationException("Undefined restart schedule");
+        } else if (this.getStrategy() == null) {
+            throw new InvalidConfigurationException("Undefined search strategy");
+        } else if (this.isSymmetryBreaking() && this.getStrategy() != Strategy.NESTED) {
+            throw new InvalidConfigurationException("Symmetry breaking requires the NESTED strategy");
+        } else if (this.getCheckpoint() == null) {
+            throw new InvalidConfigurationException("Undefined checkpoint file");
+        } else if (this.getMacros() == null) {
+            throw new InvalidConfigurationException("Undefined macro-actions file");
+        } else if (this.getOptimizationTime() < 0) {
+            throw new InvalidConfigurationException("Invalid optimization time");
+        } else if (this.getWarmStart() == null) {
+            throw new InvalidConfigurationException("Undefined warm start plan file");
+        } else if (this.getGrounded() == null) {
+            throw new InvalidConfigurationException("Undefined grounded problem file");
+        } else if (this.getMemoryBudget() < 0) {
+            throw new InvalidConfigurationException("Invalid memory budget");
+        } else if (this.getCheckpointInterval() <= 0) {
+            throw new InvalidConfigurationException("Invalid checkpoint interval");
+        }
     }
 	
     /**
@@ -210,6 +1190,27 @@ public class MCP extends AbstractPlanner {
         config.setProperty(MCP.HEURISTIC_SETTING, MCP.DEFAULT_HEURISTIC.toString());
         config.setProperty(MCP.WEIGHT_HEURISTIC_SETTING,
             Double.toString(MCP.DEFAULT_WEIGHT_HEURISTIC));
+        config.setProperty(MCP.SEED_SETTING, Long.toString(MCP.DEFAULT_SEED));
+        config.setProperty(MCP.TRAJECTORIES_SETTING, Integer.toString(MCP.DEFAULT_TRAJECTORIES));
+        config.setProperty(MCP.RESTART_SCHEDULE_SETTING, MCP.DEFAULT_RESTART_SCHEDULE.toString());
+        config.setProperty(MCP.ANYTIME_SETTING, Boolean.toString(MCP.DEFAULT_ANYTIME));
+        config.setProperty(MCP.LANDMARKS_SETTING, Boolean.toString(MCP.DEFAULT_LANDMARKS));
+        config.setProperty(MCP.STRATEGY_SETTING, MCP.DEFAULT_STRATEGY.toString());
+        config.setProperty(MCP.NESTING_LEVEL_SETTING, Integer.toString(MCP.DEFAULT_NESTING_LEVEL));
+        config.setProperty(MCP.PARALLEL_PLAYOUTS_SETTING, Boolean.toString(MCP.DEFAULT_PARALLEL_PLAYOUTS));
+        config.setProperty(MCP.PARTIAL_ORDER_REDUCTION_SETTING,
+            Boolean.toString(MCP.DEFAULT_PARTIAL_ORDER_REDUCTION));
+        config.setProperty(MCP.SYMMETRY_BREAKING_SETTING, Boolean.toString(MCP.DEFAULT_SYMMETRY_BREAKING));
+        config.setProperty(MCP.CHECKPOINT_SETTING, MCP.DEFAULT_CHECKPOINT);
+        config.setProperty(MCP.CHECKPOINT_INTERVAL_SETTING, Integer.toString(MCP.DEFAULT_CHECKPOINT_INTERVAL));
+        config.setProperty(MCP.BATCH_EVALUATION_SETTING, Boolean.toString(MCP.DEFAULT_BATCH_EVALUATION));
+        config.setProperty(MCP.MACROS_SETTING, MCP.DEFAULT_MACROS);
+        config.setProperty(MCP.OPTIMIZATION_TIME_SETTING, Integer.toString(MCP.DEFAULT_OPTIMIZATION_TIME));
+        config.setProperty(MCP.WARM_START_SETTING, MCP.DEFAULT_WARM_START);
+        config.setProperty(MCP.LOOKAHEAD_SETTING, Boolean.toString(MCP.DEFAULT_LOOKAHEAD));
+        config.setProperty(MCP.MEMORY_BUDGET_SETTING, Integer.toString(MCP.DEFAULT_MEMORY_BUDGET));
+        config.setProperty(MCP.AUTO_HEURISTIC_SETTING, Boolean.toString(MCP.DEFAULT_AUTO_HEURISTIC));
+        config.setProperty(MCP.GROUNDED_SETTING, MCP.DEFAULT_GROUNDED);
         return config;
     }
 
@@ -223,6 +1224,26 @@ public class MCP extends AbstractPlanner {
         final PlannerConfiguration config = super.getConfiguration();
         config.setProperty(MCP.HEURISTIC_SETTING, this.getHeuristic().toString());
         config.setProperty(MCP.WEIGHT_HEURISTIC_SETTING, Double.toString(this.getHeuristicWeight()));
+        config.setProperty(MCP.SEED_SETTING, Long.toString(this.getSeed()));
+        config.setProperty(MCP.TRAJECTORIES_SETTING, Integer.toString(this.getTrajectories()));
+        config.setProperty(MCP.RESTART_SCHEDULE_SETTING, this.getRestartSchedule().toString());
+        config.setProperty(MCP.ANYTIME_SETTING, Boolean.toString(this.isAnytime()));
+        config.setProperty(MCP.LANDMARKS_SETTING, Boolean.toString(this.isLandmarks()));
+        config.setProperty(MCP.STRATEGY_SETTING, this.getStrategy().toString());
+        config.setProperty(MCP.NESTING_LEVEL_SETTING, Integer.toString(this.getNestingLevel()));
+        config.setProperty(MCP.PARALLEL_PLAYOUTS_SETTING, Boolean.toString(this.isParallelPlayouts()));
+        config.setProperty(MCP.PARTIAL_ORDER_REDUCTION_SETTING, Boolean.toString(this.isPartialOrderReduction()));
+        config.setProperty(MCP.SYMMETRY_BREAKING_SETTING, Boolean.toString(this.isSymmetryBreaking()));
+        config.setProperty(MCP.CHECKPOINT_SETTING, this.getCheckpoint());
+        config.setProperty(MCP.CHECKPOINT_INTERVAL_SETTING, Integer.toString(this.getCheckpointInterval()));
+        config.setProperty(MCP.BATCH_EVALUATION_SETTING, Boolean.toString(this.isBatchEvaluation()));
+        config.setProperty(MCP.MACROS_SETTING, this.getMacros());
+        config.setProperty(MCP.OPTIMIZATION_TIME_SETTING, Integer.toString(this.getOptimizationTime()));
+        config.setProperty(MCP.WARM_START_SETTING, this.getWarmStart());
+        config.setProperty(MCP.LOOKAHEAD_SETTING, Boolean.toString(this.isLookahead()));
+        config.setProperty(MCP.MEMORY_BUDGET_SETTING, Integer.toString(this.getMemoryBudget()));
+        config.setProperty(MCP.AUTO_HEURISTIC_SETTING, Boolean.toString(this.isAutoHeuristic()));
+        config.setProperty(MCP.GROUNDED_SETTING, this.getGrounded());
         return config;
     }
 
@@ -247,99 +1268,668 @@ public class MCP extends AbstractPlanner {
             this.setHeuristic(StateHeuristic.Name.valueOf(configuration.getProperty(
                 MCP.HEURISTIC_SETTING)));
         }
+        if (configuration.getProperty(MCP.SEED_SETTING) == null) {
+            this.setSeed(MCP.DEFAULT_SEED);
+        } else {
+            this.setSeed(Long.parseLong(configuration.getProperty(MCP.SEED_SETTING)));
+        }
+        if (configuration.getProperty(MCP.TRAJECTORIES_SETTING) == null) {
+            this.setTrajectories(MCP.DEFAULT_TRAJECTORIES);
+        } else {
+            this.setTrajectories(Integer.parseInt(configuration.getProperty(MCP.TRAJECTORIES_SETTING)));
+        }
+        if (configuration.getProperty(MCP.RESTART_SCHEDULE_SETTING) == null) {
+            this.setRestartSchedule(MCP.DEFAULT_RESTART_SCHEDULE);
+        } else {
+            this.setRestartSchedule(RestartSchedule.Name.valueOf(configuration.getProperty(
+                MCP.RESTART_SCHEDULE_SETTING)));
+        }
+        if (configuration.getProperty(MCP.ANYTIME_SETTING) == null) {
+            this.setAnytime(MCP.DEFAULT_ANYTIME);
+        } else {
+            this.setAnytime(Boolean.parseBoolean(configuration.getProperty(MCP.ANYTIME_SETTING)));
+        }
+        if (configuration.getProperty(MCP.LANDMARKS_SETTING) == null) {
+            this.setLandmarks(MCP.DEFAULT_LANDMARKS);
+        } else {
+            this.setLandmarks(Boolean.parseBoolean(configuration.getProperty(MCP.LANDMARKS_SETTING)));
+        }
+        if (configuration.getProperty(MCP.STRATEGY_SETTING) == null) {
+            this.setStrategy(MCP.DEFAULT_STRATEGY);
+        } else {
+            this.setStrategy(Strategy.valueOf(configuration.getProperty(MCP.STRATEGY_SETTING)));
+        }
+        if (configuration.getProperty(MCP.NESTING_LEVEL_SETTING) == null) {
+            this.setNestingLevel(MCP.DEFAULT_NESTING_LEVEL);
+        } else {
+            this.setNestingLevel(Integer.parseInt(configuration.getProperty(MCP.NESTING_LEVEL_SETTING)));
+        }
+        if (configuration.getProperty(MCP.PARALLEL_PLAYOUTS_SETTING) == null) {
+            this.setParallelPlayouts(MCP.DEFAULT_PARALLEL_PLAYOUTS);
+        } else {
+            this.setParallelPlayouts(Boolean.parseBoolean(configuration.getProperty(
+                MCP.PARALLEL_PLAYOUTS_SETTING)));
+        }
+        if (configuration.getProperty(MCP.PARTIAL_ORDER_REDUCTION_SETTING) == null) {
+            this.setPartialOrderReduction(MCP.DEFAULT_PARTIAL_ORDER_REDUCTION);
+        } else {
+            this.setPartialOrderReduction(Boolean.parseBoolean(configuration.getProperty(
+                MCP.PARTIAL_ORDER_REDUCTION_SETTING)));
+        }
+        if (configuration.getProperty(MCP.SYMMETRY_BREAKING_SETTING) == null) {
+            this.setSymmetryBreaking(MCP.DEFAULT_SYMMETRY_BREAKING);
+        } else {
+            this.setSymmetryBreaking(Boolean.parseBoolean(configuration.getProperty(
+                MCP.SYMMETRY_BREAKING_SETTING)));
+        }
+        if (configuration.getProperty(MCP.CHECKPOINT_SETTING) == null) {
+            this.setCheckpoint(MCP.DEFAULT_CHECKPOINT);
+        } else {
+            this.setCheckpoint(configuration.getProperty(MCP.CHECKPOINT_SETTING));
+        }
+        if (configuration.getProperty(MCP.CHECKPOINT_INTERVAL_SETTING) == null) {
+            this.setCheckpointInterval(MCP.DEFAULT_CHECKPOINT_INTERVAL);
+        } else {
+            this.setCheckpointInterval(Integer.parseInt(configuration.getProperty(
+                MCP.CHECKPOINT_INTERVAL_SETTING)));
+        }
+        if (configuration.getProperty(MCP.BATCH_EVALUATION_SETTING) == null) {
+            this.setBatchEvaluation(MCP.DEFAULT_BATCH_EVALUATION);
+        } else {
+            this.setBatchEvaluation(Boolean.parseBoolean(configuration.getProperty(
+                MCP.BATCH_EVALUATION_SETTING)));
+        }
+        if (configuration.getProperty(MCP.MACROS_SETTING) == null) {
+            this.setMacros(MCP.DEFAULT_MACROS);
+        } else {
+            this.setMacros(configuration.getProperty(MCP.MACROS_SETTING));
+        }
+        if (configuration.getProperty(MCP.OPTIMIZATION_TIME_SETTING) == null) {
+            this.setOptimizationTime(MCP.DEFAULT_OPTIMIZATION_TIME);
+        } else {
+            this.setOptimizationTime(Integer.parseInt(configuration.getProperty(MCP.OPTIMIZATION_TIME_SETTING)));
+        }
+        if (configuration.getProperty(MCP.WARM_START_SETTING) == null) {
+            this.setWarmStart(MCP.DEFAULT_WARM_START);
+        } else {
+            this.setWarmStart(configuration.getProperty(MCP.WARM_START_SETTING));
+        }
+        if (configuration.getProperty(MCP.LOOKAHEAD_SETTING) == null) {
+            this.setLookahead(MCP.DEFAULT_LOOKAHEAD);
+        } else {
+            this.setLookahead(Boolean.parseBoolean(configuration.getProperty(MCP.LOOKAHEAD_SETTING)));
+        }
+        if (configuration.getProperty(MCP.MEMORY_BUDGET_SETTING) == null) {
+            this.setMemoryBudget(MCP.DEFAULT_MEMORY_BUDGET);
+        } else {
+            this.setMemoryBudget(Integer.parseInt(configuration.getProperty(MCP.MEMORY_BUDGET_SETTING)));
+        }
+        if (configuration.getProperty(MCP.AUTO_HEURISTIC_SETTING) == null) {
+            this.setAutoHeuristic(MCP.DEFAULT_AUTO_HEURISTIC);
+        } else {
+            this.setAutoHeuristic(Boolean.parseBoolean(configuration.getProperty(MCP.AUTO_HEURISTIC_SETTING)));
+        }
+        if (configuration.getProperty(MCP.GROUNDED_SETTING) == null) {
+            this.setGrounded(MCP.DEFAULT_GROUNDED);
+        } else {
+            this.setGrounded(configuration.getProperty(MCP.GROUNDED_SETTING));
+        }
     }
 
 	/**
-	 * The main method of the <code>MCP</code> planner.
-	 * Launch both MCP and HSP on all the problems of the blocks, depot, gripper and logistics domains.
-	 * Write the results in a csv file.
+	 * The main method of the <code>MCP</code> planner. The comparison of <code>MCP</code> to <code>HSP</code>
+	 * on the shipped problems is run by the {@link Benchmark}.
 	 *
 	 * @param args the arguments of the command line.
 	 */
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) {
 		try {
-			final MCP mcpPlanner = new MCP();
-			final HSP hspPlanner = new HSP();
-			File resultFile = new File("src/pddl/data.csv");
-			BufferedWriter writer = new BufferedWriter(new FileWriter(resultFile));
-			writer.write("domain,problem_number,MCP_time,MCP_length,HSP_time,HSP_length");
-			writer.newLine();
-			List<File> blocks_pb = List.of(new File("src/pddl/blocks").listFiles());
-			List<File> depot_pb = List.of(new File("src/pddl/depot").listFiles());
-			List<File> gripper_pb = List.of(new File("src/pddl/gripper").listFiles());
-			List<File> logistics_pb = List.of(new File("src/pddl/logistics").listFiles());
-			Map<File, List<File>> pddlFiles = new TreeMap<>();
-			pddlFiles.put(new File("src/pddl/blocks_domain.pddl"), blocks_pb);
-			//pddlFiles.put(new File("src/pddl/depot_domain.pddl"), depot_pb);
-			pddlFiles.put(new File("src/pddl/gripper_domain.pddl"), gripper_pb);
-			pddlFiles.put(new File("src/pddl/logistics_domain.pddl"), logistics_pb);
-			for(File domainFile : pddlFiles.keySet()) {
-				for(File problemFile : pddlFiles.get(domainFile)) {
-					String domainPath = domainFile.getPath();
-					String problemPath = problemFile.getPath();
-					mcpPlanner.setDomain(domainPath);
-					hspPlanner.setDomain(domainPath);
-					mcpPlanner.setProblem(problemPath);
-					hspPlanner.setProblem(problemPath);
-					String mcpResults = launch(mcpPlanner);
-					String hspResults = launch(hspPlanner);
-					String domain = domainFile.getName();
-					domain = domain.substring(0, domainFile.getName().lastIndexOf("_"));
-					String problem = String.valueOf(pddlFiles.get(domainFile).indexOf(problemFile) + 1);
-					writer.write(domain + "," + problem + "," + mcpResults + "," + hspResults);
-					writer.newLine();
-				}
-			}
-			writer.close();
+			final MCP planner = new MCP();
+			CommandLine cmd = new CommandLine(planner);
+			cmd.execute(args);
 		} catch (IllegalArgumentException e) {
 			LOGGER.fatal(e.getMessage());
 		}
 	}
 
-	/**
-	 * Launch a planner on a problem.
-	 * @param planner the planner
-	 * @return the results of the planner
-	 * @throws FileNotFoundException
-	 */
-	private static String launch(AbstractPlanner planner) throws FileNotFoundException {
-		try {
-			Plan p = planner.solve();
-			Statistics s = planner.getStatistics();
-			double TimeSpent = s.getTimeToParse() + s.getTimeToEncode() + s.getTimeToSearch();
-			int planLength = p == null ? 0 : p.size();
-			return TimeSpent + "," + planLength;
-		}
-		catch(InvalidConfigurationException e) {
-			return "";
-		}
-	}
     /**
-     * Search a solution plan for a planning problem using a Monte-Carlo search strategy.
+     * Search a solution plan for a planning problem using a Monte-Carlo search strategy. When more than
+     * one trajectory is configured, the trajectories are run concurrently, each one with its own random
+     * number generator and restart schedule. The first trajectory reaching the goal stops the others, or,
+     * in anytime mode, the shortest plan found before the timeout is returned.
+     * <p>
+     * With a file of macro-actions, the macro-actions of the file are grounded for the problem and sampled
+     * by the random walks, then the plan found is added to the file. With an optimization time, the plan
+     * found is shortened by a {@link PlanOptimizer}. With the plan of a previous problem, the valid prefix
+     * of the plan is replayed and the trajectories start from its best state.
+     * </p>
      *
      * @param problem the problem to solve.
-     * @return a plan solution for the problem or null if there is no solution
+     * @return a plan solution for the problem or null if no solution was found before the timeout
      */
 	public Plan monteCarlo(Problem problem) {
-		StateHeuristic heuristic = StateHeuristic.getInstance(this.getHeuristic(), problem);
-		State init = new State(problem.getInitialState());
-		Node n = new Node(init, null, -1, 0, 0, heuristic.estimate(init, problem.getGoal()));
+		this.macroLearner = null;
+		final File file = this.getMacros().isEmpty() ? null : new File(this.getMacros());
+		if (file != null) {
+			try {
+				this.macroLearner = MacroLearner.load(file);
+				LOGGER.info("* {} macro-actions grounded\n", this.macroLearner.ground(problem));
+			} catch (IOException | RuntimeException e) {
+				LOGGER.error("* Macro-actions not loaded: {}\n", e.getMessage());
+			}
+		}
+		this.warmPrefix = null;
+		try {
+			final List<String> previous = this.previousPlan != null ? this.previousPlan
+					: this.getWarmStart().isEmpty() ? null : PlanRepair.read(new File(this.getWarmStart()));
+			if (previous != null) {
+				this.warmPrefix = new PlanRepair(problem).prefix(previous);
+				LOGGER.info("* {} of {} actions of the previous plan replayed\n", this.warmPrefix.length,
+						previous.size());
+			}
+		} catch (IOException e) {
+			LOGGER.error("* Previous plan not loaded: {}\n", e.getMessage());
+		}
+		this.progress.start();
+		Plan plan = this.search(problem);
+		this.progress.finish(plan == null ? -1 : plan.size());
+		this.warmPrefix = null;
+		if (plan != null && this.getOptimizationTime() > 0) {
+			final int length = plan.size();
+			plan = new PlanOptimizer(problem).optimize(plan, this.getOptimizationTime());
+			LOGGER.info("* Plan optimized from {} to {} actions\n", length, plan.size());
+		}
+		if (plan != null && this.macroLearner != null) {
+			this.macroLearner.learn(problem, plan.actions());
+			try {
+				this.macroLearner.save(file);
+			} catch (IOException e) {
+				LOGGER.error("* Macro-actions not saved: {}\n", e.getMessage());
+			}
+		}
+		this.macroLearner = null;
+		return plan;
+	}
+
+	/**
+	 * Searches a solution plan with the search strategy of the planner.
+	 *
+	 * @param problem the problem to solve.
+	 * @return a plan solution for the problem or null if no solution was found before the timeout
+	 */
+	private Plan search(Problem problem) {
+		final long deadline = System.currentTimeMillis() + this.getTimeout() * 1000L;
+		final AtomicBoolean stop = new AtomicBoolean(false);
+		final AtomicReference<Node> best = new AtomicReference<>();
+		final int k = this.getTrajectories();
+		// The landmarks are extracted once and shared by the trajectories
+		final LandmarkCount landmarks = this.isLandmarks() ? new LandmarkCount(problem) : null;
+		if (landmarks != null) {
+			LOGGER.info("* {} landmarks extracted\n", landmarks.size());
+		}
+		// The heuristic selected is only used by this search, the heuristic of the planner is kept
+		final StateHeuristic.Name heuristic = landmarks == null && this.isAutoHeuristic()
+				? new HeuristicSelector(problem).select(this.getTimeout(), this.getHeuristic()) : this.getHeuristic();
+		this.stubbornSets = this.isPartialOrderReduction() ? new StubbornSets(problem) : null;
+		this.governor = new MemoryGovernor(problem, this.getMemoryBudget());
+		this.batchHeuristic = this.isBatchEvaluation() ? new BatchHeuristic(problem, heuristic) : null;
+		if (this.getStrategy() == Strategy.NESTED) {
+			return this.nestedMonteCarlo(problem, landmarks, heuristic, deadline);
+		}
+		if (this.getStrategy() == Strategy.ENFORCED_HILL_CLIMBING) {
+			return this.enforcedHillClimbing(problem, landmarks, heuristic, deadline);
+		}
+		if (k == 1) {
+			this.trajectory(problem, new Checkpoint.Generator(this.getSeed()), landmarks, heuristic, deadline, stop,
+					best, this.checkpointFile(-1));
+		} else {
+			final ExecutorService executor = Executors.newFixedThreadPool(k);
+			try {
+				final List<Future<?>> futures = new ArrayList<>();
+				for (int i = 0; i < k; i++) {
+					// Each trajectory gets its own stream derived from the seed of the planner
+					final Checkpoint.Generator random = new Checkpoint.Generator(
+							new SplittableRandom(this.getSeed() + i).nextLong());
+					final File checkpoint = this.checkpointFile(i);
+					futures.add(executor.submit(() -> this.trajectory(problem, random, landmarks, heuristic, deadline,
+							stop, best, checkpoint)));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				LOGGER.error("* Monte-Carlo trajectory failed: {}\n", e.getCause().getMessage());
+			} finally {
+				stop.set(true);
+				executor.shutdownNow();
+			}
+		}
+		final Node goal = best.get();
+		return goal == null ? null : extractPlan(goal, problem);
+	}
+
+	/**
+	 * Runs one Monte-Carlo trajectory. The trajectory restarts when the heuristic does not improve during the
+	 * number of jumps given by the restart schedule. With warm start, the trajectory starts from the warm-start
+	 * node and its restarts alternate between the initial state and the warm-start node, so that a misleading
+	 * prefix of the previous plan does not trap every restart. When the goal is reached,
+	 * the goal node is recorded in <code>best</code> if it is shorter than the current one; the trajectory
+	 * then stops all the trajectories, or restarts in anytime mode. With lookahead, each jump point is
+	 * replaced by the state reached by applying its relaxed plan when the heuristic of this state is not worse.
+	 * <p>
+	 * Every <code>MemoryGovernor.PERIOD</code> jumps, the chain of nodes from the initial state to the current
+	 * node is checked against the {@link MemoryGovernor}: the trajectory restarts from the root, releasing
+	 * the chain, when the governor asks to prune, and stops when it asks to give up.
+	 * </p>
+	 * <p>
+	 * With a checkpoint file, the state of the trajectory is written periodically to the file, and a
+	 * trajectory starting with a checkpoint of the same problem resumes from it. The checkpoint is deleted
+	 * when the trajectory reaches the goal outside the anytime mode.
+	 * </p>
+	 *
+	 * @param problem  the problem to solve.
+	 * @param random    the random number generator of the trajectory.
+	 * @param landmarks the landmark-count heuristic or null to use the heuristic of the search.
+	 * @param heuristicName the heuristic of the search.
+	 * @param deadline the time in ms at which the search gives up.
+	 * @param stop     the flag raised to stop all the trajectories.
+	 * @param best     the shortest goal node found so far by all the trajectories.
+	 * @param checkpoint the checkpoint file of the trajectory or null.
+	 */
+	private void trajectory(Problem problem, Checkpoint.Generator random, LandmarkCount landmarks,
+							StateHeuristic.Name heuristicName, long deadline, AtomicBoolean stop,
+							AtomicReference<Node> best, File checkpoint) {
+		final StateHeuristic heuristic = landmarks != null ? landmarks
+				: StateHeuristic.getInstance(heuristicName, problem);
+		final RestartSchedule schedule = RestartSchedule.getInstance(this.getRestartSchedule(), MAX_STEPS);
+		// Each trajectory has its own extractor since the extraction is not thread safe
+		final RelaxedPlan relaxed = this.isLookahead() ? new RelaxedPlan(problem) : null;
+		final State init = new State(problem.getInitialState());
+		final Node root = this.root(problem, init, heuristic);
+		final Node start = this.warmStart(problem, root, heuristic);
+		Node n = start;
 		double hMin = n.getHeuristic();
 		int counter = 0;
-		while (!n.satisfy(problem.getGoal())) {
-			if (counter >= MAX_STEPS || getActions(problem, n).isEmpty()) {
-				n = new Node(init, null, -1, 0, 0, heuristic.estimate(init, problem.getGoal()));
+		int restarts = 0;
+		final long signature = Checkpoint.signature(problem);
+		final Checkpoint resumed = checkpoint == null ? null : MCP.readCheckpoint(checkpoint, signature);
+		if (resumed != null) {
+			try {
+				n = this.resume(problem, init, heuristic, resumed.getActions());
+				hMin = resumed.getHMin();
+				counter = resumed.getCounter();
+				restarts = resumed.getRestarts();
+				random = resumed.getRandom();
+				LOGGER.info("* Trajectory resumed from {} at depth {}\n", checkpoint, n.getDepth());
+			} catch (IllegalArgumentException e) {
+				// The checkpoint does not replay on this problem, the trajectory starts afresh
+				LOGGER.warn("* Checkpoint {} ignored: {}\n", checkpoint, e.getMessage());
+			}
+		}
+		this.progress.heuristic(n.getHeuristic());
+		final long interval = this.getCheckpointInterval() * 1000L;
+		long nextCheckpoint = System.currentTimeMillis() + interval;
+		if (n.satisfy(problem.getGoal())) {
+			best.compareAndSet(null, n);
+			stop.set(true);
+			return;
+		}
+		long jumps = 0;
+		// Give up when the timeout is reached or when the search is stopped or interrupted
+		while (!stop.get() && System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()
+				&& !this.isCancelled()) {
+			final Node incumbent = best.get();
+			if (counter >= schedule.get(restarts) || getActions(problem, n).isEmpty()
+					|| (incumbent != null && n.getDepth() >= incumbent.getDepth())) {
+				restarts++;
+				n = restarts % 2 == 0 ? start : root;
 				counter = 0;
+				this.progress.restart();
+			}
+			// The nodes of the chain are the live memory of the trajectory, the walks are garbage
+			if (++jumps % MemoryGovernor.PERIOD == 0) {
+				final MemoryGovernor.Level level = this.governor.level(n.getDepth(), 0);
+				if (level == MemoryGovernor.Level.ABORT) {
+					LOGGER.warn("* Trajectory stopped: memory exhausted\n");
+					return;
+				}
+				if (level == MemoryGovernor.Level.PRUNE) {
+					restarts++;
+					n = root;
+					counter = 0;
+					this.progress.restart();
+				}
+			}
+			n = randomWalkAlgo(problem, n, heuristic, random);
+			if (relaxed != null) {
+				n = this.lookahead(problem, n, heuristic, relaxed);
 			}
-			n = randomWalkAlgo(problem, n, heuristic);
-			if (n.getHeuristic() < hMin) {
+			this.progress.heuristic(n.getHeuristic());
+			this.progress.report();
+			if (n.satisfy(problem.getGoal())) {
+				final Node goal = n;
+				best.accumulateAndGet(goal, (b, g) -> b == null || g.getDepth() < b.getDepth() ? g : b);
+				this.progress.incumbent(this.primitives(goal, problem).length);
+				if (!this.isAnytime()) {
+					stop.set(true);
+					if (checkpoint != null) {
+						checkpoint.delete();
+					}
+					return;
+				}
+				counter = Integer.MAX_VALUE;
+			} else if (n.getHeuristic() < hMin) {
 				hMin = n.getHeuristic();
 				counter = 0;
 			} else {
 				counter++;
 			}
+			if (checkpoint != null && System.currentTimeMillis() >= nextCheckpoint) {
+				try {
+					new Checkpoint(signature, this.primitives(n, problem), hMin, counter, restarts, random)
+							.write(checkpoint);
+				} catch (IOException e) {
+					LOGGER.error("* Checkpoint failed: {}\n", e.getMessage());
+				}
+				nextCheckpoint = System.currentTimeMillis() + interval;
+			}
+		}
+	}
+
+	/**
+	 * Applies greedily the relaxed plan of a node, see {@link RelaxedPlan#lookahead(State, int[])}.
+	 *
+	 * @param problem   the problem.
+	 * @param n         the node.
+	 * @param heuristic the heuristic.
+	 * @param relaxed   the extractor of the relaxed plans.
+	 * @return the node reached if its heuristic is not worse than the heuristic of the node, the node otherwise.
+	 */
+	private Node lookahead(Problem problem, Node n, StateHeuristic heuristic, RelaxedPlan relaxed) {
+		if (n.satisfy(problem.getGoal())) {
+			return n;
+		}
+		final int[] plan = relaxed.extract(n);
+		if (plan == null) {
+			return n;
+		}
+		final int[] steps = relaxed.lookahead(n, plan);
+		if (steps.length == 0) {
+			return n;
+		}
+		Node deep = n;
+		for (int a : steps) {
+			deep = this.applyAction(problem, deep, problem.getActions().get(a), heuristic);
+		}
+		deep.setHeuristic(heuristic.estimate(deep, problem.getGoal()));
+		return deep.getHeuristic() <= n.getHeuristic() ? deep : n;
+	}
+
+	/**
+	 * Returns the node from which a trajectory starts and every other restart. Without warm start, this is
+	 * the root.
+	 * With warm start, this is the node of the valid prefix of the previous plan with the best heuristic
+	 * value, the furthest one on ties, among the nodes satisfying the goal or having applicable actions.
+	 *
+	 * @param problem   the problem.
+	 * @param root      the root node.
+	 * @param heuristic the heuristic.
+	 * @return the node from which the trajectory starts.
+	 */
+	private Node warmStart(Problem problem, Node root, StateHeuristic heuristic) {
+		if (this.warmPrefix == null) {
+			return root;
+		}
+		Node best = root;
+		Node n = root;
+		for (int a : this.warmPrefix) {
+			n = this.putAction(problem, n, problem.getActions().get(a), heuristic);
+			if (n.getHeuristic() <= best.getHeuristic()
+					&& (n.satisfy(problem.getGoal()) || !this.getActions(problem, n).isEmpty())) {
+				best = n;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the checkpoint file of a trajectory.
+	 *
+	 * @param i the index of the trajectory or -1 if there is a single trajectory.
+	 * @return the checkpoint file of the trajectory or null if the trajectories are not checkpointed.
+	 */
+	private File checkpointFile(int i) {
+		if (this.getCheckpoint().isEmpty()) {
+			return null;
+		}
+		return new File(i < 0 ? this.getCheckpoint() : this.getCheckpoint() + "." + i);
+	}
+
+	/**
+	 * Reads the checkpoint of a trajectory.
+	 *
+	 * @param file      the checkpoint file.
+	 * @param signature the signature of the problem.
+	 * @return the checkpoint or null if the file does not exist, cannot be read or was written for another
+	 *     problem.
+	 */
+	private static Checkpoint readCheckpoint(File file, long signature) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			final Checkpoint checkpoint = Checkpoint.read(file);
+			if (checkpoint.getSignature() == signature) {
+				return checkpoint;
+			}
+			LOGGER.warn("* Checkpoint {} ignored: written for another problem\n", file);
+		} catch (IOException e) {
+			LOGGER.warn("* Checkpoint {} ignored: {}\n", file, e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Rebuilds the node of a trajectory by replaying its actions from the initial state.
+	 *
+	 * @param problem   the problem.
+	 * @param init      the initial state.
+	 * @param heuristic the heuristic.
+	 * @param actions   the indexes of the actions leading from the initial state to the node.
+	 * @return the node reached by the actions.
+	 * @throws IllegalArgumentException if an action is not an action of the problem or is not applicable.
+	 */
+	public Node resume(Problem problem, State init, StateHeuristic heuristic, int[] actions) {
+		Node n = this.root(problem, init, heuristic);
+		for (int a : actions) {
+			if (a < 0 || a >= problem.getActions().size()) {
+				throw new IllegalArgumentException("action " + a + " of the checkpoint is not an action of the "
+						+ "problem");
+			}
+			final Action action = problem.getActions().get(a);
+			if (!action.isApplicable(n)) {
+				throw new IllegalArgumentException("action " + a + " of the checkpoint is not applicable");
+			}
+			n = this.applyAction(problem, n, action, heuristic);
+		}
+		if (actions.length > 0) {
+			n.setHeuristic(heuristic.estimate(n, problem.getGoal()));
+		}
+		return n;
+	}
+
+	/**
+	 * Search a solution plan with a nested Monte-Carlo search. The search is restarted from the initial
+	 * state with a new memo until a sequence reaches the goal or the timeout is reached.
+	 *
+	 * @param problem       the problem to solve.
+	 * @param landmarks     the landmark-count heuristic or null to use the heuristic of the search.
+	 * @param heuristicName the heuristic of the search.
+	 * @param deadline      the time in ms at which the search gives up.
+	 * @return a plan solution for the problem or null if no solution was found before the timeout
+	 */
+	private Plan nestedMonteCarlo(Problem problem, LandmarkCount landmarks, StateHeuristic.Name heuristicName,
+			long deadline) {
+		final Supplier<StateHeuristic> heuristics = () -> landmarks != null ? landmarks
+				: StateHeuristic.getInstance(heuristicName, problem);
+		final StateHeuristic heuristic = heuristics.get();
+		final Random random = new Random(this.getSeed());
+		final State init = new State(problem.getInitialState());
+		final Symmetries symmetries = this.isSymmetryBreaking() ? new Symmetries(problem) : null;
+		if (symmetries != null) {
+			LOGGER.info("* {} symmetry generators detected\n", symmetries.size());
+		}
+		while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()
+				&& !this.isCancelled()) {
+			final NestedMonteCarlo nmcs = new NestedMonteCarlo(this, problem, heuristics, this.getNestingLevel(),
+					MAX_DEPTH, this.isParallelPlayouts(), random, deadline, this::isCancelled, symmetries,
+					this.governor);
+			final Node root = this.root(problem, init, heuristic);
+			final NestedMonteCarlo.Sequence sequence = nmcs.search(this.getNestingLevel(), root);
+			LOGGER.debug("* Nested search best scores by level: {}\n", Arrays.toString(nmcs.getBestScores()));
+			this.progress.restart();
+			this.progress.report();
+			if (sequence.isGoal()) {
+				Node n = root;
+				for (int a : sequence.getActions()) {
+					n = this.applyAction(problem, n, problem.getActions().get(a), null);
+				}
+				return extractPlan(n, problem);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Search a solution plan with an enforced hill-climbing. From the current node, a breadth-first search
+	 * looks for a node with a better heuristic value, first through the helpful actions only, i.e., the
+	 * applicable actions of the relaxed plan of the expanded node, then through all the actions. When a
+	 * search expands more than <code>EHC_BUDGET</code> nodes, the planner falls back to a jump to the best
+	 * endpoint of random walks, and restarts from the initial state after <code>MAX_STEPS</code> fallbacks
+	 * without improvement.
+	 *
+	 * @param problem       the problem to solve.
+	 * @param landmarks     the landmark-count heuristic or null to use the heuristic of the search.
+	 * @param heuristicName the heuristic of the search.
+	 * @param deadline      the time in ms at which the search gives up.
+	 * @return a plan solution for the problem or null if no solution was found before the timeout
+	 */
+	private Plan enforcedHillClimbing(Problem problem, LandmarkCount landmarks, StateHeuristic.Name heuristicName,
+			long deadline) {
+		final StateHeuristic heuristic = landmarks != null ? landmarks
+				: StateHeuristic.getInstance(heuristicName, problem);
+		final RelaxedPlan relaxed = new RelaxedPlan(problem);
+		final CompactEncoding encoding = new CompactEncoding(problem);
+		final Random random = new Random(this.getSeed());
+		final State init = new State(problem.getInitialState());
+		Node n = this.root(problem, init, heuristic);
+		double hMin = n.getHeuristic();
+		int fallbacks = 0;
+		int failures = 0;
+		long evaluations = 0;
+		while (!n.satisfy(problem.getGoal()) && System.currentTimeMillis() < deadline
+				&& !Thread.currentThread().isInterrupted() && !this.isCancelled()) {
+			final long[] expanded = new long[1];
+			Node next = this.plateauEscape(problem, n, heuristic, relaxed, encoding, true, deadline, expanded);
+			if (next == null) {
+				next = this.plateauEscape(problem, n, heuristic, relaxed, encoding, false, deadline, expanded);
+			}
+			evaluations += expanded[0];
+			if (next == null) {
+				// The plateau is too large for the budget: jump to the best endpoint of random walks
+				next = this.randomWalkAlgo(problem, n, heuristic, random);
+				evaluations += NUM_WALK * LENGTH_WALK;
+				fallbacks++;
+			}
+			if (next.getHeuristic() < hMin || next.satisfy(problem.getGoal())) {
+				hMin = next.getHeuristic();
+				failures = 0;
+			} else if (++failures >= MAX_STEPS || this.getActions(problem, next).isEmpty()) {
+				next = this.root(problem, init, heuristic);
+				hMin = next.getHeuristic();
+				failures = 0;
+				this.progress.restart();
+			}
+			this.progress.heuristic(next.getHeuristic());
+			this.progress.report();
+			n = next;
+		}
+		LOGGER.info("* {} states evaluated, {} random walk fallbacks\n", evaluations, fallbacks);
+		return n.satisfy(problem.getGoal()) ? extractPlan(n, problem) : null;
+	}
+
+	/**
+	 * Searches breadth-first from a node a node with a better heuristic value or satisfying the goal.
+	 *
+	 * @param problem   the problem to solve.
+	 * @param start     the node from which the search starts.
+	 * @param heuristic the heuristic.
+	 * @param relaxed   the extractor of the relaxed plans giving the helpful actions.
+	 * @param encoding  the encoding of the states of the closed list.
+	 * @param helpful   whether only the helpful actions are expanded.
+	 * @param deadline  the time in ms at which the search gives up.
+	 * @param expanded  the array whose first element is incremented for each node evaluated.
+	 * @return the node found or null if the budget or the plateau is exhausted.
+	 */
+	private Node plateauEscape(Problem problem, Node start, StateHeuristic heuristic, RelaxedPlan relaxed,
+							   CompactEncoding encoding, boolean helpful, long deadline, long[] expanded) {
+		final Deque<Node> open = new ArrayDeque<>();
+		final Set<CompactState> close = new HashSet<>();
+		open.add(start);
+		close.add(encoding.encode(start));
+		int nodes = 0;
+		while (!open.isEmpty() && nodes < EHC_BUDGET && System.currentTimeMillis() < deadline
+				&& !this.isCancelled()) {
+			final Node current = open.poll();
+			// The escape gives up rather than exceeding the memory budget
+			if (close.size() >= MemoryGovernor.PERIOD && nodes % MemoryGovernor.PERIOD == 0
+					&& this.governor.level(open.size(), close.size()).compareTo(MemoryGovernor.Level.PRUNE) >= 0) {
+				break;
+			}
+			List<Action> actions = this.getActions(problem, current);
+			if (helpful) {
+				final int[] plan = relaxed.extract(current);
+				final Set<Action> selected = new HashSet<>();
+				if (plan != null) {
+					for (int a : plan) {
+						selected.add(problem.getActions().get(a));
+					}
+				}
+				actions.retainAll(selected);
+			}
+			for (Action a : actions) {
+				final Node child = this.applyAction(problem, current, a, heuristic);
+				if (close.add(encoding.encode(child))) {
+					child.setHeuristic(heuristic.estimate(child, problem.getGoal()));
+					nodes++;
+					if (child.satisfy(problem.getGoal()) || child.getHeuristic() < start.getHeuristic()) {
+						expanded[0] += nodes;
+						return child;
+					}
+					open.add(child);
+				}
+			}
+		}
+		expanded[0] += nodes;
+		return null;
+	}
+
+	/**
+	 * Creates the root node of a trajectory.
+	 * @param problem the problem
+	 * @param init the initial state
+	 * @param heuristic the heuristic
+	 * @return the root node
+	 */
+	private Node root(Problem problem, State init, StateHeuristic heuristic) {
+		final Node root = new Node(init, null, -1, 0, 0, 0);
+		if (heuristic instanceof LandmarkCount) {
+			root.setLandmarks(((LandmarkCount) heuristic).accepted(init));
 		}
-		return extractPlan(n, problem);
+		root.setHeuristic(heuristic.estimate(root, problem.getGoal()));
+		return root;
 	}
 
     /**
@@ -350,16 +1940,40 @@ public class MCP extends AbstractPlanner {
      * @return the search extracted from the specified node.
      */
 	private Plan extractPlan(final Node node, final Problem problem) {
-		Node n = node;
 		final Plan plan = new SequentialPlan();
-		while (n.getAction() != -1) {
-			final Action a = problem.getActions().get(n.getAction());
-			plan.add(0, a);
-			n = n.getParent();
+		for (int a : this.primitives(node, problem)) {
+			plan.add(plan.size(), problem.getActions().get(a));
 		}
 		return plan;
 	}
 
+	/**
+	 * Returns the indexes of the actions leading from the root to a node, the macro-actions being expanded
+	 * into their actions.
+	 *
+	 * @param node    the node.
+	 * @param problem the problem.
+	 * @return the indexes of the actions.
+	 */
+	private int[] primitives(final Node node, final Problem problem) {
+		final int[] actions = Checkpoint.trajectory(node);
+		if (this.macroLearner == null) {
+			return actions;
+		}
+		final int size = problem.getActions().size();
+		final List<Integer> expanded = new ArrayList<>();
+		for (int a : actions) {
+			if (a < size) {
+				expanded.add(a);
+			} else {
+				for (int step : this.macroLearner.steps(a - size)) {
+					expanded.add(step);
+				}
+			}
+		}
+		return expanded.stream().mapToInt(Integer::intValue).toArray();
+	}
+
 	/**
 	 * The pure random walk algorithm from the "Monte-Carlo Exploration for Deterministic Planning" paper.
 	 * @param p the problem
@@ -368,15 +1982,32 @@ public class MCP extends AbstractPlanner {
 	 * @return the new node
 	 */
 	public Node randomWalkAlgo(Problem p, Node s, StateHeuristic heuristic) {
+		return this.randomWalkAlgo(p, s, heuristic, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * The pure random walk algorithm using a specified random number generator.
+	 * @param p the problem
+	 * @param s the node
+	 * @param heuristic the heuristic
+	 * @param random the random number generator
+	 * @return the new node
+	 */
+	public Node randomWalkAlgo(Problem p, Node s, StateHeuristic heuristic, Random random) {
+		if (this.batchHeuristic != null && !(heuristic instanceof LandmarkCount)) {
+			return this.batchRandomWalk(p, s, heuristic, random);
+		}
 		double hMin = Double.MAX_VALUE;
 		Node sMin = null;
-		for (int i = 0; i < NUM_WALK; i++) {
+		for (int i = 0; i < NUM_WALK && !this.isCancelled(); i++) {
+			this.progress.add(1);
+			this.progress.report();
 			Node sPrim = s;
 			for (int j = 1; j < LENGTH_WALK; j++) {
-				List<Action> A = this.getActions(p, sPrim);
+				List<Action> A = this.getWalkActions(p, sPrim);
 				if (A.isEmpty())
 					break;
-				Action a = pickRandomAction(A);
+				Action a = pickRandomAction(A, random);
 				sPrim = putAction(p, sPrim, a, heuristic);
 				if (sPrim.satisfy(p.getGoal()))
 					return sPrim;
@@ -390,28 +2021,96 @@ public class MCP extends AbstractPlanner {
 	}
 
 	/**
-	 * Get all applicable actions from a node.
+	 * The random walk algorithm evaluating only the endpoints of the walks, together. The walks and the
+	 * node returned are the same as with {@link #randomWalkAlgo(Problem, Node, StateHeuristic, Random)}.
+	 * @param p the problem
+	 * @param s the node
+	 * @param heuristic the heuristic, used for the goal node and when the batch evaluation is not bit-parallel
+	 * @param random the random number generator
+	 * @return the new node
+	 */
+	private Node batchRandomWalk(Problem p, Node s, StateHeuristic heuristic, Random random) {
+		final List<Node> endpoints = new ArrayList<>((int) NUM_WALK);
+		for (int i = 0; i < NUM_WALK && !this.isCancelled(); i++) {
+			this.progress.add(1);
+			this.progress.report();
+			Node sPrim = s;
+			for (int j = 1; j < LENGTH_WALK; j++) {
+				List<Action> A = this.getWalkActions(p, sPrim);
+				if (A.isEmpty())
+					break;
+				Action a = pickRandomAction(A, random);
+				sPrim = applyAction(p, sPrim, a, heuristic);
+				if (sPrim.satisfy(p.getGoal())) {
+					sPrim.setHeuristic(heuristic.estimate(sPrim, p.getGoal()));
+					return sPrim;
+				}
+			}
+			endpoints.add(sPrim);
+		}
+		final double[] h = this.batchHeuristic.estimate(endpoints, heuristic);
+		assert !this.batchHeuristic.isParallel() || this.batchHeuristic.check(endpoints, h, heuristic);
+		double hMin = Double.MAX_VALUE;
+		Node sMin = null;
+		for (int i = 0; i < h.length; i++) {
+			final Node e = endpoints.get(i);
+			if (e != s) {
+				e.setHeuristic(h[i]);
+			}
+			if (e.getHeuristic() < hMin) {
+				hMin = e.getHeuristic();
+				sMin = e;
+			}
+		}
+		return sMin == null ? s : sMin;
+	}
+
+	/**
+	 * Get all applicable actions from a node. With partial-order reduction, only the applicable actions
+	 * of a strong stubborn set of the node are returned.
 	 * @param p the problem
 	 * @param n the node
 	 * @return a list of applicable actions
 	 */
-	private List<Action> getActions(Problem p, Node n) {
+	List<Action> getActions(Problem p, Node n) {
 		List<Action> actions = p.getActions();
 		List<Action> applicableActions = new ArrayList<>();
+		if (this.stubbornSets != null) {
+			BitSet stubborn = this.stubbornSets.applicable(n);
+			for (int i = stubborn.nextSetBit(0); i >= 0; i = stubborn.nextSetBit(i + 1))
+				applicableActions.add(actions.get(i));
+			return applicableActions;
+		}
 		for (Action a : actions)
 			if (a.isApplicable(n))
 				applicableActions.add(a);
 		return applicableActions;
 	}
 
+	/**
+	 * Get all applicable actions and macro-actions from a node.
+	 * @param p the problem
+	 * @param n the node
+	 * @return a list of applicable actions and macro-actions
+	 */
+	private List<Action> getWalkActions(Problem p, Node n) {
+		List<Action> applicableActions = this.getActions(p, n);
+		if (this.macroLearner != null) {
+			for (int m = 0; m < this.macroLearner.size(); m++)
+				if (this.macroLearner.get(m).isApplicable(n))
+					applicableActions.add(this.macroLearner.get(m));
+		}
+		return applicableActions;
+	}
+
 	/**
 	 * Pick a random Action in a list of Actions
 	 * @param listActions a list of Actions
+	 * @param random the random number generator
 	 * @return a random Action
 	 */
-	private Action pickRandomAction(List<Action> listActions) {
-		Collections.shuffle(listActions);
-		return listActions.get(0);
+	private Action pickRandomAction(List<Action> listActions, Random random) {
+		return listActions.get(random.nextInt(listActions.size()));
 	}
 
 	/**
@@ -423,10 +2122,34 @@ public class MCP extends AbstractPlanner {
 	 * @return the new node
 	 */
 	public Node putAction(Problem p, Node n, Action a, StateHeuristic heuristic) {
+		Node child = this.applyAction(p, n, a, heuristic);
+		child.setHeuristic(heuristic.estimate(child, p.getGoal()));
+		return child;
+	}
+
+	/**
+	 * Apply an action to a node and return the new node without estimating its heuristic.
+	 * @param p the problem
+	 * @param n the node
+	 * @param a the action
+	 * @param heuristic the heuristic, used to update the accepted landmarks, may be null
+	 * @return the new node
+	 */
+	Node applyAction(Problem p, Node n, Action a, StateHeuristic heuristic) {
 		State s = new State(n);
 		s.apply(a.getConditionalEffects());
-		Node child = new Node(s, n, p.getActions().indexOf(a), n.getCost() + 1, n.getDepth() + 1, 0);
-		child.setHeuristic(heuristic.estimate(child, p.getGoal()));
+		int index = p.getActions().indexOf(a);
+		int length = 1;
+		if (index < 0 && this.macroLearner != null) {
+			// A macro-action is numbered after the actions of the problem
+			final int m = this.macroLearner.indexOf(a);
+			index = p.getActions().size() + m;
+			length = this.macroLearner.steps(m).length;
+		}
+		Node child = new Node(s, n, index, n.getCost() + length, n.getDepth() + length, 0);
+		if (heuristic instanceof LandmarkCount) {
+			child.setLandmarks(((LandmarkCount) heuristic).accepted(n, a));
+		}
 		return child;
 	}
 
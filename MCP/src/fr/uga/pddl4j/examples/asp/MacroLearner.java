@@ -0,0 +1,363 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.problem.operator.Effect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class learns macro-actions from the plans of a domain. The subsequences of 2 to
+ * <code>MAX_LENGTH</code> consecutive actions of a plan sharing objects are lifted, i.e., their objects are
+ * replaced by variables numbered in order of appearance, e.g., <code>pick 0 1 2;move 1 3;drop 0 3 2</code>
+ * in gripper, and the number of occurrences of each lifted sequence is counted. The counts do not depend on
+ * the problem, so they are saved in a file per domain and accumulated over the problems.
+ * <p>
+ * For a new problem of the domain, the most frequent lifted sequences are grounded with the actions of the
+ * problem and compiled into macro-actions: the precondition of a macro-action is the precondition of its
+ * first action and the preconditions of the next actions not achieved by the previous ones, and its effect
+ * is the composition of the effects of its actions. Only the sequences of actions without conditional
+ * effects, whose preconditions are not deleted by the previous actions, are compiled.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class MacroLearner {
+
+    /**
+     * The maximum number of actions of a macro-action.
+     */
+    public static int MAX_LENGTH = 3;
+
+    /**
+     * The minimum number of occurrences of a lifted sequence to be compiled into macro-actions.
+     */
+    public static int MIN_SUPPORT = 2;
+
+    /**
+     * The maximum number of lifted sequences compiled into macro-actions.
+     */
+    public static int MAX_MACROS = 2;
+
+    /**
+     * The maximum number of macro-actions of a problem.
+     */
+    public static int MAX_GROUND = 1000;
+
+    /**
+     * The number of occurrences of each lifted sequence.
+     */
+    private final Map<String, Integer> counts;
+
+    /**
+     * The macro-actions of the problem.
+     */
+    private final List<Action> macros;
+
+    /**
+     * The indexes of the actions of each macro-action.
+     */
+    private final List<int[]> steps;
+
+    /**
+     * The index of each macro-action.
+     */
+    private final Map<Action, Integer> index;
+
+    /**
+     * Creates a learner without lifted sequence.
+     */
+    public MacroLearner() {
+        this.counts = new LinkedHashMap<>();
+        this.macros = new ArrayList<>();
+        this.steps = new ArrayList<>();
+        this.index = new IdentityHashMap<>();
+    }
+
+    /**
+     * Loads the lifted sequences of a file. The learner is empty if the file does not exist.
+     *
+     * @param file the file.
+     * @return the learner.
+     * @throws IOException if the file cannot be read.
+     */
+    public static MacroLearner load(final File file) throws IOException {
+        final MacroLearner learner = new MacroLearner();
+        if (file.exists()) {
+            for (String line : Files.readAllLines(file.toPath())) {
+                final int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    learner.counts.merge(line.substring(tab + 1), Integer.parseInt(line.substring(0, tab)),
+                        Integer::sum);
+                }
+            }
+        }
+        return learner;
+    }
+
+    /**
+     * Saves the lifted sequences to a file, one per line with its number of occurrences.
+     *
+     * @param file the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(final File file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            for (Map.Entry<String, Integer> e : this.counts.entrySet()) {
+                writer.write(e.getValue() + "\t" + e.getKey());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Counts the lifted sequences of a plan. The cycles of the plan, i.e., the subsequences leading back to
+     * a state already visited, are removed first, so that the detours of the random walks are not learnt.
+     *
+     * @param problem the problem.
+     * @param actions the actions of the plan.
+     */
+    public void learn(final Problem problem, final List<Action> actions) {
+        final List<Action> plan = new ArrayList<>();
+        final List<State> states = new ArrayList<>();
+        final Map<State, Integer> visited = new HashMap<>();
+        State state = new State(problem.getInitialState());
+        visited.put(state, 0);
+        for (Action a : actions) {
+            state = new State(state);
+            state.apply(a.getConditionalEffects());
+            final Integer previous = visited.get(state);
+            if (previous != null) {
+                // Back to a visited state: the actions since this state are a cycle
+                while (plan.size() > previous) {
+                    visited.remove(states.remove(states.size() - 1));
+                    plan.remove(plan.size() - 1);
+                }
+            } else {
+                plan.add(a);
+                states.add(state);
+                visited.put(state, plan.size());
+            }
+        }
+        for (int i = 0; i < plan.size(); i++) {
+            final Map<Integer, Integer> variables = new HashMap<>();
+            final StringBuilder key = new StringBuilder();
+            for (int j = i; j < plan.size() && j - i < MacroLearner.MAX_LENGTH; j++) {
+                final Action a = plan.get(j);
+                boolean shared = j == i;
+                final StringBuilder step = new StringBuilder(a.getName());
+                for (int c : a.getInstantiations()) {
+                    shared |= variables.containsKey(c);
+                    step.append(' ').append(variables.computeIfAbsent(c, k -> variables.size()));
+                }
+                // The actions of a macro-action are connected by their objects
+                if (!shared) {
+                    break;
+                }
+                key.append(j == i ? "" : ";").append(step);
+                if (j > i) {
+                    this.counts.merge(key.toString(), 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grounds the most frequent lifted sequences with the actions of a problem and compiles them into
+     * macro-actions.
+     *
+     * @param problem the problem.
+     * @return the number of macro-actions of the problem.
+     */
+    public int ground(final Problem problem) {
+        this.macros.clear();
+        this.steps.clear();
+        this.index.clear();
+        final List<Map.Entry<String, Integer>> frequent = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : this.counts.entrySet()) {
+            if (e.getValue() >= MacroLearner.MIN_SUPPORT) {
+                frequent.add(e);
+            }
+        }
+        // The sequences saving the most actions first: their number of occurrences times their length
+        frequent.sort((x, y) -> y.getValue() * y.getKey().split(";").length
+            - x.getValue() * x.getKey().split(";").length);
+        final Map<String, List<Integer>> byName = new HashMap<>();
+        for (int a = 0; a < problem.getActions().size(); a++) {
+            byName.computeIfAbsent(problem.getActions().get(a).getName(), n -> new ArrayList<>()).add(a);
+        }
+        for (int m = 0; m < frequent.size() && m < MacroLearner.MAX_MACROS; m++) {
+            final String[] pattern = frequent.get(m).getKey().split(";");
+            final String[] names = new String[pattern.length];
+            final int[][] vars = new int[pattern.length][];
+            for (int s = 0; s < pattern.length; s++) {
+                final String[] tokens = pattern[s].split(" ");
+                names[s] = tokens[0];
+                vars[s] = new int[tokens.length - 1];
+                for (int k = 1; k < tokens.length; k++) {
+                    vars[s][k - 1] = Integer.parseInt(tokens[k]);
+                }
+            }
+            this.bind(problem, names, vars, byName, 0, new HashMap<>(), new int[pattern.length]);
+        }
+        return this.macros.size();
+    }
+
+    /**
+     * Enumerates the ground sequences of a lifted sequence, binding its variables to distinct objects, and
+     * compiles them into macro-actions.
+     *
+     * @param problem  the problem.
+     * @param names    the names of the actions of the lifted sequence.
+     * @param vars     the variables of the parameters of each action of the lifted sequence.
+     * @param byName   the indexes of the actions of the problem by name.
+     * @param s        the index of the action to bind.
+     * @param binding  the objects bound to the variables.
+     * @param sequence the indexes of the actions bound so far.
+     */
+    private void bind(final Problem problem, final String[] names, final int[][] vars,
+                      final Map<String, List<Integer>> byName, final int s, final Map<Integer, Integer> binding,
+                      final int[] sequence) {
+        if (this.macros.size() >= MacroLearner.MAX_GROUND) {
+            return;
+        }
+        if (s == names.length) {
+            final Action macro = MacroLearner.compile(problem, sequence);
+            if (macro != null) {
+                this.index.put(macro, this.macros.size());
+                this.macros.add(macro);
+                this.steps.add(sequence.clone());
+            }
+            return;
+        }
+        for (int a : byName.getOrDefault(names[s], List.of())) {
+            final int[] args = problem.getActions().get(a).getInstantiations();
+            if (args.length != vars[s].length) {
+                continue;
+            }
+            final Map<Integer, Integer> extended = new HashMap<>(binding);
+            boolean consistent = true;
+            for (int k = 0; k < args.length && consistent; k++) {
+                final Integer bound = extended.get(vars[s][k]);
+                if (bound == null) {
+                    consistent = !extended.containsValue(args[k]);
+                    extended.put(vars[s][k], args[k]);
+                } else {
+                    consistent = bound == args[k];
+                }
+            }
+            if (consistent) {
+                sequence[s] = a;
+                this.bind(problem, names, vars, byName, s + 1, extended, sequence);
+            }
+        }
+    }
+
+    /**
+     * Compiles a sequence of actions into a macro-action.
+     *
+     * @param problem  the problem.
+     * @param sequence the indexes of the actions.
+     * @return the macro-action or null if an action has conditional effects or if the sequence is never
+     *     applicable.
+     */
+    private static Action compile(final Problem problem, final int[] sequence) {
+        final BitVector prePositive = new BitVector();
+        final BitVector preNegative = new BitVector();
+        final BitVector add = new BitVector();
+        final BitVector del = new BitVector();
+        final StringBuilder name = new StringBuilder();
+        for (int a : sequence) {
+            final Action action = problem.getActions().get(a);
+            if (action.getConditionalEffects().size() != 1
+                || !action.getConditionalEffects().get(0).getCondition().isEmpty()) {
+                return null;
+            }
+            final BitVector pos = action.getPrecondition().getPositiveFluents();
+            final BitVector neg = action.getPrecondition().getNegativeFluents();
+            // A precondition deleted and not added back, or added, by the previous actions is violated
+            final BitVector deleted = new BitVector(del);
+            deleted.andNot(add);
+            if (pos.intersects(deleted) || neg.intersects(add)) {
+                return null;
+            }
+            final BitVector p = new BitVector(pos);
+            p.andNot(add);
+            prePositive.or(p);
+            final BitVector n = new BitVector(neg);
+            n.andNot(del);
+            preNegative.or(n);
+            final Effect effect = action.getConditionalEffects().get(0).getEffect();
+            add.andNot(effect.getNegativeFluents());
+            add.or(effect.getPositiveFluents());
+            del.or(effect.getNegativeFluents());
+            name.append(name.length() == 0 ? "" : "+").append(action.getName());
+        }
+        // A sequence without effect, e.g., picking and dropping the same object, is useless
+        final BitVector changed = new BitVector(add);
+        changed.andNot(prePositive);
+        final BitVector removed = new BitVector(del);
+        removed.andNot(add);
+        removed.and(prePositive);
+        if (prePositive.intersects(preNegative) || changed.isEmpty() && removed.isEmpty()) {
+            return null;
+        }
+        final Action macro = new Action(name.toString(), 0);
+        macro.setPrecondition(new Condition(prePositive, preNegative));
+        macro.addConditionalEffect(new ConditionalEffect(new Effect(add, del)));
+        return macro;
+    }
+
+    /**
+     * Returns the number of macro-actions of the problem.
+     *
+     * @return the number of macro-actions of the problem.
+     */
+    public int size() {
+        return this.macros.size();
+    }
+
+    /**
+     * Returns a macro-action of the problem.
+     *
+     * @param m the index of the macro-action.
+     * @return the macro-action.
+     */
+    public Action get(final int m) {
+        return this.macros.get(m);
+    }
+
+    /**
+     * Returns the indexes of the actions of a macro-action.
+     *
+     * @param m the index of the macro-action.
+     * @return the indexes of the actions of the macro-action.
+     */
+    public int[] steps(final int m) {
+        return this.steps.get(m);
+    }
+
+    /**
+     * Returns the index of a macro-action.
+     *
+     * @param macro the macro-action.
+     * @return the index of the macro-action or -1 if it is not a macro-action of the problem.
+     */
+    public int indexOf(final Action macro) {
+        return this.index.getOrDefault(macro, -1);
+    }
+}
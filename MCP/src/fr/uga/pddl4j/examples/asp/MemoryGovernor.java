@@ -0,0 +1,223 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * This class bounds the memory of a search. The live memory of the search is estimated from the number of
+ * nodes of its open and closed lists times the size of a node, computed from the number of fluents of the
+ * problem, and compared to the budget of the search. The search checks the governor every
+ * <code>PERIOD</code> expansions and degrades as the estimate grows: it first gives more weight to the
+ * heuristic, then becomes greedy, then prunes its open list, and gives up when its closed list alone exceeds
+ * the budget.
+ * <p>
+ * Since several searches may share the heap, the governor also watches the heap used by the long-lived
+ * objects: when less than <code>HEAP_RESERVE</code> of the maximum heap is left, the search prunes its open
+ * list whatever its budget, and gives up if its open list is already empty, rather than running the virtual
+ * machine out of memory.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class MemoryGovernor {
+
+    /**
+     * The degradation levels of a search, from the normal search to the abandon of the search.
+     */
+    public enum Level {
+        /**
+         * The search is not degraded.
+         */
+        NORMAL,
+        /**
+         * The search gives more weight to the heuristic.
+         */
+        WEIGHTED,
+        /**
+         * The search orders the nodes by heuristic value only.
+         */
+        GREEDY,
+        /**
+         * The search prunes its open list.
+         */
+        PRUNE,
+        /**
+         * The search gives up.
+         */
+        ABORT
+    }
+
+    /**
+     * The number of expansions between two checks of the governor.
+     */
+    public static int PERIOD = 1024;
+
+    /**
+     * The fraction of the maximum heap kept free for the other searches.
+     */
+    public static double HEAP_RESERVE = 0.1;
+
+    /**
+     * The weight of the heuristic of the weighted level.
+     */
+    public static double DEGRADED_WEIGHT = 5.0;
+
+    /**
+     * The fraction of the budget kept after a pruning.
+     */
+    private static final double PRUNED = 0.6;
+
+    /**
+     * The budget of the search in bytes, 0 if only the heap is watched.
+     */
+    private final long budget;
+
+    /**
+     * The estimated size in bytes of a node of the open list.
+     */
+    private final long openBytes;
+
+    /**
+     * The estimated size in bytes of a state of the closed list.
+     */
+    private final long closedBytes;
+
+    /**
+     * The peak of the estimated memory of the search in bytes.
+     */
+    private long peak;
+
+    /**
+     * Creates a governor for a search of a problem. The sizes are estimated for a 64-bit virtual machine with
+     * compressed references: a node of the open list is a node, its state and a slot of the queue; a state of
+     * the closed list is a compact state and an entry of a hash set.
+     *
+     * @param problem the problem.
+     * @param budget  the budget of the search in MB or 0 to only watch the heap.
+     */
+    public MemoryGovernor(final Problem problem, final int budget) {
+        final long words = (problem.getFluents().size() + 63) / 64;
+        this.budget = budget * 1024L * 1024L;
+        this.openBytes = 104 + 8 * words;
+        this.closedBytes = 72 + 8 * words;
+        this.peak = 0;
+    }
+
+    /**
+     * Returns the estimated memory of a search.
+     *
+     * @param open   the number of nodes of the open lists.
+     * @param closed the number of states of the closed list.
+     * @return the estimated memory in bytes.
+     */
+    public long estimate(final long open, final long closed) {
+        return open * this.openBytes + closed * this.closedBytes;
+    }
+
+    /**
+     * Records the estimated memory of a search.
+     *
+     * @param open   the number of nodes of the open lists.
+     * @param closed the number of states of the closed list.
+     * @return the peak of the estimated memory in bytes.
+     */
+    public synchronized long record(final long open, final long closed) {
+        this.peak = Math.max(this.peak, this.estimate(open, closed));
+        return this.peak;
+    }
+
+    /**
+     * Returns the peak of the estimated memory of the search.
+     *
+     * @return the peak of the estimated memory in bytes.
+     */
+    public synchronized long getPeak() {
+        return this.peak;
+    }
+
+    /**
+     * Returns the budget of the search.
+     *
+     * @return the budget in bytes or 0 if only the heap is watched.
+     */
+    public long getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Returns the degradation level of a search and records its estimated memory.
+     *
+     * @param open   the number of nodes of the open lists.
+     * @param closed the number of states of the closed list.
+     * @return the degradation level.
+     */
+    public Level level(final long open, final long closed) {
+        final long live = this.estimate(open, closed);
+        this.record(open, closed);
+        Level level = Level.NORMAL;
+        if (this.budget > 0) {
+            final double used = (double) live / this.budget;
+            if (this.estimate(0, closed) >= this.budget) {
+                level = Level.ABORT;
+            } else if (used >= 0.9) {
+                level = Level.PRUNE;
+            } else if (used >= 0.7) {
+                level = Level.GREEDY;
+            } else if (used >= 0.5) {
+                level = Level.WEIGHTED;
+            }
+        }
+        if (level.compareTo(Level.PRUNE) < 0 && MemoryGovernor.isHeapLow()) {
+            level = open > 0 ? Level.PRUNE : Level.ABORT;
+        }
+        return level;
+    }
+
+    /**
+     * Returns the number of nodes of the open lists kept by a pruning: the nodes fitting in a fraction of
+     * the budget left by the closed list, and at most half of the nodes when the heap is low.
+     *
+     * @param open   the number of nodes of the open lists.
+     * @param closed the number of states of the closed list.
+     * @return the number of nodes kept.
+     */
+    public int capacity(final int open, final long closed) {
+        long keep = open;
+        if (this.budget > 0) {
+            keep = Math.min(keep, (long) (PRUNED * this.budget - this.estimate(0, closed)) / this.openBytes);
+        }
+        if (MemoryGovernor.isHeapLow()) {
+            keep = Math.min(keep, open / 2);
+        }
+        return (int) Math.max(0, keep);
+    }
+
+    /**
+     * Returns whether less than <code>HEAP_RESERVE</code> of the maximum heap is left. The heap used is the
+     * usage of each pool after its last collection, i.e., its live objects, so that the garbage waiting for
+     * the next collection is not counted. A pool never collected yet counts its current usage.
+     *
+     * @return <code>true</code> if the heap is low, <code>false</code> otherwise.
+     */
+    public static boolean isHeapLow() {
+        final long max = Runtime.getRuntime().maxMemory();
+        if (max == Long.MAX_VALUE) {
+            return false;
+        }
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                // The usage after the last collection is zero committed until the pool is collected once
+                final MemoryUsage collected = pool.getCollectionUsage();
+                final MemoryUsage usage = collected == null || collected.getCommitted() == 0
+                    ? pool.getUsage() : collected;
+                used += usage.getUsed();
+            }
+        }
+        return used > (1.0 - HEAP_RESERVE) * max;
+    }
+}
@@ -0,0 +1,382 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.Action;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Nested Monte-Carlo Search (Cazenave, 2009) for the Monte-Carlo planner. At level 0 a sequence is a
+ * random playout. At level n, every applicable action is evaluated with a search of level n - 1 and the
+ * best sequence found so far is followed one action at a time. The sequences reaching the goal are scored
+ * by their length; the others by the heuristic value of their last state, after all the sequences
+ * reaching the goal.
+ * <p>
+ * The results of the searches of level 1 and more are memoised by compact state, so a state reached again
+ * through another path is not searched twice at the same level. With symmetries, the memo is keyed by the
+ * canonical representatives of the states and the memoised sequences are mapped to and from the canonical
+ * states, so that symmetric states share their results. The memo of a level is cleared when it holds
+ * <code>MAX_MEMO</code> sequences or when the {@link MemoryGovernor} asks to prune. The playouts of level 1
+ * can be run in parallel on the common fork-join pool.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+final class NestedMonteCarlo {
+
+    /**
+     * The score added to the sequences that do not reach the goal.
+     */
+    private static final double PENALTY = 1_000_000;
+
+    /**
+     * The maximum number of memoised sequences per level.
+     */
+    public static int MAX_MEMO = 100_000;
+
+    /**
+     * A sequence of actions found by the search and its score.
+     */
+    static final class Sequence {
+
+        /**
+         * The indexes of the actions of the sequence.
+         */
+        private final int[] actions;
+
+        /**
+         * The score of the sequence, lower is better.
+         */
+        private final double score;
+
+        /**
+         * Whether the sequence reaches the goal.
+         */
+        private final boolean goal;
+
+        /**
+         * Creates a new sequence.
+         *
+         * @param actions the indexes of the actions of the sequence.
+         * @param score   the score of the sequence.
+         * @param goal    whether the sequence reaches the goal.
+         */
+        Sequence(final int[] actions, final double score, final boolean goal) {
+            this.actions = actions;
+            this.score = score;
+            this.goal = goal;
+        }
+
+        /**
+         * Returns the indexes of the actions of the sequence.
+         *
+         * @return the indexes of the actions of the sequence.
+         */
+        int[] getActions() {
+            return this.actions;
+        }
+
+        /**
+         * Returns whether the sequence reaches the goal.
+         *
+         * @return <code>true</code> if the sequence reaches the goal, <code>false</code> otherwise.
+         */
+        boolean isGoal() {
+            return this.goal;
+        }
+    }
+
+    /**
+     * The planner providing the successor generation.
+     */
+    private final MCP planner;
+
+    /**
+     * The problem to solve.
+     */
+    private final Problem problem;
+
+    /**
+     * The heuristic of each thread.
+     */
+    private final ThreadLocal<StateHeuristic> heuristic;
+
+    /**
+     * The maximum length of a sequence.
+     */
+    private final int depth;
+
+    /**
+     * Whether the playouts of level 1 are run in parallel.
+     */
+    private final boolean parallel;
+
+    /**
+     * The time in ms at which the search gives up.
+     */
+    private final long deadline;
+
+    /**
+     * The check of the cancellation of the search.
+     */
+    private final BooleanSupplier cancelled;
+
+    /**
+     * The random number generator of the search, from which the streams of the parallel playouts derive.
+     */
+    private final Random random;
+
+    /**
+     * The symmetries of the problem or null if the states are memoised as they are.
+     */
+    private final Symmetries symmetries;
+
+    /**
+     * The encoding of the states used as keys of the memo.
+     */
+    private final CompactEncoding encoding;
+
+    /**
+     * The memoised sequences of each level.
+     */
+    private final List<Map<CompactState, Sequence>> memo;
+
+    /**
+     * The governor of the memory of the search.
+     */
+    private final MemoryGovernor governor;
+
+    /**
+     * The best score found at each level.
+     */
+    private final double[] best;
+
+    /**
+     * Creates a new nested Monte-Carlo search.
+     *
+     * @param planner   the planner providing the successor generation.
+     * @param problem   the problem to solve.
+     * @param heuristic the factory of the heuristics of the threads.
+     * @param level     the nesting level.
+     * @param depth     the maximum length of a sequence.
+     * @param parallel  whether the playouts of level 1 are run in parallel.
+     * @param random    the random number generator of the search.
+     * @param deadline  the time in ms at which the search gives up.
+     * @param cancelled the check of the cancellation of the search.
+     * @param symmetries the symmetries of the problem or null to memoise the states as they are.
+     * @param governor  the governor of the memory of the search.
+     */
+    NestedMonteCarlo(final MCP planner, final Problem problem, final Supplier<StateHeuristic> heuristic,
+                     final int level, final int depth, final boolean parallel, final Random random,
+                     final long deadline, final BooleanSupplier cancelled, final Symmetries symmetries,
+                     final MemoryGovernor governor) {
+        this.planner = planner;
+        this.problem = problem;
+        this.heuristic = ThreadLocal.withInitial(heuristic);
+        this.depth = depth;
+        this.parallel = parallel;
+        this.random = random;
+        this.deadline = deadline;
+        this.cancelled = cancelled;
+        this.symmetries = symmetries;
+        this.governor = governor;
+        this.encoding = new CompactEncoding(problem);
+        this.memo = new ArrayList<>();
+        for (int i = 0; i <= level; i++) {
+            this.memo.add(new ConcurrentHashMap<>());
+        }
+        this.best = new double[level + 1];
+        Arrays.fill(this.best, Double.MAX_VALUE);
+    }
+
+    /**
+     * Returns the best score found at each level.
+     *
+     * @return the best score found at each level.
+     */
+    double[] getBestScores() {
+        return this.best.clone();
+    }
+
+    /**
+     * Searches a sequence of actions from a node.
+     *
+     * @param level the nesting level.
+     * @param node  the node.
+     * @return the best sequence found from the node.
+     */
+    Sequence search(final int level, final Node node) {
+        if (level == 0) {
+            return this.playout(node, this.random);
+        }
+        final Map<CompactState, Sequence> cache = this.memo.get(level);
+        final List<Integer> applied = new ArrayList<>();
+        final CompactState key = this.encoding.encode(this.symmetries == null ? node
+            : this.symmetries.canonical(node, applied));
+        final Sequence known = cache.get(key);
+        if (known != null) {
+            return this.symmetries == null ? known
+                : new Sequence(this.symmetries.map(known.actions, applied, true), known.score, known.goal);
+        }
+        Sequence best = null;
+        final List<Integer> played = new ArrayList<>();
+        Node current = node;
+        while (played.size() < this.depth && !this.isStopped()) {
+            if (current.satisfy(this.problem.getGoal())) {
+                if (best == null || played.size() < best.score) {
+                    best = new Sequence(NestedMonteCarlo.toArray(played, -1, null), played.size(), true);
+                }
+                break;
+            }
+            final Node from = current;
+            final List<Action> actions = this.planner.getActions(this.problem, from);
+            if (actions.isEmpty()) {
+                break;
+            }
+            final Sequence[] results = new Sequence[actions.size()];
+            final int[] indexes = new int[actions.size()];
+            for (int i = 0; i < actions.size(); i++) {
+                indexes[i] = this.problem.getActions().indexOf(actions.get(i));
+            }
+            if (level == 1 && this.parallel) {
+                // Each playout gets its own stream derived from the generator of the search, so that the
+                // parallel playouts are reproducible from the seed of the planner
+                final long[] seeds = new SplittableRandom(this.random.nextLong()).longs(actions.size()).toArray();
+                IntStream.range(0, actions.size()).parallel().forEach(i -> results[i] = this.playout(
+                    this.planner.applyAction(this.problem, from, actions.get(i), this.heuristic.get()),
+                    new Random(seeds[i])));
+            } else {
+                for (int i = 0; i < actions.size(); i++) {
+                    results[i] = this.search(level - 1,
+                        this.planner.applyAction(this.problem, from, actions.get(i), this.heuristic.get()));
+                }
+            }
+            for (int i = 0; i < results.length; i++) {
+                final Sequence r = results[i];
+                final double score = r.goal ? played.size() + 1 + r.score : r.score;
+                if (best == null || score < best.score) {
+                    best = new Sequence(NestedMonteCarlo.toArray(played, indexes[i], r.actions), score, r.goal);
+                }
+            }
+            if (best == null || played.size() >= best.actions.length) {
+                break;
+            }
+            // Follow the best sequence found so far
+            final int next = best.actions[played.size()];
+            current = this.planner.applyAction(this.problem, current, this.problem.getActions().get(next),
+                this.heuristic.get());
+            played.add(next);
+        }
+        if (best == null) {
+            best = this.score(current, NestedMonteCarlo.toArray(played, -1, null));
+        }
+        synchronized (this.best) {
+            this.best[level] = Math.min(this.best[level], best.score);
+        }
+        if (cache.size() >= MAX_MEMO || (cache.size() % MemoryGovernor.PERIOD == MemoryGovernor.PERIOD - 1
+            && this.governor.level(0, this.memoSize()).compareTo(MemoryGovernor.Level.PRUNE) >= 0)) {
+            cache.clear();
+        }
+        cache.put(key, this.symmetries == null ? best
+            : new Sequence(this.symmetries.map(best.actions, applied, false), best.score, best.goal));
+        return best;
+    }
+
+    /**
+     * Returns whether the search must stop: its deadline is reached, its thread is interrupted or it is
+     * cancelled.
+     *
+     * @return <code>true</code> if the search must stop, <code>false</code> otherwise.
+     */
+    private boolean isStopped() {
+        return System.currentTimeMillis() >= this.deadline || Thread.currentThread().isInterrupted()
+            || this.cancelled.getAsBoolean();
+    }
+
+    /**
+     * Returns the number of memoised sequences of all the levels.
+     *
+     * @return the number of memoised sequences.
+     */
+    private long memoSize() {
+        long size = 0;
+        for (Map<CompactState, Sequence> cache : this.memo) {
+            size += cache.size();
+        }
+        return size;
+    }
+
+    /**
+     * Runs a random playout from a node.
+     *
+     * @param node   the node.
+     * @param random the random number generator.
+     * @return the sequence of the playout.
+     */
+    private Sequence playout(final Node node, final Random random) {
+        final List<Integer> played = new ArrayList<>();
+        Node current = node;
+        while (played.size() < this.depth && !current.satisfy(this.problem.getGoal()) && !this.isStopped()) {
+            final List<Action> actions = this.planner.getActions(this.problem, current);
+            if (actions.isEmpty()) {
+                break;
+            }
+            final Action a = actions.get(random.nextInt(actions.size()));
+            current = this.planner.applyAction(this.problem, current, a, this.heuristic.get());
+            played.add(current.getAction());
+        }
+        final Sequence sequence = this.score(current, NestedMonteCarlo.toArray(played, -1, null));
+        synchronized (this.best) {
+            this.best[0] = Math.min(this.best[0], sequence.score);
+        }
+        return sequence;
+    }
+
+    /**
+     * Scores the sequence ending in a node.
+     *
+     * @param end     the last node of the sequence.
+     * @param actions the actions of the sequence.
+     * @return the scored sequence.
+     */
+    private Sequence score(final Node end, final int[] actions) {
+        if (end.satisfy(this.problem.getGoal())) {
+            return new Sequence(actions, actions.length, true);
+        }
+        return new Sequence(actions, PENALTY + this.heuristic.get().estimate(end, this.problem.getGoal()), false);
+    }
+
+    /**
+     * Concatenates a prefix, an action and a suffix of action indexes.
+     *
+     * @param prefix the prefix.
+     * @param action the action or -1 if there is no action.
+     * @param suffix the suffix or null if there is no suffix.
+     * @return the concatenation.
+     */
+    private static int[] toArray(final List<Integer> prefix, final int action, final int[] suffix) {
+        final int size = prefix.size() + (action >= 0 ? 1 : 0) + (suffix == null ? 0 : suffix.length);
+        final int[] array = new int[size];
+        int i = 0;
+        for (int a : prefix) {
+            array[i++] = a;
+        }
+        if (action >= 0) {
+            array[i++] = action;
+        }
+        if (suffix != null) {
+            System.arraycopy(suffix, 0, array, i, suffix.length);
+        }
+        return array;
+    }
+}
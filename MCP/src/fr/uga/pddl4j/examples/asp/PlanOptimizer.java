@@ -0,0 +1,261 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.plan.SequentialPlan;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class shortens the plans found by the random walks in three stages, each one limited in time:
+ * <ol>
+ * <li>the cycles, i.e., the subsequences leading back to a state already visited, are removed in linear
+ * time by jumping from each state of the plan to its last occurrence;</li>
+ * <li>the redundant actions are removed greedily: an action is removed with the following actions that
+ * become inapplicable if the rest of the plan still reaches the goal (action elimination);</li>
+ * <li>the plan is shortcut: a bounded breadth-first search from each state of the plan looks for a shorter
+ * path to a later state of the plan.</li>
+ * </ol>
+ * Every stage keeps the plan valid and never makes it longer.
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class PlanOptimizer {
+
+    /**
+     * The maximum depth of a shortcut.
+     */
+    public static int SHORTCUT_DEPTH = 4;
+
+    /**
+     * The maximum number of nodes of the search of a shortcut.
+     */
+    public static int SHORTCUT_BUDGET = 5000;
+
+    /**
+     * The problem.
+     */
+    private final Problem problem;
+
+    /**
+     * Creates a plan optimizer for a problem.
+     *
+     * @param problem the problem.
+     */
+    public PlanOptimizer(final Problem problem) {
+        this.problem = problem;
+    }
+
+    /**
+     * Shortens a plan.
+     *
+     * @param plan   the plan.
+     * @param budget the time in ms given to each stage.
+     * @return the shortened plan.
+     */
+    public Plan optimize(final Plan plan, final long budget) {
+        List<Action> actions = new ArrayList<>(plan.actions());
+        actions = this.removeCycles(actions);
+        actions = this.eliminateActions(actions, System.currentTimeMillis() + budget);
+        actions = this.shortcut(actions, System.currentTimeMillis() + budget);
+        final Plan optimized = new SequentialPlan();
+        for (Action a : actions) {
+            optimized.add(optimized.size(), a);
+        }
+        return optimized;
+    }
+
+    /**
+     * Returns the states visited by a sequence of actions from the initial state.
+     *
+     * @param actions the actions.
+     * @return the states, starting with the initial state.
+     */
+    private List<State> states(final List<Action> actions) {
+        final List<State> states = new ArrayList<>(actions.size() + 1);
+        State state = new State(this.problem.getInitialState());
+        states.add(state);
+        for (Action a : actions) {
+            state = new State(state);
+            state.apply(a.getConditionalEffects());
+            states.add(state);
+        }
+        return states;
+    }
+
+    /**
+     * Removes the cycles of a plan. From each state, the plan continues from the last occurrence of the
+     * state, so that every state is visited once.
+     *
+     * @param actions the actions of the plan.
+     * @return the actions of the plan without cycle.
+     */
+    List<Action> removeCycles(final List<Action> actions) {
+        final List<State> states = this.states(actions);
+        final Map<State, Integer> last = new HashMap<>();
+        for (int i = 0; i < states.size(); i++) {
+            last.put(states.get(i), i);
+        }
+        final List<Action> result = new ArrayList<>();
+        int i = last.get(states.get(0));
+        while (i < actions.size()) {
+            result.add(actions.get(i));
+            i = last.get(states.get(i + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Removes the redundant actions of a plan greedily. For each action, the action and the following
+     * actions that become inapplicable are removed if the rest of the plan still reaches the goal.
+     *
+     * @param actions  the actions of the plan.
+     * @param deadline the time in ms at which the stage stops.
+     * @return the actions of the plan without redundant action.
+     */
+    List<Action> eliminateActions(final List<Action> actions, final long deadline) {
+        List<Action> current = actions;
+        boolean improved = true;
+        while (improved && System.currentTimeMillis() < deadline) {
+            improved = false;
+            for (int i = 0; i < current.size() && System.currentTimeMillis() < deadline; i++) {
+                final List<Action> candidate = this.eliminate(current, i);
+                if (candidate != null) {
+                    current = candidate;
+                    improved = true;
+                    i--;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Removes an action and the following actions that become inapplicable.
+     *
+     * @param actions the actions of the plan.
+     * @param i       the index of the action to remove.
+     * @return the remaining actions if they reach the goal, null otherwise.
+     */
+    private List<Action> eliminate(final List<Action> actions, final int i) {
+        final State state = new State(this.problem.getInitialState());
+        final List<Action> kept = new ArrayList<>(actions.size() - 1);
+        for (int k = 0; k < actions.size(); k++) {
+            final Action a = actions.get(k);
+            if (k < i) {
+                state.apply(a.getConditionalEffects());
+                kept.add(a);
+            } else if (k > i && a.isApplicable(state)) {
+                state.apply(a.getConditionalEffects());
+                kept.add(a);
+            }
+        }
+        return state.satisfy(this.problem.getGoal()) ? kept : null;
+    }
+
+    /**
+     * Shortcuts a plan. From each state of the plan, a breadth-first search limited to
+     * <code>SHORTCUT_DEPTH</code> actions and <code>SHORTCUT_BUDGET</code> nodes looks for the furthest later
+     * state of the plan reachable with fewer actions than the plan uses.
+     *
+     * @param actions  the actions of the plan.
+     * @param deadline the time in ms at which the stage stops.
+     * @return the actions of the shortcut plan.
+     */
+    List<Action> shortcut(final List<Action> actions, final long deadline) {
+        List<Action> current = actions;
+        for (int i = 0; i < current.size() && System.currentTimeMillis() < deadline; i++) {
+            final List<State> states = this.states(current);
+            final Map<State, Integer> index = new HashMap<>();
+            for (int j = i + 1; j < states.size(); j++) {
+                index.put(states.get(j), j);
+            }
+            final List<Action> path = this.search(states.get(i), i, index, deadline);
+            if (path != null) {
+                final int j = index.get(this.apply(states.get(i), path));
+                final List<Action> shortened = new ArrayList<>(current.subList(0, i));
+                shortened.addAll(path);
+                shortened.addAll(current.subList(j, current.size()));
+                current = shortened;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Searches breadth-first from a state of the plan the furthest later state of the plan reachable with
+     * fewer actions.
+     *
+     * @param start    the state.
+     * @param i        the index of the state in the plan.
+     * @param index    the index of each later state of the plan.
+     * @param deadline the time in ms at which the search stops.
+     * @return the actions of the shortcut or null if no shortcut was found.
+     */
+    private List<Action> search(final State start, final int i, final Map<State, Integer> index,
+                                final long deadline) {
+        final Map<State, Integer> depth = new HashMap<>();
+        final Map<State, State> parent = new HashMap<>();
+        final Map<State, Action> action = new HashMap<>();
+        final Deque<State> open = new ArrayDeque<>();
+        depth.put(start, 0);
+        open.add(start);
+        State best = null;
+        int gain = 0;
+        while (!open.isEmpty() && depth.size() < PlanOptimizer.SHORTCUT_BUDGET
+            && System.currentTimeMillis() < deadline) {
+            final State s = open.poll();
+            final int d = depth.get(s);
+            if (d >= PlanOptimizer.SHORTCUT_DEPTH) {
+                continue;
+            }
+            for (Action a : this.problem.getActions()) {
+                if (a.isApplicable(s)) {
+                    final State next = new State(s);
+                    next.apply(a.getConditionalEffects());
+                    if (!depth.containsKey(next)) {
+                        depth.put(next, d + 1);
+                        parent.put(next, s);
+                        action.put(next, a);
+                        open.add(next);
+                        final Integer j = index.get(next);
+                        if (j != null && j - i - (d + 1) > gain) {
+                            gain = j - i - (d + 1);
+                            best = next;
+                        }
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        final List<Action> path = new ArrayList<>();
+        for (State s = best; s != start; s = parent.get(s)) {
+            path.add(0, action.get(s));
+        }
+        return path;
+    }
+
+    /**
+     * Applies a sequence of actions to a state.
+     *
+     * @param state   the state.
+     * @param actions the actions.
+     * @return the state reached.
+     */
+    private State apply(final State state, final List<Action> actions) {
+        final State s = new State(state);
+        for (Action a : actions) {
+            s.apply(a.getConditionalEffects());
+        }
+        return s;
+    }
+}
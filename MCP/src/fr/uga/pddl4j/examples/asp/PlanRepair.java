@@ -0,0 +1,120 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class replays a plan of a previous problem on a modified problem, e.g., with one more package or one
+ * block moved, to warm-start the search. The actions of the previous plan are identified by their name and
+ * the names of their parameters, so the previous plan may come from another instantiation or from a plan
+ * file written by pddl4j, with one action per line between parentheses.
+ * <p>
+ * The previous plan is replayed from the initial state of the new problem until an action is unknown or
+ * not applicable: the actions replayed are the valid prefix of the plan.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class PlanRepair {
+
+    /**
+     * The problem.
+     */
+    private final Problem problem;
+
+    /**
+     * The index of each action of the problem by name.
+     */
+    private final Map<String, Integer> index;
+
+    /**
+     * Creates a plan repair for a problem.
+     *
+     * @param problem the problem.
+     */
+    public PlanRepair(final Problem problem) {
+        this.problem = problem;
+        this.index = new HashMap<>();
+        for (int a = 0; a < problem.getActions().size(); a++) {
+            this.index.put(PlanRepair.normalize(problem.toShortString(problem.getActions().get(a))), a);
+        }
+    }
+
+    /**
+     * Returns the names of the actions of a plan.
+     *
+     * @param problem the problem of the plan.
+     * @param plan    the plan.
+     * @return the names of the actions of the plan.
+     */
+    public static List<String> names(final Problem problem, final Plan plan) {
+        final List<String> names = new ArrayList<>();
+        for (Action a : plan.actions()) {
+            names.add(problem.toShortString(a));
+        }
+        return names;
+    }
+
+    /**
+     * Reads the names of the actions of a plan file. Each line of the file holds an action, possibly between
+     * parentheses and surrounded by a time step and a duration, as in the plans written by pddl4j. The blank
+     * lines and the lines starting with a semicolon are ignored.
+     *
+     * @param file the plan file.
+     * @return the names of the actions of the plan.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<String> read(final File file) throws IOException {
+        final List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath())) {
+            final int open = line.indexOf('(');
+            final int close = line.lastIndexOf(')');
+            if (open >= 0 && close > open) {
+                names.add(line.substring(open + 1, close));
+            } else if (!line.isBlank() && !line.trim().startsWith(";")) {
+                names.add(line.trim());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Replays a previous plan from the initial state of the problem.
+     *
+     * @param previous the names of the actions of the previous plan.
+     * @return the indexes of the actions of the valid prefix of the plan.
+     */
+    public int[] prefix(final List<String> previous) {
+        final State state = new State(this.problem.getInitialState());
+        final List<Integer> prefix = new ArrayList<>();
+        for (String name : previous) {
+            final Integer a = this.index.get(PlanRepair.normalize(name));
+            if (a == null || !this.problem.getActions().get(a).isApplicable(state)) {
+                break;
+            }
+            state.apply(this.problem.getActions().get(a).getConditionalEffects());
+            prefix.add(a);
+        }
+        return prefix.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Normalizes the name of an action: lower case, without parentheses and with single spaces.
+     *
+     * @param name the name of the action.
+     * @return the normalized name.
+     */
+    private static String normalize(final String name) {
+        return name.replace('(', ' ').replace(')', ' ').trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+}
@@ -0,0 +1,501 @@
+package fr.uga.pddl4j.examples.asp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.Planner;
+import fr.uga.pddl4j.planners.PlannerConfiguration;
+import fr.uga.pddl4j.planners.statespace.HSP;
+import fr.uga.pddl4j.problem.Problem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running planning server. The JVM stays warm between requests so that class loading, logger
+ * initialisation and JIT warmup are only paid once.
+ * <p>
+ * The server listens on the loopback interface and accepts <code>POST /solve</code> requests. The query
+ * string selects the planner, <code>planner</code> (MCP or HSP), the <code>timeout</code> in seconds and
+ * the settings of the planner, named in lower case, e.g. <code>strategy=NESTED&amp;landmarks=true</code>;
+ * <code>weight</code> and <code>memory</code> are short for <code>weight-heuristic</code> and
+ * <code>memory-budget</code>. An unknown option is rejected with 400. The memory budget is an option of MCP
+ * only: the search of HSP, from pddl4j, cannot be bounded and a search of HSP running out of memory is
+ * answered with the status MEMORY_EXHAUSTED. The body contains the domain followed by one or more problems;
+ * the header <code>X-Domain-Length</code> gives the number of bytes of the domain and the optional header
+ * <code>X-Problem-Lengths</code> gives the comma separated sizes of the problems of a batch. A body larger
+ * than the limit of the server is rejected with 413. All the problems of a batch are solved on the bounded
+ * worker pool and the answers are returned in order.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+@CommandLine.Command(name = "PlanningServer",
+    version = "PlanningServer 1.0",
+    description = "Serves the planners over HTTP on a warm JVM.",
+    sortOptions = false,
+    mixinStandardHelpOptions = true,
+    headerHeading = "Usage:%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n")
+public final class PlanningServer implements Callable<Integer> {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(PlanningServer.class.getName());
+
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 7777;
+
+    /**
+     * The extra time in seconds given to a planner after its own timeout before the request is cancelled.
+     */
+    private static final int TIMEOUT_GRACE = 1;
+
+    /**
+     * The time in ms between two checks of the start of a queued problem.
+     */
+    private static final long QUEUE_POLL = 100;
+
+    /**
+     * The port of the server.
+     */
+    @CommandLine.Option(names = {"-p", "--port"}, defaultValue = "7777",
+        paramLabel = "<port>", description = "Set the port of the server (preset 7777).")
+    private int port = DEFAULT_PORT;
+
+    /**
+     * The number of workers solving problems concurrently.
+     */
+    @CommandLine.Option(names = {"-n", "--workers"}, defaultValue = "0",
+        paramLabel = "<workers>", description = "Set the number of solving workers (preset: number of cores).")
+    private int workers;
+
+    /**
+     * The maximum number of problems waiting for a worker.
+     */
+    @CommandLine.Option(names = {"-q", "--queue"}, defaultValue = "1024",
+        paramLabel = "<size>", description = "Set the maximum number of pending problems (preset 1024).")
+    private int queueSize = 1024;
+
+    /**
+     * The maximum size in MB of the body of a request.
+     */
+    @CommandLine.Option(names = {"-b", "--max-body"}, defaultValue = "16",
+        paramLabel = "<size>", description = "Set the maximum size in MB of a request body (preset 16).")
+    private int maxBody = 16;
+
+    /**
+     * The HTTP server.
+     */
+    private HttpServer server;
+
+    /**
+     * The bounded pool of workers used to solve the problems.
+     */
+    private ExecutorService solvers;
+
+    /**
+     * The pool of threads used to handle the connections. These threads only do I/O and wait for the
+     * solvers, so the pool is unbounded.
+     */
+    private ExecutorService handlers;
+
+    /**
+     * Starts the server.
+     *
+     * @throws IOException if the server cannot be bound to its port.
+     */
+    public void start() throws IOException {
+        final int n = this.workers > 0 ? this.workers : Runtime.getRuntime().availableProcessors();
+        this.solvers = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.queueSize));
+        this.handlers = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.port), 0);
+        this.server.createContext("/solve", this::handle);
+        this.server.setExecutor(this.handlers);
+        this.server.start();
+        LOGGER.info("* Planning server listening on port {} with {} workers\n", this.port, n);
+    }
+
+    /**
+     * Stops the server and its workers.
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.solvers.shutdownNow();
+        this.handlers.shutdownNow();
+    }
+
+    /**
+     * Starts the server and waits until the JVM is stopped.
+     *
+     * @return the exit code.
+     * @throws Exception if the server cannot be started.
+     */
+    @Override
+    public Integer call() throws Exception {
+        this.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+        Thread.currentThread().join();
+        return 0;
+    }
+
+    /**
+     * Handles a solve request.
+     *
+     * @param exchange the HTTP exchange.
+     * @throws IOException if the request cannot be read or the answer cannot be written.
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                this.reply(exchange, 405, "; only POST is supported\n");
+                return;
+            }
+            final Map<String, String> query = PlanningServer.parseQuery(exchange.getRequestURI().getRawQuery());
+            final long limit = this.maxBody * 1024L * 1024L;
+            final String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength != null && Long.parseLong(contentLength.trim()) > limit) {
+                this.reply(exchange, 413, "; body larger than " + this.maxBody + " MB\n");
+                return;
+            }
+            // The length is missing from a chunked body, so the read itself is bounded
+            final byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE - 8));
+            }
+            if (body.length > limit) {
+                this.reply(exchange, 413, "; body larger than " + this.maxBody + " MB\n");
+                return;
+            }
+            final String domainLength = exchange.getRequestHeaders().getFirst("X-Domain-Length");
+            if (domainLength == null) {
+                this.reply(exchange, 400, "; missing X-Domain-Length header\n");
+                return;
+            }
+            final int dl = Integer.parseInt(domainLength.trim());
+            final List<Integer> sizes = new ArrayList<>();
+            final String problemLengths = exchange.getRequestHeaders().getFirst("X-Problem-Lengths");
+            if (problemLengths == null) {
+                sizes.add(body.length - dl);
+            } else {
+                for (String size : problemLengths.split(",")) {
+                    sizes.add(Integer.parseInt(size.trim()));
+                }
+            }
+            this.reply(exchange, 200, this.solveBatch(query, body, dl, sizes));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            this.reply(exchange, 400, "; " + e.getMessage() + "\n");
+        } catch (RejectedExecutionException e) {
+            this.reply(exchange, 503, "; too many pending problems\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Solves a batch of problems sharing the same domain on the worker pool.
+     *
+     * @param query  the options of the request.
+     * @param body   the body of the request.
+     * @param offset the size of the domain at the beginning of the body.
+     * @param sizes  the sizes of the problems following the domain.
+     * @return the answer of the request.
+     * @throws IOException if the temporary files cannot be written.
+     */
+    private String solveBatch(final Map<String, String> query, final byte[] body, final int offset,
+                              final List<Integer> sizes) throws IOException {
+        final int timeout = Integer.parseInt(query.getOrDefault("timeout", "600"));
+        final File dir = Files.createTempDirectory("mcp-server").toFile();
+        try {
+            final File domain = new File(dir, "domain.pddl");
+            Files.write(domain.toPath(), Arrays.copyOfRange(body, 0, offset));
+            final List<Future<String>> results = new ArrayList<>();
+            final List<AtomicLong> starts = new ArrayList<>();
+            try {
+                int start = offset;
+                for (int i = 0; i < sizes.size(); i++) {
+                    final File problem = new File(dir, "p" + i + ".pddl");
+                    Files.write(problem.toPath(), Arrays.copyOfRange(body, start, start + sizes.get(i)));
+                    start += sizes.get(i);
+                    final AbstractPlanner planner = PlanningServer.createPlanner(query);
+                    planner.setTimeout(timeout);
+                    // The timeout of a problem runs from the start of its worker, not from its submission
+                    final AtomicLong started = new AtomicLong();
+                    starts.add(started);
+                    results.add(this.solvers.submit(() -> {
+                        started.set(System.currentTimeMillis());
+                        return PlanningServer.solve(planner, domain, problem);
+                    }));
+                }
+                final StringBuilder answer = new StringBuilder();
+                for (int i = 0; i < results.size(); i++) {
+                    answer.append("; problem ").append(i + 1).append('\n');
+                    answer.append(PlanningServer.await(results.get(i), starts.get(i), timeout));
+                }
+                return answer.toString();
+            } finally {
+                // The problems still pending when the batch fails must not run on the deleted files
+                for (Future<String> result : results) {
+                    result.cancel(true);
+                }
+            }
+        } finally {
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Waits for the answer of a problem and cancels it if it exceeds its timeout. The timeout runs from the
+     * start of the worker solving the problem, so that the time spent in the queue is not counted.
+     *
+     * @param result  the pending answer.
+     * @param started the time in ms at which the worker started, 0 while the problem is queued.
+     * @param timeout the timeout of the problem in seconds.
+     * @return the answer of the problem.
+     */
+    private static String await(final Future<String> result, final AtomicLong started, final int timeout) {
+        try {
+            while (true) {
+                final long begin = started.get();
+                final long wait = begin == 0 ? QUEUE_POLL
+                    : begin + (timeout + TIMEOUT_GRACE) * 1000L - System.currentTimeMillis();
+                try {
+                    return result.get(Math.max(0, wait), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (begin != 0 && wait <= 0) {
+                        result.cancel(true);
+                        return "; status TIMEOUT\n";
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            // The nodes of a search running out of memory are released with its worker, the server goes on
+            if (e.getCause() instanceof OutOfMemoryError) {
+                return "; status MEMORY_EXHAUSTED\n";
+            }
+            return "; status ERROR " + e.getCause().getMessage() + "\n";
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            return "; status CANCELLED\n";
+        }
+    }
+
+    /**
+     * Parses, instantiates and solves a problem.
+     *
+     * @param planner the planner to use.
+     * @param domain  the domain file.
+     * @param problem the problem file.
+     * @return the answer for the problem.
+     * @throws Exception if the problem cannot be parsed or solved.
+     */
+    private static String solve(final AbstractPlanner planner, final File domain, final File problem)
+        throws Exception {
+        final long begin = System.currentTimeMillis();
+        final DefaultParsedProblem parsed = planner.parse(domain.getPath(), problem.getPath());
+        if (!planner.getParserErrorManager().isEmpty()) {
+            return "; status PARSE_ERROR\n";
+        }
+        final Problem pb = planner.instantiate(parsed);
+        final Plan plan = planner.solve(pb);
+        final long end = System.currentTimeMillis();
+        final StringBuilder answer = new StringBuilder();
+        answer.append("; status ").append(plan == null ? "FAILED" : "SOLVED").append('\n');
+        answer.append("; time ").append(end - begin).append('\n');
+        if (plan != null) {
+            answer.append("; length ").append(plan.size()).append('\n');
+            answer.append(pb.toString(plan));
+        }
+        return answer.toString();
+    }
+
+    /**
+     * Creates the planner described by the options of a request. The option <code>planner</code> selects the
+     * planner and the other options, but <code>timeout</code>, set the settings of its configuration: the name
+     * of an option is the name of the setting in lower case, with <code>-</code> or <code>_</code> between
+     * the words, e.g. <code>strategy</code> or <code>memory-budget</code>. The options <code>weight</code> and
+     * <code>memory</code> are kept as the short names of <code>weight-heuristic</code> and
+     * <code>memory-budget</code>.
+     *
+     * @param query the options of the request.
+     * @return the planner.
+     * @throws IllegalArgumentException if the planner, one of its options or the value of an option is
+     *                                  unknown, or if the options are inconsistent.
+     */
+    static AbstractPlanner createPlanner(final Map<String, String> query) {
+        final String name = query.getOrDefault("planner", "MCP");
+        final AbstractPlanner planner;
+        final PlannerConfiguration config;
+        switch (name) {
+            case "MCP":
+                planner = new MCP();
+                config = MCP.getDefaultConfiguration();
+                break;
+            case "HSP":
+                planner = new HSP();
+                config = HSP.getDefaultConfiguration();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown planner " + name);
+        }
+        for (Map.Entry<String, String> option : query.entrySet()) {
+            if (option.getKey().equals("planner") || option.getKey().equals("timeout")) {
+                continue;
+            }
+            final String setting = PlanningServer.setting(option.getKey());
+            // The files and the timeout of a problem are set by the server, the log level is global
+            if (!config.containsKey(setting) || setting.equals(Planner.DOMAIN_SETTING)
+                || setting.equals(Planner.PROBLEM_SETTING) || setting.equals(Planner.TIME_OUT_SETTING)
+                || setting.equals(Planner.LOG_LEVEL_SETTING)) {
+                throw new IllegalArgumentException("unknown option " + option.getKey() + " of planner " + name);
+            }
+            config.setProperty(setting, option.getValue());
+        }
+        planner.setConfiguration(config);
+        if (planner instanceof MCP && ((MCP) planner).isSymmetryBreaking()
+            && ((MCP) planner).getStrategy() != MCP.Strategy.NESTED) {
+            throw new IllegalArgumentException("option symmetry-breaking requires strategy=NESTED");
+        }
+        return planner;
+    }
+
+    /**
+     * Describes the planner created by the options of a request: the name of the planner followed by its
+     * settings that differ from their default values, named as the options and sorted, e.g.
+     * <code>planner=MCP,landmarks=true,strategy=NESTED</code>. Options that name the same configuration in
+     * different ways, or set a default value, have the same description.
+     *
+     * @param query the options of the request.
+     * @return the description of the planner.
+     * @throws IllegalArgumentException if the planner, one of its options or the value of an option is
+     *                                  unknown.
+     */
+    static String describe(final Map<String, String> query) {
+        final AbstractPlanner planner = PlanningServer.createPlanner(query);
+        final PlannerConfiguration defaults = planner instanceof MCP ? MCP.getDefaultConfiguration()
+            : HSP.getDefaultConfiguration();
+        final PlannerConfiguration config = planner.getConfiguration();
+        final Map<String, String> settings = new TreeMap<>();
+        for (String setting : config.stringPropertyNames()) {
+            if (!setting.equals(Planner.DOMAIN_SETTING) && !setting.equals(Planner.PROBLEM_SETTING)
+                && !setting.equals(Planner.TIME_OUT_SETTING) && !setting.equals(Planner.LOG_LEVEL_SETTING)
+                && !config.getProperty(setting).equals(defaults.getProperty(setting))) {
+                settings.put(setting.toLowerCase(Locale.ROOT).replace('_', '-'), config.getProperty(setting));
+            }
+        }
+        final StringBuilder str = new StringBuilder("planner=").append(query.getOrDefault("planner", "MCP"));
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            str.append(',').append(setting.getKey()).append('=').append(setting.getValue());
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns the setting of a planner configuration named by an option of a request.
+     *
+     * @param option the name of the option.
+     * @return the name of the setting.
+     */
+    private static String setting(final String option) {
+        switch (option) {
+            case "weight":
+                return MCP.WEIGHT_HEURISTIC_SETTING;
+            case "memory":
+                return MCP.MEMORY_BUDGET_SETTING;
+            default:
+                return option.toUpperCase(Locale.ROOT).replace('-', '_');
+        }
+    }
+
+    /**
+     * Parses the query string of a request.
+     *
+     * @param query the raw query string, may be null.
+     * @return the parameters of the query.
+     */
+    static Map<String, String> parseQuery(final String query) {
+        final Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                final int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Writes the answer of a request.
+     *
+     * @param exchange the HTTP exchange.
+     * @param status   the HTTP status.
+     * @param answer   the body of the answer.
+     * @throws IOException if the answer cannot be written.
+     */
+    private void reply(final HttpExchange exchange, final int status, final String answer) throws IOException {
+        final byte[] bytes = answer.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * The main method of the planning server.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final CommandLine cmd = new CommandLine(new PlanningServer());
+            System.exit(cmd.execute(args));
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package fr.uga.pddl4j.examples.asp;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * Generates random problems of a controlled size for the blocks, gripper, logistics and depot domains of the
+ * repository. The same domain, size and seed always give the same problem. The size is the number of
+ * objects moved by the plans:
+ * <ul>
+ * <li>blocks: the number of blocks, stacked in random towers in the initial state and in the goal;</li>
+ * <li>gripper: the number of balls, all moved from the first room to the second one;</li>
+ * <li>logistics: the number of packages, with one city, one truck and two places per three packages and one
+ * airplane per three cities;</li>
+ * <li>depot: the number of crates, with one depot and one distributor per four crates, one hoist per place,
+ * one truck per two places and two pallets per place.</li>
+ * </ul>
+ * The problems are written for the domain files <code>&lt;domain&gt;_domain.pddl</code> of
+ * <code>MCP/src/pddl</code>, which are also the <code>domain.pddl</code> files of <code>ASP/src/pddl</code>.
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+@CommandLine.Command(name = "ProblemGenerator",
+    version = "ProblemGenerator 1.0",
+    description = "Generates a random problem of a specified size for a domain of the repository.",
+    sortOptions = false,
+    mixinStandardHelpOptions = true,
+    headerHeading = "Usage:%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n")
+public final class ProblemGenerator implements Callable<Integer> {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(ProblemGenerator.class.getName());
+
+    /**
+     * The domains of the generator.
+     */
+    public enum Domain {
+        /**
+         * The blocks world.
+         */
+        BLOCKS,
+        /**
+         * The gripper domain.
+         */
+        GRIPPER,
+        /**
+         * The logistics domain.
+         */
+        LOGISTICS,
+        /**
+         * The depot domain.
+         */
+        DEPOT
+    }
+
+    /**
+     * The domain of the problem generated from the command line.
+     */
+    @CommandLine.Parameters(index = "0", paramLabel = "<domain>",
+        description = "The domain: BLOCKS, GRIPPER, LOGISTICS or DEPOT.")
+    private Domain domain;
+
+    /**
+     * The size of the problem generated from the command line.
+     */
+    @CommandLine.Parameters(index = "1", paramLabel = "<size>", description = "The number of objects moved.")
+    private int size;
+
+    /**
+     * The seed of the problem generated from the command line.
+     */
+    @CommandLine.Option(names = {"-s", "--seed"}, defaultValue = "0", paramLabel = "<seed>",
+        description = "Set the seed of the random generator (preset: 0).")
+    private long seed;
+
+    /**
+     * The output file of the problem generated from the command line, or null for the standard output.
+     */
+    @CommandLine.Option(names = {"-o", "--output"}, paramLabel = "<file>",
+        description = "Write the problem to a file instead of the standard output.")
+    private File output;
+
+    /**
+     * Creates a problem generator for the command line.
+     */
+    public ProblemGenerator() {
+        super();
+    }
+
+    /**
+     * Generates a problem.
+     *
+     * @param domain the domain.
+     * @param size   the number of objects moved.
+     * @param seed   the seed of the random generator.
+     * @return the PDDL text of the problem.
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public static String generate(final Domain domain, final int size, final long seed) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        final Random random = new Random(seed);
+        switch (domain) {
+            case BLOCKS:
+                return ProblemGenerator.blocks(size, seed, random);
+            case GRIPPER:
+                return ProblemGenerator.gripper(size, seed);
+            case LOGISTICS:
+                return ProblemGenerator.logistics(size, seed, random);
+            default:
+                return ProblemGenerator.depot(size, seed, random);
+        }
+    }
+
+    /**
+     * Generates a problem and writes it to a file, unless the file already exists.
+     *
+     * @param domain the domain.
+     * @param size   the number of objects moved.
+     * @param seed   the seed of the random generator.
+     * @param dir    the directory of the file.
+     * @return the file of the problem, named after its size and its seed.
+     * @throws IOException if the file cannot be written.
+     */
+    public static File write(final Domain domain, final int size, final long seed, final File dir)
+        throws IOException {
+        final File file = new File(dir, String.format("s%03d-%d.pddl", size, seed));
+        if (!file.exists()) {
+            dir.mkdirs();
+            Files.writeString(file.toPath(), ProblemGenerator.generate(domain, size, seed), StandardCharsets.UTF_8);
+        }
+        return file;
+    }
+
+    /**
+     * Returns the name of the domain file of a domain in <code>MCP/src/pddl</code>.
+     *
+     * @param domain the domain.
+     * @return the name of the domain file.
+     */
+    public static String domainFile(final Domain domain) {
+        return domain.name().toLowerCase() + "_domain.pddl";
+    }
+
+    /**
+     * Stacks objects in random towers on a number of bases: each object is put on a random base or on a
+     * random object already stacked and still clear. An exclusive base, e.g., a pallet, holds one object at
+     * most, whereas the single base of the blocks world, the table, holds any number of objects.
+     *
+     * @param objects   the objects.
+     * @param bases     the number of bases.
+     * @param exclusive whether a base holds one object at most.
+     * @param random    the random generator.
+     * @return for each object, the object it is on, or <code>-1 - b</code> if it is on the base b.
+     */
+    private static int[] stack(final int objects, final int bases, final boolean exclusive, final Random random) {
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < objects; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, random);
+        final int[] below = new int[objects];
+        final List<Integer> tops = new ArrayList<>();
+        if (exclusive) {
+            for (int b = 0; b < bases; b++) {
+                tops.add(-1 - b);
+            }
+        }
+        for (int o : order) {
+            final int choice = random.nextInt((exclusive ? 0 : bases) + tops.size());
+            if (!exclusive && choice < bases) {
+                below[o] = -1 - choice;
+            } else {
+                below[o] = tops.remove(choice - (exclusive ? 0 : bases));
+            }
+            tops.add(o);
+        }
+        return below;
+    }
+
+    /**
+     * Returns whether an object is clear, i.e., no object is on it.
+     *
+     * @param below for each object, the object it is on.
+     * @param o     the object.
+     * @return <code>true</code> if the object is clear.
+     */
+    private static boolean clear(final int[] below, final int o) {
+        for (int b : below) {
+            if (b == o) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates a blocks world problem.
+     *
+     * @param n      the number of blocks.
+     * @param seed   the seed.
+     * @param random the random generator.
+     * @return the PDDL text of the problem.
+     */
+    private static String blocks(final int n, final long seed, final Random random) {
+        final StringBuilder pb = new StringBuilder();
+        pb.append("(define (problem BLOCKS-").append(n).append('-').append(seed).append(")\n");
+        pb.append("(:domain BLOCKS)\n(:objects");
+        for (int i = 0; i < n; i++) {
+            pb.append(" b").append(i);
+        }
+        pb.append(" - block)\n(:INIT (HANDEMPTY)");
+        final int[] init = ProblemGenerator.stack(n, 1, false, random);
+        for (int i = 0; i < n; i++) {
+            if (init[i] < 0) {
+                pb.append(" (ONTABLE b").append(i).append(')');
+            } else {
+                pb.append(" (ON b").append(i).append(" b").append(init[i]).append(')');
+            }
+            if (ProblemGenerator.clear(init, i)) {
+                pb.append(" (CLEAR b").append(i).append(')');
+            }
+        }
+        pb.append(")\n(:goal (AND");
+        final int[] goal = ProblemGenerator.stack(n, 1, false, random);
+        for (int i = 0; i < n; i++) {
+            if (goal[i] >= 0) {
+                pb.append(" (ON b").append(i).append(" b").append(goal[i]).append(')');
+            } else {
+                pb.append(" (ONTABLE b").append(i).append(')');
+            }
+        }
+        pb.append("))\n)\n");
+        return pb.toString();
+    }
+
+    /**
+     * Generates a gripper problem.
+     *
+     * @param n    the number of balls.
+     * @param seed the seed.
+     * @return the PDDL text of the problem.
+     */
+    private static String gripper(final int n, final long seed) {
+        final StringBuilder pb = new StringBuilder();
+        pb.append("(define (problem strips-gripper-").append(n).append('-').append(seed).append(")\n");
+        pb.append("   (:domain gripper-strips)\n   (:objects rooma roomb");
+        for (int i = 1; i <= n; i++) {
+            pb.append(" ball").append(i);
+        }
+        pb.append(" left right)\n   (:init (room rooma) (room roomb) (at-robby rooma)");
+        pb.append(" (free left) (free right) (gripper left) (gripper right)");
+        for (int i = 1; i <= n; i++) {
+            pb.append("\n          (ball ball").append(i).append(") (at ball").append(i).append(" rooma)");
+        }
+        pb.append(")\n   (:goal (and");
+        for (int i = 1; i <= n; i++) {
+            pb.append(" (at ball").append(i).append(" roomb)");
+        }
+        pb.append(")))\n");
+        return pb.toString();
+    }
+
+    /**
+     * Generates a logistics problem.
+     *
+     * @param n      the number of packages.
+     * @param seed   the seed.
+     * @param random the random generator.
+     * @return the PDDL text of the problem.
+     */
+    private static String logistics(final int n, final long seed, final Random random) {
+        final int cities = Math.max(2, (n + 2) / 3);
+        final int airplanes = Math.max(1, cities / 3);
+        final StringBuilder pb = new StringBuilder();
+        pb.append("(define (problem logistics-").append(n).append('-').append(seed).append(")\n");
+        pb.append("(:domain logistics)\n(:objects\n");
+        final StringBuilder apn = new StringBuilder();
+        for (int a = 1; a <= airplanes; a++) {
+            apn.append(" apn").append(a);
+        }
+        pb.append(apn.toString().trim()).append(" - airplane\n");
+        final StringBuilder apt = new StringBuilder();
+        final StringBuilder pos = new StringBuilder();
+        final StringBuilder cit = new StringBuilder();
+        final StringBuilder tru = new StringBuilder();
+        for (int c = 1; c <= cities; c++) {
+            apt.append(" apt").append(c);
+            pos.append(" pos").append(c);
+            cit.append(" cit").append(c);
+            tru.append(" tru").append(c);
+        }
+        pb.append(apt.toString().trim()).append(" - airport\n");
+        pb.append(pos.toString().trim()).append(" - location\n");
+        pb.append(cit.toString().trim()).append(" - city\n");
+        pb.append(tru.toString().trim()).append(" - truck\n");
+        for (int p = 1; p <= n; p++) {
+            pb.append(p == 1 ? "" : " ").append("obj").append(p);
+        }
+        pb.append(" - package)\n\n(:init");
+        for (int c = 1; c <= cities; c++) {
+            pb.append(" (in-city pos").append(c).append(" cit").append(c).append(')');
+            pb.append(" (in-city apt").append(c).append(" cit").append(c).append(')');
+            pb.append(" (at tru").append(c).append(random.nextBoolean() ? " pos" : " apt").append(c).append(')');
+        }
+        for (int a = 1; a <= airplanes; a++) {
+            pb.append("\n (at apn").append(a).append(" apt").append(1 + random.nextInt(cities)).append(')');
+        }
+        final String[] goals = new String[n + 1];
+        for (int p = 1; p <= n; p++) {
+            final String from = ProblemGenerator.place(cities, random);
+            String to = ProblemGenerator.place(cities, random);
+            while (to.equals(from)) {
+                to = ProblemGenerator.place(cities, random);
+            }
+            pb.append("\n (at obj").append(p).append(' ').append(from).append(')');
+            goals[p] = to;
+        }
+        pb.append(")\n\n(:goal (and");
+        for (int p = 1; p <= n; p++) {
+            pb.append(" (at obj").append(p).append(' ').append(goals[p]).append(')');
+        }
+        pb.append("))\n)\n");
+        return pb.toString();
+    }
+
+    /**
+     * Returns a random place of a logistics problem.
+     *
+     * @param cities the number of cities.
+     * @param random the random generator.
+     * @return the name of the place.
+     */
+    private static String place(final int cities, final Random random) {
+        return (random.nextBoolean() ? "pos" : "apt") + (1 + random.nextInt(cities));
+    }
+
+    /**
+     * Generates a depot problem.
+     *
+     * @param n      the number of crates.
+     * @param seed   the seed.
+     * @param random the random generator.
+     * @return the PDDL text of the problem.
+     */
+    private static String depot(final int n, final long seed, final Random random) {
+        final int half = Math.max(1, (n + 3) / 4);
+        final int places = 2 * half;
+        final int trucks = Math.max(1, places / 2);
+        final int pallets = 2 * places;
+        final String[] place = new String[places];
+        for (int p = 0; p < places; p++) {
+            place[p] = p < half ? "depot" + p : "distributor" + (p - half);
+        }
+        final StringBuilder pb = new StringBuilder();
+        pb.append("(define (problem depot-").append(n).append('-').append(seed).append(") (:domain Depot)\n");
+        pb.append("(:objects\n\t");
+        for (int p = 0; p < half; p++) {
+            pb.append(place[p]).append(' ');
+        }
+        pb.append("- Depot\n\t");
+        for (int p = half; p < places; p++) {
+            pb.append(place[p]).append(' ');
+        }
+        pb.append("- Distributor\n\t");
+        for (int t = 0; t < trucks; t++) {
+            pb.append("truck").append(t).append(' ');
+        }
+        pb.append("- Truck\n\t");
+        for (int p = 0; p < pallets; p++) {
+            pb.append("pallet").append(p).append(' ');
+        }
+        pb.append("- Pallet\n\t");
+        for (int c = 0; c < n; c++) {
+            pb.append("crate").append(c).append(' ');
+        }
+        pb.append("- Crate\n\t");
+        for (int h = 0; h < places; h++) {
+            pb.append("hoist").append(h).append(' ');
+        }
+        pb.append("- Hoist)\n(:init\n");
+        // The pallet p is at the place p modulo the number of places
+        final int[] init = ProblemGenerator.stack(n, pallets, true, random);
+        for (int p = 0; p < pallets; p++) {
+            pb.append("\t(at pallet").append(p).append(' ').append(place[p % places]).append(")\n");
+            if (ProblemGenerator.clear(init, -1 - p)) {
+                pb.append("\t(clear pallet").append(p).append(")\n");
+            }
+        }
+        for (int t = 0; t < trucks; t++) {
+            pb.append("\t(at truck").append(t).append(' ').append(place[random.nextInt(places)]).append(")\n");
+        }
+        for (int h = 0; h < places; h++) {
+            pb.append("\t(at hoist").append(h).append(' ').append(place[h]).append(")\n");
+            pb.append("\t(available hoist").append(h).append(")\n");
+        }
+        for (int c = 0; c < n; c++) {
+            int base = init[c];
+            while (base >= 0) {
+                base = init[base];
+            }
+            pb.append("\t(at crate").append(c).append(' ').append(place[(-1 - base) % places]).append(")\n");
+            pb.append("\t(on crate").append(c).append(init[c] >= 0 ? " crate" + init[c]
+                : " pallet" + (-1 - init[c])).append(")\n");
+            if (ProblemGenerator.clear(init, c)) {
+                pb.append("\t(clear crate").append(c).append(")\n");
+            }
+        }
+        pb.append(")\n\n(:goal (and\n");
+        final int[] goal = ProblemGenerator.stack(n, pallets, true, random);
+        for (int c = 0; c < n; c++) {
+            pb.append("\t\t(on crate").append(c).append(goal[c] >= 0 ? " crate" + goal[c]
+                : " pallet" + (-1 - goal[c])).append(")\n");
+        }
+        pb.append("\t)\n))\n");
+        return pb.toString();
+    }
+
+    /**
+     * Generates the problem of the command line.
+     *
+     * @return the exit code.
+     * @throws IOException if the problem cannot be written.
+     */
+    @Override
+    public Integer call() throws IOException {
+        final String pb = ProblemGenerator.generate(this.domain, this.size, this.seed);
+        if (this.output == null) {
+            System.out.print(pb);
+        } else {
+            Files.writeString(this.output.toPath(), pb, StandardCharsets.UTF_8);
+            LOGGER.info("* problem written to {}\n", this.output);
+        }
+        return 0;
+    }
+
+    /**
+     * The main method of the problem generator.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final CommandLine cmd = new CommandLine(new ProblemGenerator());
+            cmd.setCaseInsensitiveEnumValuesAllowed(true);
+            System.exit(cmd.execute(args));
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package fr.uga.pddl4j.examples.asp;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects the progress of a search and publishes it as a stream of {@link SearchProgress}
+ * events. The search updates the counters of the monitor from its inner loops, possibly from several
+ * threads, and calls {@link #report()}, which publishes an event at most every <code>PERIOD</code> ms.
+ * The last event of a search is published by {@link #finish(int)}.
+ * <p>
+ * The events are delivered asynchronously by a {@link SubmissionPublisher} and dropped for the subscribers
+ * that do not keep up, so that a slow subscriber never slows the search down. Nothing is published when
+ * there is no subscriber.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class ProgressMonitor implements Flow.Publisher<SearchProgress>, AutoCloseable {
+
+    /**
+     * The minimal time in ms between two events.
+     */
+    public static long PERIOD = 250;
+
+    /**
+     * The publisher of the events.
+     */
+    private final SubmissionPublisher<SearchProgress> publisher;
+
+    /**
+     * The number of expansions or random walks since the beginning of the search.
+     */
+    private final LongAdder count;
+
+    /**
+     * The best heuristic value since the beginning of the search.
+     */
+    private final DoubleAccumulator best;
+
+    /**
+     * The number of restarts since the beginning of the search.
+     */
+    private final AtomicInteger restarts;
+
+    /**
+     * The length of the best plan found since the beginning of the search or -1.
+     */
+    private final AtomicInteger incumbent;
+
+    /**
+     * The time in ms of the beginning of the search.
+     */
+    private volatile long begin;
+
+    /**
+     * The time in ms of the end of the search or 0 while it runs.
+     */
+    private volatile long end;
+
+    /**
+     * The time in ms of the last event.
+     */
+    private volatile long last;
+
+    /**
+     * The count of the last event.
+     */
+    private long lastCount;
+
+    /**
+     * Creates a progress monitor.
+     */
+    public ProgressMonitor() {
+        this.publisher = new SubmissionPublisher<>();
+        this.count = new LongAdder();
+        this.best = new DoubleAccumulator(Math::min, Double.MAX_VALUE);
+        this.restarts = new AtomicInteger();
+        this.incumbent = new AtomicInteger(-1);
+    }
+
+    /**
+     * Subscribes to the events of the searches.
+     *
+     * @param subscriber the subscriber.
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super SearchProgress> subscriber) {
+        this.publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Returns whether the events are published, i.e., whether there is a subscriber.
+     *
+     * @return <code>true</code> if there is a subscriber, <code>false</code> otherwise.
+     */
+    public boolean hasSubscribers() {
+        return this.publisher.hasSubscribers();
+    }
+
+    /**
+     * Resets the counters at the beginning of a search.
+     */
+    public void start() {
+        this.count.reset();
+        this.best.reset();
+        this.restarts.set(0);
+        this.incumbent.set(-1);
+        this.begin = System.currentTimeMillis();
+        this.end = 0;
+        this.last = this.begin;
+        this.lastCount = 0;
+    }
+
+    /**
+     * Records expansions or random walks.
+     *
+     * @param n the number of expansions or random walks.
+     */
+    public void add(final long n) {
+        this.count.add(n);
+    }
+
+    /**
+     * Records a heuristic value.
+     *
+     * @param h the heuristic value of a state.
+     */
+    public void heuristic(final double h) {
+        this.best.accumulate(h);
+    }
+
+    /**
+     * Records a restart.
+     */
+    public void restart() {
+        this.restarts.incrementAndGet();
+    }
+
+    /**
+     * Records a plan found, kept if it is shorter than the best one.
+     *
+     * @param length the length of the plan.
+     */
+    public void incumbent(final int length) {
+        this.incumbent.accumulateAndGet(length, (b, l) -> b < 0 || l < b ? l : b);
+    }
+
+    /**
+     * Publishes an event if the period since the last event is over.
+     */
+    public void report() {
+        final long now = System.currentTimeMillis();
+        if (now - this.last >= PERIOD && this.publisher.hasSubscribers()) {
+            this.publish(now, false);
+        }
+    }
+
+    /**
+     * Publishes the last event of a search.
+     *
+     * @param length the length of the plan found or -1.
+     */
+    public void finish(final int length) {
+        if (length >= 0) {
+            this.incumbent(length);
+        }
+        this.end = System.currentTimeMillis();
+        this.publish(this.end, true);
+    }
+
+    /**
+     * Returns the number of expansions or random walks per second of the last search, from its beginning to
+     * its end, or to now while it runs.
+     *
+     * @return the number of expansions or random walks per second.
+     */
+    public double getRate() {
+        final long stop = this.end > 0 ? this.end : System.currentTimeMillis();
+        return stop > this.begin ? this.count.sum() * 1000.0 / (stop - this.begin) : 0.0;
+    }
+
+    /**
+     * Publishes an event.
+     *
+     * @param now  the current time in ms.
+     * @param done whether the search is over.
+     */
+    private synchronized void publish(final long now, final boolean done) {
+        if (!done && now - this.last < PERIOD) {
+            return;
+        }
+        final long n = this.count.sum();
+        final double rate = now > this.last ? (n - this.lastCount) * 1000.0 / (now - this.last) : 0.0;
+        this.last = now;
+        this.lastCount = n;
+        this.publisher.offer(new SearchProgress(now - this.begin, this.best.get(), rate, this.restarts.get(),
+            this.incumbent.get(), done), null);
+    }
+
+    /**
+     * Completes the stream of events of the subscribers.
+     */
+    @Override
+    public void close() {
+        this.publisher.close();
+    }
+}
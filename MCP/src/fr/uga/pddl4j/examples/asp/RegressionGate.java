@@ -0,0 +1,769 @@
+package fr.uga.pddl4j.examples.asp;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * Compares two result files of the benchmarks, a baseline and a candidate, to detect performance
+ * regressions. The rows of each file are grouped by problem, e.g., by domain and problem number for the
+ * file of the {@link Benchmark}, or by domain, size and configuration for the file of the
+ * {@link ScalingBenchmark}; the rows of a group are the runs of the problem, e.g., with several seeds.
+ * <p>
+ * For each problem and each metric, the ratio of the mean of the candidate to the mean of the baseline is
+ * computed with a bootstrap confidence interval: the runs of both files are resampled with replacement and
+ * the interval is given by the percentiles of the resampled ratios. The ratios are oriented so that a ratio
+ * greater than 1 is always worse. A problem regresses when its ratio exceeds <code>1 + tolerance</code> and
+ * the lower bound of its interval exceeds 1, i.e., when the slowdown is both large and significant. The
+ * problems with too few runs are inconclusive. The default metric is the number of random walks per second
+ * of <code>MCP</code>: since the walks are seeded, it measures the throughput of the search whatever the luck
+ * of the walks.
+ * </p>
+ * <p>
+ * The metrics are only sampled on the solved runs. A run is solved when its status is SOLVED, the status
+ * being the column <code>&lt;planner&gt;_status</code> of the planner of the metric, e.g.,
+ * <code>MCP_status</code> for <code>MCP_time</code>, or the column <code>status</code>; in a file without
+ * status, a run is solved when the length of its plan, in <code>&lt;planner&gt;_length</code> or
+ * <code>length</code>, is positive. The solve rates of each problem and planner are compared too: a
+ * problem loses coverage when the solve rate of the candidate is lower than the rate of the baseline by more
+ * than the tolerance, e.g., when a seed is no longer solved, and a problem of the baseline missing from the
+ * candidate loses all its coverage.
+ * </p>
+ * <p>
+ * The verdict, the ratios, the losses of coverage and the regressions ranked from the worst are written as
+ * JSON, and the exit code is 1 when a problem regresses or loses coverage and 2 on error, so that the
+ * comparator can gate a build.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+@CommandLine.Command(name = "RegressionGate",
+    version = "RegressionGate 1.0",
+    description = "Compares a candidate result file against a baseline and reports the significant "
+        + "regressions.",
+    sortOptions = false,
+    mixinStandardHelpOptions = true,
+    headerHeading = "Usage:%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n")
+public final class RegressionGate implements Callable<Integer> {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(RegressionGate.class.getName());
+
+    /**
+     * The status of the solved rows in the files having a status column.
+     */
+    private static final String SOLVED = BatchSolver.Status.SOLVED.toString();
+
+    /**
+     * The result file of the baseline.
+     */
+    @CommandLine.Option(names = {"-b", "--baseline"}, required = true, paramLabel = "<file>",
+        description = "Set the result file of the baseline.")
+    private File baseline;
+
+    /**
+     * The result file of the candidate.
+     */
+    @CommandLine.Option(names = {"-c", "--candidate"}, required = true, paramLabel = "<file>",
+        description = "Set the result file of the candidate.")
+    private File candidate;
+
+    /**
+     * The columns identifying a problem.
+     */
+    @CommandLine.Option(names = {"-k", "--keys"}, split = ",", paramLabel = "<column>",
+        defaultValue = "domain,problem_number",
+        description = "Set the columns identifying a problem (preset: domain,problem_number).")
+    private List<String> keys;
+
+    /**
+     * The columns of the metrics compared.
+     */
+    @CommandLine.Option(names = {"-m", "--metrics"}, split = ",", paramLabel = "<column>",
+        defaultValue = "MCP_walks_per_s",
+        description = "Set the columns of the metrics compared (preset: MCP_walks_per_s).")
+    private List<String> metrics;
+
+    /**
+     * The metrics for which a higher value is better.
+     */
+    @CommandLine.Option(names = {"--higher-is-better"}, split = ",", paramLabel = "<column>",
+        defaultValue = "MCP_walks_per_s", description = "Set the metrics for which a higher value is better, "
+            + "e.g., a throughput (preset: MCP_walks_per_s).")
+    private List<String> higherIsBetter;
+
+    /**
+     * The relative slowdown tolerated.
+     */
+    @CommandLine.Option(names = {"-t", "--tolerance"}, defaultValue = "0.1", paramLabel = "<ratio>",
+        description = "Set the relative slowdown, and the loss of solve rate, tolerated (preset: 0.1).")
+    private double tolerance;
+
+    /**
+     * The confidence level of the intervals.
+     */
+    @CommandLine.Option(names = {"--confidence"}, defaultValue = "0.95", paramLabel = "<level>",
+        description = "Set the confidence level of the intervals (preset: 0.95).")
+    private double confidence;
+
+    /**
+     * The number of bootstrap resamples.
+     */
+    @CommandLine.Option(names = {"-r", "--resamples"}, defaultValue = "2000", paramLabel = "<resamples>",
+        description = "Set the number of bootstrap resamples (preset: 2000).")
+    private int resamples;
+
+    /**
+     * The minimal number of runs of a problem in each file.
+     */
+    @CommandLine.Option(names = {"--min-runs"}, defaultValue = "3", paramLabel = "<runs>",
+        description = "Set the minimal number of runs of a problem in each file; the problems with fewer runs "
+            + "are inconclusive (preset: 3).")
+    private int minRuns;
+
+    /**
+     * The seed of the resampling.
+     */
+    @CommandLine.Option(names = {"-s", "--seed"}, defaultValue = "0", paramLabel = "<seed>",
+        description = "Set the seed of the resampling (preset: 0).")
+    private long seed;
+
+    /**
+     * The JSON file of the verdict.
+     */
+    @CommandLine.Option(names = {"-o", "--output"}, paramLabel = "<file>",
+        description = "Set the JSON file of the verdict (preset: standard output).")
+    private File output;
+
+    /**
+     * The runs of a problem in a result file.
+     */
+    static final class Runs {
+
+        /**
+         * The number of runs.
+         */
+        private int runs;
+
+        /**
+         * The number of solved runs of each planner.
+         */
+        private final Map<String, Integer> solved = new LinkedHashMap<>();
+
+        /**
+         * The values of the metrics on the solved runs.
+         */
+        private final Map<String, List<Double>> values = new LinkedHashMap<>();
+    }
+
+    /**
+     * The comparison of the solve rates of a planner on a problem.
+     */
+    static final class Coverage {
+
+        /**
+         * The values of the key columns of the problem.
+         */
+        private final List<String> key;
+
+        /**
+         * The planner, empty for a file with a single planner.
+         */
+        private final String planner;
+
+        /**
+         * The number of solved runs and the number of runs of the baseline.
+         */
+        private final int[] baseline;
+
+        /**
+         * The number of solved runs and the number of runs of the candidate, 0 runs if the problem is missing.
+         */
+        private final int[] candidate;
+
+        /**
+         * Creates a comparison of solve rates.
+         *
+         * @param key       the values of the key columns of the problem.
+         * @param planner   the planner.
+         * @param baseline  the number of solved runs and the number of runs of the baseline.
+         * @param candidate the number of solved runs and the number of runs of the candidate.
+         */
+        Coverage(final List<String> key, final String planner, final int[] baseline, final int[] candidate) {
+            this.key = key;
+            this.planner = planner;
+            this.baseline = baseline;
+            this.candidate = candidate;
+        }
+    }
+
+    /**
+     * The comparison of a metric on a problem.
+     */
+    static final class Comparison {
+
+        /**
+         * The values of the key columns of the problem.
+         */
+        private final List<String> key;
+
+        /**
+         * The metric.
+         */
+        private final String metric;
+
+        /**
+         * The mean of the baseline.
+         */
+        private final double baseline;
+
+        /**
+         * The mean of the candidate.
+         */
+        private final double candidate;
+
+        /**
+         * The ratio of the candidate to the baseline, greater than 1 when the candidate is worse.
+         */
+        private final double ratio;
+
+        /**
+         * The lower bound of the confidence interval of the ratio.
+         */
+        private final double low;
+
+        /**
+         * The upper bound of the confidence interval of the ratio.
+         */
+        private final double high;
+
+        /**
+         * The number of runs of the baseline.
+         */
+        private final int baselineRuns;
+
+        /**
+         * The number of runs of the candidate.
+         */
+        private final int candidateRuns;
+
+        /**
+         * Creates a comparison.
+         *
+         * @param key           the values of the key columns of the problem.
+         * @param metric        the metric.
+         * @param baseline      the mean of the baseline.
+         * @param candidate     the mean of the candidate.
+         * @param ratio         the oriented ratio of the candidate to the baseline.
+         * @param low           the lower bound of the confidence interval of the ratio.
+         * @param high          the upper bound of the confidence interval of the ratio.
+         * @param baselineRuns  the number of runs of the baseline.
+         * @param candidateRuns the number of runs of the candidate.
+         */
+        Comparison(final List<String> key, final String metric, final double baseline, final double candidate,
+                   final double ratio, final double low, final double high, final int baselineRuns,
+                   final int candidateRuns) {
+            this.key = key;
+            this.metric = metric;
+            this.baseline = baseline;
+            this.candidate = candidate;
+            this.ratio = ratio;
+            this.low = low;
+            this.high = high;
+            this.baselineRuns = baselineRuns;
+            this.candidateRuns = candidateRuns;
+        }
+    }
+
+    /**
+     * Creates a regression gate for the command line.
+     */
+    public RegressionGate() {
+        super();
+    }
+
+    /**
+     * Reads the runs of a result file grouped by problem. The metrics are only read on the solved runs of
+     * their planner; the values that are not numbers, e.g., the empty values of the failed runs, are ignored.
+     *
+     * @param file the result file.
+     * @return for each problem, its runs.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a key or metric column is missing.
+     */
+    private Map<List<String>, Runs> read(final File file) throws IOException {
+        final List<List<String>> rows = ResultSink.read(file);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException(file + " is empty");
+        }
+        final List<String> header = rows.get(0);
+        final int[] keyColumns = new int[this.keys.size()];
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyColumns[i] = RegressionGate.column(header, this.keys.get(i), file);
+        }
+        final int[] metricColumns = new int[this.metrics.size()];
+        final String[] planners = new String[this.metrics.size()];
+        for (int i = 0; i < metricColumns.length; i++) {
+            metricColumns[i] = RegressionGate.column(header, this.metrics.get(i), file);
+            planners[i] = RegressionGate.planner(header, this.metrics.get(i));
+        }
+        final Map<List<String>, Runs> groups = new LinkedHashMap<>();
+        for (List<String> row : rows.subList(1, rows.size())) {
+            if (row.size() != header.size()) {
+                continue;
+            }
+            final List<String> key = new ArrayList<>();
+            for (int c : keyColumns) {
+                key.add(row.get(c));
+            }
+            final Runs runs = groups.computeIfAbsent(key, k -> new Runs());
+            runs.runs++;
+            for (String planner : new LinkedHashSet<>(Arrays.asList(planners))) {
+                if (RegressionGate.isSolved(header, row, planner)) {
+                    runs.solved.merge(planner, 1, Integer::sum);
+                } else {
+                    runs.solved.putIfAbsent(planner, 0);
+                }
+            }
+            for (int i = 0; i < metricColumns.length; i++) {
+                if (!RegressionGate.isSolved(header, row, planners[i])) {
+                    continue;
+                }
+                try {
+                    final double value = Double.parseDouble(row.get(metricColumns[i]));
+                    if (!Double.isNaN(value)) {
+                        runs.values.computeIfAbsent(this.metrics.get(i), m -> new ArrayList<>()).add(value);
+                    }
+                } catch (NumberFormatException e) {
+                    // The run has no measure
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the planner of a metric: the prefix of the metric before its first underscore if the header has
+     * a status or length column for this prefix, e.g., <code>MCP</code> for <code>MCP_time</code>, the empty
+     * string otherwise.
+     *
+     * @param header the header.
+     * @param metric the metric.
+     * @return the planner of the metric.
+     */
+    private static String planner(final List<String> header, final String metric) {
+        final int underscore = metric.indexOf('_');
+        if (underscore > 0) {
+            final String planner = metric.substring(0, underscore);
+            if (header.contains(planner + "_status") || header.contains(planner + "_length")) {
+                return planner;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Returns whether a run of a planner is solved: its status is SOLVED or, without a status column, the
+     * length of its plan is positive. A run is solved if the file has neither a status nor a length column.
+     *
+     * @param header  the header.
+     * @param row     the row of the run.
+     * @param planner the planner.
+     * @return <code>true</code> if the run is solved, <code>false</code> otherwise.
+     */
+    private static boolean isSolved(final List<String> header, final List<String> row, final String planner) {
+        final String prefix = planner.isEmpty() ? "" : planner + "_";
+        final int status = header.indexOf(prefix + "status");
+        if (status >= 0) {
+            return SOLVED.equals(row.get(status));
+        }
+        final int length = header.indexOf(prefix + "length");
+        if (length >= 0) {
+            try {
+                return Double.parseDouble(row.get(length)) > 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of a column of a header.
+     *
+     * @param header the header.
+     * @param name   the name of the column.
+     * @param file   the file of the header.
+     * @return the index of the column.
+     * @throws IllegalArgumentException if the column is missing.
+     */
+    private static int column(final List<String> header, final String name, final File file) {
+        final int index = header.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException(file + " has no column " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the mean of values.
+     *
+     * @param values the values.
+     * @return the mean of the values.
+     */
+    private static double mean(final double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Returns the mean of a resample with replacement of values.
+     *
+     * @param values the values.
+     * @param random the random number generator.
+     * @return the mean of the resample.
+     */
+    private static double resample(final double[] values, final Random random) {
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[random.nextInt(values.length)];
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Returns the ratio of two means oriented so that a ratio greater than 1 is worse. A mean of 0 is
+     * replaced by a tiny positive value so that the ratio stays finite.
+     *
+     * @param baseline  the mean of the baseline.
+     * @param candidate the mean of the candidate.
+     * @param higher    whether a higher value is better.
+     * @return the oriented ratio.
+     */
+    private static double ratio(final double baseline, final double candidate, final boolean higher) {
+        final double b = Math.max(baseline, Double.MIN_NORMAL);
+        final double c = Math.max(candidate, Double.MIN_NORMAL);
+        return higher ? b / c : c / b;
+    }
+
+    /**
+     * Compares the runs of a metric on a problem.
+     *
+     * @param key       the values of the key columns of the problem.
+     * @param metric    the metric.
+     * @param baseline  the values of the runs of the baseline.
+     * @param candidate the values of the runs of the candidate.
+     * @param random    the random number generator of the resampling.
+     * @return the comparison.
+     */
+    private Comparison compare(final List<String> key, final String metric, final double[] baseline,
+                               final double[] candidate, final Random random) {
+        final boolean higher = this.higherIsBetter.contains(metric);
+        final double b = RegressionGate.mean(baseline);
+        final double c = RegressionGate.mean(candidate);
+        final double[] ratios = new double[this.resamples];
+        for (int i = 0; i < ratios.length; i++) {
+            ratios[i] = RegressionGate.ratio(RegressionGate.resample(baseline, random),
+                RegressionGate.resample(candidate, random), higher);
+        }
+        Arrays.sort(ratios);
+        final double alpha = (1.0 - this.confidence) / 2.0;
+        final int lowIndex = (int) Math.floor(alpha * (ratios.length - 1));
+        final int highIndex = (int) Math.ceil((1.0 - alpha) * (ratios.length - 1));
+        return new Comparison(key, metric, b, c, RegressionGate.ratio(b, c, higher), ratios[lowIndex],
+            ratios[highIndex], baseline.length, candidate.length);
+    }
+
+    /**
+     * Returns whether a comparison is a regression.
+     *
+     * @param comparison the comparison.
+     * @return <code>true</code> if the candidate is significantly worse than the tolerance.
+     */
+    private boolean isRegression(final Comparison comparison) {
+        return comparison.ratio > 1.0 + this.tolerance && comparison.low > 1.0;
+    }
+
+    /**
+     * Returns whether a comparison is an improvement.
+     *
+     * @param comparison the comparison.
+     * @return <code>true</code> if the candidate is significantly better than the tolerance.
+     */
+    private boolean isImprovement(final Comparison comparison) {
+        return comparison.ratio < 1.0 / (1.0 + this.tolerance) && comparison.high < 1.0;
+    }
+
+    /**
+     * Compares the candidate against the baseline and writes the verdict.
+     *
+     * @return 0 if no problem regresses or loses coverage, 1 otherwise.
+     * @throws IOException if a file cannot be read or written.
+     */
+    @Override
+    public Integer call() throws IOException {
+        final Map<List<String>, Runs> base = this.read(this.baseline);
+        final Map<List<String>, Runs> cand = this.read(this.candidate);
+        final Random random = new Random(this.seed);
+        final List<Comparison> comparisons = new ArrayList<>();
+        final List<Comparison> inconclusive = new ArrayList<>();
+        final List<Coverage> losses = new ArrayList<>();
+        for (Map.Entry<List<String>, Runs> e : base.entrySet()) {
+            final Runs other = cand.get(e.getKey());
+            for (Map.Entry<String, Integer> solved : e.getValue().solved.entrySet()) {
+                final int[] b = {solved.getValue(), e.getValue().runs};
+                final int[] c = other == null ? new int[] {0, 0}
+                    : new int[] {other.solved.getOrDefault(solved.getKey(), 0), other.runs};
+                if (this.isLoss(b, c)) {
+                    losses.add(new Coverage(e.getKey(), solved.getKey(), b, c));
+                }
+            }
+            if (other == null) {
+                continue;
+            }
+            for (String metric : this.metrics) {
+                final List<Double> b = e.getValue().values.get(metric);
+                final List<Double> c = other.values.get(metric);
+                if (b == null || c == null) {
+                    continue;
+                }
+                final Comparison comparison = this.compare(e.getKey(), metric,
+                    b.stream().mapToDouble(Double::doubleValue).toArray(),
+                    c.stream().mapToDouble(Double::doubleValue).toArray(), random);
+                if (b.size() < this.minRuns || c.size() < this.minRuns) {
+                    inconclusive.add(comparison);
+                } else {
+                    comparisons.add(comparison);
+                }
+            }
+        }
+        final List<Comparison> regressions = new ArrayList<>();
+        final List<Comparison> improvements = new ArrayList<>();
+        for (Comparison comparison : comparisons) {
+            if (this.isRegression(comparison)) {
+                regressions.add(comparison);
+            } else if (this.isImprovement(comparison)) {
+                improvements.add(comparison);
+            }
+        }
+        regressions.sort(Comparator.comparingDouble((Comparison x) -> x.ratio).reversed());
+        improvements.sort(Comparator.comparingDouble((Comparison x) -> x.ratio));
+        losses.sort(Comparator.comparingDouble((Coverage x) -> RegressionGate.rate(x.candidate)
+            - RegressionGate.rate(x.baseline)));
+        final boolean pass = regressions.isEmpty() && losses.isEmpty();
+        final String verdict = pass ? "PASS" : "FAIL";
+        final String json = this.toJson(verdict, comparisons, regressions, improvements, inconclusive, losses);
+        if (this.output == null) {
+            System.out.println(json);
+        } else {
+            try (PrintStream out = new PrintStream(this.output, StandardCharsets.UTF_8)) {
+                out.println(json);
+            }
+        }
+        LOGGER.info("* {}: {} comparisons, {} regressions, {} improvements, {} inconclusive, {} coverage losses\n",
+            verdict, comparisons.size(), regressions.size(), improvements.size(), inconclusive.size(),
+            losses.size());
+        return pass ? 0 : 1;
+    }
+
+    /**
+     * Returns the solve rate of runs.
+     *
+     * @param runs the number of solved runs and the number of runs.
+     * @return the solve rate, 0 without runs.
+     */
+    private static double rate(final int[] runs) {
+        return runs[1] == 0 ? 0.0 : (double) runs[0] / runs[1];
+    }
+
+    /**
+     * Returns whether the candidate loses coverage: its solve rate is lower than the rate of the baseline by
+     * more than the tolerance, or the problem is missing from the candidate while the baseline solves it.
+     *
+     * @param baseline  the number of solved runs and the number of runs of the baseline.
+     * @param candidate the number of solved runs and the number of runs of the candidate.
+     * @return <code>true</code> if the candidate loses coverage.
+     */
+    private boolean isLoss(final int[] baseline, final int[] candidate) {
+        final double b = RegressionGate.rate(baseline);
+        return b > 0 && RegressionGate.rate(candidate) < b * (1.0 - this.tolerance);
+    }
+
+    /**
+     * Returns the verdict as JSON.
+     *
+     * @param verdict      the verdict.
+     * @param comparisons  the conclusive comparisons.
+     * @param regressions  the regressions ranked from the worst.
+     * @param improvements the improvements ranked from the best.
+     * @param inconclusive the comparisons with too few runs.
+     * @param losses       the losses of coverage ranked from the worst.
+     * @return the JSON document.
+     */
+    private String toJson(final String verdict, final List<Comparison> comparisons,
+                          final List<Comparison> regressions, final List<Comparison> improvements,
+                          final List<Comparison> inconclusive, final List<Coverage> losses) {
+        final StringBuilder str = new StringBuilder();
+        str.append("{\n");
+        str.append("  \"verdict\": \"").append(verdict).append("\",\n");
+        str.append("  \"baseline\": ").append(RegressionGate.quote(this.baseline.getPath())).append(",\n");
+        str.append("  \"candidate\": ").append(RegressionGate.quote(this.candidate.getPath())).append(",\n");
+        str.append("  \"tolerance\": ").append(RegressionGate.number(this.tolerance)).append(",\n");
+        str.append("  \"confidence\": ").append(RegressionGate.number(this.confidence)).append(",\n");
+        str.append("  \"compared\": ").append(comparisons.size()).append(",\n");
+        str.append("  \"inconclusive\": ").append(inconclusive.size()).append(",\n");
+        // The geometric mean of the ratios of each metric summarizes the trend over all the problems
+        str.append("  \"metrics\": {");
+        for (int i = 0; i < this.metrics.size(); i++) {
+            final String metric = this.metrics.get(i);
+            double logs = 0;
+            int n = 0;
+            for (Comparison comparison : comparisons) {
+                if (comparison.metric.equals(metric)) {
+                    logs += Math.log(comparison.ratio);
+                    n++;
+                }
+            }
+            str.append(i == 0 ? "\n" : ",\n").append("    ").append(RegressionGate.quote(metric))
+                .append(": {\"problems\": ").append(n).append(", \"geomean_ratio\": ")
+                .append(n == 0 ? "null" : RegressionGate.number(Math.exp(logs / n))).append('}');
+        }
+        str.append("\n  },\n");
+        str.append("  \"coverage_losses\": ").append(this.coverageToJson(losses)).append(",\n");
+        str.append("  \"regressions\": ").append(this.toJson(regressions)).append(",\n");
+        str.append("  \"improvements\": ").append(this.toJson(improvements)).append('\n');
+        str.append('}');
+        return str.toString();
+    }
+
+    /**
+     * Returns the values of the key columns of a problem as a JSON object.
+     *
+     * @param key the values of the key columns.
+     * @return the JSON object.
+     */
+    private String problemToJson(final List<String> key) {
+        final StringBuilder str = new StringBuilder("{");
+        for (int k = 0; k < this.keys.size(); k++) {
+            str.append(k == 0 ? "" : ", ").append(RegressionGate.quote(this.keys.get(k))).append(": ")
+                .append(RegressionGate.quote(key.get(k)));
+        }
+        return str.append('}').toString();
+    }
+
+    /**
+     * Returns losses of coverage as a JSON array. The runs are given as the number of solved runs and the
+     * number of runs; a problem missing from the candidate has no run.
+     *
+     * @param losses the losses of coverage.
+     * @return the JSON array.
+     */
+    private String coverageToJson(final List<Coverage> losses) {
+        if (losses.isEmpty()) {
+            return "[]";
+        }
+        final StringBuilder str = new StringBuilder("[");
+        for (int i = 0; i < losses.size(); i++) {
+            final Coverage c = losses.get(i);
+            str.append(i == 0 ? "\n" : ",\n").append("    {\"problem\": ").append(this.problemToJson(c.key))
+                .append(", \"planner\": ").append(RegressionGate.quote(c.planner))
+                .append(", \"baseline\": [").append(c.baseline[0]).append(", ").append(c.baseline[1])
+                .append("], \"candidate\": [").append(c.candidate[0]).append(", ").append(c.candidate[1])
+                .append("], \"missing\": ").append(c.candidate[1] == 0).append('}');
+        }
+        return str.append("\n  ]").toString();
+    }
+
+    /**
+     * Returns comparisons as a JSON array.
+     *
+     * @param comparisons the comparisons.
+     * @return the JSON array.
+     */
+    private String toJson(final List<Comparison> comparisons) {
+        if (comparisons.isEmpty()) {
+            return "[]";
+        }
+        final StringBuilder str = new StringBuilder("[");
+        for (int i = 0; i < comparisons.size(); i++) {
+            final Comparison c = comparisons.get(i);
+            str.append(i == 0 ? "\n" : ",\n").append("    {\"problem\": ").append(this.problemToJson(c.key))
+                .append(", \"metric\": ").append(RegressionGate.quote(c.metric))
+                .append(", \"baseline\": ").append(RegressionGate.number(c.baseline))
+                .append(", \"candidate\": ").append(RegressionGate.number(c.candidate))
+                .append(", \"ratio\": ").append(RegressionGate.number(c.ratio))
+                .append(", \"low\": ").append(RegressionGate.number(c.low))
+                .append(", \"high\": ").append(RegressionGate.number(c.high))
+                .append(", \"runs\": [").append(c.baselineRuns).append(", ").append(c.candidateRuns).append("]}");
+        }
+        return str.append("\n  ]").toString();
+    }
+
+    /**
+     * Returns a string as a JSON string.
+     *
+     * @param value the string.
+     * @return the quoted and escaped string.
+     */
+    private static String quote(final String value) {
+        final StringBuilder str = new StringBuilder("\"");
+        for (char ch : value.toCharArray()) {
+            if (ch == '"' || ch == '\\') {
+                str.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                str.append(String.format("\\u%04x", (int) ch));
+            } else {
+                str.append(ch);
+            }
+        }
+        return str.append('"').toString();
+    }
+
+    /**
+     * Returns a number as a JSON number.
+     *
+     * @param value the number.
+     * @return the number with 4 decimals, or null if it is not finite.
+     */
+    private static String number(final double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.4f", value) : "null";
+    }
+
+    /**
+     * The main method of the regression gate.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            // The errors exit with 2 so that they are not taken for a regression
+            System.exit(new CommandLine(new RegressionGate()).setExitCodeExceptionMapper(e -> 2).execute(args));
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+}
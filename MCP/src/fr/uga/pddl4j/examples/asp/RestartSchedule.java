@@ -0,0 +1,66 @@
+package fr.uga.pddl4j.examples.asp;
+
+/**
+ * A restart schedule of the Monte-Carlo search. The schedule gives the number of jumps without
+ * improvement of the heuristic allowed before the i-th restart of a trajectory.
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public interface RestartSchedule {
+
+    /**
+     * The names of the available restart schedules.
+     */
+    enum Name {
+        /**
+         * The same number of jumps before each restart.
+         */
+        FIXED,
+        /**
+         * The number of jumps follows the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, ...
+         */
+        LUBY
+    }
+
+    /**
+     * Returns the number of jumps without improvement allowed before the specified restart.
+     *
+     * @param restart the index of the restart, starting at 0.
+     * @return the number of jumps without improvement allowed before the restart.
+     */
+    long get(int restart);
+
+    /**
+     * Creates a restart schedule.
+     *
+     * @param name the name of the schedule.
+     * @param base the number of jumps of one unit of the schedule.
+     * @return the restart schedule.
+     */
+    static RestartSchedule getInstance(final Name name, final long base) {
+        switch (name) {
+            case LUBY:
+                return restart -> base * RestartSchedule.luby(restart + 1);
+            case FIXED:
+            default:
+                return restart -> base;
+        }
+    }
+
+    /**
+     * Returns the i-th element of the Luby sequence.
+     *
+     * @param i the index of the element, starting at 1.
+     * @return the i-th element of the Luby sequence.
+     */
+    static long luby(final long i) {
+        long k = 1;
+        while ((1L << k) - 1 < i) {
+            k++;
+        }
+        if (i == (1L << k) - 1) {
+            return 1L << (k - 1);
+        }
+        return RestartSchedule.luby(i - (1L << (k - 1)) + 1);
+    }
+}
@@ -0,0 +1,248 @@
+package fr.uga.pddl4j.examples.asp;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements an append-only CSV file of experimental results. Each row is written and flushed
+ * as soon as it is known, so that a sweep interrupted by a crash or a kill loses at most the row being
+ * written. The first columns of a row are its key, e.g., the domain, the problem, the configuration and the
+ * seed. When the file already exists, the keys of its rows are loaded, so that a restarted sweep skips the
+ * cells already completed.
+ * <p>
+ * A last row without line terminator, left by an interrupted write, is removed when the file is opened. An
+ * existing file with another header is kept aside with the suffix <code>.old</code>.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class ResultSink implements Closeable {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(ResultSink.class.getName());
+
+    /**
+     * The number of key columns.
+     */
+    private final int keys;
+
+    /**
+     * The number of columns.
+     */
+    private final int columns;
+
+    /**
+     * The rows already written by key.
+     */
+    private final Map<List<String>, List<String>> done;
+
+    /**
+     * The writer of the file.
+     */
+    private final BufferedWriter writer;
+
+    /**
+     * Opens a result file, creating it with its header if it does not exist.
+     *
+     * @param file    the file.
+     * @param keys    the number of key columns, at the beginning of the header.
+     * @param header  the names of the columns.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public ResultSink(final File file, final int keys, final String... header) throws IOException {
+        this.keys = keys;
+        this.columns = header.length;
+        this.done = new HashMap<>();
+        final String head = ResultSink.format(header);
+        boolean exists = file.exists() && file.length() > 0;
+        if (exists) {
+            ResultSink.truncatePartialRow(file);
+            final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(head)) {
+                final File old = new File(file.getPath() + ".old");
+                Files.move(file.toPath(), old.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                LOGGER.warn("* {} has another header, moved to {}\n", file, old);
+                exists = false;
+            } else {
+                for (String line : lines.subList(1, lines.size())) {
+                    final List<String> row = ResultSink.parse(line);
+                    if (row.size() == this.columns) {
+                        this.done.put(row.subList(0, keys), row);
+                    }
+                }
+                LOGGER.info("* {} completed rows loaded from {}\n", this.done.size(), file);
+            }
+        }
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        this.writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8, true));
+        if (!exists) {
+            this.writer.write(head);
+            this.writer.newLine();
+            this.writer.flush();
+        }
+    }
+
+    /**
+     * Returns whether a row with a key was already written.
+     *
+     * @param key the values of the key columns.
+     * @return <code>true</code> if the row was already written, <code>false</code> otherwise.
+     */
+    public boolean isDone(final String... key) {
+        return this.done.containsKey(Arrays.asList(key));
+    }
+
+    /**
+     * Returns the row written with a key.
+     *
+     * @param key the values of the key columns.
+     * @return the values of the columns of the row or null if no row was written with the key.
+     */
+    public List<String> get(final String... key) {
+        return this.done.get(Arrays.asList(key));
+    }
+
+    /**
+     * Writes a row and flushes it to the file.
+     *
+     * @param values the values of the columns, starting with the key.
+     * @throws IOException if the row cannot be written.
+     * @throws IllegalArgumentException if the number of values is not the number of columns.
+     */
+    public synchronized void write(final String... values) throws IOException {
+        if (values.length != this.columns) {
+            throw new IllegalArgumentException("expected " + this.columns + " values, got " + values.length);
+        }
+        this.writer.write(ResultSink.format(values));
+        this.writer.newLine();
+        this.writer.flush();
+        final List<String> row = new ArrayList<>(Arrays.asList(values));
+        this.done.put(row.subList(0, this.keys), row);
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    /**
+     * Removes the last row of a file if it has no line terminator.
+     *
+     * @param file the file.
+     * @throws IOException if the file cannot be read or written.
+     */
+    private static void truncatePartialRow(final File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long end = raf.length();
+            while (end > 0) {
+                raf.seek(end - 1);
+                if (raf.read() == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < raf.length()) {
+                raf.setLength(end);
+                LOGGER.warn("* Partial row removed from {}\n", file);
+            }
+        }
+    }
+
+    /**
+     * Formats a CSV row, quoting the values containing commas or quotes.
+     *
+     * @param values the values.
+     * @return the row.
+     */
+    private static String format(final String... values) {
+        final StringBuilder str = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                str.append(',');
+            }
+            final String v = values[i];
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0) {
+                str.append('"').append(v.replace("\"", "\"\"")).append('"');
+            } else {
+                str.append(v);
+            }
+        }
+        return str.toString();
+    }
+
+    /**
+     * Reads the rows of a CSV file, e.g., a result file, without opening it for writing.
+     *
+     * @param file the file.
+     * @return the rows of the file, the first one being the header.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<List<String>> read(final File file) throws IOException {
+        final List<List<String>> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                rows.add(ResultSink.parse(line));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Parses a CSV row.
+     *
+     * @param line the row.
+     * @return the values of the row.
+     */
+    private static List<String> parse(final String line) {
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
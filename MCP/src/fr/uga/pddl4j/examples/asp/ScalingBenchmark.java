@@ -0,0 +1,300 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.problem.Problem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Measures how the planners scale with the size of the problems. For each domain and each configuration,
+ * the problems generated by the {@link ProblemGenerator} are solved by increasing size, with several seeds
+ * per size, and the time, the peak heap memory and the length of the plan are written to a CSV file. The
+ * larger sizes of a configuration are skipped as soon as no seed of a size is solved: this size is the
+ * cliff of the configuration.
+ * <p>
+ * The configurations have the same keys as the jobs of the {@link BatchSolver}, e.g.,
+ * <code>planner=MCP,heuristic=MAX,strategy=NESTED</code>, and set any setting of the planner. A result is
+ * keyed by the description of its configuration, see {@link PlanningServer#describe(Map)}, so that the
+ * curves of the strategies and features are told apart. The problems are solved one at a time so that the
+ * measures are not disturbed by each other. The CSV file is a {@link ResultSink}: an interrupted benchmark
+ * resumes where it stopped. The script <code>scaling.py</code> plots the file.
+ * </p>
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+@CommandLine.Command(name = "ScalingBenchmark",
+    version = "ScalingBenchmark 1.0",
+    description = "Measures the time, the memory and the plan length of the planners against the size of "
+        + "generated problems.",
+    sortOptions = false,
+    mixinStandardHelpOptions = true,
+    headerHeading = "Usage:%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n")
+public final class ScalingBenchmark implements Callable<Integer> {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(ScalingBenchmark.class.getName());
+
+    /**
+     * The time in seconds given to a planner after its timeout before it is cancelled.
+     */
+    private static final int TIMEOUT_GRACE = 1;
+
+    /**
+     * The columns of the CSV file, the first four being the key of a row.
+     */
+    private static final String[] HEADER = {"domain", "size", "seed", "config", "status", "time", "memory",
+        "length"};
+
+    /**
+     * The domains of the benchmark.
+     */
+    @CommandLine.Option(names = {"-d", "--domains"}, split = ",", paramLabel = "<domain>",
+        defaultValue = "BLOCKS,GRIPPER,LOGISTICS,DEPOT",
+        description = "Set the domains (preset: BLOCKS,GRIPPER,LOGISTICS,DEPOT).")
+    private List<ProblemGenerator.Domain> domains;
+
+    /**
+     * The sizes of the problems.
+     */
+    @CommandLine.Option(names = {"-s", "--sizes"}, split = ",", paramLabel = "<size>",
+        defaultValue = "2,4,6,8,12,16,24,32,48,64",
+        description = "Set the sizes of the problems, in increasing order (preset: 2,4,6,8,12,16,24,32,48,64).")
+    private List<Integer> sizes;
+
+    /**
+     * The number of seeds per size.
+     */
+    @CommandLine.Option(names = {"-n", "--seeds"}, defaultValue = "3", paramLabel = "<seeds>",
+        description = "Set the number of problems per size (preset: 3).")
+    private int seeds;
+
+    /**
+     * The configurations of the planners.
+     */
+    @CommandLine.Option(names = {"-c", "--config"}, paramLabel = "<key=value,...>",
+        defaultValue = "planner=MCP", description = "Add a configuration of a planner, e.g., "
+            + "planner=HSP,heuristic=MAX (preset: planner=MCP).")
+    private List<String> configs;
+
+    /**
+     * The timeout of a problem in seconds.
+     */
+    @CommandLine.Option(names = {"-t", "--timeout"}, defaultValue = "60", paramLabel = "<timeout>",
+        description = "Set the timeout of a problem in seconds (preset: 60).")
+    private int timeout;
+
+    /**
+     * The directory of the domain files.
+     */
+    @CommandLine.Option(names = {"-p", "--pddl"}, defaultValue = "src/pddl", paramLabel = "<dir>",
+        description = "Set the directory of the domain files; the problems are generated in its "
+            + "subdirectory generated (preset: src/pddl).")
+    private File pddl;
+
+    /**
+     * The CSV file of the results.
+     */
+    @CommandLine.Option(names = {"-o", "--output"}, defaultValue = "src/pddl/scaling.csv", paramLabel = "<file>",
+        description = "Set the CSV file of the results (preset: src/pddl/scaling.csv).")
+    private File output;
+
+    /**
+     * Creates a scaling benchmark for the command line.
+     */
+    public ScalingBenchmark() {
+        super();
+    }
+
+    /**
+     * Parses a configuration of a planner.
+     *
+     * @param config the configuration, as comma separated <code>key=value</code> pairs.
+     * @return the options of the configuration.
+     */
+    private static Map<String, String> parse(final String config) {
+        final Map<String, String> options = new HashMap<>();
+        for (String option : config.split(",")) {
+            final int eq = option.indexOf('=');
+            if (eq > 0) {
+                options.put(option.substring(0, eq).trim(), option.substring(eq + 1).trim());
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Returns the heap memory pools of the virtual machine.
+     *
+     * @return the heap memory pools.
+     */
+    private static List<MemoryPoolMXBean> heap() {
+        final List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Solves a problem and measures the time, the peak heap memory and the length of the plan. The peak heap
+     * memory is the sum of the peaks of the heap pools since the beginning of the run, minus the heap used
+     * before the run, so it is an upper bound of the memory used by the planner.
+     *
+     * @param config  the configuration of the planner.
+     * @param domain  the domain file.
+     * @param problem the problem file.
+     * @return the status, the time in ms, the memory in MB and the length of the plan.
+     */
+    private String[] run(final Map<String, String> config, final File domain, final File problem) {
+        final List<MemoryPoolMXBean> pools = ScalingBenchmark.heap();
+        System.gc();
+        long before = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+            before += pool.getUsage().getUsed();
+        }
+        final long begin = System.currentTimeMillis();
+        final ExecutorService solver = Executors.newSingleThreadExecutor();
+        String status;
+        int length = 0;
+        try {
+            final AbstractPlanner planner = PlanningServer.createPlanner(config);
+            planner.setTimeout(this.timeout);
+            final Future<Integer> future = solver.submit(() -> {
+                final DefaultParsedProblem parsed = planner.parse(domain.getPath(), problem.getPath());
+                if (parsed == null || !planner.getParserErrorManager().isEmpty()) {
+                    return -2;
+                }
+                final Problem pb = planner.instantiate(parsed);
+                final Plan plan = planner.solve(pb);
+                return plan == null ? -1 : plan.size();
+            });
+            final int result = future.get(this.timeout + TIMEOUT_GRACE, TimeUnit.SECONDS);
+            if (result == -2) {
+                status = BatchSolver.Status.PARSE_ERROR.toString();
+            } else if (result == -1) {
+                status = System.currentTimeMillis() - begin >= this.timeout * 1000L
+                    ? BatchSolver.Status.TIMEOUT.toString() : BatchSolver.Status.FAILED.toString();
+            } else {
+                status = BatchSolver.Status.SOLVED.toString();
+                length = result;
+            }
+        } catch (TimeoutException e) {
+            status = BatchSolver.Status.TIMEOUT.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = BatchSolver.Status.ERROR.toString();
+        } catch (ExecutionException | IllegalArgumentException e) {
+            LOGGER.error("* {} failed: {}\n", problem, e.getMessage());
+            status = BatchSolver.Status.ERROR.toString();
+        } finally {
+            solver.shutdownNow();
+        }
+        final long time = System.currentTimeMillis() - begin;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        final long memory = Math.max(0, peak - before) / (1024 * 1024);
+        return new String[] {status, Long.toString(time), Long.toString(memory), Integer.toString(length)};
+    }
+
+    /**
+     * Runs the benchmark and logs the cliff of each domain and configuration.
+     *
+     * @return the exit code.
+     * @throws IOException if a problem or the CSV file cannot be written.
+     */
+    @Override
+    public Integer call() throws IOException {
+        final List<String> cliffs = new ArrayList<>();
+        try (ResultSink sink = new ResultSink(this.output, 4, HEADER)) {
+            for (ProblemGenerator.Domain domain : this.domains) {
+                final File domainFile = new File(this.pddl, ProblemGenerator.domainFile(domain));
+                final File dir = new File(new File(this.pddl, "generated"), domain.name().toLowerCase());
+                for (String config : this.configs) {
+                    final Map<String, String> options = ScalingBenchmark.parse(config);
+                    final String description = PlanningServer.describe(options);
+                    int cliff = -1;
+                    for (int size : this.sizes) {
+                        int solved = 0;
+                        for (int seed = 0; seed < this.seeds; seed++) {
+                            final String[] key = {domain.name().toLowerCase(), Integer.toString(size),
+                                Integer.toString(seed), description};
+                            List<String> row = sink.get(key);
+                            if (row == null) {
+                                final File problem = ProblemGenerator.write(domain, size, seed, dir);
+                                final String[] measures = this.run(options, domainFile, problem);
+                                final String[] values = new String[HEADER.length];
+                                System.arraycopy(key, 0, values, 0, key.length);
+                                System.arraycopy(measures, 0, values, key.length, measures.length);
+                                sink.write(values);
+                                row = List.of(values);
+                                LOGGER.info("* {} size {} seed {} [{}]: {} in {} ms, {} MB, {} actions\n",
+                                    key[0], size, seed, description, measures[0], measures[1], measures[2],
+                                    measures[3]);
+                            }
+                            if (BatchSolver.Status.SOLVED.toString().equals(row.get(4))) {
+                                solved++;
+                            }
+                        }
+                        if (solved == 0) {
+                            cliff = size;
+                            break;
+                        }
+                    }
+                    cliffs.add(domain.name().toLowerCase() + " [" + description + "]: "
+                        + (cliff < 0 ? "no cliff up to size " + this.sizes.get(this.sizes.size() - 1)
+                        : "cliff at size " + cliff));
+                }
+            }
+        }
+        for (String cliff : cliffs) {
+            LOGGER.info("* {}\n", cliff);
+        }
+        return 0;
+    }
+
+    /**
+     * The main method of the scaling benchmark.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final CommandLine cmd = new CommandLine(new ScalingBenchmark());
+            cmd.setCaseInsensitiveEnumValuesAllowed(true);
+            System.exit(cmd.execute(args));
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package fr.uga.pddl4j.examples.asp;
+
+/**
+ * This class implements an event of the progress of a search, published by a {@link ProgressMonitor}. The
+ * rate is the number of expansions per second for the searches of <code>ASP</code> and the number of random
+ * walks per second for <code>MCP</code>, since the previous event.
+ *
+ * @author Thomas FORET and Mohamed Taha MAATA
+ */
+public final class SearchProgress {
+
+    /**
+     * The time in ms since the beginning of the search.
+     */
+    private final long elapsed;
+
+    /**
+     * The best heuristic value so far.
+     */
+    private final double bestHeuristic;
+
+    /**
+     * The number of expansions or random walks per second.
+     */
+    private final double rate;
+
+    /**
+     * The number of restarts so far.
+     */
+    private final int restarts;
+
+    /**
+     * The length of the best plan found so far or -1.
+     */
+    private final int incumbentLength;
+
+    /**
+     * Whether the search is over.
+     */
+    private final boolean done;
+
+    /**
+     * Creates a progress event.
+     *
+     * @param elapsed         the time in ms since the beginning of the search.
+     * @param bestHeuristic   the best heuristic value so far.
+     * @param rate            the number of expansions or random walks per second.
+     * @param restarts        the number of restarts so far.
+     * @param incumbentLength the length of the best plan found so far or -1.
+     * @param done            whether the search is over.
+     */
+    public SearchProgress(final long elapsed, final double bestHeuristic, final double rate, final int restarts,
+                          final int incumbentLength, final boolean done) {
+        this.elapsed = elapsed;
+        this.bestHeuristic = bestHeuristic;
+        this.rate = rate;
+        this.restarts = restarts;
+        this.incumbentLength = incumbentLength;
+        this.done = done;
+    }
+
+    /**
+     * Returns the time in ms since the beginning of the search.
+     *
+     * @return the time in ms since the beginning of the search.
+     */
+    public long getElapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * Returns the best heuristic value so far.
+     *
+     * @return the best heuristic value so far, <code>Double.MAX_VALUE</code> if no state was evaluated.
+     */
+    public double getBestHeuristic() {
+        return this.bestHeuristic;
+    }
+
+    /**
+     * Returns the number of expansions or random walks per second since the previous event.
+     *
+     * @return the number of expansions or random walks per second.
+     */
+    public double getRate() {
+        return this.rate;
+    }
+
+    /**
+     * Returns the number of restarts so far.
+     *
+     * @return the number of restarts so far.
+     */
+    public int getRestarts() {
+        return this.restarts;
+    }
+
+    /**
+     * Returns the length of the best plan found so far.
+     *
+     * @return the length of the best plan found so far or -1 if no plan was found.
+     */
+    public int getIncumbentLength() {
+        return this.incumbentLength;
+    }
+
+    /**
+     * Returns whether the search is over. The last event of a search is the only one that is done.
+     *
+     * @return <code>true</code> if the search is over, <code>false</code> otherwise.
+     */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Returns a string representation of the event.
+     *
+     * @return a string representation of the event.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d ms: h=%s, %.0f/s, %d restarts, incumbent %d%s", this.elapsed,
+            this.bestHeuristic == Double.MAX_VALUE ? "-" : Double.toString(this.bestHeuristic), this.rate,
+            this.restarts, this.incumbentLength, this.done ? ", done" : "");
+    }
+}
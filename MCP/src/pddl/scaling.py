@@ -0,0 +1,45 @@
+import sys
+
+import pandas as pd
+import matplotlib.pyplot as plt
+
+# Plots the results of ScalingBenchmark: for each domain, the time, the peak memory and the plan length
+# against the size of the problems, one line per configuration. The values are the means over the seeds
+# solved; the cliff of a configuration, the first size where no seed is solved, is marked with a cross.
+
+def plot_domain(data, domain_name):
+    domain_data = data[data['domain'] == domain_name]
+    figure, axes = plt.subplots(1, 3, figsize=(15, 4))
+    measures = [("time", "Resolution time (ms)"), ("memory", "Peak heap memory (MB)"), ("length", "Plan length")]
+
+    for config in domain_data['config'].unique():
+        config_data = domain_data[domain_data['config'] == config]
+        solved = config_data[config_data['status'] == "SOLVED"]
+        means = solved.groupby('size')[['time', 'memory', 'length']].mean()
+        sizes = config_data.groupby('size')['status'].apply(lambda s: (s == "SOLVED").any())
+        cliff = sizes[~sizes].index.min() if (~sizes).any() else None
+        print(f"{domain_name} [{config}]: " + (f"cliff at size {cliff}" if cliff is not None else "no cliff"))
+
+        for ax, (column, label) in zip(axes, measures):
+            line, = ax.plot(means.index, means[column], marker="o", label=config)
+            if cliff is not None and column == "time":
+                ax.plot([cliff], [config_data['time'].max()], marker="x", markersize=10, color=line.get_color())
+
+    for ax, (column, label) in zip(axes, measures):
+        ax.set_xlabel("Size (objects moved)")
+        ax.set_ylabel(label)
+        if column == "time":
+            ax.set_yscale("log")
+    axes[0].legend()
+    figure.suptitle(f"Scaling of the planners in {domain_name}")
+    figure.tight_layout()
+    figure.savefig(f"graphScaling{domain_name.capitalize()}.png")
+
+
+file = sys.argv[1] if len(sys.argv) > 1 else "scaling.csv"
+print(f"Data read from {file}:")
+data = pd.read_csv(file, on_bad_lines="skip")
+print(data.head())
+
+for domain_name in data['domain'].unique():
+    plot_domain(data, domain_name)